@@ -6,9 +6,11 @@
 package com.github.ucchyocean.lc3;
 
 import com.github.ucchyocean.lc3.channel.Channel;
+import com.github.ucchyocean.lc3.channel.ChannelManager;
 
 /**
- * 各チャンネルの期限付きBANや期限付きMuteを、1分間隔で確認しに行くタスク
+ * 各チャンネルの期限付きBANや期限付きMuteと、
+ * 発言のない1:1チャットを、1分間隔で確認しに行くタスク
  * @author ucchy
  */
 public class ExpireCheckTask implements Runnable {
@@ -22,5 +24,10 @@ public class ExpireCheckTask implements Runnable {
         for ( Channel channel : LunaChat.getAPI().getChannels() ) {
             channel.checkExpires();
         }
+
+        LunaChatAPI api = LunaChat.getAPI();
+        if ( api instanceof ChannelManager ) {
+            ((ChannelManager)api).removeIdlePersonalChats();
+        }
     }
 }
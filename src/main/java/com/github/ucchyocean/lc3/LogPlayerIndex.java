@@ -0,0 +1,447 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ログファイルの、発言者ごとの行の位置を記録した索引。
+ * ログファイルと同じフォルダに「ログファイル名.idx」として保存される。
+ * 索引を作った後にログファイルへ追記された部分は、次に検索するときに索引へ追加され、
+ * 索引ファイルにも追加した分だけが追記される。開いた索引は、ログファイルごとにキャッシュされる。
+ * <pre>
+ * 1行目 : v2
+ * 以降   : { 発言者(TAB)行の開始位置,... }... #索引に含まれている長さ
+ * </pre>
+ * 「#」で始まる行までが、1回の追記の単位になる。
+ * @author ucchy
+ */
+class LogPlayerIndex {
+
+    private static final String SUFFIX = ".idx";
+    private static final String FORMAT_VERSION = "v2";
+    private static final int BLOCK_SIZE = 8192;
+
+    /** キャッシュしておく索引の最大数 */
+    private static final int MAX_CACHED = 16;
+
+    /** 索引ファイルへの追記がこの回数を超えたら、まとめて書き直す */
+    private static final int MAX_APPENDS = 64;
+
+    /** 開いた索引のキャッシュ（ログファイル → 索引） */
+    private static final LinkedHashMap<File, LogPlayerIndex> CACHE =
+            new LinkedHashMap<File, LogPlayerIndex>(MAX_CACHED, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, LogPlayerIndex> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    private File logFile;
+    private File indexFile;
+
+    /** 索引に含まれている、ログファイルの先頭からの長さ */
+    private long indexedLength;
+
+    /** 発言者 → 行の開始位置 */
+    private LinkedHashMap<String, Offsets> offsets;
+
+    /** 索引ファイルに追記された回数 */
+    private int appends;
+
+    /** 索引ファイルを、追記ではなく全て書き直す必要があるかどうか */
+    private boolean rewrite;
+
+    /**
+     * コンストラクタ
+     * @param logFile ログファイル
+     */
+    private LogPlayerIndex(File logFile) {
+        this.logFile = logFile;
+        this.indexFile = new File(logFile.getParentFile(), logFile.getName() + SUFFIX);
+        this.offsets = new LinkedHashMap<String, Offsets>();
+    }
+
+    /**
+     * ログファイルの索引を取得し、追記された部分があれば索引に追加して返す
+     * @param logFile ログファイル
+     * @return 索引
+     * @throws IOException 読み込みや書き込みに失敗した場合
+     */
+    static synchronized LogPlayerIndex open(File logFile) throws IOException {
+
+        LogPlayerIndex index = CACHE.get(logFile);
+        if ( index == null ) {
+            index = new LogPlayerIndex(logFile);
+            index.load();
+            CACHE.put(logFile, index);
+        }
+        index.refresh();
+        return index;
+    }
+
+    /**
+     * 発言者名に指定した文字列を含む行を、新しい順に検索する
+     * @param player 発言者名に含まれる文字列
+     * @param filter 発言内容に含まれる文字列、絞り込まないならnull
+     * @param offset 読み飛ばす件数
+     * @param limit 取得する最大件数
+     * @return 該当する行（新しい順）
+     * @throws IOException 読み込みに失敗した場合
+     */
+    List<String> query(String player, String filter, int offset, int limit) throws IOException {
+
+        // 該当する発言者の行の位置を集めて、並べ替える。
+        // 索引はopen()で更新されるので、同じロックで集める。
+        Offsets matched = new Offsets();
+        synchronized ( LogPlayerIndex.class ) {
+            for ( String name : offsets.keySet() ) {
+                if ( name.contains(player) ) {
+                    matched.addAll(offsets.get(name));
+                }
+            }
+        }
+        long[] positions = matched.toSortedArray();
+
+        ArrayList<String> result = new ArrayList<String>();
+        int skipped = 0;
+        try ( FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ) ) {
+            for ( int i = positions.length - 1; i >= 0 && result.size() < limit; i-- ) {
+                String line = readLineAt(channel, positions[i]);
+                if ( !LunaChatLogger.matches(line, player, filter) ) {
+                    continue;
+                }
+                if ( skipped < offset ) {
+                    skipped++;
+                    continue;
+                }
+                result.add(line);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * ログファイルに追記された部分を索引に追加して、索引ファイルに追記する
+     * @throws IOException 読み込みや書き込みに失敗した場合
+     */
+    private void refresh() throws IOException {
+
+        // ログファイルが作り直されていたら、索引も作り直す
+        long length = logFile.length();
+        if ( indexedLength > length ) {
+            indexedLength = 0;
+            offsets.clear();
+            rewrite = true;
+        }
+
+        LinkedHashMap<String, Offsets> added = new LinkedHashMap<String, Offsets>();
+        if ( indexedLength < length ) {
+            try {
+                update(added);
+            } catch (IOException e) {
+                // 途中まで索引に追加されているので、次は書き直す
+                rewrite = true;
+                throw e;
+            }
+        }
+
+        if ( rewrite || appends >= MAX_APPENDS ) {
+            save();
+        } else if ( !added.isEmpty() ) {
+            append(added);
+        }
+    }
+
+    /**
+     * 索引ファイルを読み込む
+     */
+    private void load() {
+
+        if ( !indexFile.exists() ) {
+            rewrite = true;
+            return;
+        }
+
+        try ( BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(indexFile), StandardCharsets.UTF_8)) ) {
+
+            String line = reader.readLine();
+            if ( line == null ) {
+                rewrite = true;
+                return;
+            }
+
+            if ( !line.equals(FORMAT_VERSION) ) {
+                // 追記に対応する前の形式なら、読み込んでから新しい形式で書き直す
+                long length = Long.parseLong(line.trim());
+                while ( (line = reader.readLine()) != null ) {
+                    readEntry(line, offsets);
+                }
+                indexedLength = length;
+                rewrite = true;
+                return;
+            }
+
+            // 「#」の行まで読み込めた追記だけを、索引に加える
+            LinkedHashMap<String, Offsets> block = new LinkedHashMap<String, Offsets>();
+            while ( (line = reader.readLine()) != null ) {
+                if ( line.startsWith("#") && line.indexOf('\t') < 0 ) {
+                    indexedLength = Long.parseLong(line.substring(1).trim());
+                    merge(block);
+                    block.clear();
+                    appends++;
+                } else {
+                    readEntry(line, block);
+                }
+            }
+            if ( !block.isEmpty() ) {
+                // 書き込み途中で終わっている追記があるので、書き直す
+                rewrite = true;
+            }
+
+        } catch (IOException | NumberFormatException e) {
+            // 壊れている場合は、作り直す
+            indexedLength = 0;
+            offsets.clear();
+            rewrite = true;
+        }
+    }
+
+    /**
+     * 索引ファイルの1行を読み込む
+     * @param line 行（発言者(TAB)行の開始位置,...）
+     * @param target 読み込み先
+     */
+    private static void readEntry(String line, Map<String, Offsets> target) {
+        int tab = line.indexOf('\t');
+        if ( tab < 0 ) {
+            return;
+        }
+        String name = line.substring(0, tab);
+        Offsets list = target.get(name);
+        if ( list == null ) {
+            list = new Offsets();
+            target.put(name, list);
+        }
+        for ( String value : line.substring(tab + 1).split(",") ) {
+            if ( value.length() > 0 ) {
+                list.add(Long.parseLong(value));
+            }
+        }
+    }
+
+    /**
+     * 読み込んだ行の位置を、索引に加える
+     * @param block 行の位置
+     */
+    private void merge(Map<String, Offsets> block) {
+        for ( Map.Entry<String, Offsets> entry : block.entrySet() ) {
+            Offsets list = offsets.get(entry.getKey());
+            if ( list == null ) {
+                offsets.put(entry.getKey(), entry.getValue());
+            } else {
+                list.addAll(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 索引ファイルを、全て書き直す
+     * @throws IOException 書き込みに失敗した場合
+     */
+    private void save() throws IOException {
+
+        File temp = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+        try ( BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(temp), StandardCharsets.UTF_8)) ) {
+            writer.write(FORMAT_VERSION);
+            writer.write("\n");
+            writeBlock(writer, offsets);
+        }
+        Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        appends = 1;
+        rewrite = false;
+    }
+
+    /**
+     * 索引に追加した分だけを、索引ファイルに追記する
+     * @param added 追加した行の位置
+     * @throws IOException 書き込みに失敗した場合
+     */
+    private void append(Map<String, Offsets> added) throws IOException {
+
+        try ( BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(indexFile, true), StandardCharsets.UTF_8)) ) {
+            writeBlock(writer, added);
+        } catch (IOException e) {
+            // 途中まで書き込まれた可能性があるので、次は書き直す
+            rewrite = true;
+            throw e;
+        }
+        appends++;
+    }
+
+    /**
+     * 行の位置と、索引に含まれている長さを書き込む
+     * @param writer 書き込み先
+     * @param entries 行の位置
+     * @throws IOException 書き込みに失敗した場合
+     */
+    private void writeBlock(BufferedWriter writer, Map<String, Offsets> entries) throws IOException {
+        for ( Map.Entry<String, Offsets> entry : entries.entrySet() ) {
+            writer.write(entry.getKey());
+            writer.write("\t");
+            Offsets list = entry.getValue();
+            for ( int i = 0; i < list.size; i++ ) {
+                if ( i > 0 ) writer.write(",");
+                writer.write(Long.toString(list.values[i]));
+            }
+            writer.write("\n");
+        }
+        writer.write("#");
+        writer.write(Long.toString(indexedLength));
+        writer.write("\n");
+    }
+
+    /**
+     * 索引に含まれていない部分のログファイルを読み込んで、索引に追加する。
+     * 改行で終わっていない最後の行は、書き込み途中の可能性があるので、追加しない。
+     * @param added 追加した行の位置を格納する
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private void update(Map<String, Offsets> added) throws IOException {
+
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE);
+
+        try ( FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ) ) {
+
+            long position = indexedLength;
+            long lineStart = indexedLength;
+            int read;
+            while ( (read = channel.read(buffer, position)) > 0 ) {
+                byte[] bytes = buffer.array();
+                for ( int i = 0; i < read; i++ ) {
+                    if ( bytes[i] != '\n' ) {
+                        line.write(bytes[i]);
+                        continue;
+                    }
+                    String text = new String(line.toByteArray(), StandardCharsets.UTF_8).trim();
+                    String player = LunaChatLogger.getPlayerField(text);
+                    if ( player != null ) {
+                        add(offsets, player, lineStart);
+                        add(added, player, lineStart);
+                    }
+                    line.reset();
+                    lineStart = position + i + 1;
+                    indexedLength = lineStart;
+                }
+                position += read;
+                buffer.clear();
+            }
+        }
+    }
+
+    /**
+     * 発言者の行の位置を追加する
+     */
+    private static void add(Map<String, Offsets> target, String player, long position) {
+        Offsets list = target.get(player);
+        if ( list == null ) {
+            list = new Offsets();
+            target.put(player, list);
+        }
+        list.add(position);
+    }
+
+    /**
+     * 指定した位置から1行を読み込む
+     * @param channel ファイル
+     * @param position 行の開始位置
+     * @return 行
+     * @throws IOException 読み込みに失敗した場合
+     */
+    static String readLineAt(FileChannel channel, long position) throws IOException {
+
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        int read;
+        while ( (read = channel.read(buffer, position)) > 0 ) {
+            byte[] bytes = buffer.array();
+            for ( int i = 0; i < read; i++ ) {
+                if ( bytes[i] == '\n' ) {
+                    return new String(line.toByteArray(), StandardCharsets.UTF_8).trim();
+                }
+                line.write(bytes[i]);
+            }
+            position += read;
+            buffer.clear();
+        }
+        return new String(line.toByteArray(), StandardCharsets.UTF_8).trim();
+    }
+
+    /**
+     * 行の位置のリスト
+     * @author ucchy
+     */
+    private static class Offsets {
+
+        private long[] values = new long[16];
+        private int size;
+
+        /**
+         * 位置を追加する
+         * @param value 位置
+         */
+        void add(long value) {
+            if ( size == values.length ) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * 他のリストの位置を、全て追加する
+         * @param other 他のリスト
+         */
+        void addAll(Offsets other) {
+            for ( int i = 0; i < other.size; i++ ) {
+                add(other.values[i]);
+            }
+        }
+
+        /**
+         * 並べ替えた配列を返す
+         * @return 配列
+         */
+        long[] toSortedArray() {
+            long[] result = Arrays.copyOf(values, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,1146 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.ucchyocean.lc3.util.ReverseLineReader;
+
+/**
+ * チャットログの全文検索用の索引。
+ * 発言内容を単語（日本語は1文字と2文字のN-gram）に分け、単語からログファイル上の行の位置を引けるようにする。
+ * 索引は、日付ごとのログフォルダの下の「index」フォルダに、セグメントファイルとして保存される。
+ * セグメントは書き込みスレッドが追記した分だけ作られ、一定数たまるとバックグラウンドで1つにまとめられる。
+ * 書き出し前の索引も、検索時にセグメントと合わせて参照される。
+ * 索引に含まれていないログの範囲は、検索時に直接読み込まれ、後からバックグラウンドで索引に追加される。
+ * @author ucchy
+ */
+class LogSearchIndex {
+
+    private static final int MAGIC = 0x4C43534C;
+    private static final int VERSION = 1;
+
+    private static final String INDEX_FOLDER = "index";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String LOG_SUFFIX = ".log";
+
+    /** 書き込み待ちの索引が、この件数に達したらセグメントを書き出す */
+    private static final int SEGMENT_POSTINGS = 50000;
+
+    /** 書き込み待ちの索引を、この時間が経ったらセグメントに書き出す（ミリ秒） */
+    private static final long SEGMENT_INTERVAL_MILLIS = 60000;
+
+    /** セグメントがこの数を超えたら、まとめる */
+    private static final int COMPACT_SEGMENTS = 8;
+
+    /** 1つの単語の最大長 */
+    private static final int MAX_TERM_LENGTH = 64;
+
+    /** 索引を使わずに検索する場合に、1回の検索で読み込む最大行数 */
+    private static final int MAX_SCAN_LINES = 200000;
+
+    private static final DateTimeFormatter FOLDER_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    /** ログフォルダ（この下に日付ごとのフォルダがある） */
+    private final File logFolder;
+
+    /** 書き込み待ちの索引（書き込みスレッドが変更し、検索時に参照される。pendingのロックで保護する） */
+    private final LinkedHashMap<String, SegmentBuilder> pending;
+
+    /** まとめる処理を実行するスレッド */
+    private final ExecutorService executor;
+
+    /** まとめる処理を予約済みのフォルダ */
+    private final Set<File> scheduled;
+
+    /**
+     * コンストラクタ
+     * @param logFolder ログフォルダ
+     */
+    LogSearchIndex(File logFolder) {
+        this.logFolder = logFolder;
+        this.pending = new LinkedHashMap<String, SegmentBuilder>();
+        this.scheduled = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+        this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "LunaChat-LogIndexer");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * 書き込んだログの行を、書き込み待ちの索引に追加する。書き込みスレッドから呼び出すこと。
+     * @param date ログフォルダの日付
+     * @param name ログ名
+     * @param start 行の開始位置
+     * @param end 次の行の開始位置
+     * @param message 発言内容
+     */
+    void add(String date, String name, long start, long end, String message) {
+        Set<String> tokens = tokenize(message);
+        synchronized ( pending ) {
+            SegmentBuilder builder = pending.get(date);
+            if ( builder == null ) {
+                builder = new SegmentBuilder();
+                pending.put(date, builder);
+            }
+            builder.add(name, start, end, tokens);
+        }
+    }
+
+    /**
+     * 書き込み待ちの索引を、セグメントファイルに書き出す。書き込みスレッドから呼び出すこと。
+     * @param force 件数や経過時間に関わらず書き出すかどうか
+     */
+    void writePending(boolean force) {
+
+        // 書き出す分だけ取り出して、書き出している間は検索を止めないようにする。
+        // 書き出し中の範囲は、検索時には索引に含まれていない範囲として直接読み込まれる。
+        long now = System.currentTimeMillis();
+        Map<String, SegmentBuilder> targets = new LinkedHashMap<String, SegmentBuilder>();
+        synchronized ( pending ) {
+            Iterator<Map.Entry<String, SegmentBuilder>> it = pending.entrySet().iterator();
+            while ( it.hasNext() ) {
+                Map.Entry<String, SegmentBuilder> entry = it.next();
+                SegmentBuilder builder = entry.getValue();
+                if ( !force && builder.size < SEGMENT_POSTINGS
+                        && now - builder.created < SEGMENT_INTERVAL_MILLIS ) {
+                    continue;
+                }
+                it.remove();
+                targets.put(entry.getKey(), builder);
+            }
+        }
+
+        for ( Map.Entry<String, SegmentBuilder> entry : targets.entrySet() ) {
+            SegmentBuilder builder = entry.getValue();
+            File dayFolder = new File(logFolder, entry.getKey());
+            try {
+                builder.write(dayFolder);
+            } catch (IOException e) {
+                e.printStackTrace();
+                continue;
+            }
+            if ( listSegments(dayFolder).length > COMPACT_SEGMENTS ) {
+                scheduleCompaction(dayFolder);
+            }
+        }
+    }
+
+    /**
+     * まとめる処理のスレッドを停止する。実行中の処理は、中断せずにバックグラウンドで終わらせる。
+     */
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 指定された期間のログから、全ての検索語を含む行を新しい順に検索する。
+     * 書き込みスレッドがまだファイルに書き出していない行は、検索されない。
+     * @param name ログ名
+     * @param terms 検索語
+     * @param player 発言者名に含まれる文字列、絞り込まないならnull
+     * @param filter 発言内容に含まれる文字列、絞り込まないならnull
+     * @param from 開始日
+     * @param to 終了日
+     * @param offset 新しい方から読み飛ばす件数
+     * @param limit 取得する最大件数
+     * @return 該当する行（新しい順）
+     */
+    List<String> search(String name, List<String> terms, String player, String filter,
+            LocalDate from, LocalDate to, int offset, int limit) {
+
+        // 索引で絞り込める検索語の、単語をまとめる
+        List<Set<String>> termTokens = new ArrayList<Set<String>>();
+        TreeSet<String> tokens = new TreeSet<String>();
+        for ( String term : terms ) {
+            Set<String> t = tokenize(term);
+            if ( !t.isEmpty() ) {
+                termTokens.add(t);
+                tokens.addAll(t);
+            }
+        }
+
+        ArrayList<String> result = new ArrayList<String>();
+        int[] skipped = new int[1];
+        int[] scanned = new int[1];
+        for ( LocalDate date = to; !date.isBefore(from) && result.size() < limit;
+                date = date.minusDays(1) ) {
+
+            String day = FOLDER_FORMAT.format(date);
+            File dayFolder = new File(logFolder, day);
+            File file = new File(dayFolder, name + LOG_SUFFIX);
+            if ( !file.exists() ) {
+                continue;
+            }
+
+            try {
+                if ( termTokens.isEmpty() ) {
+                    // 索引を使えない検索は、長い期間を指定されても読み込む行数で打ち切る
+                    if ( scanned[0] >= MAX_SCAN_LINES ) {
+                        break;
+                    }
+                    searchByScan(file, terms, player, filter, skipped, scanned, offset, limit, result);
+                } else {
+                    searchByIndex(day, dayFolder, file, name, termTokens, tokens,
+                            terms, player, filter, skipped, offset, limit, result);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 1日分のログを、索引を使って検索する
+     */
+    private void searchByIndex(String day, File dayFolder, File file, String name,
+            List<Set<String>> termTokens, TreeSet<String> tokens,
+            List<String> terms, String player, String filter,
+            int[] skipped, int offset, int limit, List<String> result) throws IOException {
+
+        DayIndex index = readDay(dayFolder, name, tokens);
+        readPending(day, name, tokens, index);
+        index.ranges = coalesce(index.ranges);
+
+        // 全ての検索語の単語を含む行の位置を求める
+        TreeSet<Long> candidates = null;
+        for ( Set<String> t : termTokens ) {
+            for ( String token : t ) {
+                Set<Long> postings = index.postings.get(token);
+                if ( postings == null ) {
+                    candidates = new TreeSet<Long>();
+                    break;
+                }
+                if ( candidates == null ) {
+                    candidates = new TreeSet<Long>(postings);
+                } else {
+                    candidates.retainAll(postings);
+                }
+            }
+            if ( candidates.isEmpty() ) {
+                break;
+            }
+        }
+
+        try ( FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ) ) {
+
+            // 書き出し前の索引には、まだファイルに書き込まれていない行も含まれるので、
+            // ファイルに書き込み済みの、最後の完全な行までを検索する
+            long size = getCompleteLength(channel);
+            candidates.tailSet(size).clear();
+
+            // 索引に含まれていない範囲は、直接読み込んで候補に加える
+            final TreeSet<Long> found = candidates;
+            List<long[]> gaps = getGaps(index.ranges, size);
+            for ( long[] gap : gaps ) {
+                scanLines(channel, gap[0], gap[1], new LineVisitor() {
+                    @Override
+                    public void visit(long start, long end, String line) {
+                        found.add(start);
+                    }
+                });
+            }
+            if ( !gaps.isEmpty() ) {
+                scheduleCompaction(dayFolder);
+            }
+
+            for ( Iterator<Long> it = found.descendingIterator(); it.hasNext() && result.size() < limit; ) {
+                String line = LogPlayerIndex.readLineAt(channel, it.next());
+                if ( !matches(line, terms, player, filter) ) {
+                    continue;
+                }
+                if ( skipped[0] < offset ) {
+                    skipped[0]++;
+                    continue;
+                }
+                result.add(line);
+            }
+        }
+    }
+
+    /**
+     * 1日分のログを、索引を使わずに新しい行から読み込んで検索する
+     */
+    private static void searchByScan(File file, List<String> terms, String player, String filter,
+            int[] skipped, int[] scanned, int offset, int limit, List<String> result) throws IOException {
+
+        try ( ReverseLineReader reader = new ReverseLineReader(file) ) {
+            String line;
+            while ( result.size() < limit && scanned[0] < MAX_SCAN_LINES
+                    && (line = reader.readLine()) != null ) {
+                scanned[0]++;
+                line = line.trim();
+                if ( line.length() == 0 || !matches(line, terms, player, filter) ) {
+                    continue;
+                }
+                if ( skipped[0] < offset ) {
+                    skipped[0]++;
+                    continue;
+                }
+                result.add(line);
+            }
+        }
+    }
+
+    /**
+     * ログの行が、検索条件に一致するかどうかを返す
+     * @param line ログの行
+     * @param terms 検索語
+     * @param player 発言者名に含まれる文字列、絞り込まないならnull
+     * @param filter 発言内容に含まれる文字列、絞り込まないならnull
+     * @return 一致するかどうか
+     */
+    static boolean matches(String line, List<String> terms, String player, String filter) {
+
+        if ( !LunaChatLogger.matches(line, player, filter) ) {
+            return false;
+        }
+        if ( terms.isEmpty() ) {
+            return true;
+        }
+
+        String message = LunaChatLogger.getMessageField(line);
+        if ( message == null ) {
+            return false;
+        }
+        String normalized = normalize(message);
+        Set<String> tokens = tokenize(message);
+        for ( String term : terms ) {
+            if ( !normalized.contains(normalize(term)) || !tokens.containsAll(tokenize(term)) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 文字列を、索引の単語に分ける。
+     * 英数字は連続した部分を1つの単語とし、漢字、ひらがな、カタカナは1文字と2文字のN-gramにする。
+     * @param text 文字列
+     * @return 単語
+     */
+    static Set<String> tokenize(String text) {
+
+        LinkedHashSet<String> tokens = new LinkedHashSet<String>();
+        if ( text == null ) {
+            return tokens;
+        }
+
+        String normalized = normalize(text);
+        StringBuilder word = new StringBuilder();
+        int prevCjk = -1;
+        for ( int i = 0; i < normalized.length(); ) {
+            int cp = normalized.codePointAt(i);
+            i += Character.charCount(cp);
+
+            if ( isCjk(cp) ) {
+                addWord(tokens, word);
+                String current = new String(Character.toChars(cp));
+                tokens.add(current);
+                if ( prevCjk >= 0 ) {
+                    tokens.add(new String(Character.toChars(prevCjk)) + current);
+                }
+                prevCjk = cp;
+            } else if ( Character.isLetterOrDigit(cp) ) {
+                word.appendCodePoint(cp);
+                prevCjk = -1;
+            } else {
+                addWord(tokens, word);
+                prevCjk = -1;
+            }
+        }
+        addWord(tokens, word);
+        return tokens;
+    }
+
+    /**
+     * 単語を追加して、バッファを空にする
+     */
+    private static void addWord(Set<String> tokens, StringBuilder word) {
+        if ( word.length() > 0 && word.length() <= MAX_TERM_LENGTH ) {
+            tokens.add(word.toString());
+        }
+        word.setLength(0);
+    }
+
+    /**
+     * 全角半角を揃えて、小文字にする
+     */
+    private static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase();
+    }
+
+    /**
+     * N-gramにする文字（漢字、ひらがな、カタカナ）かどうか
+     */
+    private static boolean isCjk(int cp) {
+        if ( cp == 0x30FC ) {
+            // 長音記号
+            return true;
+        }
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA;
+    }
+
+    /**
+     * 指定された日付フォルダの索引をまとめる処理を、バックグラウンドで実行する
+     * @param dayFolder 日付フォルダ
+     */
+    void scheduleCompaction(final File dayFolder) {
+
+        if ( !scheduled.add(dayFolder) ) {
+            return;
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    scheduled.remove(dayFolder);
+                    try {
+                        compact(dayFolder);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            scheduled.remove(dayFolder);
+        }
+    }
+
+    /**
+     * 日付フォルダの索引に含まれていないログを索引に追加し、全てのセグメントを1つにまとめる
+     * @param dayFolder 日付フォルダ
+     * @throws IOException 読み込みや書き込みに失敗した場合
+     */
+    synchronized void compact(File dayFolder) throws IOException {
+
+        File indexFolder = new File(dayFolder, INDEX_FOLDER);
+
+        // 前回中断された書き出しの残りを削除する
+        File[] temps = indexFolder.listFiles();
+        if ( temps != null ) {
+            for ( File temp : temps ) {
+                if ( temp.getName().endsWith(TEMP_SUFFIX) ) {
+                    temp.delete();
+                }
+            }
+        }
+
+        // 索引に含まれていない範囲を、索引に追加する。
+        // 今日のログの末尾は書き込み中の可能性があるので、書き込みスレッドに任せる。
+        boolean today = dayFolder.getName().equals(FOLDER_FORMAT.format(LocalDate.now()));
+        Map<String, List<long[]>> ranges = readRanges(listSegments(dayFolder));
+        File[] logs = dayFolder.listFiles();
+        if ( logs != null ) {
+            for ( File log : logs ) {
+                String fileName = log.getName();
+                if ( !fileName.endsWith(LOG_SUFFIX) ) {
+                    continue;
+                }
+                String name = fileName.substring(0, fileName.length() - LOG_SUFFIX.length());
+                List<long[]> covered = ranges.get(name);
+                if ( covered == null ) {
+                    covered = new ArrayList<long[]>();
+                }
+                long limit = log.length();
+                if ( today ) {
+                    limit = covered.isEmpty() ? 0 : covered.get(covered.size() - 1)[1];
+                }
+                backfill(dayFolder, log, name, getGaps(covered, limit));
+            }
+        }
+
+        File[] segments = listSegments(dayFolder);
+        if ( segments.length > 1 ) {
+            merge(indexFolder, segments);
+        }
+    }
+
+    /**
+     * ログファイルの指定された範囲を読み込んで、索引に追加する
+     */
+    private static void backfill(final File dayFolder, File log, final String name,
+            List<long[]> gaps) throws IOException {
+
+        if ( gaps.isEmpty() ) {
+            return;
+        }
+
+        final SegmentBuilder[] builder = new SegmentBuilder[] { new SegmentBuilder() };
+        try ( FileChannel channel = FileChannel.open(log.toPath(), StandardOpenOption.READ) ) {
+            for ( long[] gap : gaps ) {
+                scanLines(channel, gap[0], gap[1], new LineVisitor() {
+                    @Override
+                    public void visit(long start, long end, String line) throws IOException {
+                        builder[0].add(name, start, end,
+                                tokenize(LunaChatLogger.getMessageField(line)));
+                        if ( builder[0].size >= SEGMENT_POSTINGS ) {
+                            builder[0].write(dayFolder);
+                            builder[0] = new SegmentBuilder();
+                        }
+                    }
+                });
+            }
+        }
+        if ( !builder[0].ranges.isEmpty() ) {
+            builder[0].write(dayFolder);
+        }
+    }
+
+    /**
+     * 複数のセグメントを、1つのセグメントにまとめる。
+     * 各セグメントの単語は並べ替えて保存されているので、先頭から順に読み込みながらまとめる。
+     */
+    private static void merge(File indexFolder, File[] segments) throws IOException {
+
+        List<SegmentReader> readers = new ArrayList<SegmentReader>();
+        File temp = new File(indexFolder, newSegmentName() + TEMP_SUFFIX);
+        try {
+            LinkedHashMap<String, Integer> names = new LinkedHashMap<String, Integer>();
+            Map<String, List<long[]>> ranges = new LinkedHashMap<String, List<long[]>>();
+            for ( File segment : segments ) {
+                SegmentReader reader = new SegmentReader(segment);
+                readers.add(reader);
+                reader.mapping = new int[reader.names.length];
+                for ( int i = 0; i < reader.names.length; i++ ) {
+                    String name = reader.names[i];
+                    Integer index = names.get(name);
+                    if ( index == null ) {
+                        index = names.size();
+                        names.put(name, index);
+                        ranges.put(name, new ArrayList<long[]>());
+                    }
+                    reader.mapping[i] = index;
+                    ranges.get(name).addAll(reader.ranges[i]);
+                }
+            }
+
+            try ( DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(temp))) ) {
+
+                writeHeader(out, ranges);
+
+                PriorityQueue<SegmentReader> queue = new PriorityQueue<SegmentReader>(
+                        segments.length, new Comparator<SegmentReader>() {
+                    @Override
+                    public int compare(SegmentReader o1, SegmentReader o2) {
+                        return o1.term.compareTo(o2.term);
+                    }
+                });
+                for ( SegmentReader reader : readers ) {
+                    if ( reader.nextTerm() ) {
+                        queue.add(reader);
+                    }
+                }
+
+                List<SegmentReader> same = new ArrayList<SegmentReader>();
+                while ( !queue.isEmpty() ) {
+                    same.clear();
+                    String term = queue.peek().term;
+                    int count = 0;
+                    while ( !queue.isEmpty() && queue.peek().term.equals(term) ) {
+                        SegmentReader reader = queue.poll();
+                        same.add(reader);
+                        count += reader.count;
+                    }
+                    out.writeUTF(term);
+                    out.writeInt(count);
+                    for ( SegmentReader reader : same ) {
+                        reader.copyPostings(out);
+                        if ( reader.nextTerm() ) {
+                            queue.add(reader);
+                        }
+                    }
+                }
+                out.writeUTF("");
+            }
+
+        } finally {
+            for ( SegmentReader reader : readers ) {
+                reader.close();
+            }
+        }
+
+        Files.move(temp.toPath(), new File(indexFolder, temp.getName().substring(
+                0, temp.getName().length() - TEMP_SUFFIX.length())).toPath(),
+                StandardCopyOption.ATOMIC_MOVE);
+        for ( File segment : segments ) {
+            segment.delete();
+        }
+    }
+
+    /**
+     * 書き出し前の索引から、指定したログ名の索引済みの範囲と、指定した単語の行の位置を追加する
+     * @param day 日付フォルダ名
+     * @param name ログ名
+     * @param tokens 単語
+     * @param index 追加先
+     */
+    private void readPending(String day, String name, TreeSet<String> tokens, DayIndex index) {
+
+        synchronized ( pending ) {
+            SegmentBuilder builder = pending.get(day);
+            if ( builder == null ) {
+                return;
+            }
+            Integer nameIndex = builder.names.get(name);
+            if ( nameIndex == null ) {
+                return;
+            }
+            for ( long[] range : builder.ranges.get(name) ) {
+                index.ranges.add(new long[] { range[0], range[1] });
+            }
+            for ( String token : tokens ) {
+                Postings p = builder.postings.get(token);
+                if ( p == null ) {
+                    continue;
+                }
+                Set<Long> postings = index.postings.get(token);
+                if ( postings == null ) {
+                    postings = new TreeSet<Long>();
+                    index.postings.put(token, postings);
+                }
+                for ( int i = 0; i < p.size; i++ ) {
+                    if ( p.names[i] == nameIndex ) {
+                        postings.add(p.offsets[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * ログファイルの、改行で終わっている最後の行までの長さを返す
+     * @param channel ログファイル
+     * @return 長さ
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private static long getCompleteLength(FileChannel channel) throws IOException {
+
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        long end = channel.size();
+        while ( end > 0 ) {
+            long start = Math.max(0, end - buffer.capacity());
+            buffer.clear();
+            buffer.limit((int)(end - start));
+            int read = 0;
+            while ( buffer.hasRemaining() ) {
+                int n = channel.read(buffer, start + read);
+                if ( n <= 0 ) {
+                    break;
+                }
+                read += n;
+            }
+            byte[] bytes = buffer.array();
+            for ( int i = read - 1; i >= 0; i-- ) {
+                if ( bytes[i] == '\n' ) {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    /**
+     * 日付フォルダの索引から、指定したログ名の索引済みの範囲と、指定した単語の行の位置を読み込む。
+     * 読み込み中にセグメントがまとめられた場合は、読み直す。
+     */
+    private static DayIndex readDay(File dayFolder, String name,
+            TreeSet<String> tokens) throws IOException {
+
+        for ( int retry = 0; ; retry++ ) {
+            DayIndex index = new DayIndex();
+            try {
+                for ( File segment : listSegments(dayFolder) ) {
+                    readSegment(segment, name, tokens, index);
+                }
+                index.ranges = coalesce(index.ranges);
+                return index;
+            } catch (FileNotFoundException e) {
+                if ( retry >= 2 ) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * セグメントから、指定したログ名の索引済みの範囲と、指定した単語の行の位置を読み込む
+     */
+    private static void readSegment(File segment, String name, TreeSet<String> tokens,
+            DayIndex index) throws IOException {
+
+        try ( SegmentReader reader = new SegmentReader(segment) ) {
+
+            int nameIndex = Arrays.asList(reader.names).indexOf(name);
+            if ( nameIndex < 0 ) {
+                return;
+            }
+            index.ranges.addAll(reader.ranges[nameIndex]);
+
+            String last = tokens.isEmpty() ? null : tokens.last();
+            while ( last != null && reader.nextTerm() && reader.term.compareTo(last) <= 0 ) {
+                if ( !tokens.contains(reader.term) ) {
+                    reader.skipPostings();
+                    continue;
+                }
+                Set<Long> postings = index.postings.get(reader.term);
+                if ( postings == null ) {
+                    postings = new TreeSet<Long>();
+                    index.postings.put(reader.term, postings);
+                }
+                for ( int i = 0; i < reader.count; i++ ) {
+                    int n = reader.in.readInt();
+                    long offset = reader.in.readLong();
+                    if ( n == nameIndex ) {
+                        postings.add(offset);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * セグメントの見出しから、ログ名ごとの索引済みの範囲を読み込む
+     */
+    private static Map<String, List<long[]>> readRanges(File[] segments) throws IOException {
+
+        Map<String, List<long[]>> ranges = new HashMap<String, List<long[]>>();
+        for ( File segment : segments ) {
+            try ( SegmentReader reader = new SegmentReader(segment) ) {
+                for ( int i = 0; i < reader.names.length; i++ ) {
+                    List<long[]> list = ranges.get(reader.names[i]);
+                    if ( list == null ) {
+                        list = new ArrayList<long[]>();
+                        ranges.put(reader.names[i], list);
+                    }
+                    list.addAll(reader.ranges[i]);
+                }
+            }
+        }
+        for ( Map.Entry<String, List<long[]>> entry : ranges.entrySet() ) {
+            entry.setValue(coalesce(entry.getValue()));
+        }
+        return ranges;
+    }
+
+    /**
+     * 日付フォルダのセグメントファイルを取得する
+     */
+    private static File[] listSegments(File dayFolder) {
+        File[] files = new File(dayFolder, INDEX_FOLDER).listFiles();
+        if ( files == null ) {
+            return new File[0];
+        }
+        List<File> segments = new ArrayList<File>();
+        for ( File file : files ) {
+            if ( file.getName().endsWith(SEGMENT_SUFFIX) ) {
+                segments.add(file);
+            }
+        }
+        Collections.sort(segments);
+        return segments.toArray(new File[segments.size()]);
+    }
+
+    /**
+     * 新しいセグメントファイル名を作成する
+     */
+    private static String newSegmentName() {
+        return String.format("%013d-%06d%s", System.currentTimeMillis(),
+                SEQUENCE.incrementAndGet() % 1000000, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * 範囲を並べ替えて、重なっているものや隣接しているものをまとめる
+     */
+    private static List<long[]> coalesce(List<long[]> ranges) {
+        List<long[]> sorted = new ArrayList<long[]>(ranges);
+        Collections.sort(sorted, new Comparator<long[]>() {
+            @Override
+            public int compare(long[] o1, long[] o2) {
+                return Long.compare(o1[0], o2[0]);
+            }
+        });
+        List<long[]> result = new ArrayList<long[]>();
+        for ( long[] range : sorted ) {
+            long[] last = result.isEmpty() ? null : result.get(result.size() - 1);
+            if ( last != null && range[0] <= last[1] ) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                result.add(new long[] { range[0], range[1] });
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 0からlimitまでのうち、索引済みの範囲に含まれていない範囲を返す
+     */
+    private static List<long[]> getGaps(List<long[]> ranges, long limit) {
+        List<long[]> gaps = new ArrayList<long[]>();
+        long position = 0;
+        for ( long[] range : ranges ) {
+            if ( range[0] > position ) {
+                gaps.add(new long[] { position, Math.min(range[0], limit) });
+            }
+            position = Math.max(position, range[1]);
+            if ( position >= limit ) {
+                break;
+            }
+        }
+        if ( position < limit ) {
+            gaps.add(new long[] { position, limit });
+        }
+        Iterator<long[]> it = gaps.iterator();
+        while ( it.hasNext() ) {
+            long[] gap = it.next();
+            if ( gap[0] >= gap[1] ) {
+                it.remove();
+            }
+        }
+        return gaps;
+    }
+
+    /**
+     * ログファイルの指定された範囲を、行ごとに読み込む。
+     * 改行で終わっていない最後の行は、書き込み途中の可能性があるので、読み込まない。
+     */
+    private static void scanLines(FileChannel channel, long start, long end,
+            LineVisitor visitor) throws IOException {
+
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = start;
+        long lineStart = start;
+        while ( position < end ) {
+            buffer.clear();
+            buffer.limit((int)Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if ( read <= 0 ) {
+                break;
+            }
+            byte[] bytes = buffer.array();
+            for ( int i = 0; i < read; i++ ) {
+                if ( bytes[i] != '\n' ) {
+                    line.write(bytes[i]);
+                    continue;
+                }
+                String text = new String(line.toByteArray(), StandardCharsets.UTF_8).trim();
+                long lineEnd = position + i + 1;
+                if ( text.length() > 0 ) {
+                    visitor.visit(lineStart, lineEnd, text);
+                }
+                line.reset();
+                lineStart = lineEnd;
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * セグメントの見出し（ログ名と索引済みの範囲）を書き込む
+     */
+    private static void writeHeader(DataOutputStream out,
+            Map<String, List<long[]>> ranges) throws IOException {
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(ranges.size());
+        for ( Map.Entry<String, List<long[]>> entry : ranges.entrySet() ) {
+            List<long[]> list = coalesce(entry.getValue());
+            out.writeUTF(entry.getKey());
+            out.writeInt(list.size());
+            for ( long[] range : list ) {
+                out.writeLong(range[0]);
+                out.writeLong(range[1]);
+            }
+        }
+    }
+
+    /**
+     * 行を読み込んだときの処理
+     * @author ucchy
+     */
+    private interface LineVisitor {
+
+        /**
+         * 行を読み込んだときに呼び出される
+         * @param start 行の開始位置
+         * @param end 次の行の開始位置
+         * @param line 行
+         * @throws IOException 処理に失敗した場合
+         */
+        void visit(long start, long end, String line) throws IOException;
+    }
+
+    /**
+     * 1日分の索引の読み込み結果
+     * @author ucchy
+     */
+    private static class DayIndex {
+        private List<long[]> ranges = new ArrayList<long[]>();
+        private Map<String, Set<Long>> postings = new HashMap<String, Set<Long>>();
+    }
+
+    /**
+     * 書き出し前のセグメント
+     * @author ucchy
+     */
+    private static class SegmentBuilder {
+
+        private final long created = System.currentTimeMillis();
+        private final LinkedHashMap<String, List<long[]>> ranges = new LinkedHashMap<String, List<long[]>>();
+        private final LinkedHashMap<String, Integer> names = new LinkedHashMap<String, Integer>();
+        private final TreeMap<String, Postings> postings = new TreeMap<String, Postings>();
+        private int size;
+
+        /**
+         * 行を追加する
+         * @param name ログ名
+         * @param start 行の開始位置
+         * @param end 次の行の開始位置
+         * @param tokens 発言内容の単語
+         */
+        void add(String name, long start, long end, Set<String> tokens) {
+
+            Integer index = names.get(name);
+            List<long[]> list = ranges.get(name);
+            if ( index == null ) {
+                index = names.size();
+                names.put(name, index);
+                list = new ArrayList<long[]>();
+                ranges.put(name, list);
+            }
+
+            long[] last = list.isEmpty() ? null : list.get(list.size() - 1);
+            if ( last != null && last[1] == start ) {
+                last[1] = end;
+            } else {
+                list.add(new long[] { start, end });
+            }
+
+            for ( String token : tokens ) {
+                Postings p = postings.get(token);
+                if ( p == null ) {
+                    p = new Postings();
+                    postings.put(token, p);
+                }
+                p.add(index, start);
+                size++;
+            }
+        }
+
+        /**
+         * セグメントファイルに書き出す
+         * @param dayFolder 日付フォルダ
+         * @throws IOException 書き込みに失敗した場合
+         */
+        void write(File dayFolder) throws IOException {
+
+            File indexFolder = new File(dayFolder, INDEX_FOLDER);
+            if ( !indexFolder.exists() && !indexFolder.mkdirs() && !indexFolder.isDirectory() ) {
+                throw new IOException("Could not create " + indexFolder);
+            }
+
+            String name = newSegmentName();
+            File temp = new File(indexFolder, name + TEMP_SUFFIX);
+            try ( DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(temp))) ) {
+                writeHeader(out, ranges);
+                for ( Map.Entry<String, Postings> entry : postings.entrySet() ) {
+                    Postings p = entry.getValue();
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(p.size);
+                    for ( int i = 0; i < p.size; i++ ) {
+                        out.writeInt(p.names[i]);
+                        out.writeLong(p.offsets[i]);
+                    }
+                }
+                out.writeUTF("");
+            }
+            Files.move(temp.toPath(), new File(indexFolder, name).toPath(),
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * 1つの単語の、ログ名と行の位置のリスト
+     * @author ucchy
+     */
+    private static class Postings {
+
+        private int[] names = new int[4];
+        private long[] offsets = new long[4];
+        private int size;
+
+        /**
+         * 位置を追加する
+         * @param name ログ名の番号
+         * @param offset 行の開始位置
+         */
+        void add(int name, long offset) {
+            if ( size == names.length ) {
+                names = Arrays.copyOf(names, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            names[size] = name;
+            offsets[size] = offset;
+            size++;
+        }
+    }
+
+    /**
+     * セグメントファイルを先頭から読み込むクラス
+     * @author ucchy
+     */
+    private static class SegmentReader implements Closeable {
+
+        private final DataInputStream in;
+        private final String[] names;
+        private final List<long[]>[] ranges;
+
+        /** まとめる先のログ名の番号 */
+        private int[] mapping;
+
+        /** 現在の単語 */
+        private String term;
+
+        /** 現在の単語の位置の数 */
+        private int count;
+
+        /**
+         * コンストラクタ
+         * @param file セグメントファイル
+         * @throws IOException 読み込みに失敗した場合
+         */
+        @SuppressWarnings("unchecked")
+        SegmentReader(File file) throws IOException {
+
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if ( in.readInt() != MAGIC || in.readInt() != VERSION ) {
+                    throw new IOException("Unsupported log index : " + file);
+                }
+                int size = in.readInt();
+                names = new String[size];
+                ranges = new List[size];
+                for ( int i = 0; i < size; i++ ) {
+                    names[i] = in.readUTF();
+                    int count = in.readInt();
+                    ranges[i] = new ArrayList<long[]>(count);
+                    for ( int j = 0; j < count; j++ ) {
+                        ranges[i].add(new long[] { in.readLong(), in.readLong() });
+                    }
+                }
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        /**
+         * 次の単語を読み込む
+         * @return 次の単語があるかどうか
+         * @throws IOException 読み込みに失敗した場合
+         */
+        boolean nextTerm() throws IOException {
+            term = in.readUTF();
+            if ( term.isEmpty() ) {
+                return false;
+            }
+            count = in.readInt();
+            return true;
+        }
+
+        /**
+         * 現在の単語の位置を読み飛ばす
+         * @throws IOException 読み込みに失敗した場合
+         */
+        void skipPostings() throws IOException {
+            long remaining = count * 12L;
+            while ( remaining > 0 ) {
+                int skipped = in.skipBytes((int)Math.min(remaining, Integer.MAX_VALUE));
+                if ( skipped <= 0 ) {
+                    throw new EOFException();
+                }
+                remaining -= skipped;
+            }
+        }
+
+        /**
+         * 現在の単語の位置を、ログ名の番号を付け替えて書き込む
+         * @param out 書き込み先
+         * @throws IOException 読み込みや書き込みに失敗した場合
+         */
+        void copyPostings(DataOutputStream out) throws IOException {
+            for ( int i = 0; i < count; i++ ) {
+                out.writeInt(mapping[in.readInt()]);
+                out.writeLong(in.readLong());
+            }
+        }
+
+        /**
+         * @see java.io.Closeable#close()
+         */
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -73,4 +73,8 @@ public class LunaChat {
     public static void runAsyncTask(Runnable task) {
         instance.runAsyncTask(task);
     }
+
+    public static void runAsyncTask(LunaChatExecutor.Lane lane, Runnable task) {
+        LunaChatExecutor.getInstance().execute(lane, task);
+    }
 }
\ No newline at end of file
@@ -16,6 +16,7 @@ import java.util.logging.Level;
 
 import org.bstats.bukkit.Metrics;
 import org.bukkit.Bukkit;
+import org.bukkit.Location;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
@@ -29,11 +30,14 @@ import com.github.ucchyocean.lc3.bridge.MultiverseCoreBridge;
 import com.github.ucchyocean.lc3.bridge.VaultChatBridge;
 import com.github.ucchyocean.lc3.bukkit.BukkitEventListener;
 import com.github.ucchyocean.lc3.bukkit.BukkitEventSender;
+import com.github.ucchyocean.lc3.bukkit.PlayerLocationGrid;
 import com.github.ucchyocean.lc3.channel.ChannelManager;
 import com.github.ucchyocean.lc3.command.LunaChatCommand;
 import com.github.ucchyocean.lc3.command.LunaChatJapanizeCommand;
 import com.github.ucchyocean.lc3.command.LunaChatMessageCommand;
 import com.github.ucchyocean.lc3.command.LunaChatReplyCommand;
+import com.github.ucchyocean.lc3.japanize.IMEClient;
+import com.github.ucchyocean.lc3.japanize.LocalIME;
 import com.github.ucchyocean.lc3.member.ChannelMember;
 
 /**
@@ -54,6 +58,7 @@ public class LunaChatBukkit extends JavaPlugin implements PluginInterface {
 
     private BukkitTask expireCheckerTask;
     private LunaChatLogger normalChatLogger;
+    private PlayerLocationGrid playerLocationGrid;
 
     private LunaChatCommand lunachatCommand;
     private LunaChatMessageCommand messageCommand;
@@ -90,6 +95,17 @@ public class LunaChatBukkit extends JavaPlugin implements PluginInterface {
         manager = new ChannelManager();
         normalChatLogger = new LunaChatLogger("==normalchat");
 
+        // ローカル変換用の辞書を、バックグラウンドで読み込む
+        LocalIME.reloadInstance();
+
+        // 範囲チャット用の位置インデックスの初期化（リロード時のために、接続中のプレイヤーを登録する）
+        playerLocationGrid = new PlayerLocationGrid();
+        for ( Player player : Bukkit.getOnlinePlayers() ) {
+            Location loc = player.getLocation();
+            playerLocationGrid.update(player.getUniqueId(),
+                    loc.getWorld().getName(), loc.getX(), loc.getY(), loc.getZ());
+        }
+
         // チャンネルチャット無効なら、デフォルト発言先をクリアする(see issue #59)
         if ( !config.isEnableChannelChat() ) {
             manager.removeAllDefaultChannels();
@@ -152,6 +168,26 @@ public class LunaChatBukkit extends JavaPlugin implements PluginInterface {
         if ( expireCheckerTask != null ) {
             expireCheckerTask.cancel();
         }
+
+        // 実行待ちの非同期処理を実行する
+        LunaChatExecutor.shutdownInstance();
+
+        // 追記したUUIDキャッシュを書き込む
+        if ( uuidCacheData != null ) {
+            uuidCacheData.close();
+        }
+
+        // 保存待ちのデータを書き込む
+        if ( manager != null ) {
+            manager.shutdown();
+        }
+
+        // 書き込み待ちのログを書き込む
+        LunaChatLogWriter.shutdownInstance();
+
+        // IME変換のスレッドを停止する
+        IMEClient.shutdownInstance();
+        LocalIME.shutdownInstance();
     }
 
     /**
@@ -252,6 +288,14 @@ public class LunaChatBukkit extends JavaPlugin implements PluginInterface {
         return multiverse;
     }
 
+    /**
+     * 範囲チャット用のプレイヤー位置インデックスを返す
+     * @return playerLocationGrid
+     */
+    public PlayerLocationGrid getPlayerLocationGrid() {
+        return playerLocationGrid;
+    }
+
     /**
      * 通常チャット用のロガーを返す
      * @return normalChatLogger
@@ -308,7 +352,7 @@ public class LunaChatBukkit extends JavaPlugin implements PluginInterface {
      */
     @Override
     public void runAsyncTask(Runnable task) {
-        Bukkit.getScheduler().runTaskAsynchronously(this, task);
+        LunaChatExecutor.getInstance().execute(LunaChatExecutor.Lane.EVENT, task);
     }
 
     /**
@@ -318,4 +362,14 @@ public class LunaChatBukkit extends JavaPlugin implements PluginInterface {
     public void sendPluginMessage(byte[] bytes) {
         getServer().sendPluginMessage(this, LunaChat.PMC_MESSAGE, bytes);
     }
+
+    /**
+     * 指定したプレイヤーの接続を使って、プラグインメッセージを送信する。
+     * サーバーの全プレイヤーの接続へ送信する sendPluginMessage(byte[]) と違って、1回だけ送信する。
+     * @param player プレイヤー
+     * @param bytes 送信内容
+     */
+    public void sendPluginMessage(Player player, byte[] bytes) {
+        player.sendPluginMessage(this, LunaChat.PMC_MESSAGE, bytes);
+    }
 }
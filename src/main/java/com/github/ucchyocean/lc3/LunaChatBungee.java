@@ -6,11 +6,17 @@
 package com.github.ucchyocean.lc3;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import org.bstats.bungeecord.Metrics;
@@ -24,10 +30,15 @@ import com.github.ucchyocean.lc3.bungee.LunaChatCommandBungee;
 import com.github.ucchyocean.lc3.bungee.MessageCommandBungee;
 import com.github.ucchyocean.lc3.bungee.ReplyCommandBungee;
 import com.github.ucchyocean.lc3.channel.ChannelManager;
+import com.github.ucchyocean.lc3.channel.ChannelReplicator;
+import com.github.ucchyocean.lc3.japanize.IMEClient;
+import com.github.ucchyocean.lc3.japanize.LocalIME;
+import com.github.ucchyocean.lc3.messaging.TcpReplicationTransport;
 
 import net.md_5.bungee.api.ProxyServer;
 import net.md_5.bungee.api.connection.ProxiedPlayer;
 import net.md_5.bungee.api.plugin.Plugin;
+import net.md_5.bungee.api.scheduler.ScheduledTask;
 
 /**
  * LunaChatのBungeeCord実装
@@ -35,6 +46,9 @@ import net.md_5.bungee.api.plugin.Plugin;
  */
 public class LunaChatBungee extends Plugin implements PluginInterface {
 
+    /** 複製に使う合言葉の、最低限の長さ */
+    private static final int MIN_REPLICATION_SECRET_LENGTH = 16;
+
     private static LunaChatBungee instance;
 
     private HashMap<String, String> history;
@@ -46,6 +60,8 @@ public class LunaChatBungee extends Plugin implements PluginInterface {
     private BungeePermsBridge bungeeperms;
     private LuckPermsBridge luckperms;
 
+    private ScheduledTask expireCheckerTask;
+
     /**
      * プラグインが有効化されたときに呼び出されるメソッド
      * @see net.md_5.bungee.api.plugin.Plugin#onEnable()
@@ -78,6 +94,9 @@ public class LunaChatBungee extends Plugin implements PluginInterface {
         manager = new ChannelManager();
         normalChatLogger = new LunaChatLogger("==normalchat");
 
+        // ローカル変換用の辞書を、バックグラウンドで読み込む
+        LocalIME.reloadInstance();
+
         // チャンネルチャット無効なら、デフォルト発言先をクリアする
         if ( !config.isEnableChannelChat() ) {
             manager.removeAllDefaultChannels();
@@ -108,11 +127,95 @@ public class LunaChatBungee extends Plugin implements PluginInterface {
         // リスナー登録
         getProxy().getPluginManager().registerListener(this, new BungeeEventListener(this));
 
+        // 期限チェッカータスクの起動
+        expireCheckerTask = getProxy().getScheduler().schedule(
+                this, new ExpireCheckTask(), 5, 30, TimeUnit.SECONDS);
+
         // イベント実行クラスの登録
         LunaChat.setEventSender(new BungeeEventSender());
 
         // プラグインチャンネル登録
         getProxy().registerChannel(LunaChat.PMC_MESSAGE);
+
+        // ほかのプロキシとの、チャンネルの複製を開始する
+        if ( config.isBungeeReplicationEnable() ) {
+            startReplication();
+        }
+    }
+
+    /**
+     * プラグインが無効化されたときに呼び出されるメソッド
+     * @see net.md_5.bungee.api.plugin.Plugin#onDisable()
+     */
+    @Override
+    public void onDisable() {
+
+        // 期限チェッカータスクの停止
+        if ( expireCheckerTask != null ) {
+            expireCheckerTask.cancel();
+        }
+
+        // 送信待ちの変更を、ほかのプロキシへ送信してから、複製を停止する
+        ChannelReplicator.shutdownInstance();
+
+        // 実行待ちの非同期処理を実行する
+        LunaChatExecutor.shutdownInstance();
+
+        // 追記したUUIDキャッシュを書き込む
+        if ( uuidCacheData != null ) {
+            uuidCacheData.close();
+        }
+
+        // 保存待ちのデータを書き込む
+        if ( manager != null ) {
+            manager.shutdown();
+        }
+
+        // 書き込み待ちのログを書き込む
+        LunaChatLogWriter.shutdownInstance();
+
+        // IME変換のスレッドを停止する
+        IMEClient.shutdownInstance();
+        LocalIME.shutdownInstance();
+    }
+
+    /**
+     * ほかのプロキシとの、チャンネルの複製を開始する
+     */
+    private void startReplication() {
+
+        // 合言葉が無い、または短すぎる場合は、誰でも接続できてしまうので開始しない
+        String secret = config.getBungeeReplicationSecret();
+        if ( secret == null || secret.length() < MIN_REPLICATION_SECRET_LENGTH ) {
+            getLogger().warning("Channel replication is not started, because bungeeReplicationSecret "
+                    + "is empty or shorter than " + MIN_REPLICATION_SECRET_LENGTH + " characters.");
+            return;
+        }
+
+        List<InetSocketAddress> peers = new ArrayList<InetSocketAddress>();
+        for ( String peer : config.getBungeeReplicationPeers() ) {
+            int index = peer.lastIndexOf(':');
+            try {
+                peers.add(new InetSocketAddress(
+                        peer.substring(0, index), Integer.parseInt(peer.substring(index + 1))));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                getLogger().warning("Invalid bungeeReplicationPeers entry : " + peer);
+            }
+        }
+
+        TcpReplicationTransport transport = new TcpReplicationTransport(
+                config.getBungeeReplicationBindAddress(), config.getBungeeReplicationPort(),
+                peers, secret);
+        Executor executor = new Executor() {
+            public void execute(Runnable command) {
+                LunaChat.runAsyncTask(LunaChatExecutor.Lane.IO, command);
+            }
+        };
+        try {
+            ChannelReplicator.startInstance(transport, executor);
+        } catch (IOException e) {
+            getLogger().log(Level.WARNING, "Could not start channel replication.", e);
+        }
     }
 
     /**
@@ -231,7 +334,7 @@ public class LunaChatBungee extends Plugin implements PluginInterface {
      */
     @Override
     public void runAsyncTask(Runnable task) {
-        ProxyServer.getInstance().getScheduler().runAsync(this, task);
+        LunaChatExecutor.getInstance().execute(LunaChatExecutor.Lane.EVENT, task);
     }
 
     /**
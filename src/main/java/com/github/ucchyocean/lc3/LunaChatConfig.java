@@ -6,150 +6,39 @@
 package com.github.ucchyocean.lc3;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.regex.Pattern;
 
+import org.yaml.snakeyaml.error.YAMLException;
+
 import com.github.ucchyocean.lc3.japanize.JapanizeType;
+import com.github.ucchyocean.lc3.japanize.LocalIME;
 import com.github.ucchyocean.lc3.util.EventPriority;
+import com.github.ucchyocean.lc3.util.NGWordFilter;
 import com.github.ucchyocean.lc3.util.Utility;
 import com.github.ucchyocean.lc3.util.YamlConfig;
 
 /**
- * LunaChatのコンフィグクラス
+ * LunaChatのコンフィグクラス。
+ * 設定値は、読み込むたびに作成される変更不可の Snapshot に保持され、再読み込み時は Snapshot ごと差し替えられる。
+ * 1回の処理の中で複数の設定値を使う場合は、getSnapshot() で取得した Snapshot から読むこと。
  * @author ucchy
  */
 public class LunaChatConfig {
 
-    /** メッセージの言語 */
-    private String lang;
-
-    /** チャンネルチャット機能を利用可能にするかどうか */
-    private boolean enableChannelChat;
-
-    /** チャットイベントの処理優先度 */
-    private EventPriority playerChatEventListenerPriority;
-
-    /** チャンネルチャットに入っていない人の発言を、グローバルとして扱うかどうか */
-    private boolean noJoinAsGlobal;
-
-    /** チャンネルチャットの発言内容を、ログに残すかどうか */
-    private boolean loggingChat;
-
-    /** チャンネルチャットの発言内容を、コンソールに表示するかどうか */
-    private boolean displayChatOnConsole;
-
-    /** グローバルマーカー  これが発言の頭に入っている場合は、強制的にグローバル発言になる */
-    private String globalMarker;
-
-    /** 全てのメンバーが退出したときに、チャンネルを削除するかどうか */
-    private boolean zeroMemberRemove;
-
-    /** ログイン時に、参加中チャンネルを表示するかどうか */
-    private boolean showListOnJoin;
-
-    /** /ch join コマンドで存在しないチャンネルを指定したときに、
-     *  チャンネルを新規作成して入室するかどうか */
-    private boolean createChannelOnJoinCommand;
-
-    /** サーバーに初参加したユーザーを参加させる、既定のチャンネル。<br/>
-     *  参加させない場合は、から文字列 "" を指定すること。 */
-    private String globalChannel;
-
-    /** サーバーに参加したユーザーに必ず参加させるチャンネル。<br/>
-     *  グローバルチャンネルとは別で指定できる。 */
-    private List<String> forceJoinChannels;
-
-    /** formatコマンド実行時に、必ず含まれる必要があるキーワード。 */
-    private List<String> formatConstraint;
-
-    /** チャンネルを作成したときに、デフォルトで設定されるフォーマット */
-    private String defaultFormat;
-
-    /** プライベートメッセージを送信するときに、適用されるフォーマット */
-    private String defaultFormatForPrivateMessage;
-
-    /** OPの画面に、全チャンネルの発言内容を表示するかどうか */
-    private boolean opListenAllChannel;
-
-    /** チャンネルを新規作成するときに、チャンネル名が満たさなければならない、最低文字列長 */
-    private int minChannelNameLength;
-
-    /** チャンネルを新規作成するときに、チャンネル名が満たさなければならない、最大文字列長 */
-    private int maxChannelNameLength;
-
-    /** クイックチャンネルチャット機能を有効化するかどうか */
-    private boolean enableQuickChannelChat;
-
-    /** クイックチャンネルチャット機能に使用する記号 */
-    private String quickChannelChatSeparator;
-
-    /** ブロードキャストチャンネルの発言内容を、dynmapに送信するかどうか。<br/>
-     *  dynmapがロードされていない場合は、この設定は無視される（false扱い）。 */
-    private boolean sendBroadcastChannelChatToDynmap;
-
-    /** dynmapへ送信するときに、チャンネルのフォーマットを反映して送信するかどうか。*/
-    private boolean sendFormattedMessageToDynmap;
-
-    /** dynmapのWebUIから発言された発言内容を表示するチャンネル。 */
-    private String dynmapChannel;
-
-    /** NGワードの設定 */
-    private List<String> ngword;
-
-    /** NGワードを発言した人に対して実行するアクション<br/>
-     *  mask = マスクするのみ<br/>
-     *  kick = マスクしてチャンネルからキックする<br/>
-     *  ban = マスクしてチャンネルからBANする */
-    private NGWordAction ngwordAction;
-
-    /** NGワードの設定、正規表現マッチング用にコンパイルされたもの */
-    private List<Pattern> ngwordCompiled;
-
-    /** 通常チャット（非チャンネルチャット）の装飾を、LunaChatから行うかどうか */
-    private boolean enableNormalChatMessageFormat;
-
-    /** 通常チャットの装飾フォーマット */
-    private String normalChatMessageFormat;
-
-    /** 通常チャットで、カラーコードを使用可能にするかどうか */
-    private boolean enableNormalChatColorCode;
-
-    /** 通常チャットを、クリック可能にするかどうか */
-    private boolean enableNormalChatClickable;
-
-    /** Japanize変換のタイプ<br/>
-     *  none = 日本語変換をしない<br/>
-     *  kana = カナ変換のみする<br/>
-     *  googleime = カナ変換後、GoogleIMEで漢字変換する */
-    private JapanizeType japanizeType;
-
-    /** Japanize変換の1行表示と2行表示の切り替え<br/>
-     *  1 = 1行表示<br/>
-     *  2 = 2行表示 */
-    private int japanizeDisplayLine;
-
-    /** Japanize変換の1行表示時のフォーマット */
-    private String japanizeLine1Format;
-
-    /** Japanize変換の2行表示時の2行目のフォーマット */
-    private String japanizeLine2Format;
-
-    /** 発言に含まれているプレイヤー名を、Japanize変換から除外するかどうか */
-    private boolean japanizeIgnorePlayerName;
-
-    /** ノンジャパナイズマーカー これが発言の頭に入っている場合は、一時的にjapanizeを実行しない */
-    private String noneJapanizeMarker;
-
-    /** 通常チャットで、JapanizeDisplayLine=2のとき、Japanize変換したあと表示するまでのウェイト(tick)
-     *  隠し設定。 */
-    private int japanizeWait;
-
-    // === 以下、BungeeCord用設定 ===
-
-    /** Bungeeパススルーモード */
-    private boolean bungeePassThroughMode;
+    /** 現在の設定、再読み込みのたびに新しいSnapshotに差し替えられる */
+    private volatile Snapshot snapshot;
 
     /**
      * コンストラクタ
@@ -161,9 +50,14 @@ public class LunaChatConfig {
     }
 
     /**
-     * config.yml を再読み込みする
+     * config.yml を再読み込みする。
+     * 新しいSnapshotを作成できた場合だけ、現在のSnapshotと差し替える。
+     * config.yml に誤りがある場合は、警告を表示して、それまでの設定をそのまま使う。
+     * @param dataFolder コンフィグ格納フォルダ
+     * @param jarFile プラグインJarファイル
+     * @return 新しい設定に差し替えたかどうか
      */
-    public void reloadConfig(File dataFolder, File jarFile) {
+    public boolean reloadConfig(File dataFolder, File jarFile) {
 
         File configFile = new File(dataFolder, "config.yml");
         if ( !configFile.exists() ) {
@@ -176,101 +70,33 @@ public class LunaChatConfig {
             }
         }
 
-        YamlConfig config = YamlConfig.load(configFile);
-
-        lang = config.getString("lang", "en");
-        enableChannelChat = config.getBoolean("enableChannelChat", true);
-        playerChatEventListenerPriority
-            = getEventPriority(config.getString("playerChatEventListenerPriority"), EventPriority.HIGHEST);
-        noJoinAsGlobal = config.getBoolean("noJoinAsGlobal", true);
-        loggingChat = config.getBoolean("loggingChat", true);
-        displayChatOnConsole = config.getBoolean("displayChatOnConsole", true);
-        globalMarker = config.getString("globalMarker", "!");
-        zeroMemberRemove = config.getBoolean("zeroMemberRemove", false);
-        showListOnJoin = config.getBoolean("showListOnJoin", false);
-        createChannelOnJoinCommand =
-            config.getBoolean("createChannelOnJoinCommand", false);
-
-        // チャンネルチャット有効のときだけ、globalChannel設定を読み込む
-        // (see issue #58)
-        if ( enableChannelChat ) {
-            globalChannel = config.getString("globalChannel", "");
-        } else {
-            globalChannel = "";
-        }
-        // チャンネルチャット有効のときだけ、forceJoinChannels設定を読み込む
-        // (see issue #58)
-        if ( enableChannelChat ) {
-            forceJoinChannels = config.getStringList("forceJoinChannels");
-        } else {
-            forceJoinChannels = new ArrayList<String>();
-        }
-
-        if ( config.contains("formatConstraint") ) {
-            formatConstraint = config.getStringList("formatConstraint");
-        } else {
-            formatConstraint = new ArrayList<String>();
-            formatConstraint.add("%username");
-            formatConstraint.add("%msg");
-        }
-
-        defaultFormat = config.getString("defaultFormat",
-                "&f[%color%ch&f]%prefix%username%suffix&a:&f %msg");
-        defaultFormatForPrivateMessage =
-                config.getString("defaultFormatForPrivateMessage",
-                "&7[%player -> %to]&f %msg");
-
-        opListenAllChannel = config.getBoolean("opListenAllChannel", false);
-
-        minChannelNameLength = config.getInt("minChannelNameLength", 4);
-        maxChannelNameLength = config.getInt("maxChannelNameLength", 20);
-
-        enableQuickChannelChat = config.getBoolean("enableQuickChannelChat", true);
-        quickChannelChatSeparator = config.getString("quickChannelChatSeparator", ":");
-
-        sendBroadcastChannelChatToDynmap =
-            config.getBoolean("sendBroadcastChannelChatToDynmap", true);
-        sendFormattedMessageToDynmap =
-            config.getBoolean("sendFormattedMessageToDynmap", false);
-        dynmapChannel = config.getString("dynmapChannel", "");
-        ngword = config.getStringList("ngword");
-        ngwordAction = NGWordAction.fromID(config.getString("ngwordAction", "mask"));
-
-        ngwordCompiled = new ArrayList<Pattern>();
-        for ( String word : ngword ) {
-            ngwordCompiled.add(Pattern.compile(word));
-        }
-
-        enableNormalChatMessageFormat =
-                config.getBoolean("enableNormalChatMessageFormat", true);
-        normalChatMessageFormat =
-                config.getString("normalChatMessageFormat", "&f%prefix%username%suffix&a:&f %msg");
-        enableNormalChatColorCode =
-                config.getBoolean("enableNormalChatColorCode", true);
-        enableNormalChatClickable =
-                config.getBoolean("enableNormalChatClickable", false);
-
-        japanizeType = JapanizeType.fromID(config.getString("japanizeType"), null);
-        japanizeDisplayLine = config.getInt("japanizeDisplayLine", 2);
-        if ( japanizeDisplayLine != 1 && japanizeDisplayLine != 2 ) {
-            japanizeDisplayLine = 2;
+        Snapshot next;
+        try ( Reader reader = new InputStreamReader(
+                new FileInputStream(configFile), StandardCharsets.UTF_8) ) {
+            next = new Snapshot(YamlConfig.load(reader));
+        } catch (IOException | YAMLException | IllegalArgumentException e) {
+            if ( snapshot != null ) {
+                LunaChat.getPlugin().log(Level.WARNING,
+                        "Could not reload config.yml, the previous settings are kept. " + e);
+                return false;
+            }
+            // 起動時は、すべて既定値の設定で起動する
+            LunaChat.getPlugin().log(Level.WARNING,
+                    "Could not load config.yml, the default settings are used. " + e);
+            snapshot = new Snapshot(new YamlConfig());
+            return false;
         }
-        japanizeLine1Format = config.getString("japanizeLine1Format", "%msg &6(%japanize)");
-        japanizeLine2Format = config.getString("japanizeLine2Format", "&6[JP] %japanize");
-        japanizeIgnorePlayerName = config.getBoolean("japanizeIgnorePlayerName", true);
-        noneJapanizeMarker = config.getString("noneJapanizeMarker", "$");
-        japanizeWait = config.getInt("japanizeWait", 1);
-
-        bungeePassThroughMode = config.getBoolean("bungeePassThroughMode", false);
 
-        // globalチャンネルが、使用可能なチャンネル名かどうかを調べる
-        if ( globalChannel != null && !globalChannel.equals("") &&
-                !globalChannel.matches("[0-9a-zA-Z\\-_]{1,20}") ) {
+        snapshot = next;
+        return true;
+    }
 
-            // コンソールに警告を表示する
-            LunaChat.getPlugin().log(Level.WARNING, Messages.errmsgCannotUseForGlobal(globalChannel));
-            globalChannel = "";
-        }
+    /**
+     * 現在の設定を取得する。取得したSnapshotは、再読み込みされても変更されない。
+     * @return 現在の設定
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
     }
 
     /**
@@ -278,7 +104,7 @@ public class LunaChatConfig {
      * @return lang
      */
     public String getLang() {
-        return lang;
+        return snapshot.getLang();
     }
 
     /**
@@ -286,7 +112,7 @@ public class LunaChatConfig {
      * @return enableChannelChatを返す
      */
     public boolean isEnableChannelChat() {
-        return enableChannelChat;
+        return snapshot.isEnableChannelChat();
     }
 
     /**
@@ -294,7 +120,40 @@ public class LunaChatConfig {
      * @return playerChatEventListenerPriorityを返す
      */
     public EventPriority getPlayerChatEventListenerPriority() {
-        return playerChatEventListenerPriority;
+        return snapshot.getPlayerChatEventListenerPriority();
+    }
+
+    /**
+     * チャンネルなどのデータを保存するときに、書き込みを遅延させる秒数。
+     * この時間内の保存はまとめて書き込まれる。0ならすぐに書き込む。
+     * @return saveDelayを返す
+     */
+    public int getSaveDelay() {
+        return snapshot.getSaveDelay();
+    }
+
+    /**
+     * チャンネルなどのデータの保存先。yaml または jdbc
+     * @return storageTypeを返す
+     */
+    public String getStorageType() {
+        return snapshot.getStorageType();
+    }
+
+    /**
+     * 保存先がjdbcのときの、JDBC接続URL。空文字列ならデータフォルダ内のSQLiteファイルを使用する。
+     * @return jdbcUrlを返す
+     */
+    public String getJdbcUrl() {
+        return snapshot.getJdbcUrl();
+    }
+
+    /**
+     * 保存先がjdbcのときに、ロードするJDBCドライバのクラス名
+     * @return jdbcDriverを返す
+     */
+    public String getJdbcDriver() {
+        return snapshot.getJdbcDriver();
     }
 
     /**
@@ -302,7 +161,7 @@ public class LunaChatConfig {
      * @return noJoinAsGlobalを返す
      */
     public boolean isNoJoinAsGlobal() {
-        return noJoinAsGlobal;
+        return snapshot.isNoJoinAsGlobal();
     }
 
     /**
@@ -310,7 +169,40 @@ public class LunaChatConfig {
      * @return loggingChatを返す
      */
     public boolean isLoggingChat() {
-        return loggingChat;
+        return snapshot.isLoggingChat();
+    }
+
+    /**
+     * 書き込み待ちのログを溜めておける件数
+     * @return logBufferSizeを返す
+     */
+    public int getLogBufferSize() {
+        return snapshot.getLogBufferSize();
+    }
+
+    /**
+     * 書き込み待ちのログが溜まりきったときに、ログを捨てるかどうか。falseなら空くまで待つ。
+     * @return logDropWhenFullを返す
+     */
+    public boolean isLogDropWhenFull() {
+        return snapshot.isLogDropWhenFull();
+    }
+
+    /**
+     * 非同期処理のレーンの、スレッド数と待ち行列の設定
+     * @param lane レーン
+     * @return 設定
+     */
+    public LunaChatExecutor.Settings getAsyncSettings(LunaChatExecutor.Lane lane) {
+        return snapshot.getAsyncSettings(lane);
+    }
+
+    /**
+     * 実行環境が対応していれば、非同期処理に仮想スレッドを使うかどうか
+     * @return asyncUseVirtualThreadsを返す
+     */
+    public boolean isAsyncUseVirtualThreads() {
+        return snapshot.isAsyncUseVirtualThreads();
     }
 
     /**
@@ -318,7 +210,7 @@ public class LunaChatConfig {
      * @return displayChatOnConsoleを返す
      */
     public boolean isDisplayChatOnConsole() {
-        return displayChatOnConsole;
+        return snapshot.isDisplayChatOnConsole();
     }
 
     /**
@@ -326,7 +218,7 @@ public class LunaChatConfig {
      * @return globalMarkerを返す
      */
     public String getGlobalMarker() {
-        return globalMarker;
+        return snapshot.getGlobalMarker();
     }
 
     /**
@@ -334,7 +226,7 @@ public class LunaChatConfig {
      * @return zeroMemberRemoveを返す
      */
     public boolean isZeroMemberRemove() {
-        return zeroMemberRemove;
+        return snapshot.isZeroMemberRemove();
     }
 
     /**
@@ -342,7 +234,7 @@ public class LunaChatConfig {
      * @return showListOnJoinを返す
      */
     public boolean isShowListOnJoin() {
-        return showListOnJoin;
+        return snapshot.isShowListOnJoin();
     }
 
     /**
@@ -350,7 +242,7 @@ public class LunaChatConfig {
      * @return createChannelOnJoinCommandを返す
      */
     public boolean isCreateChannelOnJoinCommand() {
-        return createChannelOnJoinCommand;
+        return snapshot.isCreateChannelOnJoinCommand();
     }
 
     /**
@@ -359,7 +251,7 @@ public class LunaChatConfig {
      * @return globalChannelを返す
      */
     public String getGlobalChannel() {
-        return globalChannel;
+        return snapshot.getGlobalChannel();
     }
 
     /**
@@ -368,7 +260,7 @@ public class LunaChatConfig {
      * @return globalChannelを返す
      */
     public List<String> getForceJoinChannels() {
-        return forceJoinChannels;
+        return snapshot.getForceJoinChannels();
     }
 
     /**
@@ -376,7 +268,7 @@ public class LunaChatConfig {
      * @return formatConstraintを返す
      */
     public List<String> getFormatConstraint() {
-        return formatConstraint;
+        return snapshot.getFormatConstraint();
     }
 
     /**
@@ -384,7 +276,7 @@ public class LunaChatConfig {
      * @return defaultFormatを返す
      */
     public String getDefaultFormat() {
-        return defaultFormat;
+        return snapshot.getDefaultFormat();
     }
 
     /**
@@ -392,7 +284,15 @@ public class LunaChatConfig {
      * @return defaultFormatForPrivateMessageを返す
      */
     public String getDefaultFormatForPrivateMessage() {
-        return defaultFormatForPrivateMessage;
+        return snapshot.getDefaultFormatForPrivateMessage();
+    }
+
+    /**
+     * プライベートメッセージのチャンネルを、発言がないときに削除するまでの分数。0なら削除しない。
+     * @return privateMessageIdleTimeoutを返す
+     */
+    public int getPrivateMessageIdleTimeout() {
+        return snapshot.getPrivateMessageIdleTimeout();
     }
 
     /**
@@ -400,7 +300,7 @@ public class LunaChatConfig {
      * @return opListenAllChannel opListenAllChannelを返す
      */
     public boolean isOpListenAllChannel() {
-        return opListenAllChannel;
+        return snapshot.isOpListenAllChannel();
     }
 
     /**
@@ -408,7 +308,7 @@ public class LunaChatConfig {
      * @return minChannelNameLength
      */
     public int getMinChannelNameLength() {
-        return minChannelNameLength;
+        return snapshot.getMinChannelNameLength();
     }
 
     /**
@@ -416,7 +316,7 @@ public class LunaChatConfig {
      * @return maxChannelNameLength
      */
     public int getMaxChannelNameLength() {
-        return maxChannelNameLength;
+        return snapshot.getMaxChannelNameLength();
     }
 
     /**
@@ -424,7 +324,7 @@ public class LunaChatConfig {
      * @return enableQuickChannelChat
      */
     public boolean isEnableQuickChannelChat() {
-        return enableQuickChannelChat;
+        return snapshot.isEnableQuickChannelChat();
     }
 
     /**
@@ -432,7 +332,7 @@ public class LunaChatConfig {
      * @return quickChannelChatSeparator
      */
     public String getQuickChannelChatSeparator() {
-        return quickChannelChatSeparator;
+        return snapshot.getQuickChannelChatSeparator();
     }
 
     /**
@@ -442,7 +342,7 @@ public class LunaChatConfig {
      */
     @Deprecated
     public List<String> getNgword() {
-        return ngword;
+        return snapshot.getNgword();
     }
 
     /**
@@ -453,7 +353,7 @@ public class LunaChatConfig {
      * @return ngwordActionを返す
      */
     public NGWordAction getNgwordAction() {
-        return ngwordAction;
+        return snapshot.getNgwordAction();
     }
 
     /**
@@ -461,7 +361,15 @@ public class LunaChatConfig {
      * @return ngwordCompiledを返す
      */
     public List<Pattern> getNgwordCompiled() {
-        return ngwordCompiled;
+        return snapshot.getNgwordCompiled();
+    }
+
+    /**
+     * NGワードの一括検索とマスクを行うフィルタ
+     * @return ngwordFilterを返す
+     */
+    public NGWordFilter getNgwordFilter() {
+        return snapshot.getNgwordFilter();
     }
 
     /**
@@ -470,7 +378,7 @@ public class LunaChatConfig {
      * @return sendBroadcastChannelChatToDynmapを返す
      */
     public boolean isSendBroadcastChannelChatToDynmap() {
-        return sendBroadcastChannelChatToDynmap;
+        return snapshot.isSendBroadcastChannelChatToDynmap();
     }
 
     /**
@@ -478,7 +386,7 @@ public class LunaChatConfig {
      * @return sendFormattedMessageToDynmapを返す
      */
     public boolean isSendFormattedMessageToDynmap() {
-        return sendFormattedMessageToDynmap;
+        return snapshot.isSendFormattedMessageToDynmap();
     }
 
     /**
@@ -486,7 +394,7 @@ public class LunaChatConfig {
      * @return dynmapChannel dynmapの発言を表示するチャンネル名を返す
      */
     public String getDynmapChannel() {
-        return dynmapChannel;
+        return snapshot.getDynmapChannel();
     }
 
     /**
@@ -494,7 +402,7 @@ public class LunaChatConfig {
      * @return enableNormalChatMessageFormatを返す
      */
     public boolean isEnableNormalChatMessageFormat() {
-        return enableNormalChatMessageFormat;
+        return snapshot.isEnableNormalChatMessageFormat();
     }
 
     /**
@@ -502,18 +410,27 @@ public class LunaChatConfig {
      * @return normalChatMessageFormatを返す
      */
     public String getNormalChatMessageFormat() {
-        return normalChatMessageFormat;
+        return snapshot.getNormalChatMessageFormat();
     }
 
     /**
      * Japanize変換のタイプ<br/>
      *  none = 日本語変換をしない<br/>
      *  kana = カナ変換のみする<br/>
-     *  googleime = カナ変換後、GoogleIMEで漢字変換する
+     *  googleime = カナ変換後、GoogleIMEで漢字変換する<br/>
+     *  localime = カナ変換後、辞書を使って漢字変換する
      * @return japanizeTypeを返す
      */
     public JapanizeType getJapanizeType() {
-        return japanizeType;
+        return snapshot.getJapanizeType();
+    }
+
+    /**
+     * japanizeTypeがlocalimeのときに使う、かな漢字変換の辞書のファイル名
+     * @return japanizeLocalDictionariesを返す
+     */
+    public List<String> getJapanizeLocalDictionaries() {
+        return snapshot.getJapanizeLocalDictionaries();
     }
 
     /**
@@ -523,7 +440,7 @@ public class LunaChatConfig {
      * @return japanizeDisplayLineを返す
      */
     public int getJapanizeDisplayLine() {
-        return japanizeDisplayLine;
+        return snapshot.getJapanizeDisplayLine();
     }
 
     /**
@@ -531,7 +448,7 @@ public class LunaChatConfig {
      * @return japanizeLine1Formatを返す
      */
     public String getJapanizeLine1Format() {
-        return japanizeLine1Format;
+        return snapshot.getJapanizeLine1Format();
     }
 
     /**
@@ -539,7 +456,7 @@ public class LunaChatConfig {
      * @return japanizeLine2Formatを返す
      */
     public String getJapanizeLine2Format() {
-        return japanizeLine2Format;
+        return snapshot.getJapanizeLine2Format();
     }
 
     /**
@@ -547,7 +464,7 @@ public class LunaChatConfig {
      * @return japanizeIgnorePlayerName
      */
     public boolean isJapanizeIgnorePlayerName() {
-        return japanizeIgnorePlayerName;
+        return snapshot.isJapanizeIgnorePlayerName();
     }
 
     /**
@@ -555,15 +472,17 @@ public class LunaChatConfig {
      * @return noneJapanizeMarkerを返す
      */
     public String getNoneJapanizeMarker() {
-        return noneJapanizeMarker;
+        return snapshot.getNoneJapanizeMarker();
     }
 
     /**
      * 通常チャットで、JapanizeDisplayLine=2のとき、Japanize変換したあと表示するまでのウェイト(tick)
      * @return japanizeWaitを返す
+     * @deprecated 変換結果は元の発言が表示されしだい表示するため、ウェイトは使用しない
      */
+    @Deprecated
     public int getJapanizeWait() {
-        return japanizeWait;
+        return snapshot.getJapanizeWait();
     }
 
     /**
@@ -571,7 +490,7 @@ public class LunaChatConfig {
      * @return enableNormalChatColorCodeを返す
      */
     public boolean isEnableNormalChatColorCode() {
-        return enableNormalChatColorCode;
+        return snapshot.isEnableNormalChatColorCode();
     }
 
     /**
@@ -579,7 +498,7 @@ public class LunaChatConfig {
      * @return enableNormalChatClickable
      */
     public boolean isEnableNormalChatClickable() {
-        return enableNormalChatClickable;
+        return snapshot.isEnableNormalChatClickable();
     }
 
     /**
@@ -587,7 +506,910 @@ public class LunaChatConfig {
      * @return bungeePassThroughMode
      */
     public boolean isBungeePassThroughMode() {
-        return bungeePassThroughMode;
+        return snapshot.isBungeePassThroughMode();
+    }
+
+    /**
+     * 複数のBungeeCordプロキシの間で、チャンネルを複製するかどうかを返す
+     * @return bungeeReplicationEnable
+     */
+    public boolean isBungeeReplicationEnable() {
+        return snapshot.isBungeeReplicationEnable();
+    }
+
+    /**
+     * 複製のために待ち受けるアドレスを返す
+     * @return bungeeReplicationBindAddress
+     */
+    public String getBungeeReplicationBindAddress() {
+        return snapshot.getBungeeReplicationBindAddress();
+    }
+
+    /**
+     * 複製のために待ち受けるポートを返す
+     * @return bungeeReplicationPort
+     */
+    public int getBungeeReplicationPort() {
+        return snapshot.getBungeeReplicationPort();
+    }
+
+    /**
+     * 複製先のプロキシ（ホスト名:ポート）を返す
+     * @return bungeeReplicationPeers
+     */
+    public List<String> getBungeeReplicationPeers() {
+        return snapshot.getBungeeReplicationPeers();
+    }
+
+    /**
+     * 複製先のプロキシと共有する合言葉を返す
+     * @return bungeeReplicationSecret
+     */
+    public String getBungeeReplicationSecret() {
+        return snapshot.getBungeeReplicationSecret();
+    }
+
+    /**
+     * 読み込んだ時点の設定値。作成した後は変更されない。
+     * @author ucchy
+     */
+    public static class Snapshot {
+
+        /** メッセージの言語 */
+        private String lang;
+
+        /** チャンネルチャット機能を利用可能にするかどうか */
+        private boolean enableChannelChat;
+
+        /** チャットイベントの処理優先度 */
+        private EventPriority playerChatEventListenerPriority;
+
+        /** チャンネルなどのデータを保存するときに、書き込みを遅延させる秒数。
+         *  この時間内の保存はまとめて書き込まれる。0ならすぐに書き込む。 */
+        private int saveDelay;
+
+        /** チャンネルなどのデータの保存先。yaml または jdbc */
+        private String storageType;
+
+        /** 保存先がjdbcのときの、JDBC接続URL。空文字列ならデータフォルダ内のSQLiteファイルを使用する。 */
+        private String jdbcUrl;
+
+        /** 保存先がjdbcのときに、ロードするJDBCドライバのクラス名 */
+        private String jdbcDriver;
+
+        /** チャンネルチャットに入っていない人の発言を、グローバルとして扱うかどうか */
+        private boolean noJoinAsGlobal;
+
+        /** チャンネルチャットの発言内容を、ログに残すかどうか */
+        private boolean loggingChat;
+
+        /** 書き込み待ちのログを溜めておける件数 */
+        private int logBufferSize;
+
+        /** 書き込み待ちのログが溜まりきったときに、ログを捨てるかどうか。falseなら空くまで待つ。 */
+        private boolean logDropWhenFull;
+
+        /** 非同期処理のレーンごとの、スレッド数と待ち行列の設定 */
+        private EnumMap<LunaChatExecutor.Lane, LunaChatExecutor.Settings> asyncSettings;
+
+        /** 実行環境が対応していれば、非同期処理に仮想スレッドを使うかどうか */
+        private boolean asyncUseVirtualThreads;
+
+        /** チャンネルチャットの発言内容を、コンソールに表示するかどうか */
+        private boolean displayChatOnConsole;
+
+        /** グローバルマーカー  これが発言の頭に入っている場合は、強制的にグローバル発言になる */
+        private String globalMarker;
+
+        /** 全てのメンバーが退出したときに、チャンネルを削除するかどうか */
+        private boolean zeroMemberRemove;
+
+        /** ログイン時に、参加中チャンネルを表示するかどうか */
+        private boolean showListOnJoin;
+
+        /** /ch join コマンドで存在しないチャンネルを指定したときに、
+         *  チャンネルを新規作成して入室するかどうか */
+        private boolean createChannelOnJoinCommand;
+
+        /** サーバーに初参加したユーザーを参加させる、既定のチャンネル。<br/>
+         *  参加させない場合は、から文字列 "" を指定すること。 */
+        private String globalChannel;
+
+        /** サーバーに参加したユーザーに必ず参加させるチャンネル。<br/>
+         *  グローバルチャンネルとは別で指定できる。 */
+        private List<String> forceJoinChannels;
+
+        /** formatコマンド実行時に、必ず含まれる必要があるキーワード。 */
+        private List<String> formatConstraint;
+
+        /** チャンネルを作成したときに、デフォルトで設定されるフォーマット */
+        private String defaultFormat;
+
+        /** プライベートメッセージを送信するときに、適用されるフォーマット */
+        private String defaultFormatForPrivateMessage;
+
+        /** プライベートメッセージのチャンネルを、発言がないときに削除するまでの分数。0なら削除しない。 */
+        private int privateMessageIdleTimeout;
+
+        /** OPの画面に、全チャンネルの発言内容を表示するかどうか */
+        private boolean opListenAllChannel;
+
+        /** チャンネルを新規作成するときに、チャンネル名が満たさなければならない、最低文字列長 */
+        private int minChannelNameLength;
+
+        /** チャンネルを新規作成するときに、チャンネル名が満たさなければならない、最大文字列長 */
+        private int maxChannelNameLength;
+
+        /** クイックチャンネルチャット機能を有効化するかどうか */
+        private boolean enableQuickChannelChat;
+
+        /** クイックチャンネルチャット機能に使用する記号 */
+        private String quickChannelChatSeparator;
+
+        /** ブロードキャストチャンネルの発言内容を、dynmapに送信するかどうか。<br/>
+         *  dynmapがロードされていない場合は、この設定は無視される（false扱い）。 */
+        private boolean sendBroadcastChannelChatToDynmap;
+
+        /** dynmapへ送信するときに、チャンネルのフォーマットを反映して送信するかどうか。*/
+        private boolean sendFormattedMessageToDynmap;
+
+        /** dynmapのWebUIから発言された発言内容を表示するチャンネル。 */
+        private String dynmapChannel;
+
+        /** NGワードの設定 */
+        private List<String> ngword;
+
+        /** NGワードを発言した人に対して実行するアクション<br/>
+         *  mask = マスクするのみ<br/>
+         *  kick = マスクしてチャンネルからキックする<br/>
+         *  ban = マスクしてチャンネルからBANする */
+        private NGWordAction ngwordAction;
+
+        /** NGワードの設定、正規表現マッチング用にコンパイルされたもの */
+        private List<Pattern> ngwordCompiled;
+
+        /** NGワードの設定、一括検索用に構築されたもの */
+        private NGWordFilter ngwordFilter;
+
+        /** 通常チャット（非チャンネルチャット）の装飾を、LunaChatから行うかどうか */
+        private boolean enableNormalChatMessageFormat;
+
+        /** 通常チャットの装飾フォーマット */
+        private String normalChatMessageFormat;
+
+        /** 通常チャットで、カラーコードを使用可能にするかどうか */
+        private boolean enableNormalChatColorCode;
+
+        /** 通常チャットを、クリック可能にするかどうか */
+        private boolean enableNormalChatClickable;
+
+        /** Japanize変換のタイプ<br/>
+         *  none = 日本語変換をしない<br/>
+         *  kana = カナ変換のみする<br/>
+         *  googleime = カナ変換後、GoogleIMEで漢字変換する<br/>
+         *  localime = カナ変換後、辞書を使って漢字変換する */
+        private JapanizeType japanizeType;
+
+        /** japanizeTypeがlocalimeのときに使う、かな漢字変換の辞書のファイル名 */
+        private List<String> japanizeLocalDictionaries;
+
+        /** Japanize変換の1行表示と2行表示の切り替え<br/>
+         *  1 = 1行表示<br/>
+         *  2 = 2行表示 */
+        private int japanizeDisplayLine;
+
+        /** Japanize変換の1行表示時のフォーマット */
+        private String japanizeLine1Format;
+
+        /** Japanize変換の2行表示時の2行目のフォーマット */
+        private String japanizeLine2Format;
+
+        /** 発言に含まれているプレイヤー名を、Japanize変換から除外するかどうか */
+        private boolean japanizeIgnorePlayerName;
+
+        /** ノンジャパナイズマーカー これが発言の頭に入っている場合は、一時的にjapanizeを実行しない */
+        private String noneJapanizeMarker;
+
+        /** 通常チャットで、JapanizeDisplayLine=2のとき、Japanize変換したあと表示するまでのウェイト(tick)
+         *  隠し設定。変換結果は元の発言が表示されしだい表示するようになったため、現在は使用していない。 */
+        private int japanizeWait;
+
+        // === 以下、BungeeCord用設定 ===
+
+        /** Bungeeパススルーモード */
+        private boolean bungeePassThroughMode;
+
+        /** 複数のBungeeCordプロキシの間で、チャンネルを複製するかどうか */
+        private boolean bungeeReplicationEnable;
+
+        /** 複製のために待ち受けるアドレス */
+        private String bungeeReplicationBindAddress;
+
+        /** 複製のために待ち受けるポート */
+        private int bungeeReplicationPort;
+
+        /** 複製先のプロキシ（ホスト名:ポート） */
+        private List<String> bungeeReplicationPeers;
+
+        /** 複製先のプロキシと共有する合言葉 */
+        private String bungeeReplicationSecret;
+
+
+        // === 以下、設定値から作成しておく値 ===
+
+        /** 強制参加チャンネルの名前のセット */
+        private Set<String> forceJoinChannelSet;
+
+        /** クイックチャンネルチャットの記号で、発言を分割するためのパターン */
+        private Pattern quickChannelChatSeparatorPattern;
+
+        /** カラーコードを置き換えた、Japanize変換の1行表示時のフォーマット */
+        private String japanizeLine1FormatColored;
+
+        /** カラーコードを置き換えた、Japanize変換の2行表示時の2行目のフォーマット */
+        private String japanizeLine2FormatColored;
+
+        /**
+         * コンストラクタ、config.yml の内容から設定値を作成する
+         * @param config config.yml の内容
+         * @throws IllegalArgumentException NGワードの正規表現が正しくない場合
+         */
+        private Snapshot(YamlConfig config) {
+
+
+            lang = config.getString("lang", "en");
+            enableChannelChat = config.getBoolean("enableChannelChat", true);
+            playerChatEventListenerPriority
+                = getEventPriority(config.getString("playerChatEventListenerPriority"), EventPriority.HIGHEST);
+            saveDelay = config.getInt("saveDelay", 5);
+            if ( saveDelay < 0 ) {
+                saveDelay = 0;
+            }
+            storageType = config.getString("storageType", "yaml");
+            jdbcUrl = config.getString("jdbcUrl", "");
+            jdbcDriver = config.getString("jdbcDriver", "org.sqlite.JDBC");
+            noJoinAsGlobal = config.getBoolean("noJoinAsGlobal", true);
+            loggingChat = config.getBoolean("loggingChat", true);
+            logBufferSize = config.getInt("logBufferSize", LunaChatLogWriter.DEFAULT_BUFFER_SIZE);
+            if ( logBufferSize < 1 ) {
+                logBufferSize = LunaChatLogWriter.DEFAULT_BUFFER_SIZE;
+            }
+            logDropWhenFull = config.getString("logBufferFullAction", "block").equalsIgnoreCase("drop");
+            asyncSettings = new EnumMap<LunaChatExecutor.Lane, LunaChatExecutor.Settings>(
+                    LunaChatExecutor.Lane.class);
+            for ( LunaChatExecutor.Lane lane : LunaChatExecutor.Lane.values() ) {
+                String prefix = "async" + lane.getName();
+                asyncSettings.put(lane, new LunaChatExecutor.Settings(
+                        config.getInt(prefix + "Threads", lane.getDefaultThreads()),
+                        config.getInt(prefix + "QueueSize", lane.getDefaultQueueSize()),
+                        LunaChatExecutor.FullAction.fromID(config.getString(prefix + "FullAction"),
+                                lane.getDefaultFullAction())));
+            }
+            asyncUseVirtualThreads = config.getBoolean("asyncUseVirtualThreads", false);
+            displayChatOnConsole = config.getBoolean("displayChatOnConsole", true);
+            globalMarker = config.getString("globalMarker", "!");
+            zeroMemberRemove = config.getBoolean("zeroMemberRemove", false);
+            showListOnJoin = config.getBoolean("showListOnJoin", false);
+            createChannelOnJoinCommand =
+                config.getBoolean("createChannelOnJoinCommand", false);
+
+            // チャンネルチャット有効のときだけ、globalChannel設定を読み込む
+            // (see issue #58)
+            if ( enableChannelChat ) {
+                globalChannel = config.getString("globalChannel", "");
+            } else {
+                globalChannel = "";
+            }
+            // チャンネルチャット有効のときだけ、forceJoinChannels設定を読み込む
+            // (see issue #58)
+            if ( enableChannelChat ) {
+                forceJoinChannels = config.getStringList("forceJoinChannels", new ArrayList<String>());
+            } else {
+                forceJoinChannels = new ArrayList<String>();
+            }
+
+            if ( config.contains("formatConstraint") ) {
+                formatConstraint = config.getStringList("formatConstraint");
+            } else {
+                formatConstraint = new ArrayList<String>();
+                formatConstraint.add("%username");
+                formatConstraint.add("%msg");
+            }
+
+            defaultFormat = config.getString("defaultFormat",
+                    "&f[%color%ch&f]%prefix%username%suffix&a:&f %msg");
+            defaultFormatForPrivateMessage =
+                    config.getString("defaultFormatForPrivateMessage",
+                    "&7[%player -> %to]&f %msg");
+            privateMessageIdleTimeout = config.getInt("privateMessageIdleTimeout", 30);
+            if ( privateMessageIdleTimeout < 0 ) {
+                privateMessageIdleTimeout = 0;
+            }
+
+            opListenAllChannel = config.getBoolean("opListenAllChannel", false);
+
+            minChannelNameLength = config.getInt("minChannelNameLength", 4);
+            maxChannelNameLength = config.getInt("maxChannelNameLength", 20);
+
+            enableQuickChannelChat = config.getBoolean("enableQuickChannelChat", true);
+            quickChannelChatSeparator = config.getString("quickChannelChatSeparator", ":");
+
+            sendBroadcastChannelChatToDynmap =
+                config.getBoolean("sendBroadcastChannelChatToDynmap", true);
+            sendFormattedMessageToDynmap =
+                config.getBoolean("sendFormattedMessageToDynmap", false);
+            dynmapChannel = config.getString("dynmapChannel", "");
+            ngword = config.getStringList("ngword", new ArrayList<String>());
+            ngwordAction = NGWordAction.fromID(config.getString("ngwordAction", "mask"));
+
+            ngwordCompiled = new ArrayList<Pattern>();
+            for ( String word : ngword ) {
+                ngwordCompiled.add(Pattern.compile(word));
+            }
+            ngwordFilter = new NGWordFilter(ngword);
+
+            enableNormalChatMessageFormat =
+                    config.getBoolean("enableNormalChatMessageFormat", true);
+            normalChatMessageFormat =
+                    config.getString("normalChatMessageFormat", "&f%prefix%username%suffix&a:&f %msg");
+            enableNormalChatColorCode =
+                    config.getBoolean("enableNormalChatColorCode", true);
+            enableNormalChatClickable =
+                    config.getBoolean("enableNormalChatClickable", false);
+
+            japanizeType = JapanizeType.fromID(config.getString("japanizeType"), null);
+            if ( config.contains("japanizeLocalDictionaries") ) {
+                japanizeLocalDictionaries = config.getStringList("japanizeLocalDictionaries");
+            } else {
+                japanizeLocalDictionaries = new ArrayList<String>();
+                japanizeLocalDictionaries.add(LocalIME.DEFAULT_DICTIONARY);
+            }
+            japanizeDisplayLine = config.getInt("japanizeDisplayLine", 2);
+            if ( japanizeDisplayLine != 1 && japanizeDisplayLine != 2 ) {
+                japanizeDisplayLine = 2;
+            }
+            japanizeLine1Format = config.getString("japanizeLine1Format", "%msg &6(%japanize)");
+            japanizeLine2Format = config.getString("japanizeLine2Format", "&6[JP] %japanize");
+            japanizeIgnorePlayerName = config.getBoolean("japanizeIgnorePlayerName", true);
+            noneJapanizeMarker = config.getString("noneJapanizeMarker", "$");
+            japanizeWait = config.getInt("japanizeWait", 1);
+
+            bungeePassThroughMode = config.getBoolean("bungeePassThroughMode", false);
+            bungeeReplicationEnable = config.getBoolean("bungeeReplicationEnable", false);
+            bungeeReplicationBindAddress = config.getString("bungeeReplicationBindAddress", "127.0.0.1");
+            bungeeReplicationPort = config.getInt("bungeeReplicationPort", 25590);
+            if ( config.contains("bungeeReplicationPeers") ) {
+                bungeeReplicationPeers = config.getStringList("bungeeReplicationPeers");
+            } else {
+                bungeeReplicationPeers = new ArrayList<String>();
+            }
+            bungeeReplicationSecret = config.getString("bungeeReplicationSecret", "");
+
+            // globalチャンネルが、使用可能なチャンネル名かどうかを調べる
+            if ( globalChannel != null && !globalChannel.equals("") &&
+                    !globalChannel.matches("[0-9a-zA-Z\\-_]{1,20}") ) {
+
+                // コンソールに警告を表示する
+                LunaChat.getPlugin().log(Level.WARNING, Messages.errmsgCannotUseForGlobal(globalChannel));
+                globalChannel = "";
+            }
+
+            // 発言のたびに使う値を、あらかじめ作成しておく
+            forceJoinChannelSet = Collections.unmodifiableSet(new HashSet<String>(forceJoinChannels));
+            quickChannelChatSeparatorPattern = Pattern.compile(quickChannelChatSeparator, Pattern.LITERAL);
+            japanizeLine1FormatColored = Utility.replaceColorCode(japanizeLine1Format);
+            japanizeLine2FormatColored = Utility.replaceColorCode(japanizeLine2Format);
+
+            // 作成後に変更されないよう、リストは変更不可にしておく
+            forceJoinChannels = Collections.unmodifiableList(forceJoinChannels);
+            formatConstraint = Collections.unmodifiableList(formatConstraint);
+            ngword = Collections.unmodifiableList(ngword);
+            ngwordCompiled = Collections.unmodifiableList(ngwordCompiled);
+            japanizeLocalDictionaries = Collections.unmodifiableList(japanizeLocalDictionaries);
+            bungeeReplicationPeers = Collections.unmodifiableList(bungeeReplicationPeers);
+        }
+
+        /**
+         * メッセージの言語
+         * @return lang
+         */
+        public String getLang() {
+            return lang;
+        }
+
+        /**
+         * チャンネルチャット機能を利用可能にするかどうか
+         * @return enableChannelChatを返す
+         */
+        public boolean isEnableChannelChat() {
+            return enableChannelChat;
+        }
+
+        /**
+         * チャットイベントの処理優先度
+         * @return playerChatEventListenerPriorityを返す
+         */
+        public EventPriority getPlayerChatEventListenerPriority() {
+            return playerChatEventListenerPriority;
+        }
+
+        /**
+         * チャンネルなどのデータを保存するときに、書き込みを遅延させる秒数。
+         * この時間内の保存はまとめて書き込まれる。0ならすぐに書き込む。
+         * @return saveDelayを返す
+         */
+        public int getSaveDelay() {
+            return saveDelay;
+        }
+
+        /**
+         * チャンネルなどのデータの保存先。yaml または jdbc
+         * @return storageTypeを返す
+         */
+        public String getStorageType() {
+            return storageType;
+        }
+
+        /**
+         * 保存先がjdbcのときの、JDBC接続URL。空文字列ならデータフォルダ内のSQLiteファイルを使用する。
+         * @return jdbcUrlを返す
+         */
+        public String getJdbcUrl() {
+            return jdbcUrl;
+        }
+
+        /**
+         * 保存先がjdbcのときに、ロードするJDBCドライバのクラス名
+         * @return jdbcDriverを返す
+         */
+        public String getJdbcDriver() {
+            return jdbcDriver;
+        }
+
+        /**
+         * チャンネルチャットに入っていない人の発言を、グローバルとして扱うかどうか
+         * @return noJoinAsGlobalを返す
+         */
+        public boolean isNoJoinAsGlobal() {
+            return noJoinAsGlobal;
+        }
+
+        /**
+         * チャンネルチャットの発言内容を、ログに残すかどうか
+         * @return loggingChatを返す
+         */
+        public boolean isLoggingChat() {
+            return loggingChat;
+        }
+
+        /**
+         * 書き込み待ちのログを溜めておける件数
+         * @return logBufferSizeを返す
+         */
+        public int getLogBufferSize() {
+            return logBufferSize;
+        }
+
+        /**
+         * 書き込み待ちのログが溜まりきったときに、ログを捨てるかどうか。falseなら空くまで待つ。
+         * @return logDropWhenFullを返す
+         */
+        public boolean isLogDropWhenFull() {
+            return logDropWhenFull;
+        }
+
+        /**
+         * 非同期処理のレーンの、スレッド数と待ち行列の設定
+         * @param lane レーン
+         * @return 設定
+         */
+        public LunaChatExecutor.Settings getAsyncSettings(LunaChatExecutor.Lane lane) {
+            return asyncSettings.get(lane);
+        }
+
+        /**
+         * 実行環境が対応していれば、非同期処理に仮想スレッドを使うかどうか
+         * @return asyncUseVirtualThreadsを返す
+         */
+        public boolean isAsyncUseVirtualThreads() {
+            return asyncUseVirtualThreads;
+        }
+
+        /**
+         * チャンネルチャットの発言内容を、コンソールに表示するかどうか
+         * @return displayChatOnConsoleを返す
+         */
+        public boolean isDisplayChatOnConsole() {
+            return displayChatOnConsole;
+        }
+
+        /**
+         * グローバルマーカー  これが発言の頭に入っている場合は、強制的にグローバル発言になる
+         * @return globalMarkerを返す
+         */
+        public String getGlobalMarker() {
+            return globalMarker;
+        }
+
+        /**
+         * 全てのメンバーが退出したときに、チャンネルを削除するかどうか
+         * @return zeroMemberRemoveを返す
+         */
+        public boolean isZeroMemberRemove() {
+            return zeroMemberRemove;
+        }
+
+        /**
+         * ログイン時に、参加中チャンネルを表示するかどうか
+         * @return showListOnJoinを返す
+         */
+        public boolean isShowListOnJoin() {
+            return showListOnJoin;
+        }
+
+        /**
+         * /ch join コマンドで存在しないチャンネルを指定したときに、チャンネルを新規作成して入室するかどうか
+         * @return createChannelOnJoinCommandを返す
+         */
+        public boolean isCreateChannelOnJoinCommand() {
+            return createChannelOnJoinCommand;
+        }
+
+        /**
+         * サーバーに初参加したユーザーを参加させる、既定のチャンネル。<br/>
+         * 参加させない場合は、から文字列 "" を指定すること。
+         * @return globalChannelを返す
+         */
+        public String getGlobalChannel() {
+            return globalChannel;
+        }
+
+        /**
+         * サーバーに参加したユーザーに必ず参加させるチャンネル。<br/>
+         * グローバルチャンネルとは別で指定できる。
+         * @return globalChannelを返す
+         */
+        public List<String> getForceJoinChannels() {
+            return forceJoinChannels;
+        }
+
+        /**
+         * formatコマンド実行時に、必ず含まれる必要があるキーワード。
+         * @return formatConstraintを返す
+         */
+        public List<String> getFormatConstraint() {
+            return formatConstraint;
+        }
+
+        /**
+         * チャンネルを作成したときに、デフォルトで設定されるフォーマット。
+         * @return defaultFormatを返す
+         */
+        public String getDefaultFormat() {
+            return defaultFormat;
+        }
+
+        /**
+         * プライベートメッセージを送信するときに、適用されるフォーマット。
+         * @return defaultFormatForPrivateMessageを返す
+         */
+        public String getDefaultFormatForPrivateMessage() {
+            return defaultFormatForPrivateMessage;
+        }
+
+        /**
+         * プライベートメッセージのチャンネルを、発言がないときに削除するまでの分数。0なら削除しない。
+         * @return privateMessageIdleTimeoutを返す
+         */
+        public int getPrivateMessageIdleTimeout() {
+            return privateMessageIdleTimeout;
+        }
+
+        /**
+         * OPの画面に、全チャンネルの発言内容を表示するかどうか
+         * @return opListenAllChannel opListenAllChannelを返す
+         */
+        public boolean isOpListenAllChannel() {
+            return opListenAllChannel;
+        }
+
+        /**
+         * チャンネルを新規作成するときに、チャンネル名が満たさなければならない、最低文字列長
+         * @return minChannelNameLength
+         */
+        public int getMinChannelNameLength() {
+            return minChannelNameLength;
+        }
+
+        /**
+         * チャンネルを新規作成するときに、チャンネル名が満たさなければならない、最大文字列長
+         * @return maxChannelNameLength
+         */
+        public int getMaxChannelNameLength() {
+            return maxChannelNameLength;
+        }
+
+        /**
+         * クイックチャンネルチャット機能を有効化するかどうかを取得する
+         * @return enableQuickChannelChat
+         */
+        public boolean isEnableQuickChannelChat() {
+            return enableQuickChannelChat;
+        }
+
+        /**
+         * クイックチャンネルチャット機能に使用する記号
+         * @return quickChannelChatSeparator
+         */
+        public String getQuickChannelChatSeparator() {
+            return quickChannelChatSeparator;
+        }
+
+        /**
+         * NGワード
+         * @return ngwordを返す
+         * @deprecated 全て正規表現に変更するため、getNgwordCompiledを使用してください
+         */
+        @Deprecated
+        public List<String> getNgword() {
+            return ngword;
+        }
+
+        /**
+         * NGワードを発言した人に対して実行するアクション<br/>
+         *  mask = マスクするのみ<br/>
+         *  kick = マスクしてチャンネルからキックする<br/>
+         *  ban = マスクしてチャンネルからBANする
+         * @return ngwordActionを返す
+         */
+        public NGWordAction getNgwordAction() {
+            return ngwordAction;
+        }
+
+        /**
+         * コンパイルされたNGワード
+         * @return ngwordCompiledを返す
+         */
+        public List<Pattern> getNgwordCompiled() {
+            return ngwordCompiled;
+        }
+
+        /**
+         * NGワードの一括検索とマスクを行うフィルタ
+         * @return ngwordFilterを返す
+         */
+        public NGWordFilter getNgwordFilter() {
+            return ngwordFilter;
+        }
+
+        /**
+         * ブロードキャストチャンネルの発言内容を、dynmapに送信するかどうか。<br/>
+         * dynmapがロードされていない場合は、この設定は無視される（false扱い）。
+         * @return sendBroadcastChannelChatToDynmapを返す
+         */
+        public boolean isSendBroadcastChannelChatToDynmap() {
+            return sendBroadcastChannelChatToDynmap;
+        }
+
+        /**
+         * dynmapへ送信するときに、チャンネルのフォーマットを反映して送信するかどうか。
+         * @return sendFormattedMessageToDynmapを返す
+         */
+        public boolean isSendFormattedMessageToDynmap() {
+            return sendFormattedMessageToDynmap;
+        }
+
+        /**
+         * dynmapのWebUIから発言された発言内容を表示するチャンネル。
+         * @return dynmapChannel dynmapの発言を表示するチャンネル名を返す
+         */
+        public String getDynmapChannel() {
+            return dynmapChannel;
+        }
+
+        /**
+         * 通常チャット（非チャンネルチャット）の装飾を、LunaChatから行うかどうか
+         * @return enableNormalChatMessageFormatを返す
+         */
+        public boolean isEnableNormalChatMessageFormat() {
+            return enableNormalChatMessageFormat;
+        }
+
+        /**
+         * 通常チャットの装飾フォーマット
+         * @return normalChatMessageFormatを返す
+         */
+        public String getNormalChatMessageFormat() {
+            return normalChatMessageFormat;
+        }
+
+        /**
+         * Japanize変換のタイプ<br/>
+         *  none = 日本語変換をしない<br/>
+         *  kana = カナ変換のみする<br/>
+         *  googleime = カナ変換後、GoogleIMEで漢字変換する<br/>
+         *  localime = カナ変換後、辞書を使って漢字変換する
+         * @return japanizeTypeを返す
+         */
+        public JapanizeType getJapanizeType() {
+            return japanizeType;
+        }
+
+        /**
+         * japanizeTypeがlocalimeのときに使う、かな漢字変換の辞書のファイル名
+         * @return japanizeLocalDictionariesを返す
+         */
+        public List<String> getJapanizeLocalDictionaries() {
+            return japanizeLocalDictionaries;
+        }
+
+        /**
+         * Japanize変換の1行表示と2行表示の切り替え<br/>
+         *  1 = 1行表示<br/>
+         *  2 = 2行表示<br/>
+         * @return japanizeDisplayLineを返す
+         */
+        public int getJapanizeDisplayLine() {
+            return japanizeDisplayLine;
+        }
+
+        /**
+         * Japanize変換の1行表示時のフォーマット
+         * @return japanizeLine1Formatを返す
+         */
+        public String getJapanizeLine1Format() {
+            return japanizeLine1Format;
+        }
+
+        /**
+         * Japanize変換の2行表示時の2行目のフォーマット
+         * @return japanizeLine2Formatを返す
+         */
+        public String getJapanizeLine2Format() {
+            return japanizeLine2Format;
+        }
+
+        /**
+         * 発言に含まれているプレイヤー名を、Japanize変換から除外するかどうか
+         * @return japanizeIgnorePlayerName
+         */
+        public boolean isJapanizeIgnorePlayerName() {
+            return japanizeIgnorePlayerName;
+        }
+
+        /**
+         * ノンジャパナイズマーカー これが発言の頭に入っている場合は、一時的にjapanizeを実行しない
+         * @return noneJapanizeMarkerを返す
+         */
+        public String getNoneJapanizeMarker() {
+            return noneJapanizeMarker;
+        }
+
+        /**
+         * 通常チャットで、JapanizeDisplayLine=2のとき、Japanize変換したあと表示するまでのウェイト(tick)
+         * @return japanizeWaitを返す
+         * @deprecated 変換結果は元の発言が表示されしだい表示するため、ウェイトは使用しない
+         */
+        @Deprecated
+        public int getJapanizeWait() {
+            return japanizeWait;
+        }
+
+        /**
+         * 通常チャットで、カラーコードを使用可能にするかどうか
+         * @return enableNormalChatColorCodeを返す
+         */
+        public boolean isEnableNormalChatColorCode() {
+            return enableNormalChatColorCode;
+        }
+
+        /**
+         * 通常チャットを、クリック可能にするかどうか
+         * @return enableNormalChatClickable
+         */
+        public boolean isEnableNormalChatClickable() {
+            return enableNormalChatClickable;
+        }
+
+        /**
+         * Bungeeパススルーモードかどうかを返す
+         * @return bungeePassThroughMode
+         */
+        public boolean isBungeePassThroughMode() {
+            return bungeePassThroughMode;
+        }
+
+        /**
+         * 複数のBungeeCordプロキシの間で、チャンネルを複製するかどうかを返す
+         * @return bungeeReplicationEnable
+         */
+        public boolean isBungeeReplicationEnable() {
+            return bungeeReplicationEnable;
+        }
+
+        /**
+         * 複製のために待ち受けるアドレスを返す
+         * @return bungeeReplicationBindAddress
+         */
+        public String getBungeeReplicationBindAddress() {
+            return bungeeReplicationBindAddress;
+        }
+
+        /**
+         * 複製のために待ち受けるポートを返す
+         * @return bungeeReplicationPort
+         */
+        public int getBungeeReplicationPort() {
+            return bungeeReplicationPort;
+        }
+
+        /**
+         * 複製先のプロキシ（ホスト名:ポート）を返す
+         * @return bungeeReplicationPeers
+         */
+        public List<String> getBungeeReplicationPeers() {
+            return bungeeReplicationPeers;
+        }
+
+        /**
+         * 複製先のプロキシと共有する合言葉を返す
+         * @return bungeeReplicationSecret
+         */
+        public String getBungeeReplicationSecret() {
+            return bungeeReplicationSecret;
+        }
+
+        /**
+         * 強制参加チャンネルかどうか
+         * @param channelName チャンネル名
+         * @return 強制参加チャンネルかどうか
+         */
+        public boolean isForceJoinChannel(String channelName) {
+            return forceJoinChannelSet.contains(channelName);
+        }
+
+        /**
+         * 発言がグローバルマーカーで始まっていて、マーカーの後に発言内容があるかどうか
+         * @param message 発言内容
+         * @return グローバルマーカー付きの発言かどうか
+         */
+        public boolean isGlobalMarkerMessage(String message) {
+            return globalMarker != null && !globalMarker.isEmpty()
+                    && message.startsWith(globalMarker) && message.length() > globalMarker.length();
+        }
+
+        /**
+         * 発言がノンジャパナイズマーカーで始まっているかどうか
+         * @param message 発言内容
+         * @return ノンジャパナイズマーカー付きの発言かどうか
+         */
+        public boolean isNoneJapanizeMarkerMessage(String message) {
+            return !noneJapanizeMarker.isEmpty() && message.startsWith(noneJapanizeMarker);
+        }
+
+        /**
+         * クイックチャンネルチャットの記号で、発言を分割するためのパターン
+         * @return quickChannelChatSeparatorPatternを返す
+         */
+        public Pattern getQuickChannelChatSeparatorPattern() {
+            return quickChannelChatSeparatorPattern;
+        }
+
+        /**
+         * カラーコードを置き換えた、Japanize変換の1行表示時のフォーマット
+         * @return japanizeLine1FormatColoredを返す
+         */
+        public String getJapanizeLine1FormatColored() {
+            return japanizeLine1FormatColored;
+        }
+
+        /**
+         * カラーコードを置き換えた、Japanize変換の2行表示時の2行目のフォーマット
+         * @return japanizeLine2FormatColoredを返す
+         */
+        public String getJapanizeLine2FormatColored() {
+            return japanizeLine2FormatColored;
+        }
     }
 
     /**
@@ -0,0 +1,623 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3;
+
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * LunaChatの非同期処理を実行するクラス。
+ * 処理の種類ごとにレーン（スレッドプールと待ち行列）を分けて、
+ * 1つの種類の処理が詰まっても、他の種類の処理が遅れないようにする。
+ * 待ち行列の長さと、待ち時間、実行時間はレーンごとに記録する。
+ * @author ucchy
+ */
+public class LunaChatExecutor {
+
+    /** 停止するときに、実行中の処理を待つ時間（ミリ秒） */
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10000;
+
+    /** 処理を捨てたことをコンソールに表示する間隔（ミリ秒） */
+    private static final long REPORT_INTERVAL_MILLIS = 60000;
+
+    /**
+     * レーン（処理の種類）
+     * @author ucchy
+     */
+    public enum Lane {
+
+        /** Japanize変換（GoogleIMEとの通信を含むので、追加したスレッドでは実行しない） */
+        JAPANIZE("Japanize", 2, 256, FullAction.DROP_OLDEST, false),
+
+        /** ファイルやデータベースの読み書き */
+        IO("IO", 1, 1024, FullAction.CALLER, true),
+
+        /** その他のイベント処理 */
+        EVENT("Event", 2, 1024, FullAction.CALLER, true);
+
+        private final String name;
+        private final int defaultThreads;
+        private final int defaultQueueSize;
+        private final FullAction defaultFullAction;
+        private final boolean callerRunsAllowed;
+
+        Lane(String name, int defaultThreads, int defaultQueueSize,
+                FullAction defaultFullAction, boolean callerRunsAllowed) {
+            this.name = name;
+            this.defaultThreads = defaultThreads;
+            this.defaultQueueSize = defaultQueueSize;
+            this.defaultFullAction = defaultFullAction;
+            this.callerRunsAllowed = callerRunsAllowed;
+        }
+
+        /**
+         * config.ymlの設定項目名と、スレッド名に使う名前を返す
+         * @return 名前
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return スレッド数のデフォルト
+         */
+        public int getDefaultThreads() {
+            return defaultThreads;
+        }
+
+        /**
+         * @return 待ち行列の長さのデフォルト
+         */
+        public int getDefaultQueueSize() {
+            return defaultQueueSize;
+        }
+
+        /**
+         * @return 待ち行列がいっぱいのときの動作のデフォルト
+         */
+        public FullAction getDefaultFullAction() {
+            return defaultFullAction;
+        }
+
+        /**
+         * 処理を追加したスレッドで実行してもよいかどうかを返す。
+         * falseのレーンでは、callerが設定されていてもdropOldestとして動作し、停止後に追加された処理は捨てる。
+         * @return 追加したスレッドで実行してもよいかどうか
+         */
+        public boolean isCallerRunsAllowed() {
+            return callerRunsAllowed;
+        }
+    }
+
+    /**
+     * 待ち行列がいっぱいのときの動作
+     * @author ucchy
+     */
+    public enum FullAction {
+
+        /** 処理を追加しようとしたスレッドで実行する */
+        CALLER("caller"),
+
+        /** 追加しようとした処理を捨てる */
+        DROP("drop"),
+
+        /** 最も古い待ち中の処理を捨てて、追加する */
+        DROP_OLDEST("dropOldest");
+
+        private final String id;
+
+        FullAction(String id) {
+            this.id = id;
+        }
+
+        /**
+         * 文字列表記を返す
+         * @see java.lang.Enum#toString()
+         */
+        public String toString() {
+            return id;
+        }
+
+        /**
+         * 文字列表記からFullActionを作成して返す
+         * @param id ID
+         * @param def デフォルト
+         * @return FullAction
+         */
+        public static FullAction fromID(String id, FullAction def) {
+            if ( id == null ) return def;
+            for ( FullAction action : values() ) {
+                if ( action.id.equalsIgnoreCase(id) ) {
+                    return action;
+                }
+            }
+            return def;
+        }
+    }
+
+    /**
+     * レーンの設定
+     * @author ucchy
+     */
+    public static class Settings {
+
+        private final int threads;
+        private final int queueSize;
+        private final FullAction fullAction;
+
+        /**
+         * コンストラクタ
+         * @param threads スレッド数
+         * @param queueSize 待ち行列の長さ
+         * @param fullAction 待ち行列がいっぱいのときの動作
+         */
+        public Settings(int threads, int queueSize, FullAction fullAction) {
+            this.threads = Math.max(threads, 1);
+            this.queueSize = Math.max(queueSize, 1);
+            this.fullAction = fullAction;
+        }
+
+        /**
+         * @return スレッド数
+         */
+        public int getThreads() {
+            return threads;
+        }
+
+        /**
+         * @return 待ち行列の長さ
+         */
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        /**
+         * @return 待ち行列がいっぱいのときの動作
+         */
+        public FullAction getFullAction() {
+            return fullAction;
+        }
+    }
+
+    /**
+     * レーンごとの実行状況
+     * @author ucchy
+     */
+    public static class Stats {
+
+        private final LongAdder submitted = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder callerRuns = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAdder executeNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        /**
+         * @return 追加された処理の数
+         */
+        public long getSubmittedCount() {
+            return submitted.sum();
+        }
+
+        /**
+         * @return 実行が終わった処理の数（待ち行列がいっぱいで、追加しようとしたスレッドで実行したものを含む）
+         */
+        public long getCompletedCount() {
+            return completed.sum();
+        }
+
+        /**
+         * @return 実行中に例外が発生した処理の数
+         */
+        public long getFailedCount() {
+            return failed.sum();
+        }
+
+        /**
+         * @return 待ち行列がいっぱいで、追加しようとしたスレッドで実行した処理の数
+         */
+        public long getCallerRunsCount() {
+            return callerRuns.sum();
+        }
+
+        /**
+         * @return 待ち行列がいっぱいで、捨てた処理の数
+         */
+        public long getDroppedCount() {
+            return dropped.sum();
+        }
+
+        /**
+         * @return 待ち行列で待った時間の合計（ナノ秒）
+         */
+        public long getTotalWaitNanos() {
+            return waitNanos.sum();
+        }
+
+        /**
+         * @return 待ち行列で待った時間の最大（ナノ秒）
+         */
+        public long getMaxWaitNanos() {
+            return maxWaitNanos.get();
+        }
+
+        /**
+         * @return 実行にかかった時間の合計（ナノ秒）
+         */
+        public long getTotalExecuteNanos() {
+            return executeNanos.sum();
+        }
+
+        private void record(long wait, long execute) {
+            waitNanos.add(wait);
+            executeNanos.add(execute);
+            long max;
+            while ( wait > (max = maxWaitNanos.get()) ) {
+                if ( maxWaitNanos.compareAndSet(max, wait) ) {
+                    break;
+                }
+            }
+            completed.increment();
+        }
+    }
+
+    /**
+     * 待ち行列がいっぱいで捨てられたときに、通知を受け取る処理
+     * @author ucchy
+     */
+    public interface DroppableTask extends Runnable {
+
+        /**
+         * 実行されずに捨てられたときに呼び出される
+         */
+        public void onDropped();
+    }
+
+    private static volatile LunaChatExecutor instance;
+
+    private final Map<Lane, ThreadPoolExecutor> executors;
+    private final Map<Lane, Stats> stats;
+    private final boolean virtualThreads;
+    private final AtomicLong lastReport;
+
+    /**
+     * コンストラクタ
+     * @param settings レーンごとの設定（設定の無いレーンはデフォルトの設定になる）
+     * @param useVirtualThreads 実行環境が対応していれば、仮想スレッドを使うかどうか
+     */
+    public LunaChatExecutor(Map<Lane, Settings> settings, boolean useVirtualThreads) {
+
+        this.executors = new EnumMap<Lane, ThreadPoolExecutor>(Lane.class);
+        this.stats = new EnumMap<Lane, Stats>(Lane.class);
+        this.lastReport = new AtomicLong();
+
+        boolean virtual = false;
+        for ( Lane lane : Lane.values() ) {
+            Settings setting = settings.get(lane);
+            if ( setting == null ) {
+                setting = new Settings(lane.getDefaultThreads(), lane.getDefaultQueueSize(),
+                        lane.getDefaultFullAction());
+            }
+            FullAction action = setting.getFullAction();
+            if ( action == FullAction.CALLER && !lane.isCallerRunsAllowed() ) {
+                action = FullAction.DROP_OLDEST;
+            }
+
+            ThreadFactory factory = useVirtualThreads
+                    ? createVirtualThreadFactory("LunaChat-" + lane.getName() + "-") : null;
+            virtual = (factory != null);
+            if ( factory == null ) {
+                factory = createPlatformThreadFactory("LunaChat-" + lane.getName() + "-");
+            }
+
+            Stats stat = new Stats();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    setting.getThreads(), setting.getThreads(), 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(setting.getQueueSize()), factory,
+                    createRejectedHandler(lane, action, stat));
+            executor.allowCoreThreadTimeOut(true);
+
+            executors.put(lane, executor);
+            stats.put(lane, stat);
+        }
+        this.virtualThreads = virtual;
+    }
+
+    /**
+     * config.ymlの設定で作成された、共有のインスタンスを返す。
+     * チャットのたびに呼び出されるので、作成済みならロックを取得せずに返す。
+     * @return インスタンス
+     */
+    public static LunaChatExecutor getInstance() {
+        LunaChatExecutor executor = instance;
+        if ( executor == null ) {
+            synchronized ( LunaChatExecutor.class ) {
+                executor = instance;
+                if ( executor == null ) {
+                    executor = createInstance();
+                    instance = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * config.ymlの設定で、インスタンスを作成する
+     * @return インスタンス
+     */
+    private static LunaChatExecutor createInstance() {
+        LunaChatConfig config = LunaChat.getConfig();
+        Map<Lane, Settings> settings = new EnumMap<Lane, Settings>(Lane.class);
+        boolean virtual = false;
+        if ( config != null ) {
+            for ( Lane lane : Lane.values() ) {
+                settings.put(lane, config.getAsyncSettings(lane));
+            }
+            virtual = config.isAsyncUseVirtualThreads();
+        }
+        return new LunaChatExecutor(settings, virtual);
+    }
+
+    /**
+     * 共有のインスタンスを作り直して、設定の変更を反映する。
+     * 以前のインスタンスは、待ち中の処理を全て実行してから停止する。
+     */
+    public static synchronized void reloadInstance() {
+        if ( instance != null ) {
+            instance.shutdown(false);
+            instance = null;
+        }
+    }
+
+    /**
+     * 共有のインスタンスを、待ち中の処理を全て実行してから停止する。
+     * 停止したインスタンスは残しておき、プラグインの無効化中に追加された処理は、
+     * 新しいインスタンスを作らずに、停止後の処理（追加したスレッドで実行するか、捨てる）に回す。
+     */
+    public static synchronized void shutdownInstance() {
+        if ( instance == null ) {
+            instance = createInstance();
+        }
+        instance.shutdown(true);
+    }
+
+    /**
+     * 処理を非同期で実行する
+     * @param lane レーン
+     * @param task 処理
+     */
+    public void execute(Lane lane, Runnable task) {
+        stats.get(lane).submitted.increment();
+        executors.get(lane).execute(new TimedTask(task, stats.get(lane)));
+    }
+
+    /**
+     * 停止する
+     * @param wait 実行中と待ち中の処理が終わるまで待つかどうか
+     */
+    public void shutdown(boolean wait) {
+        for ( ThreadPoolExecutor executor : executors.values() ) {
+            executor.shutdown();
+        }
+        if ( !wait ) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MILLIS;
+        try {
+            for ( ThreadPoolExecutor executor : executors.values() ) {
+                long timeout = Math.max(deadline - System.currentTimeMillis(), 0);
+                executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * レーンの実行状況を返す
+     * @param lane レーン
+     * @return 実行状況
+     */
+    public Stats getStats(Lane lane) {
+        return stats.get(lane);
+    }
+
+    /**
+     * レーンの待ち行列にある処理の数を返す
+     * @param lane レーン
+     * @return 待ち行列にある処理の数
+     */
+    public int getQueueSize(Lane lane) {
+        return executors.get(lane).getQueue().size();
+    }
+
+    /**
+     * レーンで実行中の処理の数を返す
+     * @param lane レーン
+     * @return 実行中の処理の数
+     */
+    public int getActiveCount(Lane lane) {
+        return executors.get(lane).getActiveCount();
+    }
+
+    /**
+     * 仮想スレッドを使っているかどうかを返す
+     * @return 仮想スレッドを使っているかどうか
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * 待ち行列がいっぱいのときの動作を作成する
+     * @param lane レーン
+     * @param action 待ち行列がいっぱいのときの動作
+     * @param stat レーンの実行状況
+     * @return 動作
+     */
+    private RejectedExecutionHandler createRejectedHandler(
+            final Lane lane, final FullAction action, final Stats stat) {
+
+        return new RejectedExecutionHandler() {
+            @Override
+            public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+
+                // 停止した後に追加された処理は、失われないように、追加しようとしたスレッドで実行する。
+                // ただし、追加したスレッドで実行できないレーンでは捨てる。
+                if ( executor.isShutdown() ) {
+                    if ( lane.isCallerRunsAllowed() ) {
+                        stat.callerRuns.increment();
+                        r.run();
+                    } else {
+                        stat.dropped.increment();
+                        if ( r instanceof TimedTask ) {
+                            ((TimedTask)r).dropped();
+                        }
+                    }
+                    return;
+                }
+                if ( action == FullAction.CALLER ) {
+                    stat.callerRuns.increment();
+                    r.run();
+                    return;
+                }
+
+                if ( action == FullAction.DROP_OLDEST ) {
+                    // 一番古い処理を捨てて、空いた場所に追加し直す。
+                    // 取り出す前にワーカーが処理を取り出していたなら、何も捨てずに追加する。
+                    BlockingQueue<Runnable> queue = executor.getQueue();
+                    do {
+                        Runnable oldest = queue.poll();
+                        if ( oldest != null ) {
+                            stat.dropped.increment();
+                            if ( oldest instanceof TimedTask ) {
+                                ((TimedTask)oldest).dropped();
+                            }
+                        }
+                    } while ( !queue.offer(r) );
+                    // 追加し直す間に停止されたなら、実行されないことがあるので捨てる
+                    if ( executor.isShutdown() && queue.remove(r) ) {
+                        stat.dropped.increment();
+                        if ( r instanceof TimedTask ) {
+                            ((TimedTask)r).dropped();
+                        }
+                    }
+                    report(lane, stat);
+                    return;
+                }
+
+                stat.dropped.increment();
+                if ( r instanceof TimedTask ) {
+                    ((TimedTask)r).dropped();
+                }
+                report(lane, stat);
+            }
+        };
+    }
+
+    /**
+     * 処理を捨てたことを、一定の間隔でコンソールに表示する
+     * @param lane レーン
+     * @param stat レーンの実行状況
+     */
+    private void report(Lane lane, Stats stat) {
+        long now = System.currentTimeMillis();
+        long last = lastReport.get();
+        if ( now - last < REPORT_INTERVAL_MILLIS || !lastReport.compareAndSet(last, now) ) {
+            return;
+        }
+        PluginInterface plugin = LunaChat.getPlugin();
+        if ( plugin != null ) {
+            plugin.log(Level.WARNING, "Async " + lane.getName() + " queue is full, "
+                    + stat.getDroppedCount() + " tasks were dropped in total.");
+        }
+    }
+
+    /**
+     * プラットフォームスレッドを作成するThreadFactoryを作成する
+     * @param prefix スレッド名の接頭辞
+     * @return ThreadFactory
+     */
+    private static ThreadFactory createPlatformThreadFactory(final String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, prefix + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * 仮想スレッドを作成するThreadFactoryを作成する。
+     * Java 8でもビルドできるように、リフレクションで呼び出す。
+     * @param prefix スレッド名の接頭辞
+     * @return ThreadFactory、実行環境が仮想スレッドに対応していない場合はnull
+     */
+    private static ThreadFactory createVirtualThreadFactory(String prefix) {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Object builder = ofVirtual.invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class)
+                    .invoke(builder, prefix, 1L);
+            return (ThreadFactory)builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 待ち時間と実行時間を記録しながら実行する処理
+     */
+    private static class TimedTask implements Runnable {
+
+        private final Runnable task;
+        private final Stats stat;
+        private final long queuedAt;
+
+        private TimedTask(Runnable task, Stats stat) {
+            this.task = task;
+            this.stat = stat;
+            this.queuedAt = System.nanoTime();
+        }
+
+        private void dropped() {
+            if ( task instanceof DroppableTask ) {
+                ((DroppableTask)task).onDropped();
+            }
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                stat.failed.increment();
+                e.printStackTrace();
+            } finally {
+                stat.record(start - queuedAt, System.nanoTime() - start);
+            }
+        }
+    }
+}
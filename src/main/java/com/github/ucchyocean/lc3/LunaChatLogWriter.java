@@ -0,0 +1,510 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import com.github.ucchyocean.lc3.util.Utility;
+
+/**
+ * チャットログの書き込みサービス。
+ * 各ロガーからの記録を固定長のリングバッファ（ArrayBlockingQueue）に積み、
+ * 1本の書き込みスレッドが、ログファイルごとに開いたままのWriterへまとめて書き込む。
+ * 書き込んだ内容は、一定件数か一定時間ごとにフラッシュされ、日付が変わるとファイルを切り替える。
+ * 書き込んだ行は、全文検索用の索引にも追加される。
+ * @author ucchy
+ */
+public class LunaChatLogWriter {
+
+    /** リングバッファのデフォルトの大きさ */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /** この件数を書き込んだら、フラッシュする */
+    private static final int FLUSH_RECORDS = 256;
+
+    /** 前回のフラッシュからこの時間が経ったら、フラッシュする（ミリ秒） */
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+
+    /** 同時に開いておくログファイルの最大数 */
+    private static final int MAX_OPEN_FILES = 64;
+
+    /** フラッシュや停止を待つ最大時間（ミリ秒） */
+    private static final long WAIT_TIMEOUT_MILLIS = 10000;
+
+    private static final DateTimeFormatter FOLDER_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter LINE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static LunaChatLogWriter instance;
+
+    /** ログフォルダ（この下に日付ごとのフォルダが作られる） */
+    private final File logFolder;
+
+    /** 書き込み待ちの記録 */
+    private final ArrayBlockingQueue<LogRecord> queue;
+
+    /** バッファがいっぱいのときに、記録を捨てるかどうか（falseなら空くまで待つ） */
+    private final boolean dropWhenFull;
+
+    /** バッファがいっぱいで捨てた記録の数 */
+    private final AtomicLong dropped;
+
+    /** 書き込みスレッド */
+    private final Thread thread;
+
+    /** 記録を受け付けているかどうか */
+    private volatile boolean running;
+
+    /** 全文検索用の索引 */
+    private final LogSearchIndex searchIndex;
+
+    /** 開いているログファイル（書き込みスレッドだけが使う） */
+    private LinkedHashMap<File, LogFile> writers;
+
+    /** 現在のログフォルダの日付（書き込みスレッドだけが使う） */
+    private String currentDate;
+
+    /** フラッシュしていない記録の数（書き込みスレッドだけが使う） */
+    private int unflushed;
+
+    /** 前回フラッシュした時刻（書き込みスレッドだけが使う） */
+    private long lastFlush;
+
+    /**
+     * コンストラクタ
+     * @param logFolder ログフォルダ
+     * @param bufferSize リングバッファの大きさ
+     * @param dropWhenFull バッファがいっぱいのときに、記録を捨てるかどうか（falseなら空くまで待つ）
+     */
+    public LunaChatLogWriter(File logFolder, int bufferSize, boolean dropWhenFull) {
+
+        this.logFolder = logFolder;
+        this.queue = new ArrayBlockingQueue<LogRecord>(Math.max(bufferSize, 1));
+        this.dropWhenFull = dropWhenFull;
+        this.dropped = new AtomicLong();
+        this.searchIndex = new LogSearchIndex(logFolder);
+        this.writers = new LinkedHashMap<File, LogFile>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<File, LogFile> eldest) {
+                if ( size() > MAX_OPEN_FILES ) {
+                    close(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.lastFlush = System.currentTimeMillis();
+
+        this.running = true;
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runWriter();
+                } catch (RuntimeException | Error e) {
+                    warn("Chat log writer stopped unexpectedly: " + e);
+                    e.printStackTrace();
+                } finally {
+                    abandon();
+                }
+            }
+        }, "LunaChat-LogWriter");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * config.ymlの設定で作成された、共有のインスタンスを返す
+     * @return インスタンス
+     */
+    public static synchronized LunaChatLogWriter getInstance() {
+        if ( instance == null ) {
+            LunaChatConfig config = LunaChat.getConfig();
+            int size = (config == null) ? DEFAULT_BUFFER_SIZE : config.getLogBufferSize();
+            boolean drop = (config != null) && config.isLogDropWhenFull();
+            instance = new LunaChatLogWriter(
+                    new File(LunaChat.getDataFolder(), "logs"), size, drop);
+        }
+        return instance;
+    }
+
+    /**
+     * 共有のインスタンスを、書き込み待ちの記録を全て書き込んでから停止する
+     */
+    public static synchronized void shutdownInstance() {
+        if ( instance != null ) {
+            instance.shutdown();
+            instance = null;
+        }
+    }
+
+    /**
+     * 記録を書き込み待ちに追加する
+     * @param name ログ名
+     * @param message ログ内容
+     * @param player 発言者名
+     * @return 追加したかどうか（バッファがいっぱいで捨てた場合や、停止済みの場合はfalse）
+     */
+    public boolean write(String name, String message, String player) {
+        return write(name, System.currentTimeMillis(), message, player);
+    }
+
+    /**
+     * 時刻を指定して、記録を書き込み待ちに追加する
+     * @param name ログ名
+     * @param time 時刻（ミリ秒）
+     * @param message ログ内容
+     * @param player 発言者名
+     * @return 追加したかどうか（バッファがいっぱいで捨てた場合や、停止済みの場合はfalse）
+     */
+    protected boolean write(String name, long time, String message, String player) {
+
+        if ( !running ) {
+            return false;
+        }
+
+        LogRecord record = new LogRecord(name, time, message, player, null);
+
+        if ( dropWhenFull ) {
+            if ( !queue.offer(record) ) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        // 書き込みスレッドが止まった場合に待ち続けないよう、停止を確認しながら空くのを待つ
+        try {
+            while ( running ) {
+                if ( queue.offer(record, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS) ) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * ここまでに追加された記録が、全てファイルに書き込まれるまで待つ
+     */
+    public void flush() {
+
+        if ( !running || Thread.currentThread() == thread ) {
+            return;
+        }
+
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            if ( !queue.offer(new LogRecord(null, 0, null, null, latch),
+                    WAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS) ) {
+                return;
+            }
+            latch.await(WAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 書き込み待ちの記録を全て書き込んでから、書き込みスレッドを停止する。
+     * 停止後に追加された記録は、捨てられる。
+     */
+    public void shutdown() {
+
+        if ( !running ) {
+            return;
+        }
+        running = false;
+
+        try {
+            queue.put(new LogRecord(null, 0, null, null, null));
+            thread.join(WAIT_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * バッファがいっぱいで捨てた記録の数を返す
+     * @return 捨てた記録の数
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * 全文検索用の索引を返す
+     * @return 全文検索用の索引
+     */
+    LogSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    /**
+     * 書き込みスレッドの処理
+     */
+    private void runWriter() {
+
+        ArrayList<LogRecord> batch = new ArrayList<LogRecord>();
+        boolean stop = false;
+        long reportedDrops = 0;
+
+        while ( !stop ) {
+
+            try {
+                LogRecord first = queue.poll(FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if ( first != null ) {
+                    batch.add(first);
+                    queue.drainTo(batch, FLUSH_RECORDS - 1);
+                }
+            } catch (InterruptedException e) {
+                stop = true;
+            }
+
+            // 1件の記録の処理に失敗しても、書き込みスレッドは止めない
+            for ( LogRecord record : batch ) {
+                try {
+                    if ( record.isStopRequest() ) {
+                        stop = true;
+                    } else if ( record.latch != null ) {
+                        flushAll();
+                        searchIndex.writePending(true);
+                    } else {
+                        append(record);
+                    }
+                } catch (RuntimeException e) {
+                    warn("Failed to write a chat log record: " + e);
+                    e.printStackTrace();
+                } finally {
+                    if ( record.latch != null ) {
+                        record.latch.countDown();
+                    }
+                }
+            }
+            batch.clear();
+
+            if ( unflushed >= FLUSH_RECORDS
+                    || System.currentTimeMillis() - lastFlush >= FLUSH_INTERVAL_MILLIS ) {
+                try {
+                    flushAll();
+                    searchIndex.writePending(false);
+                } catch (RuntimeException e) {
+                    warn("Failed to flush chat logs: " + e);
+                    e.printStackTrace();
+                }
+            }
+
+            // 捨てた記録があれば、まとめて警告する
+            long drops = dropped.get();
+            if ( drops > reportedDrops ) {
+                warn("Chat log buffer is full, "
+                        + (drops - reportedDrops) + " log records were dropped.");
+                reportedDrops = drops;
+            }
+        }
+
+        // 停止の要求後に残っている記録を書き込んでから、全て閉じる
+        queue.drainTo(batch);
+        for ( LogRecord record : batch ) {
+            if ( record.latch != null ) {
+                record.latch.countDown();
+            } else if ( !record.isStopRequest() ) {
+                append(record);
+            }
+        }
+        for ( LogFile writer : writers.values() ) {
+            close(writer);
+        }
+        writers.clear();
+        searchIndex.writePending(true);
+        searchIndex.shutdown();
+    }
+
+    /**
+     * 書き込みスレッドが終了したときに呼び出される。
+     * 以降の記録は受け付けずに捨て、書き込み待ちで止まっているスレッドを解放する。
+     */
+    private void abandon() {
+        running = false;
+        ArrayList<LogRecord> rest = new ArrayList<LogRecord>();
+        queue.drainTo(rest);
+        for ( LogRecord record : rest ) {
+            if ( record.latch != null ) {
+                record.latch.countDown();
+            }
+        }
+    }
+
+    /**
+     * 警告をログに出力する
+     * @param message メッセージ
+     */
+    private static void warn(String message) {
+        PluginInterface plugin = LunaChat.getPlugin();
+        if ( plugin != null ) {
+            plugin.log(Level.WARNING, message);
+        }
+    }
+
+    /**
+     * 記録を、ログファイルのWriterに書き込む
+     * @param record 記録
+     */
+    private void append(LogRecord record) {
+
+        LocalDateTime time = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(record.time), ZoneId.systemDefault());
+        String date = FOLDER_FORMAT.format(time);
+
+        // 日付が進んだら、前日のファイルを全て閉じる
+        if ( currentDate == null || date.compareTo(currentDate) > 0 ) {
+            for ( LogFile writer : writers.values() ) {
+                close(writer);
+            }
+            writers.clear();
+            searchIndex.writePending(true);
+            currentDate = date;
+        }
+
+        File file = new File(new File(logFolder, date), record.name + ".log");
+
+        String msg = Utility.stripColorCode(record.message);
+        if ( msg == null ) msg = "";
+        msg = msg.replace(",", "，");
+
+        try {
+            LogFile writer = writers.get(file);
+            if ( writer == null ) {
+                File dir = file.getParentFile();
+                if ( !dir.exists() || !dir.isDirectory() ) {
+                    dir.mkdirs();
+                }
+                writer = new LogFile(file);
+                writers.put(file, writer);
+            }
+
+            byte[] line = (LINE_FORMAT.format(time) + "," + msg + "," + record.player + "\r\n")
+                    .getBytes(StandardCharsets.UTF_8);
+            long start = writer.length;
+            writer.out.write(line);
+            writer.length += line.length;
+            unflushed++;
+
+            searchIndex.add(date, record.name, start, writer.length, msg);
+
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 開いている全てのログファイルをフラッシュする
+     */
+    private void flushAll() {
+        for ( LogFile writer : writers.values() ) {
+            try {
+                writer.out.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        unflushed = 0;
+        lastFlush = System.currentTimeMillis();
+    }
+
+    /**
+     * ログファイルを閉じる
+     * @param writer ログファイル
+     */
+    private static void close(LogFile writer) {
+        try {
+            writer.out.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 開いているログファイル
+     * @author ucchy
+     */
+    private static class LogFile {
+
+        private final OutputStream out;
+
+        /** ファイルの長さ（次に書き込む行の開始位置） */
+        private long length;
+
+        /**
+         * コンストラクタ
+         * @param file ログファイル
+         * @throws IOException ファイルが開けない場合
+         */
+        LogFile(File file) throws IOException {
+            this.length = file.length();
+            this.out = new BufferedOutputStream(new FileOutputStream(file, true));
+        }
+    }
+
+    /**
+     * 書き込み待ちの記録
+     * @author ucchy
+     */
+    private static class LogRecord {
+
+        private final String name;
+        private final long time;
+        private final String message;
+        private final String player;
+
+        /** フラッシュの要求なら、完了を通知するラッチ */
+        private final CountDownLatch latch;
+
+        /**
+         * コンストラクタ
+         * @param name ログ名、停止の要求ならnull
+         * @param time 時刻（ミリ秒）
+         * @param message ログ内容
+         * @param player 発言者名
+         * @param latch フラッシュの要求なら、完了を通知するラッチ
+         */
+        LogRecord(String name, long time, String message, String player, CountDownLatch latch) {
+            this.name = name;
+            this.time = time;
+            this.message = message;
+            this.player = player;
+            this.latch = latch;
+        }
+
+        /**
+         * 停止の要求かどうか
+         * @return 停止の要求かどうか
+         */
+        boolean isStopRequest() {
+            return name == null && latch == null;
+        }
+    }
+}
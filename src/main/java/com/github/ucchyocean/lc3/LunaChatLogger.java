@@ -5,21 +5,16 @@
  */
 package com.github.ucchyocean.lc3;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Collections;
-import java.util.Date;
+import java.util.List;
 
-import com.github.ucchyocean.lc3.util.Utility;
+import com.github.ucchyocean.lc3.util.ReverseLineReader;
 
 /**
  * LunaChatロガー
@@ -27,13 +22,12 @@ import com.github.ucchyocean.lc3.util.Utility;
  */
 public class LunaChatLogger {
 
-    private SimpleDateFormat lformat;
-    private SimpleDateFormat dformat;
+    private static final DateTimeFormatter FOLDER_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter YEAR_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
 
-    private SimpleDateFormat logYearDateFormat;
+    /** 開始日が指定されていないときに、検索する日数 */
+    private static final int DEFAULT_SEARCH_DAYS = 7;
 
-    private File file;
-    private String dirPath;
     private String name;
 
     /**
@@ -41,44 +35,17 @@ public class LunaChatLogger {
      * @param name ログ名
      */
     public LunaChatLogger(String name) {
-
-        lformat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        dformat = new SimpleDateFormat("yyyy-MM-dd");
-
-        logYearDateFormat = new SimpleDateFormat("yyyyMMdd");
-
         this.name = name;
-        checkDir();
     }
 
     /**
-     * ログを出力する
+     * ログを出力する。
+     * 発言処理の負荷軽減のため、ログは書き込みサービスに渡され、まとめて書き込まれる。
      * @param message ログ内容
      * @param player 発言者名
      */
-    public synchronized void log(final String message, final String player) {
-
-        checkDir();
-
-        // 以降の処理を、発言処理の負荷軽減のため、非同期実行にする。(see issue #40.)
-        LunaChat.runAsyncTask(new Runnable() {
-            @Override
-            public void run() {
-
-                String msg = Utility.stripColorCode(message);
-                if ( msg == null ) msg = "";
-                msg = msg.replace(",", "，");
-
-                try ( OutputStreamWriter writer = new OutputStreamWriter(
-                        new FileOutputStream(file, true), "UTF-8"); ) {
-
-                    String str = lformat.format(new Date()) + "," + msg + "," + player;
-                    writer.write(str + "\r\n");
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
-        });
+    public void log(String message, String player) {
+        LunaChatLogWriter.getInstance().write(name, message, player);
     }
 
     /**
@@ -91,42 +58,103 @@ public class LunaChatLogger {
      */
     public ArrayList<String> getLog(
             String player, String filter, String date, boolean reverse) {
+        return getLog(player, filter, date, reverse, 0, Integer.MAX_VALUE);
+    }
 
-        // 指定された日付のログを取得する
+    /**
+     * ログファイルを新しい行から読み込んで、ログデータを取得する。
+     * 新しい方から数えて、offset件を読み飛ばした後のlimit件を返すので、
+     * 必要な件数が集まった時点で、読み込みを終了する。
+     * @param player プレイヤー名、フィルタしないならnullを指定すること
+     * @param filter フィルタ、フィルタしないならnullを指定すること
+     * @param date 日付、今日のデータを取得するならnullを指定すること
+     * @param reverse 逆順取得（新しい順に並べる）
+     * @param offset 新しい方から読み飛ばす件数
+     * @param limit 取得する最大件数
+     * @return ログデータ
+     */
+    public ArrayList<String> getLog(String player, String filter, String date,
+            boolean reverse, int offset, int limit) {
+
+        // 書き込み待ちのログは待たずに、指定された日付のファイルに書き込まれているログを取得する
+        ArrayList<String> data = new ArrayList<String>();
         File f = getLogFile(date);
-        if ( f == null ) {
-            return new ArrayList<String>();
+        if ( f == null || !f.exists() ) {
+            return data;
         }
 
-        // ログファイルの読み込み
-        ArrayList<String> data = readAllLines(f);
+        try {
+            if ( player != null ) {
+                // プレイヤー指定なら、索引から該当する行だけを読み込む
+                data.addAll(LogPlayerIndex.open(f).query(player, filter, offset, limit));
 
-        // プレイヤー指定なら、一致するプレイヤー名が含まれているログに絞る
-        if ( player != null ) {
-            ArrayList<String> temp = new ArrayList<String>(data);
-            data = new ArrayList<String>();
-            for ( String t : temp ) {
-                String[] line = t.split(",");
-                if ( line.length >= 3 && line[2].contains(player) ) {
-                    data.add(t);
+            } else {
+                // 新しい行から順に読み込み、必要な件数が集まったら終了する
+                try ( ReverseLineReader reader = new ReverseLineReader(f) ) {
+                    int skipped = 0;
+                    String line;
+                    while ( data.size() < limit && (line = reader.readLine()) != null ) {
+                        line = line.trim();
+                        if ( line.length() == 0 || !matches(line, null, filter) ) {
+                            continue;
+                        }
+                        if ( skipped < offset ) {
+                            skipped++;
+                            continue;
+                        }
+                        data.add(line);
+                    }
                 }
             }
+        } catch (IOException e) {
+            e.printStackTrace();
         }
 
-        // フィルタ指定なら、指定のキーワードが含まれているログに絞る
-        if ( filter != null ) {
-            ArrayList<String> temp = new ArrayList<String>(data);
-            data = new ArrayList<String>();
-            for ( String t : temp ) {
-                String[] line = t.split(",");
-                if ( line.length >= 2 && line[1].contains(filter) ) {
-                    data.add(t);
-                }
-            }
+        // 逆順が指定されていないなら、古い順に並び替える
+        if ( !reverse ) {
+            Collections.reverse(data);
         }
 
-        // 逆順が指定されているなら、逆順に並び替える
-        if ( reverse ) {
+        return data;
+    }
+
+    /**
+     * 複数の日付のログから、全ての検索語を含む行を、全文検索用の索引を使って検索する。
+     * 新しい方から数えて、offset件を読み飛ばした後のlimit件を返す。
+     * @param terms 検索語
+     * @param player プレイヤー名、フィルタしないならnullを指定すること
+     * @param filter フィルタ、フィルタしないならnullを指定すること
+     * @param from 開始日、nullなら終了日の6日前
+     * @param to 終了日、nullなら今日
+     * @param reverse 逆順取得（新しい順に並べる）
+     * @param offset 新しい方から読み飛ばす件数
+     * @param limit 取得する最大件数
+     * @return ログデータ
+     */
+    public ArrayList<String> searchLog(List<String> terms, String player, String filter,
+            String from, String to, boolean reverse, int offset, int limit) {
+
+        LocalDate toDate = (to == null) ? LocalDate.now() : parseDate(to);
+        LocalDate fromDate = (from == null) ? null : parseDate(from);
+        if ( toDate == null || (from != null && fromDate == null) ) {
+            return new ArrayList<String>();
+        }
+        if ( fromDate == null ) {
+            fromDate = toDate.minusDays(DEFAULT_SEARCH_DAYS - 1);
+        }
+        if ( fromDate.isAfter(toDate) ) {
+            LocalDate temp = fromDate;
+            fromDate = toDate;
+            toDate = temp;
+        }
+
+        // 書き込みを待たずに、書き出し前の索引も合わせて検索する
+        LunaChatLogWriter writer = LunaChatLogWriter.getInstance();
+        ArrayList<String> data = new ArrayList<String>(writer.getSearchIndex().search(
+                name, terms, player, filter, fromDate, toDate, offset, limit));
+
+        // 逆順が指定されていないなら、古い順に並び替える
+        if ( !reverse ) {
             Collections.reverse(data);
         }
 
@@ -134,30 +162,58 @@ public class LunaChatLogger {
     }
 
     /**
-     * テキストファイルの内容を読み出す。
-     * @param file ファイル
-     * @return 内容
+     * ログの行が、指定されたプレイヤーとフィルタに一致するかどうかを返す
+     * @param line ログの行（日時,発言内容,発言者）
+     * @param player 発言者名に含まれる文字列、絞り込まないならnull
+     * @param filter 発言内容に含まれる文字列、絞り込まないならnull
+     * @return 一致するかどうか
      */
-    private ArrayList<String> readAllLines(File file) {
-
-        ArrayList<String> data = new ArrayList<String>();
-        if ( !file.exists() ) return data;
+    static boolean matches(String line, String player, String filter) {
 
-        try ( BufferedReader reader = new BufferedReader(
-                new InputStreamReader(new FileInputStream(file), "UTF-8")) ) {
+        if ( player != null ) {
+            String name = getPlayerField(line);
+            if ( name == null || !name.contains(player) ) {
+                return false;
+            }
+        }
 
-            String line;
-            while ( (line = reader.readLine()) != null ) {
-                line = line.trim();
-                if ( line.length() > 0 ) {
-                    data.add(line);
-                }
+        if ( filter != null ) {
+            String message = getMessageField(line);
+            if ( message == null || !message.contains(filter) ) {
+                return false;
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
 
-        return data;
+        return true;
+    }
+
+    /**
+     * ログの行から、発言内容を取り出す
+     * @param line ログの行（日時,発言内容,発言者）
+     * @return 発言内容、含まれていないならnull
+     */
+    static String getMessageField(String line) {
+        int first = line.indexOf(',');
+        if ( first < 0 ) {
+            return null;
+        }
+        int second = line.indexOf(',', first + 1);
+        return line.substring(first + 1, second < 0 ? line.length() : second);
+    }
+
+    /**
+     * ログの行から、発言者を取り出す
+     * @param line ログの行（日時,発言内容,発言者）
+     * @return 発言者、含まれていないならnull
+     */
+    static String getPlayerField(String line) {
+        int first = line.indexOf(',');
+        int second = (first < 0) ? -1 : line.indexOf(',', first + 1);
+        if ( second < 0 ) {
+            return null;
+        }
+        int third = line.indexOf(',', second + 1);
+        return line.substring(second + 1, third < 0 ? line.length() : third);
     }
 
     /**
@@ -169,21 +225,11 @@ public class LunaChatLogger {
     private File getLogFile(String date) {
 
         if ( date == null ) {
-            return file;
+            return new File(getFolderPath(LocalDate.now()), name + ".log");
         }
 
-        Date d;
-        try {
-            if ( date.matches("[0-9]{4}") ) {
-                date = Calendar.getInstance().get(Calendar.YEAR) + date;
-            }
-            if ( date.matches("[0-9]{8}") ) {
-                d = logYearDateFormat.parse(date);
-            } else {
-                return null;
-            }
-        } catch (ParseException e) {
-            e.printStackTrace();
+        LocalDate d = parseDate(date);
+        if ( d == null ) {
             return null;
         }
 
@@ -201,22 +247,24 @@ public class LunaChatLogger {
     }
 
     /**
-     * ログの出力先フォルダをチェックし、変更されるなら更新する。
+     * MMdd形式またはyyyyMMdd形式の日付を解析します。
+     * 解析できない場合は、nullを返します。
+     * @param date 日付
+     * @return 日付
      */
-    private void checkDir() {
-
-        String temp = getFolderPath(new Date());
-        if ( temp.equals(dirPath) ) {
-            return;
-        }
-        dirPath = temp;
+    private static LocalDate parseDate(String date) {
 
-        File dir = new File(dirPath);
-        if ( !dir.exists() || !dir.isDirectory() ) {
-            dir.mkdirs();
+        try {
+            if ( date.matches("[0-9]{4}") ) {
+                date = LocalDate.now().getYear() + date;
+            }
+            if ( date.matches("[0-9]{8}") ) {
+                return LocalDate.parse(date, YEAR_DATE_FORMAT);
+            }
+        } catch (DateTimeParseException e) {
+            e.printStackTrace();
         }
-
-        file = new File(dir, name + ".log");
+        return null;
     }
 
     /**
@@ -224,10 +272,10 @@ public class LunaChatLogger {
      * @param date 日付
      * @return ログファイル名
      */
-    private String getFolderPath(Date date) {
+    private String getFolderPath(LocalDate date) {
 
         return LunaChat.getDataFolder() +
                 File.separator + "logs" +
-                File.separator + dformat.format(date);
+                File.separator + FOLDER_FORMAT.format(date);
     }
 }
@@ -104,6 +104,6 @@ public class LunaChatStandalone implements PluginInterface {
      */
     @Override
     public void runAsyncTask(Runnable task) {
-        new Thread(task).start();
+        LunaChatExecutor.getInstance().execute(LunaChatExecutor.Lane.EVENT, task);
     }
 }
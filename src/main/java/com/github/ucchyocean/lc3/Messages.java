@@ -10,8 +10,7 @@ import java.io.IOException;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
 
-import com.github.ucchyocean.lc3.util.ClickableFormat;
-import com.github.ucchyocean.lc3.util.KeywordReplacer;
+import com.github.ucchyocean.lc3.util.MessageTemplate;
 import com.github.ucchyocean.lc3.util.Utility;
 import com.github.ucchyocean.lc3.util.YamlConfig;
 
@@ -23,7 +22,8 @@ import net.md_5.bungee.api.chat.BaseComponent;
  */
 public class Messages {
 
-    private static YamlConfig resources;
+    /** コンパイル済みのメッセージ、初期化やリロードのときにまとめて差し替える */
+    private static volatile Templates templates;
     private static File _messageFolder;
     private static File _jar;
 
@@ -74,8 +74,20 @@ public class Messages {
             file = new File(_messageFolder, "messages_en.yml");
         }
 
-        resources = YamlConfig.load(file);
+        YamlConfig resources = YamlConfig.load(file);
         resources.addDefaults(defaultMessages);
+
+        // 全てのメッセージを、ここで一度だけコンパイルする
+        templates = new Templates(resources);
+    }
+
+    /**
+     * コンパイル済みのメッセージを返す。
+     * メッセージが空かどうかの確認は、メッセージを作成せずに、これを使って行うこと。
+     * @return コンパイル済みのメッセージ
+     */
+    public static Templates getTemplates() {
+        return templates;
     }
 
     /**
@@ -94,2062 +106,1740 @@ public class Messages {
      * &f[%color%%channel%&f]&7%player% さんがチャンネルに参加しました。
      */
     public static BaseComponent[] joinMessage(Object color, Object channel, Object player) {
-        String msg = resources.getString("joinMessage");
-        if ( msg == null ) return new BaseComponent[0];
-        ClickableFormat cf = ClickableFormat.makeChannelClickableMessage(msg, channel.toString());
-        cf.replace("%color%", color.toString());
-        cf.replace("%channel%", channel.toString());
-        cf.replace("%player%", player.toString());
-        return cf.makeTextComponent();
+        return templates.joinMessage.toComponents(color, channel, player);
     }
 
     /**
      * &f[%color%%channel%&f]&7%player% さんがチャンネルから退出しました。
      */
     public static BaseComponent[] quitMessage(Object color, Object channel, Object player) {
-        String msg = resources.getString("quitMessage");
-        if ( msg == null ) return new BaseComponent[0];
-        ClickableFormat cf = ClickableFormat.makeChannelClickableMessage(msg, channel.toString());
-        cf.replace("%color%", color.toString());
-        cf.replace("%channel%", channel.toString());
-        cf.replace("%player%", player.toString());
-        return cf.makeTextComponent();
+        return templates.quitMessage.toComponents(color, channel, player);
     }
 
     /**
      * &f[%color%%channel%&f]&7チャンネルが削除されました。
      */
     public static String breakupMessage(Object color, Object channel) {
-        String msg = resources.getString("breakupMessage");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%color%", color.toString());
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.breakupMessage.toText(color, channel);
     }
 
     /**
      * &f[%color%%channel%&f]&7%player% さんをチャンネルからBANしました。
      */
     public static BaseComponent[] banMessage(Object color, Object channel, Object player) {
-        String msg = resources.getString("banMessage");
-        if ( msg == null ) return new BaseComponent[0];
-        ClickableFormat cf = ClickableFormat.makeChannelClickableMessage(msg, channel.toString());
-        cf.replace("%color%", color.toString());
-        cf.replace("%channel%", channel.toString());
-        cf.replace("%player%", player.toString());
-        return cf.makeTextComponent();
+        return templates.banMessage.toComponents(color, channel, player);
     }
 
     /**
      * &f[%color%%channel%&f]&7%player% さんをチャンネルからキックしました。
      */
     public static BaseComponent[] kickMessage(Object color, Object channel, Object player) {
-        String msg = resources.getString("kickMessage");
-        if ( msg == null ) return new BaseComponent[0];
-        ClickableFormat cf = ClickableFormat.makeChannelClickableMessage(msg, channel.toString());
-        cf.replace("%color%", color.toString());
-        cf.replace("%channel%", channel.toString());
-        cf.replace("%player%", player.toString());
-        return cf.makeTextComponent();
+        return templates.kickMessage.toComponents(color, channel, player);
     }
 
     /**
      * &f[%color%%channel%&f]&7%player% さんをチャンネルからMuteしました。
      */
     public static BaseComponent[] muteMessage(Object color, Object channel, Object player) {
-        String msg = resources.getString("muteMessage");
-        if ( msg == null ) return new BaseComponent[0];
-        ClickableFormat cf = ClickableFormat.makeChannelClickableMessage(msg, channel.toString());
-        cf.replace("%color%", color.toString());
-        cf.replace("%channel%", channel.toString());
-        cf.replace("%player%", player.toString());
-        return cf.makeTextComponent();
+        return templates.muteMessage.toComponents(color, channel, player);
     }
 
     /**
      * &f[%color%%channel%&f]&7NGワード発言により、%player% さんをチャンネルから自動BANしました。
      */
     public static BaseComponent[] banNGWordMessage(Object color, Object channel, Object player) {
-        String msg = resources.getString("banNGWordMessage");
-        if ( msg == null ) return new BaseComponent[0];
-        ClickableFormat cf = ClickableFormat.makeChannelClickableMessage(msg, channel.toString());
-        cf.replace("%color%", color.toString());
-        cf.replace("%channel%", channel.toString());
-        cf.replace("%player%", player.toString());
-        return cf.makeTextComponent();
+        return templates.banNGWordMessage.toComponents(color, channel, player);
     }
 
     /**
      * &f[%color%%channel%&f]&7NGワード発言により、%player% さんをチャンネルから自動キックしました。
      */
     public static BaseComponent[] kickNGWordMessage(Object color, Object channel, Object player) {
-        String msg = resources.getString("kickNGWordMessage");
-        if ( msg == null ) return new BaseComponent[0];
-        ClickableFormat cf = ClickableFormat.makeChannelClickableMessage(msg, channel.toString());
-        cf.replace("%color%", color.toString());
-        cf.replace("%channel%", channel.toString());
-        cf.replace("%player%", player.toString());
-        return cf.makeTextComponent();
+        return templates.kickNGWordMessage.toComponents(color, channel, player);
     }
 
     /**
      * &f[%color%%channel%&f]&7NGワード発言により、%player% さんをチャンネルから自動Muteしました。
      */
     public static BaseComponent[] muteNGWordMessage(Object color, Object channel, Object player) {
-        String msg = resources.getString("muteNGWordMessage");
-        if ( msg == null ) return new BaseComponent[0];
-        ClickableFormat cf = ClickableFormat.makeChannelClickableMessage(msg, channel.toString());
-        cf.replace("%color%", color.toString());
-        cf.replace("%channel%", channel.toString());
-        cf.replace("%player%", player.toString());
-        return cf.makeTextComponent();
+        return templates.muteNGWordMessage.toComponents(color, channel, player);
     }
 
     /**
      * &f[%color%%channel%&f]&7%player% さんを期限 %minutes% 分でチャンネルからBANしました。
      */
     public static BaseComponent[] banWithExpireMessage(Object color, Object channel, Object player, Object minutes) {
-        String msg = resources.getString("banWithExpireMessage");
-        if ( msg == null ) return new BaseComponent[0];
-        ClickableFormat cf = ClickableFormat.makeChannelClickableMessage(msg, channel.toString());
-        cf.replace("%color%", color.toString());
-        cf.replace("%channel%", channel.toString());
-        cf.replace("%player%", player.toString());
-        cf.replace("%minutes%", minutes.toString());
-        return cf.makeTextComponent();
+        return templates.banWithExpireMessage.toComponents(color, channel, player, minutes);
     }
 
     /**
      * &f[%color%%channel%&f]&7%player% さんを期限 %minutes% 分でチャンネルからMuteしました。
      */
     public static BaseComponent[] muteWithExpireMessage(Object color, Object channel, Object player, Object minutes) {
-        String msg = resources.getString("muteWithExpireMessage");
-        if ( msg == null ) return new BaseComponent[0];
-        ClickableFormat cf = ClickableFormat.makeChannelClickableMessage(msg, channel.toString());
-        cf.replace("%color%", color.toString());
-        cf.replace("%channel%", channel.toString());
-        cf.replace("%player%", player.toString());
-        cf.replace("%minutes%", minutes.toString());
-        return cf.makeTextComponent();
+        return templates.muteWithExpireMessage.toComponents(color, channel, player, minutes);
     }
 
     /**
      * &f[%color%%channel%&f]&7%player% さんのBANが解除されました。
      */
     public static BaseComponent[] pardonMessage(Object color, Object channel, Object player) {
-        String msg = resources.getString("pardonMessage");
-        if ( msg == null ) return new BaseComponent[0];
-        ClickableFormat cf = ClickableFormat.makeChannelClickableMessage(msg, channel.toString());
-        cf.replace("%color%", color.toString());
-        cf.replace("%channel%", channel.toString());
-        cf.replace("%player%", player.toString());
-        return cf.makeTextComponent();
+        return templates.pardonMessage.toComponents(color, channel, player);
     }
 
     /**
      * &f[%color%%channel%&f]&7%player% さんのMuteが解除されました。
      */
     public static BaseComponent[] unmuteMessage(Object color, Object channel, Object player) {
-        String msg = resources.getString("unmuteMessage");
-        if ( msg == null ) return new BaseComponent[0];
-        ClickableFormat cf = ClickableFormat.makeChannelClickableMessage(msg, channel.toString());
-        cf.replace("%color%", color.toString());
-        cf.replace("%channel%", channel.toString());
-        cf.replace("%player%", player.toString());
-        return cf.makeTextComponent();
+        return templates.unmuteMessage.toComponents(color, channel, player);
     }
 
     /**
      * &f[%color%%channel%&f]&7%player% さんの期限付きBANが解除されました。
      */
     public static BaseComponent[] expiredBanMessage(Object color, Object channel, Object player) {
-        String msg = resources.getString("expiredBanMessage");
-        if ( msg == null ) return new BaseComponent[0];
-        ClickableFormat cf = ClickableFormat.makeChannelClickableMessage(msg, channel.toString());
-        cf.replace("%color%", color.toString());
-        cf.replace("%channel%", channel.toString());
-        cf.replace("%player%", player.toString());
-        return cf.makeTextComponent();
+        return templates.expiredBanMessage.toComponents(color, channel, player);
     }
 
     /**
      * &f[%color%%channel%&f]&7%player% さんの期限付きMuteが解除されました。
      */
     public static BaseComponent[] expiredMuteMessage(Object color, Object channel, Object player) {
-        String msg = resources.getString("expiredMuteMessage");
-        if ( msg == null ) return new BaseComponent[0];
-        ClickableFormat cf = ClickableFormat.makeChannelClickableMessage(msg, channel.toString());
-        cf.replace("%color%", color.toString());
-        cf.replace("%channel%", channel.toString());
-        cf.replace("%player%", player.toString());
-        return cf.makeTextComponent();
+        return templates.expiredMuteMessage.toComponents(color, channel, player);
     }
 
     /**
      * &f[%color%%channel%&f]&7%player% さんがチャンネルのモデレーターになりました。
      */
     public static BaseComponent[] addModeratorMessage(Object color, Object channel, Object player) {
-        String msg = resources.getString("addModeratorMessage");
-        if ( msg == null ) return new BaseComponent[0];
-        ClickableFormat cf = ClickableFormat.makeChannelClickableMessage(msg, channel.toString());
-        cf.replace("%color%", color.toString());
-        cf.replace("%channel%", channel.toString());
-        cf.replace("%player%", player.toString());
-        return cf.makeTextComponent();
+        return templates.addModeratorMessage.toComponents(color, channel, player);
     }
 
     /**
      * &f[%color%%channel%&f]&7%player% さんがチャンネルのモデレーターから外れました。
      */
     public static BaseComponent[] removeModeratorMessage(Object color, Object channel, Object player) {
-        String msg = resources.getString("removeModeratorMessage");
-        if ( msg == null ) return new BaseComponent[0];
-        ClickableFormat cf = ClickableFormat.makeChannelClickableMessage(msg, channel.toString());
-        cf.replace("%color%", color.toString());
-        cf.replace("%channel%", channel.toString());
-        cf.replace("%player%", player.toString());
-        return cf.makeTextComponent();
+        return templates.removeModeratorMessage.toComponents(color, channel, player);
     }
 
     /**
      * &f[%color%%channel%&f]&7あなたの発言は、誰にも届きませんでした。
      */
     public static BaseComponent[] noRecipientMessage(Object color, Object channel) {
-        String msg = resources.getString("noRecipientMessage");
-        if ( msg == null ) return new BaseComponent[0];
-        ClickableFormat cf = ClickableFormat.makeChannelClickableMessage(msg, channel.toString());
-        cf.replace("%color%", color.toString());
-        cf.replace("%channel%", channel.toString());
-        return cf.makeTextComponent();
+        return templates.noRecipientMessage.toComponents(color, channel);
     }
 
     /**
      * &7---------- &bチャンネルリスト &7----------
      */
     public static String listFirstLine() {
-        String msg = resources.getString("listFirstLine");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.listFirstLine.toText();
     }
 
     /**
      * &7---------- &bチャンネルリスト&7(&c%page%&7/&c%max%&7) ----------
      */
     public static String listFirstLinePaging(Object page, Object max) {
-        String msg = resources.getString("listFirstLinePaging");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%page%", page.toString());
-        kr.replace("%max%", max.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.listFirstLinePaging.toText(page, max);
     }
 
     /**
      * &7----------------------------------
      */
     public static String listEndLine() {
-        String msg = resources.getString("listEndLine");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.listEndLine.toText();
     }
 
     /**
      * &7| &f%channel%&7(&c%online%&7/&c%total%&7) &a%topic%
      */
     public static BaseComponent[] listFormat(Object channel, Object online, Object total, Object topic) {
-        String msg = resources.getString("listFormat");
-        if ( msg == null ) return new BaseComponent[0];
-        ClickableFormat cf = ClickableFormat.makeChannelClickableMessage(msg, channel.toString());
-        cf.replace("%channel%", channel.toString());
-        cf.replace("%online%", online.toString());
-        cf.replace("%total%", total.toString());
-        cf.replace("%topic%", topic.toString());
-        return cf.makeTextComponent();
+        return templates.listFormat.toComponents(channel, online, total, topic);
     }
 
     /**
      * &7| 
      */
     public static String listPlainPrefix() {
-        String msg = resources.getString("listPlainPrefix");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.listPlainPrefix.toText();
     }
 
     /**
      * &7---------- &bチャンネル情報 &7----------
      */
     public static String channelInfoFirstLine() {
-        String msg = resources.getString("channelInfoFirstLine");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.channelInfoFirstLine.toText();
     }
 
     /**
      * &7| 
      */
     public static String channelInfoPrefix() {
-        String msg = resources.getString("channelInfoPrefix");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.channelInfoPrefix.toText();
     }
 
     /**
      * &7| &cチャンネル別名：&f
      */
     public static String channelInfoAlias() {
-        String msg = resources.getString("channelInfoAlias");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.channelInfoAlias.toText();
     }
 
     /**
      * &7| &cグローバルチャンネル
      */
     public static String channelInfoGlobal() {
-        String msg = resources.getString("channelInfoGlobal");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.channelInfoGlobal.toText();
     }
 
     /**
      * &7| &cブロードキャストチャンネル
      */
     public static String channelInfoBroadcast() {
-        String msg = resources.getString("channelInfoBroadcast");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.channelInfoBroadcast.toText();
     }
 
     /**
      * &7| &cシークレットチャンネル
      */
     public static String channelInfoSecret() {
-        String msg = resources.getString("channelInfoSecret");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.channelInfoSecret.toText();
     }
 
     /**
      * &7| &cパスワード設定あり
      */
     public static String channelInfoPassword() {
-        String msg = resources.getString("channelInfoPassword");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.channelInfoPassword.toText();
     }
 
     /**
      * &7| &cワールドチャット
      */
     public static String channelInfoWorldChat() {
-        String msg = resources.getString("channelInfoWorldChat");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.channelInfoWorldChat.toText();
     }
 
     /**
      * &7| &c範囲チャット：%block% ブロック
      */
     public static String channelInfoRangeChat(Object block) {
-        String msg = resources.getString("channelInfoRangeChat");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%block%", block.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.channelInfoRangeChat.toText(block);
     }
 
     /**
      * &7| &cフォーマット設定：
      */
     public static String channelInfoFormat() {
-        String msg = resources.getString("channelInfoFormat");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.channelInfoFormat.toText();
     }
 
     /**
      * &7| &cBANリスト：
      */
     public static String channelInfoBanned() {
-        String msg = resources.getString("channelInfoBanned");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.channelInfoBanned.toText();
     }
 
     /**
      * &7| &cMuteリスト：
      */
     public static String channelInfoMuted() {
-        String msg = resources.getString("channelInfoMuted");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.channelInfoMuted.toText();
     }
 
     /**
      * &7----- &b参加中のチャット &7-----
      */
     public static String motdFirstLine() {
-        String msg = resources.getString("motdFirstLine");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.motdFirstLine.toText();
     }
 
     /**
      * &7----- &b非表示にしているチャット &7-----
      */
     public static String hideChannelFirstLine() {
-        String msg = resources.getString("hideChannelFirstLine");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.hideChannelFirstLine.toText();
     }
 
     /**
      * &7----- &b非表示にしているプレイヤー &7-----
      */
     public static String hidePlayerFirstLine() {
-        String msg = resources.getString("hidePlayerFirstLine");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.hidePlayerFirstLine.toText();
     }
 
     /**
      * &7----- &b%channel%の発言ログ &7-----
      */
     public static String logDisplayFirstLine(Object channel) {
-        String msg = resources.getString("logDisplayFirstLine");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.logDisplayFirstLine.toText(channel);
     }
 
     /**
      * &7----------------------------------
      */
     public static String logDisplayEndLine() {
-        String msg = resources.getString("logDisplayEndLine");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.logDisplayEndLine.toText();
     }
 
     /**
      * &7| &c%date%&7, &f%player%&7: &f%message%
      */
     public static String logDisplayFormat(Object date, Object player, Object message) {
-        String msg = resources.getString("logDisplayFormat");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%date%", date.toString());
-        kr.replace("%player%", player.toString());
-        kr.replace("%message%", message.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.logDisplayFormat.toText(date, player, message);
+    }
+
+    /**
+     * &7さらに前のログは、page=%page% を指定すると表示できます。
+     */
+    public static String logDisplayNextPage(Object page) {
+        return templates.logDisplayNextPage.toText(page);
     }
 
     /**
      * &f[&aLC&f]
      */
     public static String infoPrefix() {
-        String msg = resources.getString("infoPrefix");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.infoPrefix.toText();
     }
 
     /**
      * &f[&cLC&f]
      */
     public static String errorPrefix() {
-        String msg = resources.getString("errorPrefix");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.errorPrefix.toText();
     }
 
     /**
      * チャンネル %channel% に参加しました。
      */
     public static String cmdmsgJoin(Object channel) {
-        String msg = resources.getString("cmdmsgJoin");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgJoin.toText(channel);
     }
 
     /**
      * デフォルトの発言先を %channel% に設定しました。
      */
     public static String cmdmsgSet(Object channel) {
-        String msg = resources.getString("cmdmsgSet");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgSet.toText(channel);
     }
 
     /**
      * トピック: &a%topic%
      */
     public static String cmdmsgSetTopic(Object topic) {
-        String msg = resources.getString("cmdmsgSetTopic");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%topic%", topic.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgSetTopic.toText(topic);
     }
 
     /**
      * <注意> 現在このチャンネルを非表示に設定しています。
      */
     public static String cmdmsgSetHide() {
-        String msg = resources.getString("cmdmsgSetHide");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgSetHide.toText();
     }
 
     /**
      * チャンネル %channel% から退出しました。
      */
     public static String cmdmsgLeave(Object channel) {
-        String msg = resources.getString("cmdmsgLeave");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgLeave.toText(channel);
     }
 
     /**
      * %player% さんを、チャンネル %channel% に招待しました。
      */
     public static String cmdmsgInvite(Object player, Object channel) {
-        String msg = resources.getString("cmdmsgInvite");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%player%", player.toString());
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgInvite.toText(player, channel);
     }
 
     /**
      * %player% さんから、チャンネル %channel% に招待されました。
      */
     public static String cmdmsgInvited1(Object player, Object channel) {
-        String msg = resources.getString("cmdmsgInvited1");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%player%", player.toString());
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgInvited1.toText(player, channel);
     }
 
     /**
      * 入室するには /ch accept、拒否するには /ch deny を実行してください。
      */
     public static String cmdmsgInvited2() {
-        String msg = resources.getString("cmdmsgInvited2");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgInvited2.toText();
     }
 
     /**
      * 招待を拒否しました。
      */
     public static String cmdmsgDeny() {
-        String msg = resources.getString("cmdmsgDeny");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgDeny.toText();
     }
 
     /**
      * 招待が拒否されました。
      */
     public static String cmdmsgDenyed() {
-        String msg = resources.getString("cmdmsgDenyed");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgDenyed.toText();
     }
 
     /**
      * %player% さんを、チャンネル %channel% からキックしました。
      */
     public static String cmdmsgKick(Object player, Object channel) {
-        String msg = resources.getString("cmdmsgKick");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%player%", player.toString());
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgKick.toText(player, channel);
     }
 
     /**
      * チャンネル %channel% からキックされました。
      */
     public static String cmdmsgKicked(Object channel) {
-        String msg = resources.getString("cmdmsgKicked");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgKicked.toText(channel);
     }
 
     /**
      * %player% さんを、チャンネル %channel% からBANしました。
      */
     public static String cmdmsgBan(Object player, Object channel) {
-        String msg = resources.getString("cmdmsgBan");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%player%", player.toString());
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgBan.toText(player, channel);
     }
 
     /**
      * %player% さんを、チャンネル %channel% から期限 %minutes% 分でBANしました。
      */
     public static String cmdmsgBanWithExpire(Object player, Object channel, Object minutes) {
-        String msg = resources.getString("cmdmsgBanWithExpire");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%player%", player.toString());
-        kr.replace("%channel%", channel.toString());
-        kr.replace("%minutes%", minutes.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgBanWithExpire.toText(player, channel, minutes);
     }
 
     /**
      * チャンネル %channel% からBANされました。
      */
     public static String cmdmsgBanned(Object channel) {
-        String msg = resources.getString("cmdmsgBanned");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgBanned.toText(channel);
     }
 
     /**
      * %player% さんの、チャンネル %channel% のBANを解除しました。
      */
     public static String cmdmsgPardon(Object player, Object channel) {
-        String msg = resources.getString("cmdmsgPardon");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%player%", player.toString());
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgPardon.toText(player, channel);
     }
 
     /**
      * チャンネル %channel% のBANが解除されました。
      */
     public static String cmdmsgPardoned(Object channel) {
-        String msg = resources.getString("cmdmsgPardoned");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgPardoned.toText(channel);
     }
 
     /**
      * %player% さんを、チャンネル %channel% でMuteしました。
      */
     public static String cmdmsgMute(Object player, Object channel) {
-        String msg = resources.getString("cmdmsgMute");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%player%", player.toString());
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgMute.toText(player, channel);
     }
 
     /**
      * %player% さんを、チャンネル %channel% から期限 %minutes% 分でMuteしました。
      */
     public static String cmdmsgMuteWithExpire(Object player, Object channel, Object minutes) {
-        String msg = resources.getString("cmdmsgMuteWithExpire");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%player%", player.toString());
-        kr.replace("%channel%", channel.toString());
-        kr.replace("%minutes%", minutes.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgMuteWithExpire.toText(player, channel, minutes);
     }
 
     /**
      * チャンネル %channel% からMuteされました。
      */
     public static String cmdmsgMuted(Object channel) {
-        String msg = resources.getString("cmdmsgMuted");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgMuted.toText(channel);
     }
 
     /**
      * %player% さんの、チャンネル %channel% のMuteを解除しました。
      */
     public static String cmdmsgUnmute(Object player, Object channel) {
-        String msg = resources.getString("cmdmsgUnmute");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%player%", player.toString());
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgUnmute.toText(player, channel);
     }
 
     /**
      * チャンネル %channel% のMuteが解除されました。
      */
     public static String cmdmsgUnmuted(Object channel) {
-        String msg = resources.getString("cmdmsgUnmuted");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgUnmuted.toText(channel);
     }
 
     /**
      * チャンネル %channel% を非表示に設定しました。
      */
     public static String cmdmsgHided(Object channel) {
-        String msg = resources.getString("cmdmsgHided");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgHided.toText(channel);
     }
 
     /**
      * プレイヤー %player% を非表示に設定しました。
      */
     public static String cmdmsgHidedPlayer(Object player) {
-        String msg = resources.getString("cmdmsgHidedPlayer");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%player%", player.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgHidedPlayer.toText(player);
     }
 
     /**
      * チャンネル %channel% を表示に設定しました。
      */
     public static String cmdmsgUnhided(Object channel) {
-        String msg = resources.getString("cmdmsgUnhided");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgUnhided.toText(channel);
     }
 
     /**
      * プレイヤー %channel% を表示に設定しました。
      */
     public static String cmdmsgUnhidedPlayer(Object channel) {
-        String msg = resources.getString("cmdmsgUnhidedPlayer");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgUnhidedPlayer.toText(channel);
     }
 
     /**
      * LunaChatの設定を再読み込みしました。
      */
     public static String cmdmsgReload() {
-        String msg = resources.getString("cmdmsgReload");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgReload.toText();
+    }
+
+    /**
+     * %channels% 個のチャンネルと設定データを、YAMLファイルから %storage% に移行しました。
+     */
+    public static String cmdmsgMigrate(Object channels, Object storage) {
+        return templates.cmdmsgMigrate.toText(channels, storage);
     }
 
     /**
      * チャンネル %channel% を新規作成しました。
      */
     public static String cmdmsgCreate(Object channel) {
-        String msg = resources.getString("cmdmsgCreate");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgCreate.toText(channel);
     }
 
     /**
      * チャンネル %channel% を削除しました。
      */
     public static String cmdmsgRemove(Object channel) {
-        String msg = resources.getString("cmdmsgRemove");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgRemove.toText(channel);
     }
 
     /**
      * メッセージフォーマットを %format% に設定しました。
      */
     public static String cmdmsgFormat(Object format) {
-        String msg = resources.getString("cmdmsgFormat");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%format%", format.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgFormat.toText(format);
     }
 
     /**
      * %player% さんをチャンネル %channel% のモデレーターに設定しました。
      */
     public static String cmdmsgModerator(Object player, Object channel) {
-        String msg = resources.getString("cmdmsgModerator");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%player%", player.toString());
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgModerator.toText(player, channel);
     }
 
     /**
      * %player% さんをチャンネル %channel% のモデレーターから外しました。
      */
     public static String cmdmsgModeratorMinus(Object player, Object channel) {
-        String msg = resources.getString("cmdmsgModeratorMinus");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%player%", player.toString());
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgModeratorMinus.toText(player, channel);
     }
 
     /**
      * %key% を %value% と覚えました。
      */
     public static String cmdmsgDictionaryAdd(Object key, Object value) {
-        String msg = resources.getString("cmdmsgDictionaryAdd");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%key%", key.toString());
-        kr.replace("%value%", value.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgDictionaryAdd.toText(key, value);
     }
 
     /**
      * %key% を忘れました。
      */
     public static String cmdmsgDictionaryRemove(Object key) {
-        String msg = resources.getString("cmdmsgDictionaryRemove");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%key%", key.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgDictionaryRemove.toText(key);
     }
 
     /**
      * %key% を %value% に設定しました。
      */
     public static String cmdmsgOption(Object key, Object value) {
-        String msg = resources.getString("cmdmsgOption");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%key%", key.toString());
-        kr.replace("%value%", value.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgOption.toText(key, value);
     }
 
     /**
      * テンプレート %index% を、%value% に設定しました。
      */
     public static String cmdmsgTemplate(Object index, Object value) {
-        String msg = resources.getString("cmdmsgTemplate");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%index%", index.toString());
-        kr.replace("%value%", value.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgTemplate.toText(index, value);
     }
 
     /**
      * テンプレート %index% を削除しました。
      */
     public static String cmdmsgTemplateRemove(Object index) {
-        String msg = resources.getString("cmdmsgTemplateRemove");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%index%", index.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgTemplateRemove.toText(index);
     }
 
     /**
      * %player% さんの発言先を %channel% に設定しました。
      */
     public static String cmdmsgSetDefault(Object player, Object channel) {
-        String msg = resources.getString("cmdmsgSetDefault");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%player%", player.toString());
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgSetDefault.toText(player, channel);
     }
 
     /**
      * Your chat's Japanize conversion was turned %value%.
      */
     public static String cmdmsgPlayerJapanize(Object value) {
-        String msg = resources.getString("cmdmsgPlayerJapanize");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%value%", value.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgPlayerJapanize.toText(value);
     }
 
     /**
      * %player% さんのJapanize変換を %value% にしました。
      */
     public static String cmdmsgPlayerJapanizeOther(Object player, Object value) {
-        String msg = resources.getString("cmdmsgPlayerJapanizeOther");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%player%", player.toString());
-        kr.replace("%value%", value.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgPlayerJapanizeOther.toText(player, value);
     }
 
     /**
      * %inviter%の現在の会話相手 : %invited%
      */
     public static String cmdmsgReplyInviter(Object inviter, Object invited) {
-        String msg = resources.getString("cmdmsgReplyInviter");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%inviter%", inviter.toString());
-        kr.replace("%invited%", invited.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgReplyInviter.toText(inviter, invited);
     }
 
     /**
      * %inviter%の現在の会話相手 : 相手がいません。
      */
     public static String cmdmsgReplyInviterNone(Object inviter) {
-        String msg = resources.getString("cmdmsgReplyInviterNone");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%inviter%", inviter.toString());
-        return Utility.replaceColorCode(resources.getString("infoPrefix", "") + kr.toString());
+        return templates.cmdmsgReplyInviterNone.toText(inviter);
     }
 
     /**
      * このコマンドはゲーム内からしか実行できません。
      */
     public static String errmsgIngame() {
-        String msg = resources.getString("errmsgIngame");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgIngame.toText();
     }
 
     /**
      * コマンドの指定が正しくありません。
      */
     public static String errmsgCommand() {
-        String msg = resources.getString("errmsgCommand");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgCommand.toText();
     }
 
     /**
      * 指定されたチャンネルが存在しません。
      */
     public static String errmsgNotExist() {
-        String msg = resources.getString("errmsgNotExist");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgNotExist.toText();
     }
 
     /**
      * 指定されたチャンネルもプレイヤーも存在しません。
      */
     public static String errmsgNotExistChannelAndPlayer() {
-        String msg = resources.getString("errmsgNotExistChannelAndPlayer");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgNotExistChannelAndPlayer.toText();
     }
 
     /**
      * 指定されたチャンネルが存在しないか、チャンネルが指定されませんでした。
      */
     public static String errmsgNotExistOrNotSpecified() {
-        String msg = resources.getString("errmsgNotExistOrNotSpecified");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgNotExistOrNotSpecified.toText();
     }
 
     /**
      * 指定されたチャンネル名が既に存在します。
      */
     public static String errmsgExist() {
-        String msg = resources.getString("errmsgExist");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgExist.toText();
     }
 
     /**
      * 指定されたチャンネルに参加していません。
      */
     public static String errmsgNomember() {
-        String msg = resources.getString("errmsgNomember");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgNomember.toText();
     }
 
     /**
      * 指定されたプレイヤーはチャンネルに参加していません。
      */
     public static String errmsgNomemberOther() {
-        String msg = resources.getString("errmsgNomemberOther");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgNomemberOther.toText();
     }
 
     /**
      * 指定されたプレイヤー %player% が見つかりません。
      */
     public static String errmsgNotfoundPlayer(Object player) {
-        String msg = resources.getString("errmsgNotfoundPlayer");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%player%", player.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgNotfoundPlayer.toText(player);
     }
 
     /**
      * 招待を受けたプレイヤーではありません。
      */
     public static String errmsgNotInvited() {
-        String msg = resources.getString("errmsgNotInvited");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgNotInvited.toText();
     }
 
     /**
      * チャンネルが無くなってしまったため、参加できませんでした。
      */
     public static String errmsgNotfoundChannel() {
-        String msg = resources.getString("errmsgNotfoundChannel");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgNotfoundChannel.toText();
     }
 
     /**
      * 招待された %player% さんは、既にチャンネルに参加しています。
      */
     public static String errmsgInvitedAlreadyExist(Object player) {
-        String msg = resources.getString("errmsgInvitedAlreadyExist");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%player%", player.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgInvitedAlreadyExist.toText(player);
     }
 
     /**
      * 既にチャンネルに参加しています。
      */
     public static String errmsgInvitedAlreadyJoin() {
-        String msg = resources.getString("errmsgInvitedAlreadyJoin");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgInvitedAlreadyJoin.toText();
     }
 
     /**
      * 現在チャンネルに参加していません。
      */
     public static String errmsgNoJoin() {
-        String msg = resources.getString("errmsgNoJoin");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgNoJoin.toText();
     }
 
     /**
      * あなたはこのチャンネルからBANされています。
      */
     public static String errmsgBanned() {
-        String msg = resources.getString("errmsgBanned");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgBanned.toText();
     }
 
     /**
      * あなたはこのチャンネルからMuteされているため、発言できません。
      */
     public static String errmsgMuted() {
-        String msg = resources.getString("errmsgMuted");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgMuted.toText();
     }
 
     /**
      * 指定されたプレイヤーは既にBANリストに含まれています。
      */
     public static String errmsgAlreadyBanned() {
-        String msg = resources.getString("errmsgAlreadyBanned");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgAlreadyBanned.toText();
     }
 
     /**
      * 指定されたプレイヤーは既にMuteリストに含まれています。
      */
     public static String errmsgAlreadyMuted() {
-        String msg = resources.getString("errmsgAlreadyMuted");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgAlreadyMuted.toText();
     }
 
     /**
      * このチャンネルは既に非表示になっています。
      */
     public static String errmsgAlreadyHided() {
-        String msg = resources.getString("errmsgAlreadyHided");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgAlreadyHided.toText();
     }
 
     /**
      * このプレイヤーは既に非表示になっています。
      */
     public static String errmsgAlreadyHidedPlayer() {
-        String msg = resources.getString("errmsgAlreadyHidedPlayer");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgAlreadyHidedPlayer.toText();
     }
 
     /**
      * このチャンネルは非表示になっていません。
      */
     public static String errmsgAlreadyUnhided() {
-        String msg = resources.getString("errmsgAlreadyUnhided");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgAlreadyUnhided.toText();
     }
 
     /**
      * このプレイヤーは非表示になっていません。
      */
     public static String errmsgAlreadyUnhidedPlayer() {
-        String msg = resources.getString("errmsgAlreadyUnhidedPlayer");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgAlreadyUnhidedPlayer.toText();
     }
 
     /**
      * 個人チャットチャンネルには参加できません。
      */
     public static String errmsgCannotJoinPersonal() {
-        String msg = resources.getString("errmsgCannotJoinPersonal");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgCannotJoinPersonal.toText();
     }
 
     /**
      * あなたはモデレーターではないため、そのコマンドを実行できません。
      */
     public static String errmsgNotModerator() {
-        String msg = resources.getString("errmsgNotModerator");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgNotModerator.toText();
     }
 
     /**
      * 指定されたプレイヤーはBANリストに含まれていません。
      */
     public static String errmsgNotBanned() {
-        String msg = resources.getString("errmsgNotBanned");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgNotBanned.toText();
     }
 
     /**
      * 指定されたプレイヤーはMuteリストに含まれていません。
      */
     public static String errmsgNotMuted() {
-        String msg = resources.getString("errmsgNotMuted");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgNotMuted.toText();
     }
 
     /**
      * 有効なオプション指定が1つもありませんでした。
      */
     public static String errmsgInvalidOptions() {
-        String msg = resources.getString("errmsgInvalidOptions");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgInvalidOptions.toText();
     }
 
     /**
      * このチャンネルはパスワードが設定されているため入れません。
      */
     public static String errmsgPassword1() {
-        String msg = resources.getString("errmsgPassword1");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgPassword1.toText();
     }
 
     /**
      * パスワードを指定して、チャンネルに入ってください。
      */
     public static String errmsgPassword2() {
-        String msg = resources.getString("errmsgPassword2");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgPassword2.toText();
     }
 
     /**
      * /ch (channel) (password)
      */
     public static String errmsgPassword3() {
-        String msg = resources.getString("errmsgPassword3");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgPassword3.toText();
     }
 
     /**
      * パスワードが正しくないため、チャンネルに入れません。
      */
     public static String errmsgPasswordNotmatch() {
-        String msg = resources.getString("errmsgPasswordNotmatch");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgPasswordNotmatch.toText();
     }
 
     /**
      * 権限 "%permission%" が無いため、実行できません。
      */
     public static String errmsgPermission(Object permission) {
-        String msg = resources.getString("errmsgPermission");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%permission%", permission.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgPermission.toText(permission);
     }
 
     /**
      * チャンネル %channel% はグローバルチャンネルなので、退出できません。
      */
     public static String errmsgCannotLeaveGlobal(Object channel) {
-        String msg = resources.getString("errmsgCannotLeaveGlobal");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgCannotLeaveGlobal.toText(channel);
     }
 
     /**
      * チャンネル %channel% はグローバルチャンネルなので、キックできません。
      */
     public static String errmsgCannotKickGlobal(Object channel) {
-        String msg = resources.getString("errmsgCannotKickGlobal");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgCannotKickGlobal.toText(channel);
     }
 
     /**
      * チャンネル %channel% はグローバルチャンネルなので、BANできません。
      */
     public static String errmsgCannotBANGlobal(Object channel) {
-        String msg = resources.getString("errmsgCannotBANGlobal");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgCannotBANGlobal.toText(channel);
     }
 
     /**
      * チャンネル %channel% はグローバルチャンネルなので、削除できません。
      */
     public static String errmsgCannotRemoveGlobal(Object channel) {
-        String msg = resources.getString("errmsgCannotRemoveGlobal");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgCannotRemoveGlobal.toText(channel);
     }
 
     /**
      * チャンネル %channel% はグローバルチャンネルなので、モデレーターを設定できません。
      */
     public static String errmsgCannotModeratorGlobal(Object channel) {
-        String msg = resources.getString("errmsgCannotModeratorGlobal");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgCannotModeratorGlobal.toText(channel);
     }
 
     /**
      * チャンネル %channel% は強制参加チャンネルなので、退出できません。
      */
     public static String errmsgCannotLeaveForceJoin(Object channel) {
-        String msg = resources.getString("errmsgCannotLeaveForceJoin");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgCannotLeaveForceJoin.toText(channel);
     }
 
     /**
      * あなたが受信したプライベートメッセージがありません。
      */
     public static String errmsgNotfoundPM() {
-        String msg = resources.getString("errmsgNotfoundPM");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgNotfoundPM.toText();
     }
 
     /**
      * 自分自身にプライベートメッセージを送ることはできません。
      */
     public static String errmsgCannotSendPMSelf() {
-        String msg = resources.getString("errmsgCannotSendPMSelf");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgCannotSendPMSelf.toText();
     }
 
     /**
      * %channel% はチャンネル名に使用できない文字を含んでいます。
      */
     public static String errmsgCannotUseForChannel(Object channel) {
-        String msg = resources.getString("errmsgCannotUseForChannel");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgCannotUseForChannel.toText(channel);
     }
 
     /**
      * %channel% は短すぎてチャンネル名に使用できません。%min% 文字以上にしてください。
      */
     public static String errmsgCannotUseForChannelTooShort(Object channel, Object min) {
-        String msg = resources.getString("errmsgCannotUseForChannelTooShort");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        kr.replace("%min%", min.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgCannotUseForChannelTooShort.toText(channel, min);
     }
 
     /**
      * %channel% は長すぎてチャンネル名に使用できません。%max% 文字以下にしてください。
      */
     public static String errmsgCannotUseForChannelTooLong(Object channel, Object max) {
-        String msg = resources.getString("errmsgCannotUseForChannelTooLong");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        kr.replace("%max%", max.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgCannotUseForChannelTooLong.toText(channel, max);
     }
 
     /**
      * %word% はグローバルチャンネル名に使用できない文字を含んでいます。
      */
     public static String errmsgCannotUseForGlobal(Object word) {
-        String msg = resources.getString("errmsgCannotUseForGlobal");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%word%", word.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgCannotUseForGlobal.toText(word);
     }
 
     /**
      * %value% はカラーコードとして正しくありません。
      */
     public static String errmsgInvalidColorCode(Object value) {
-        String msg = resources.getString("errmsgInvalidColorCode");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%value%", value.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgInvalidColorCode.toText(value);
     }
 
     /**
      * テンプレート番号は、0から9までの数字を指定してください。
      */
     public static String errmsgInvalidTemplateNumber() {
-        String msg = resources.getString("errmsgInvalidTemplateNumber");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgInvalidTemplateNumber.toText();
     }
 
     /**
      * 説明文は %max% 文字以下にしてください。
      */
     public static String errmsgToolongDescription(Object max) {
-        String msg = resources.getString("errmsgToolongDescription");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%max%", max.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgToolongDescription.toText(max);
     }
 
     /**
      * チャンネル別名は %max% 文字以下にしてください。
      */
     public static String errmsgToolongAlias(Object max) {
-        String msg = resources.getString("errmsgToolongAlias");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%max%", max.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgToolongAlias.toText(max);
     }
 
     /**
      * パスワードは %max% 文字以下にしてください。
      */
     public static String errmsgToolongPassword(Object max) {
-        String msg = resources.getString("errmsgToolongPassword");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%max%", max.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgToolongPassword.toText(max);
     }
 
     /**
      * %key% は true/false で指定してください。
      */
     public static String errmsgInvalidBooleanOption(Object key) {
-        String msg = resources.getString("errmsgInvalidBooleanOption");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%key%", key.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgInvalidBooleanOption.toText(key);
     }
 
     /**
      * range に正しくない値が指定されました。
      */
     public static String errmsgInvalidRangeOption() {
-        String msg = resources.getString("errmsgInvalidRangeOption");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgInvalidRangeOption.toText();
     }
 
     /**
      * %key% に指定された %value% は、Japanize変換タイプとして正しくありません。
      */
     public static String errmsgInvalidJapanizeOption(Object key, Object value) {
-        String msg = resources.getString("errmsgInvalidJapanizeOption");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%key%", key.toString());
-        kr.replace("%value%", value.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgInvalidJapanizeOption.toText(key, value);
     }
 
     /**
      * このチャンネルはグローバルチャンネルのため、ブロードキャストをオフにできません。
      */
     public static String errmsgCannotOffGlobalBroadcast() {
-        String msg = resources.getString("errmsgCannotOffGlobalBroadcast");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgCannotOffGlobalBroadcast.toText();
     }
 
     /**
      * 必須キーワード %key% が指定されていません。
      */
     public static String errmsgFormatConstraint(Object key) {
-        String msg = resources.getString("errmsgFormatConstraint");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%key%", key.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgFormatConstraint.toText(key);
     }
 
     /**
      * BAN期限(分)の指定が正しくありません。1 から 43200 の間の数値を指定してください。
      */
     public static String errmsgInvalidBanExpireParameter() {
-        String msg = resources.getString("errmsgInvalidBanExpireParameter");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgInvalidBanExpireParameter.toText();
     }
 
     /**
      * Mute期限(分)の指定が正しくありません。1 から 43200 の間の数値を指定してください。
      */
     public static String errmsgInvalidMuteExpireParameter() {
-        String msg = resources.getString("errmsgInvalidMuteExpireParameter");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgInvalidMuteExpireParameter.toText();
     }
 
     /**
      * 自分の発言を非表示にすることはできません。
      */
     public static String errmsgCannotHideSelf() {
-        String msg = resources.getString("errmsgCannotHideSelf");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgCannotHideSelf.toText();
     }
 
     /**
      * 指定されたチャンネル別名 %aliase% は、チャンネル %channel% と重複するので設定できません。
      */
     public static String errmsgDuplicatedAlias(Object aliase, Object channel) {
-        String msg = resources.getString("errmsgDuplicatedAlias");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%aliase%", aliase.toString());
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgDuplicatedAlias.toText(aliase, channel);
     }
 
     /**
      * 権限がありません&7(%permission%)
      */
     public static String errmsgNotPermission(Object permission) {
-        String msg = resources.getString("errmsgNotPermission");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%permission%", permission.toString());
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgNotPermission.toText(permission);
     }
 
     /**
      * このサーバーでは、チャンネルチャットは動作しません。
      */
     public static String errmsgChannelChatDisabled() {
-        String msg = resources.getString("errmsgChannelChatDisabled");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(resources.getString("errorPrefix", "") + kr.toString());
+        return templates.errmsgChannelChatDisabled.toText();
+    }
+
+    /**
+     * データの保存先がYAMLファイルなので、移行の必要はありません。config.yml の storageType を jdbc にして再起動してください。
+     */
+    public static String errmsgMigrateNotRequired() {
+        return templates.errmsgMigrateNotRequired.toText();
+    }
+
+    /**
+     * config.yml に誤りがあるため、以前の設定のまま使用します。サーバーのログを確認してください。
+     */
+    public static String errmsgReloadConfig() {
+        return templates.errmsgReloadConfig.toText();
     }
 
     /**
      * &6/%label% join (channel) &7- チャンネルに参加します。
      */
     public static String usageJoin(Object label) {
-        String msg = resources.getString("usageJoin");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageJoin.toText(label);
     }
 
     /**
      * &6/%label% leave &7- 参加しているチャンネルから退出します。
      */
     public static String usageLeave(Object label) {
-        String msg = resources.getString("usageLeave");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageLeave.toText(label);
     }
 
     /**
      * &6/%label% list &7- チャンネルのリストを表示します。
      */
     public static String usageList(Object label) {
-        String msg = resources.getString("usageList");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageList.toText(label);
     }
 
     /**
      * &6/%label% invite (name) &7- 指定したプレイヤーをチャンネルチャットに招待します。
      */
     public static String usageInvite(Object label) {
-        String msg = resources.getString("usageInvite");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageInvite.toText(label);
     }
 
     /**
      * &6/%label% accept &7- 招待を受けてチャンネルチャットに入室します。
      */
     public static String usageAccept(Object label) {
-        String msg = resources.getString("usageAccept");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageAccept.toText(label);
     }
 
     /**
      * &6/%label% deny &7- 招待を拒否します。
      */
     public static String usageDeny(Object label) {
-        String msg = resources.getString("usageDeny");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageDeny.toText(label);
     }
 
     /**
      * &6/%label% kick (name) &7- 指定したプレイヤーをチャンネルチャットからキックします。
      */
     public static String usageKick(Object label) {
-        String msg = resources.getString("usageKick");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageKick.toText(label);
     }
 
     /**
      * &6/%label% ban (name) &7- 指定したプレイヤーをチャンネルチャットからBANします。
      */
     public static String usageBan(Object label) {
-        String msg = resources.getString("usageBan");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageBan.toText(label);
     }
 
     /**
      * &6/%label% ban (name) [minutes] &7- 指定したプレイヤーを指定した分の間、BANします。
      */
     public static String usageBan2(Object label) {
-        String msg = resources.getString("usageBan2");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageBan2.toText(label);
     }
 
     /**
      * &6/%label% pardon (name) &7- 指定したプレイヤーのBANを解除します。
      */
     public static String usagePardon(Object label) {
-        String msg = resources.getString("usagePardon");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usagePardon.toText(label);
     }
 
     /**
      * &6/%label% mute (name) &7- 指定したプレイヤーのチャンネルでの発言権を剥奪します。
      */
     public static String usageMute(Object label) {
-        String msg = resources.getString("usageMute");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageMute.toText(label);
     }
 
     /**
      * &6/%label% mute (name) [minutes] &7- 指定したプレイヤーを指定した分の間、発言権剥奪します。
      */
     public static String usageMute2(Object label) {
-        String msg = resources.getString("usageMute2");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageMute2.toText(label);
     }
 
     /**
      * &6/%label% unmute (name) &7- 指定したプレイヤーのチャンネルでの発言権剥奪を解除します。
      */
     public static String usageUnmute(Object label) {
-        String msg = resources.getString("usageUnmute");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageUnmute.toText(label);
     }
 
     /**
      * &6/%label% hide [channel] &7- 指定したチャンネルの発言内容を非表示にします。
      */
     public static String usageHide(Object label) {
-        String msg = resources.getString("usageHide");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageHide.toText(label);
     }
 
     /**
      * &6/%label% hide (player) &7- 指定したプレイヤーの発言内容を非表示にします。
      */
     public static String usageHidePlayer(Object label) {
-        String msg = resources.getString("usageHidePlayer");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageHidePlayer.toText(label);
     }
 
     /**
      * &6/%label% unhide [channel] &7- 指定したチャンネルの発言内容を非表示から表示に戻します。
      */
     public static String usageUnhide(Object label) {
-        String msg = resources.getString("usageUnhide");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageUnhide.toText(label);
     }
 
     /**
      * &6/%label% unhide (player) &7- 指定したプレイヤーの発言内容を非表示から表示に戻します。
      */
     public static String usageUnhidePlayer(Object label) {
-        String msg = resources.getString("usageUnhidePlayer");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageUnhidePlayer.toText(label);
     }
 
     /**
      * &6/%label% info [channel] &7- チャンネルの情報を表示します。
      */
     public static String usageInfo(Object label) {
-        String msg = resources.getString("usageInfo");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageInfo.toText(label);
     }
 
     /**
-     * &6/%label% log [channel] [p=player] [f=filter] [d=date] [r] &7- チャンネルの発言ログを表示します。
+     * &6/%label% log [channel] [p=player] [f=filter] [d=date] [q=keyword] [from=date] [to=date] [r] [page=page] &7- チャンネルの発言ログを表示します。
      */
     public static String usageLog(Object label) {
-        String msg = resources.getString("usageLog");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageLog.toText(label);
     }
 
     /**
      * &6/%label% create (channel) [description] &7- チャンネルを作成します。
      */
     public static String usageCreate(Object label) {
-        String msg = resources.getString("usageCreate");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageCreate.toText(label);
     }
 
     /**
      * &6/%label% remove [channel] &7- チャンネルを削除します。
      */
     public static String usageRemove(Object label) {
-        String msg = resources.getString("usageRemove");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageRemove.toText(label);
     }
 
     /**
      * &6/%label% format [channel] (format...) &7- チャンネルのメッセージフォーマットを設定します。
      */
     public static String usageFormat(Object label) {
-        String msg = resources.getString("usageFormat");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageFormat.toText(label);
     }
 
     /**
      * &6/%label% moderator [channel] (player) &7- チャンネルのモデレーターを指定したプレイヤーに設定します。
      */
     public static String usageModerator(Object label) {
-        String msg = resources.getString("usageModerator");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageModerator.toText(label);
     }
 
     /**
      * &6/%label% mod [channel] (player) &7- チャンネルのモデレーターを指定したプレイヤーに設定します。
      */
     public static String usageMod(Object label) {
-        String msg = resources.getString("usageMod");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageMod.toText(label);
     }
 
     /**
      * &6/%label% dictionary (add (word) (value)|remove (word)) &7- Japanize変換辞書に新しいワードを登録したり、指定したワードを削除したりします。
      */
     public static String usageDictionary(Object label) {
-        String msg = resources.getString("usageDictionary");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageDictionary.toText(label);
     }
 
     /**
      * &6/%label% dic (add (word) (value)|remove (word)) &7- Japanize変換辞書に新しいワードを登録したり、指定したワードを削除したりします。
      */
     public static String usageDic(Object label) {
-        String msg = resources.getString("usageDic");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageDic.toText(label);
     }
 
     /**
      * &6/%label% option [channel] (key=value...) &7- チャンネルのオプションを設定します。
      */
     public static String usageOption(Object label) {
-        String msg = resources.getString("usageOption");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageOption.toText(label);
     }
 
     /**
      * &6/%label% template (number) (template...) &7- メッセージフォーマットのテンプレートを登録します。
      */
     public static String usageTemplate(Object label) {
-        String msg = resources.getString("usageTemplate");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageTemplate.toText(label);
     }
 
     /**
      * &6/%label% check &7- モデレーターがいないチャンネルを一覧します。
      */
     public static String usageCheck1(Object label) {
-        String msg = resources.getString("usageCheck1");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageCheck1.toText(label);
     }
 
     /**
      * &6/%label% check remove &7- /ch check で一覧されたチャンネルを全て削除します。
      */
     public static String usageCheck2(Object label) {
-        String msg = resources.getString("usageCheck2");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageCheck2.toText(label);
     }
 
     /**
      * &6/%label% reload &7- config.ymlの再読み込みをします。
      */
     public static String usageReload(Object label) {
-        String msg = resources.getString("usageReload");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageReload.toText(label);
+    }
+
+    /**
+     * &6/%label% migrate &7- YAMLファイルのデータを、データベースに移行します。
+     */
+    public static String usageMigrate(Object label) {
+        return templates.usageMigrate.toText(label);
     }
 
     /**
      * &6/%label% help [user|mod|admin] [page] &7- ヘルプを表示します。
      */
     public static String usageHelp(Object label) {
-        String msg = resources.getString("usageHelp");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageHelp.toText(label);
     }
 
     /**
      * &6/%label% set default (player) [channel] &7- 指定したプレイヤーの発言先チャンネルを、指定したチャンネルに設定します。
      */
     public static String usageSet1(Object label) {
-        String msg = resources.getString("usageSet1");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageSet1.toText(label);
     }
 
     /**
      * &6/%label% (name) [message] &7- 指定したプレイヤーとの個人チャットを開始します。
      */
     public static String usageMessage(Object label) {
-        String msg = resources.getString("usageMessage");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageMessage.toText(label);
     }
 
     /**
      * &6/%label% [message] &7- 受信した個人チャットに返信します。
      */
     public static String usageReply(Object label) {
-        String msg = resources.getString("usageReply");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageReply.toText(label);
     }
 
     /**
      * &6/%label% on|off &7- Turn on/off the Japanize conversion of your chat.
      */
     public static String usageJapanize(Object label) {
-        String msg = resources.getString("usageJapanize");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageJapanize.toText(label);
     }
 
     /**
      * &6/%label% (player) on|off &7- Turn on/off the Japanize conversion of other player's chat.
      */
     public static String usageJapanizeOther(Object label) {
-        String msg = resources.getString("usageJapanizeOther");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageJapanizeOther.toText(label);
     }
 
     /**
      * &e----- &6LunaChat %type% command (&c%num%&6/&c%max%&6) &e-----
      */
     public static String usageTop(Object type, Object num, Object max) {
-        String msg = resources.getString("usageTop");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%type%", type.toString());
-        kr.replace("%num%", num.toString());
-        kr.replace("%max%", max.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageTop.toText(type, num, max);
     }
 
     /**
      * &e-----------------------------------------
      */
     public static String usageFoot() {
-        String msg = resources.getString("usageFoot");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageFoot.toText();
     }
 
     /**
      * &6次のページを見るには、&c/%label% help %type% %next%&6 と実行してください。
      */
     public static String usageNoticeNextPage(Object label, Object type, Object next) {
-        String msg = resources.getString("usageNoticeNextPage");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%label%", label.toString());
-        kr.replace("%type%", type.toString());
-        kr.replace("%next%", next.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.usageNoticeNextPage.toText(label, type, next);
     }
 
     /**
      * 発言先を%channel%にする
      */
     public static String hoverChannelName(Object channel) {
-        String msg = resources.getString("hoverChannelName");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%channel%", channel.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.hoverChannelName.toText(channel);
     }
 
     /**
      * %player%にプライベートメッセージを送る
      */
     public static String hoverPlayerName(Object player) {
-        String msg = resources.getString("hoverPlayerName");
-        if ( msg == null ) return "";
-        KeywordReplacer kr = new KeywordReplacer(msg);
-        kr.replace("%player%", player.toString());
-        return Utility.replaceColorCode(kr.toString());
+        return templates.hoverPlayerName.toText(player);
+    }
+
+    /**
+     * コンパイル済みのメッセージ。Messages.initialize() で、全てのメッセージをまとめて作成する。
+     */
+    public static class Templates {
+
+        public final MessageTemplate joinMessage;
+        public final MessageTemplate quitMessage;
+        public final MessageTemplate breakupMessage;
+        public final MessageTemplate banMessage;
+        public final MessageTemplate kickMessage;
+        public final MessageTemplate muteMessage;
+        public final MessageTemplate banNGWordMessage;
+        public final MessageTemplate kickNGWordMessage;
+        public final MessageTemplate muteNGWordMessage;
+        public final MessageTemplate banWithExpireMessage;
+        public final MessageTemplate muteWithExpireMessage;
+        public final MessageTemplate pardonMessage;
+        public final MessageTemplate unmuteMessage;
+        public final MessageTemplate expiredBanMessage;
+        public final MessageTemplate expiredMuteMessage;
+        public final MessageTemplate addModeratorMessage;
+        public final MessageTemplate removeModeratorMessage;
+        public final MessageTemplate noRecipientMessage;
+        public final MessageTemplate listFirstLine;
+        public final MessageTemplate listFirstLinePaging;
+        public final MessageTemplate listEndLine;
+        public final MessageTemplate listFormat;
+        public final MessageTemplate listPlainPrefix;
+        public final MessageTemplate channelInfoFirstLine;
+        public final MessageTemplate channelInfoPrefix;
+        public final MessageTemplate channelInfoAlias;
+        public final MessageTemplate channelInfoGlobal;
+        public final MessageTemplate channelInfoBroadcast;
+        public final MessageTemplate channelInfoSecret;
+        public final MessageTemplate channelInfoPassword;
+        public final MessageTemplate channelInfoWorldChat;
+        public final MessageTemplate channelInfoRangeChat;
+        public final MessageTemplate channelInfoFormat;
+        public final MessageTemplate channelInfoBanned;
+        public final MessageTemplate channelInfoMuted;
+        public final MessageTemplate motdFirstLine;
+        public final MessageTemplate hideChannelFirstLine;
+        public final MessageTemplate hidePlayerFirstLine;
+        public final MessageTemplate logDisplayFirstLine;
+        public final MessageTemplate logDisplayEndLine;
+        public final MessageTemplate logDisplayFormat;
+        public final MessageTemplate logDisplayNextPage;
+        public final MessageTemplate infoPrefix;
+        public final MessageTemplate errorPrefix;
+        public final MessageTemplate cmdmsgJoin;
+        public final MessageTemplate cmdmsgSet;
+        public final MessageTemplate cmdmsgSetTopic;
+        public final MessageTemplate cmdmsgSetHide;
+        public final MessageTemplate cmdmsgLeave;
+        public final MessageTemplate cmdmsgInvite;
+        public final MessageTemplate cmdmsgInvited1;
+        public final MessageTemplate cmdmsgInvited2;
+        public final MessageTemplate cmdmsgDeny;
+        public final MessageTemplate cmdmsgDenyed;
+        public final MessageTemplate cmdmsgKick;
+        public final MessageTemplate cmdmsgKicked;
+        public final MessageTemplate cmdmsgBan;
+        public final MessageTemplate cmdmsgBanWithExpire;
+        public final MessageTemplate cmdmsgBanned;
+        public final MessageTemplate cmdmsgPardon;
+        public final MessageTemplate cmdmsgPardoned;
+        public final MessageTemplate cmdmsgMute;
+        public final MessageTemplate cmdmsgMuteWithExpire;
+        public final MessageTemplate cmdmsgMuted;
+        public final MessageTemplate cmdmsgUnmute;
+        public final MessageTemplate cmdmsgUnmuted;
+        public final MessageTemplate cmdmsgHided;
+        public final MessageTemplate cmdmsgHidedPlayer;
+        public final MessageTemplate cmdmsgUnhided;
+        public final MessageTemplate cmdmsgUnhidedPlayer;
+        public final MessageTemplate cmdmsgReload;
+        public final MessageTemplate cmdmsgMigrate;
+        public final MessageTemplate cmdmsgCreate;
+        public final MessageTemplate cmdmsgRemove;
+        public final MessageTemplate cmdmsgFormat;
+        public final MessageTemplate cmdmsgModerator;
+        public final MessageTemplate cmdmsgModeratorMinus;
+        public final MessageTemplate cmdmsgDictionaryAdd;
+        public final MessageTemplate cmdmsgDictionaryRemove;
+        public final MessageTemplate cmdmsgOption;
+        public final MessageTemplate cmdmsgTemplate;
+        public final MessageTemplate cmdmsgTemplateRemove;
+        public final MessageTemplate cmdmsgSetDefault;
+        public final MessageTemplate cmdmsgPlayerJapanize;
+        public final MessageTemplate cmdmsgPlayerJapanizeOther;
+        public final MessageTemplate cmdmsgReplyInviter;
+        public final MessageTemplate cmdmsgReplyInviterNone;
+        public final MessageTemplate errmsgIngame;
+        public final MessageTemplate errmsgCommand;
+        public final MessageTemplate errmsgNotExist;
+        public final MessageTemplate errmsgNotExistChannelAndPlayer;
+        public final MessageTemplate errmsgNotExistOrNotSpecified;
+        public final MessageTemplate errmsgExist;
+        public final MessageTemplate errmsgNomember;
+        public final MessageTemplate errmsgNomemberOther;
+        public final MessageTemplate errmsgNotfoundPlayer;
+        public final MessageTemplate errmsgNotInvited;
+        public final MessageTemplate errmsgNotfoundChannel;
+        public final MessageTemplate errmsgInvitedAlreadyExist;
+        public final MessageTemplate errmsgInvitedAlreadyJoin;
+        public final MessageTemplate errmsgNoJoin;
+        public final MessageTemplate errmsgBanned;
+        public final MessageTemplate errmsgMuted;
+        public final MessageTemplate errmsgAlreadyBanned;
+        public final MessageTemplate errmsgAlreadyMuted;
+        public final MessageTemplate errmsgAlreadyHided;
+        public final MessageTemplate errmsgAlreadyHidedPlayer;
+        public final MessageTemplate errmsgAlreadyUnhided;
+        public final MessageTemplate errmsgAlreadyUnhidedPlayer;
+        public final MessageTemplate errmsgCannotJoinPersonal;
+        public final MessageTemplate errmsgNotModerator;
+        public final MessageTemplate errmsgNotBanned;
+        public final MessageTemplate errmsgNotMuted;
+        public final MessageTemplate errmsgInvalidOptions;
+        public final MessageTemplate errmsgPassword1;
+        public final MessageTemplate errmsgPassword2;
+        public final MessageTemplate errmsgPassword3;
+        public final MessageTemplate errmsgPasswordNotmatch;
+        public final MessageTemplate errmsgPermission;
+        public final MessageTemplate errmsgCannotLeaveGlobal;
+        public final MessageTemplate errmsgCannotKickGlobal;
+        public final MessageTemplate errmsgCannotBANGlobal;
+        public final MessageTemplate errmsgCannotRemoveGlobal;
+        public final MessageTemplate errmsgCannotModeratorGlobal;
+        public final MessageTemplate errmsgCannotLeaveForceJoin;
+        public final MessageTemplate errmsgNotfoundPM;
+        public final MessageTemplate errmsgCannotSendPMSelf;
+        public final MessageTemplate errmsgCannotUseForChannel;
+        public final MessageTemplate errmsgCannotUseForChannelTooShort;
+        public final MessageTemplate errmsgCannotUseForChannelTooLong;
+        public final MessageTemplate errmsgCannotUseForGlobal;
+        public final MessageTemplate errmsgInvalidColorCode;
+        public final MessageTemplate errmsgInvalidTemplateNumber;
+        public final MessageTemplate errmsgToolongDescription;
+        public final MessageTemplate errmsgToolongAlias;
+        public final MessageTemplate errmsgToolongPassword;
+        public final MessageTemplate errmsgInvalidBooleanOption;
+        public final MessageTemplate errmsgInvalidRangeOption;
+        public final MessageTemplate errmsgInvalidJapanizeOption;
+        public final MessageTemplate errmsgCannotOffGlobalBroadcast;
+        public final MessageTemplate errmsgFormatConstraint;
+        public final MessageTemplate errmsgInvalidBanExpireParameter;
+        public final MessageTemplate errmsgInvalidMuteExpireParameter;
+        public final MessageTemplate errmsgCannotHideSelf;
+        public final MessageTemplate errmsgDuplicatedAlias;
+        public final MessageTemplate errmsgNotPermission;
+        public final MessageTemplate errmsgChannelChatDisabled;
+        public final MessageTemplate errmsgMigrateNotRequired;
+        public final MessageTemplate errmsgReloadConfig;
+        public final MessageTemplate usageJoin;
+        public final MessageTemplate usageLeave;
+        public final MessageTemplate usageList;
+        public final MessageTemplate usageInvite;
+        public final MessageTemplate usageAccept;
+        public final MessageTemplate usageDeny;
+        public final MessageTemplate usageKick;
+        public final MessageTemplate usageBan;
+        public final MessageTemplate usageBan2;
+        public final MessageTemplate usagePardon;
+        public final MessageTemplate usageMute;
+        public final MessageTemplate usageMute2;
+        public final MessageTemplate usageUnmute;
+        public final MessageTemplate usageHide;
+        public final MessageTemplate usageHidePlayer;
+        public final MessageTemplate usageUnhide;
+        public final MessageTemplate usageUnhidePlayer;
+        public final MessageTemplate usageInfo;
+        public final MessageTemplate usageLog;
+        public final MessageTemplate usageCreate;
+        public final MessageTemplate usageRemove;
+        public final MessageTemplate usageFormat;
+        public final MessageTemplate usageModerator;
+        public final MessageTemplate usageMod;
+        public final MessageTemplate usageDictionary;
+        public final MessageTemplate usageDic;
+        public final MessageTemplate usageOption;
+        public final MessageTemplate usageTemplate;
+        public final MessageTemplate usageCheck1;
+        public final MessageTemplate usageCheck2;
+        public final MessageTemplate usageReload;
+        public final MessageTemplate usageMigrate;
+        public final MessageTemplate usageHelp;
+        public final MessageTemplate usageSet1;
+        public final MessageTemplate usageMessage;
+        public final MessageTemplate usageReply;
+        public final MessageTemplate usageJapanize;
+        public final MessageTemplate usageJapanizeOther;
+        public final MessageTemplate usageTop;
+        public final MessageTemplate usageFoot;
+        public final MessageTemplate usageNoticeNextPage;
+        public final MessageTemplate hoverChannelName;
+        public final MessageTemplate hoverPlayerName;
+
+        private Templates(YamlConfig resources) {
+            String errorPrefix = resources.getString("errorPrefix", "");
+            String infoPrefix = resources.getString("infoPrefix", "");
+            joinMessage = MessageTemplate.compileClickable(resources.getString("joinMessage"), "color", "channel", "player");
+            quitMessage = MessageTemplate.compileClickable(resources.getString("quitMessage"), "color", "channel", "player");
+            breakupMessage = MessageTemplate.compile("", resources.getString("breakupMessage"), "color", "channel");
+            banMessage = MessageTemplate.compileClickable(resources.getString("banMessage"), "color", "channel", "player");
+            kickMessage = MessageTemplate.compileClickable(resources.getString("kickMessage"), "color", "channel", "player");
+            muteMessage = MessageTemplate.compileClickable(resources.getString("muteMessage"), "color", "channel", "player");
+            banNGWordMessage = MessageTemplate.compileClickable(resources.getString("banNGWordMessage"), "color", "channel", "player");
+            kickNGWordMessage = MessageTemplate.compileClickable(resources.getString("kickNGWordMessage"), "color", "channel", "player");
+            muteNGWordMessage = MessageTemplate.compileClickable(resources.getString("muteNGWordMessage"), "color", "channel", "player");
+            banWithExpireMessage = MessageTemplate.compileClickable(resources.getString("banWithExpireMessage"), "color", "channel", "player", "minutes");
+            muteWithExpireMessage = MessageTemplate.compileClickable(resources.getString("muteWithExpireMessage"), "color", "channel", "player", "minutes");
+            pardonMessage = MessageTemplate.compileClickable(resources.getString("pardonMessage"), "color", "channel", "player");
+            unmuteMessage = MessageTemplate.compileClickable(resources.getString("unmuteMessage"), "color", "channel", "player");
+            expiredBanMessage = MessageTemplate.compileClickable(resources.getString("expiredBanMessage"), "color", "channel", "player");
+            expiredMuteMessage = MessageTemplate.compileClickable(resources.getString("expiredMuteMessage"), "color", "channel", "player");
+            addModeratorMessage = MessageTemplate.compileClickable(resources.getString("addModeratorMessage"), "color", "channel", "player");
+            removeModeratorMessage = MessageTemplate.compileClickable(resources.getString("removeModeratorMessage"), "color", "channel", "player");
+            noRecipientMessage = MessageTemplate.compileClickable(resources.getString("noRecipientMessage"), "color", "channel");
+            listFirstLine = MessageTemplate.compile("", resources.getString("listFirstLine"));
+            listFirstLinePaging = MessageTemplate.compile("", resources.getString("listFirstLinePaging"), "page", "max");
+            listEndLine = MessageTemplate.compile("", resources.getString("listEndLine"));
+            listFormat = MessageTemplate.compileClickable(resources.getString("listFormat"), "channel", "online", "total", "topic");
+            listPlainPrefix = MessageTemplate.compile("", resources.getString("listPlainPrefix"));
+            channelInfoFirstLine = MessageTemplate.compile("", resources.getString("channelInfoFirstLine"));
+            channelInfoPrefix = MessageTemplate.compile("", resources.getString("channelInfoPrefix"));
+            channelInfoAlias = MessageTemplate.compile("", resources.getString("channelInfoAlias"));
+            channelInfoGlobal = MessageTemplate.compile("", resources.getString("channelInfoGlobal"));
+            channelInfoBroadcast = MessageTemplate.compile("", resources.getString("channelInfoBroadcast"));
+            channelInfoSecret = MessageTemplate.compile("", resources.getString("channelInfoSecret"));
+            channelInfoPassword = MessageTemplate.compile("", resources.getString("channelInfoPassword"));
+            channelInfoWorldChat = MessageTemplate.compile("", resources.getString("channelInfoWorldChat"));
+            channelInfoRangeChat = MessageTemplate.compile("", resources.getString("channelInfoRangeChat"), "block");
+            channelInfoFormat = MessageTemplate.compile("", resources.getString("channelInfoFormat"));
+            channelInfoBanned = MessageTemplate.compile("", resources.getString("channelInfoBanned"));
+            channelInfoMuted = MessageTemplate.compile("", resources.getString("channelInfoMuted"));
+            motdFirstLine = MessageTemplate.compile("", resources.getString("motdFirstLine"));
+            hideChannelFirstLine = MessageTemplate.compile("", resources.getString("hideChannelFirstLine"));
+            hidePlayerFirstLine = MessageTemplate.compile("", resources.getString("hidePlayerFirstLine"));
+            logDisplayFirstLine = MessageTemplate.compile("", resources.getString("logDisplayFirstLine"), "channel");
+            logDisplayEndLine = MessageTemplate.compile("", resources.getString("logDisplayEndLine"));
+            logDisplayFormat = MessageTemplate.compile("", resources.getString("logDisplayFormat"), "date", "player", "message");
+            logDisplayNextPage = MessageTemplate.compile("", resources.getString("logDisplayNextPage"), "page");
+            infoPrefix = MessageTemplate.compile("", resources.getString("infoPrefix"));
+            errorPrefix = MessageTemplate.compile("", resources.getString("errorPrefix"));
+            cmdmsgJoin = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgJoin"), "channel");
+            cmdmsgSet = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgSet"), "channel");
+            cmdmsgSetTopic = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgSetTopic"), "topic");
+            cmdmsgSetHide = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgSetHide"));
+            cmdmsgLeave = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgLeave"), "channel");
+            cmdmsgInvite = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgInvite"), "player", "channel");
+            cmdmsgInvited1 = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgInvited1"), "player", "channel");
+            cmdmsgInvited2 = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgInvited2"));
+            cmdmsgDeny = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgDeny"));
+            cmdmsgDenyed = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgDenyed"));
+            cmdmsgKick = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgKick"), "player", "channel");
+            cmdmsgKicked = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgKicked"), "channel");
+            cmdmsgBan = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgBan"), "player", "channel");
+            cmdmsgBanWithExpire = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgBanWithExpire"), "player", "channel", "minutes");
+            cmdmsgBanned = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgBanned"), "channel");
+            cmdmsgPardon = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgPardon"), "player", "channel");
+            cmdmsgPardoned = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgPardoned"), "channel");
+            cmdmsgMute = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgMute"), "player", "channel");
+            cmdmsgMuteWithExpire = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgMuteWithExpire"), "player", "channel", "minutes");
+            cmdmsgMuted = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgMuted"), "channel");
+            cmdmsgUnmute = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgUnmute"), "player", "channel");
+            cmdmsgUnmuted = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgUnmuted"), "channel");
+            cmdmsgHided = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgHided"), "channel");
+            cmdmsgHidedPlayer = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgHidedPlayer"), "player");
+            cmdmsgUnhided = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgUnhided"), "channel");
+            cmdmsgUnhidedPlayer = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgUnhidedPlayer"), "channel");
+            cmdmsgReload = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgReload"));
+            cmdmsgMigrate = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgMigrate"), "channels", "storage");
+            cmdmsgCreate = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgCreate"), "channel");
+            cmdmsgRemove = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgRemove"), "channel");
+            cmdmsgFormat = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgFormat"), "format");
+            cmdmsgModerator = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgModerator"), "player", "channel");
+            cmdmsgModeratorMinus = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgModeratorMinus"), "player", "channel");
+            cmdmsgDictionaryAdd = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgDictionaryAdd"), "key", "value");
+            cmdmsgDictionaryRemove = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgDictionaryRemove"), "key");
+            cmdmsgOption = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgOption"), "key", "value");
+            cmdmsgTemplate = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgTemplate"), "index", "value");
+            cmdmsgTemplateRemove = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgTemplateRemove"), "index");
+            cmdmsgSetDefault = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgSetDefault"), "player", "channel");
+            cmdmsgPlayerJapanize = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgPlayerJapanize"), "value");
+            cmdmsgPlayerJapanizeOther = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgPlayerJapanizeOther"), "player", "value");
+            cmdmsgReplyInviter = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgReplyInviter"), "inviter", "invited");
+            cmdmsgReplyInviterNone = MessageTemplate.compile(infoPrefix, resources.getString("cmdmsgReplyInviterNone"), "inviter");
+            errmsgIngame = MessageTemplate.compile(errorPrefix, resources.getString("errmsgIngame"));
+            errmsgCommand = MessageTemplate.compile(errorPrefix, resources.getString("errmsgCommand"));
+            errmsgNotExist = MessageTemplate.compile(errorPrefix, resources.getString("errmsgNotExist"));
+            errmsgNotExistChannelAndPlayer = MessageTemplate.compile(errorPrefix, resources.getString("errmsgNotExistChannelAndPlayer"));
+            errmsgNotExistOrNotSpecified = MessageTemplate.compile(errorPrefix, resources.getString("errmsgNotExistOrNotSpecified"));
+            errmsgExist = MessageTemplate.compile(errorPrefix, resources.getString("errmsgExist"));
+            errmsgNomember = MessageTemplate.compile(errorPrefix, resources.getString("errmsgNomember"));
+            errmsgNomemberOther = MessageTemplate.compile(errorPrefix, resources.getString("errmsgNomemberOther"));
+            errmsgNotfoundPlayer = MessageTemplate.compile(errorPrefix, resources.getString("errmsgNotfoundPlayer"), "player");
+            errmsgNotInvited = MessageTemplate.compile(errorPrefix, resources.getString("errmsgNotInvited"));
+            errmsgNotfoundChannel = MessageTemplate.compile(errorPrefix, resources.getString("errmsgNotfoundChannel"));
+            errmsgInvitedAlreadyExist = MessageTemplate.compile(errorPrefix, resources.getString("errmsgInvitedAlreadyExist"), "player");
+            errmsgInvitedAlreadyJoin = MessageTemplate.compile(errorPrefix, resources.getString("errmsgInvitedAlreadyJoin"));
+            errmsgNoJoin = MessageTemplate.compile(errorPrefix, resources.getString("errmsgNoJoin"));
+            errmsgBanned = MessageTemplate.compile(errorPrefix, resources.getString("errmsgBanned"));
+            errmsgMuted = MessageTemplate.compile(errorPrefix, resources.getString("errmsgMuted"));
+            errmsgAlreadyBanned = MessageTemplate.compile(errorPrefix, resources.getString("errmsgAlreadyBanned"));
+            errmsgAlreadyMuted = MessageTemplate.compile(errorPrefix, resources.getString("errmsgAlreadyMuted"));
+            errmsgAlreadyHided = MessageTemplate.compile(errorPrefix, resources.getString("errmsgAlreadyHided"));
+            errmsgAlreadyHidedPlayer = MessageTemplate.compile(errorPrefix, resources.getString("errmsgAlreadyHidedPlayer"));
+            errmsgAlreadyUnhided = MessageTemplate.compile(errorPrefix, resources.getString("errmsgAlreadyUnhided"));
+            errmsgAlreadyUnhidedPlayer = MessageTemplate.compile(errorPrefix, resources.getString("errmsgAlreadyUnhidedPlayer"));
+            errmsgCannotJoinPersonal = MessageTemplate.compile(errorPrefix, resources.getString("errmsgCannotJoinPersonal"));
+            errmsgNotModerator = MessageTemplate.compile(errorPrefix, resources.getString("errmsgNotModerator"));
+            errmsgNotBanned = MessageTemplate.compile(errorPrefix, resources.getString("errmsgNotBanned"));
+            errmsgNotMuted = MessageTemplate.compile(errorPrefix, resources.getString("errmsgNotMuted"));
+            errmsgInvalidOptions = MessageTemplate.compile(errorPrefix, resources.getString("errmsgInvalidOptions"));
+            errmsgPassword1 = MessageTemplate.compile(errorPrefix, resources.getString("errmsgPassword1"));
+            errmsgPassword2 = MessageTemplate.compile(errorPrefix, resources.getString("errmsgPassword2"));
+            errmsgPassword3 = MessageTemplate.compile(errorPrefix, resources.getString("errmsgPassword3"));
+            errmsgPasswordNotmatch = MessageTemplate.compile(errorPrefix, resources.getString("errmsgPasswordNotmatch"));
+            errmsgPermission = MessageTemplate.compile(errorPrefix, resources.getString("errmsgPermission"), "permission");
+            errmsgCannotLeaveGlobal = MessageTemplate.compile(errorPrefix, resources.getString("errmsgCannotLeaveGlobal"), "channel");
+            errmsgCannotKickGlobal = MessageTemplate.compile(errorPrefix, resources.getString("errmsgCannotKickGlobal"), "channel");
+            errmsgCannotBANGlobal = MessageTemplate.compile(errorPrefix, resources.getString("errmsgCannotBANGlobal"), "channel");
+            errmsgCannotRemoveGlobal = MessageTemplate.compile(errorPrefix, resources.getString("errmsgCannotRemoveGlobal"), "channel");
+            errmsgCannotModeratorGlobal = MessageTemplate.compile(errorPrefix, resources.getString("errmsgCannotModeratorGlobal"), "channel");
+            errmsgCannotLeaveForceJoin = MessageTemplate.compile(errorPrefix, resources.getString("errmsgCannotLeaveForceJoin"), "channel");
+            errmsgNotfoundPM = MessageTemplate.compile(errorPrefix, resources.getString("errmsgNotfoundPM"));
+            errmsgCannotSendPMSelf = MessageTemplate.compile(errorPrefix, resources.getString("errmsgCannotSendPMSelf"));
+            errmsgCannotUseForChannel = MessageTemplate.compile(errorPrefix, resources.getString("errmsgCannotUseForChannel"), "channel");
+            errmsgCannotUseForChannelTooShort = MessageTemplate.compile(errorPrefix, resources.getString("errmsgCannotUseForChannelTooShort"), "channel", "min");
+            errmsgCannotUseForChannelTooLong = MessageTemplate.compile(errorPrefix, resources.getString("errmsgCannotUseForChannelTooLong"), "channel", "max");
+            errmsgCannotUseForGlobal = MessageTemplate.compile(errorPrefix, resources.getString("errmsgCannotUseForGlobal"), "word");
+            errmsgInvalidColorCode = MessageTemplate.compile(errorPrefix, resources.getString("errmsgInvalidColorCode"), "value");
+            errmsgInvalidTemplateNumber = MessageTemplate.compile(errorPrefix, resources.getString("errmsgInvalidTemplateNumber"));
+            errmsgToolongDescription = MessageTemplate.compile(errorPrefix, resources.getString("errmsgToolongDescription"), "max");
+            errmsgToolongAlias = MessageTemplate.compile(errorPrefix, resources.getString("errmsgToolongAlias"), "max");
+            errmsgToolongPassword = MessageTemplate.compile(errorPrefix, resources.getString("errmsgToolongPassword"), "max");
+            errmsgInvalidBooleanOption = MessageTemplate.compile(errorPrefix, resources.getString("errmsgInvalidBooleanOption"), "key");
+            errmsgInvalidRangeOption = MessageTemplate.compile(errorPrefix, resources.getString("errmsgInvalidRangeOption"));
+            errmsgInvalidJapanizeOption = MessageTemplate.compile(errorPrefix, resources.getString("errmsgInvalidJapanizeOption"), "key", "value");
+            errmsgCannotOffGlobalBroadcast = MessageTemplate.compile(errorPrefix, resources.getString("errmsgCannotOffGlobalBroadcast"));
+            errmsgFormatConstraint = MessageTemplate.compile(errorPrefix, resources.getString("errmsgFormatConstraint"), "key");
+            errmsgInvalidBanExpireParameter = MessageTemplate.compile(errorPrefix, resources.getString("errmsgInvalidBanExpireParameter"));
+            errmsgInvalidMuteExpireParameter = MessageTemplate.compile(errorPrefix, resources.getString("errmsgInvalidMuteExpireParameter"));
+            errmsgCannotHideSelf = MessageTemplate.compile(errorPrefix, resources.getString("errmsgCannotHideSelf"));
+            errmsgDuplicatedAlias = MessageTemplate.compile(errorPrefix, resources.getString("errmsgDuplicatedAlias"), "aliase", "channel");
+            errmsgNotPermission = MessageTemplate.compile(errorPrefix, resources.getString("errmsgNotPermission"), "permission");
+            errmsgChannelChatDisabled = MessageTemplate.compile(errorPrefix, resources.getString("errmsgChannelChatDisabled"));
+            errmsgMigrateNotRequired = MessageTemplate.compile(errorPrefix, resources.getString("errmsgMigrateNotRequired"));
+            errmsgReloadConfig = MessageTemplate.compile(errorPrefix, resources.getString("errmsgReloadConfig"));
+            usageJoin = MessageTemplate.compile("", resources.getString("usageJoin"), "label");
+            usageLeave = MessageTemplate.compile("", resources.getString("usageLeave"), "label");
+            usageList = MessageTemplate.compile("", resources.getString("usageList"), "label");
+            usageInvite = MessageTemplate.compile("", resources.getString("usageInvite"), "label");
+            usageAccept = MessageTemplate.compile("", resources.getString("usageAccept"), "label");
+            usageDeny = MessageTemplate.compile("", resources.getString("usageDeny"), "label");
+            usageKick = MessageTemplate.compile("", resources.getString("usageKick"), "label");
+            usageBan = MessageTemplate.compile("", resources.getString("usageBan"), "label");
+            usageBan2 = MessageTemplate.compile("", resources.getString("usageBan2"), "label");
+            usagePardon = MessageTemplate.compile("", resources.getString("usagePardon"), "label");
+            usageMute = MessageTemplate.compile("", resources.getString("usageMute"), "label");
+            usageMute2 = MessageTemplate.compile("", resources.getString("usageMute2"), "label");
+            usageUnmute = MessageTemplate.compile("", resources.getString("usageUnmute"), "label");
+            usageHide = MessageTemplate.compile("", resources.getString("usageHide"), "label");
+            usageHidePlayer = MessageTemplate.compile("", resources.getString("usageHidePlayer"), "label");
+            usageUnhide = MessageTemplate.compile("", resources.getString("usageUnhide"), "label");
+            usageUnhidePlayer = MessageTemplate.compile("", resources.getString("usageUnhidePlayer"), "label");
+            usageInfo = MessageTemplate.compile("", resources.getString("usageInfo"), "label");
+            usageLog = MessageTemplate.compile("", resources.getString("usageLog"), "label");
+            usageCreate = MessageTemplate.compile("", resources.getString("usageCreate"), "label");
+            usageRemove = MessageTemplate.compile("", resources.getString("usageRemove"), "label");
+            usageFormat = MessageTemplate.compile("", resources.getString("usageFormat"), "label");
+            usageModerator = MessageTemplate.compile("", resources.getString("usageModerator"), "label");
+            usageMod = MessageTemplate.compile("", resources.getString("usageMod"), "label");
+            usageDictionary = MessageTemplate.compile("", resources.getString("usageDictionary"), "label");
+            usageDic = MessageTemplate.compile("", resources.getString("usageDic"), "label");
+            usageOption = MessageTemplate.compile("", resources.getString("usageOption"), "label");
+            usageTemplate = MessageTemplate.compile("", resources.getString("usageTemplate"), "label");
+            usageCheck1 = MessageTemplate.compile("", resources.getString("usageCheck1"), "label");
+            usageCheck2 = MessageTemplate.compile("", resources.getString("usageCheck2"), "label");
+            usageReload = MessageTemplate.compile("", resources.getString("usageReload"), "label");
+            usageMigrate = MessageTemplate.compile("", resources.getString("usageMigrate"), "label");
+            usageHelp = MessageTemplate.compile("", resources.getString("usageHelp"), "label");
+            usageSet1 = MessageTemplate.compile("", resources.getString("usageSet1"), "label");
+            usageMessage = MessageTemplate.compile("", resources.getString("usageMessage"), "label");
+            usageReply = MessageTemplate.compile("", resources.getString("usageReply"), "label");
+            usageJapanize = MessageTemplate.compile("", resources.getString("usageJapanize"), "label");
+            usageJapanizeOther = MessageTemplate.compile("", resources.getString("usageJapanizeOther"), "label");
+            usageTop = MessageTemplate.compile("", resources.getString("usageTop"), "type", "num", "max");
+            usageFoot = MessageTemplate.compile("", resources.getString("usageFoot"));
+            usageNoticeNextPage = MessageTemplate.compile("", resources.getString("usageNoticeNextPage"), "label", "type", "next");
+            hoverChannelName = MessageTemplate.compile("", resources.getString("hoverChannelName"), "channel");
+            hoverPlayerName = MessageTemplate.compile("", resources.getString("hoverPlayerName"), "player");
+        }
     }
     // === Auto-generated methods area end. ===
 }
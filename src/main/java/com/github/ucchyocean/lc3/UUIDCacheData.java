@@ -5,73 +5,166 @@
  */
 package com.github.ucchyocean.lc3;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 
 import org.jetbrains.annotations.Nullable;
 
 import com.github.ucchyocean.lc3.util.YamlConfig;
 
 /**
- * UUIDのキャッシュデータを管理するクラス
+ * UUIDのキャッシュデータを管理するクラス。
+ * UUIDからプレイヤー名、プレイヤー名（小文字）からUUIDの、両方向の索引をメモリ上に持つ。
+ * ファイルには追記だけを行い、読み込むときに、UUIDごとに最新のものだけを残すように書き直す。
  * @author ucchy
  */
 public class UUIDCacheData {
 
-    private static final String FILE_NAME = "uuidcache.yml";
+    private static final String FILE_NAME = "uuidcache.dat";
+    private static final String LEGACY_FILE_NAME = "uuidcache.yml";
+
+    private static final int MAGIC = 0x4C435543;
+    private static final int VERSION = 1;
 
     // キャッシュデータ key=UUID文字列、value=プレイヤー名
-    private YamlConfig cache;
+    private final Map<String, String> names;
+
+    // 索引 key=小文字にしたプレイヤー名、value=UUID文字列
+    private final Map<String, String> uuids;
 
     private File dataFolder;
 
+    /** 追記用のストリーム、まだ開いていないならnull */
+    private DataOutputStream writer;
+
     /**
      * コンストラクタ
      * @param dataFolder プラグインのデータ格納フォルダ
      */
     public UUIDCacheData(File dataFolder) {
-        cache = new YamlConfig();
+        this.names = new ConcurrentHashMap<String, String>();
+        this.uuids = new ConcurrentHashMap<String, String>();
         this.dataFolder = dataFolder;
         reload();
     }
 
     /**
-     * キャッシュデータを読み込む
+     * キャッシュデータを読み込む。
+     * 読み込んだ後に、UUIDごとに最新のものだけを残すように、ファイルを書き直す。
      */
-    public void reload() {
+    public synchronized void reload() {
+
+        close();
+        names.clear();
+        uuids.clear();
+
         File file = new File(dataFolder, FILE_NAME);
-        if ( !file.exists() ) {
-            // キャッシュファイルがまだ無いなら、からファイルを作成しておく。
-            cache = new YamlConfig();
-            try {
-                cache.save(file);
-            } catch (IOException e) {
-                e.printStackTrace();
+        Map<String, String> loaded;
+        if ( file.exists() ) {
+            loaded = readLog(file);
+            if ( loaded == null ) {
+                // 読み込めないファイルは上書きせずに退避し、空のキャッシュから始める
+                File bad = new File(dataFolder, FILE_NAME + ".bad");
+                try {
+                    Files.move(file.toPath(), bad.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return;
+                }
+                PluginInterface plugin = LunaChat.getPlugin();
+                if ( plugin != null ) {
+                    plugin.log(Level.WARNING, "Could not read " + FILE_NAME
+                            + ", the file was moved to " + bad.getName() + ".");
+                }
+                loaded = new LinkedHashMap<String, String>();
             }
+        } else {
+            // 以前のバージョンのキャッシュファイルがあれば、移行する
+            loaded = readLegacy(new File(dataFolder, LEGACY_FILE_NAME));
+        }
+        for ( Map.Entry<String, String> entry : loaded.entrySet() ) {
+            index(entry.getKey(), entry.getValue());
+        }
+
+        try {
+            compact(file, loaded);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 追記したキャッシュデータを、ファイルに書き出す
+     */
+    public synchronized void save() {
+        if ( writer == null ) {
             return;
         }
-        cache = YamlConfig.load(file);
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
     /**
-     * キャッシュデータをファイルに保存する
+     * キャッシュデータをファイルに書き出して、ファイルを閉じる
      */
-    public void save() {
-        File file = new File(dataFolder, FILE_NAME);
+    public synchronized void close() {
+        if ( writer == null ) {
+            return;
+        }
         try {
-            cache.save(file);
+            writer.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
+        writer = null;
     }
 
     /**
      * プレイヤーのUUIDとプレイヤー名を追加する。
+     * ファイルへは追記だけを行うので、書き出すときは save() を呼び出すこと。
      * @param uuid UUID
      * @param name プレイヤー名
      */
-    public void put(String uuid, String name) {
-        cache.set(uuid, name);
+    public synchronized void put(String uuid, String name) {
+
+        if ( uuid == null || name == null || name.equals(names.get(uuid)) ) {
+            return;
+        }
+        index(uuid, name);
+
+        try {
+            long[] bits = toBits(uuid);
+            if ( bits == null ) {
+                // UUIDでないキーは、ファイルには保存しない
+                return;
+            }
+            if ( writer == null ) {
+                writer = new DataOutputStream(new BufferedOutputStream(
+                        new FileOutputStream(new File(dataFolder, FILE_NAME), true)));
+            }
+            writeRecord(writer, bits, name);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
     /**
@@ -80,7 +173,8 @@ public class UUIDCacheData {
      * @return プレイヤー名（キャッシュされていない場合はnullが返される）
      */
     public @Nullable String get(String uuid) {
-        return cache.getString(uuid);
+        if ( uuid == null ) return null;
+        return names.get(uuid);
     }
 
     /**
@@ -90,12 +184,151 @@ public class UUIDCacheData {
      */
     public @Nullable String getUUIDFromName(String name) {
         if ( name == null ) return null;
-        for ( String uuid : cache.getKeys(false) ) {
-            String n = cache.getString(uuid);
-            if ( name.equalsIgnoreCase(n) ) {
-                return uuid;
+        return uuids.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * キャッシュされているプレイヤーの数を返す
+     * @return キャッシュされているプレイヤーの数
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * 両方向の索引に追加する。同じ名前のプレイヤーがいる場合は、後から追加した方を優先する。
+     * @param uuid UUID
+     * @param name プレイヤー名
+     */
+    private void index(String uuid, String name) {
+        String old = names.put(uuid, name);
+        if ( old != null ) {
+            uuids.remove(old.toLowerCase(Locale.ROOT), uuid);
+        }
+        uuids.put(name.toLowerCase(Locale.ROOT), uuid);
+    }
+
+    /**
+     * 追記形式のキャッシュファイルを読み込む。
+     * 書き込み途中で終わっている最後のデータは、無視する。
+     * @param file ファイル
+     * @return 読み込んだデータ（UUIDごとに最新のもの、追加した順）、
+     *         ヘッダーが正しくないなど、ファイルを読み込めなかった場合はnull
+     */
+    private static @Nullable Map<String, String> readLog(File file) {
+
+        Map<String, String> loaded = new LinkedHashMap<String, String>();
+        if ( file.length() == 0 ) {
+            return loaded;
+        }
+        try ( DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file))) ) {
+
+            try {
+                if ( in.readInt() != MAGIC || in.readInt() != VERSION ) {
+                    return null;
+                }
+            } catch (EOFException e) {
+                return null;
+            }
+            while ( true ) {
+                String uuid = new UUID(in.readLong(), in.readLong()).toString();
+                String name = in.readUTF();
+                // 名前が変わったプレイヤーは、最後に追加した位置に移す
+                loaded.remove(uuid);
+                loaded.put(uuid, name);
+            }
+
+        } catch (EOFException e) {
+            // ファイルの終わり
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        return loaded;
+    }
+
+    /**
+     * 以前のバージョンの、YAML形式のキャッシュファイルを読み込む
+     * @param file ファイル
+     * @return 読み込んだデータ
+     */
+    private static Map<String, String> readLegacy(File file) {
+
+        Map<String, String> loaded = new LinkedHashMap<String, String>();
+        if ( !file.exists() ) {
+            return loaded;
+        }
+        YamlConfig config = YamlConfig.load(file);
+        for ( String uuid : config.getKeys(false) ) {
+            String name = config.getString(uuid);
+            if ( name != null ) {
+                loaded.put(uuid, name);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * UUIDごとに最新のものだけを残したキャッシュファイルを作成して、置き換える
+     * @param file ファイル
+     * @param loaded 書き込むデータ
+     * @throws IOException
+     */
+    private static void compact(File file, Map<String, String> loaded) throws IOException {
+
+        if ( !file.getParentFile().exists() ) {
+            file.getParentFile().mkdirs();
+        }
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try ( DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp))) ) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for ( Map.Entry<String, String> entry : loaded.entrySet() ) {
+                long[] bits = toBits(entry.getKey());
+                if ( bits != null ) {
+                    writeRecord(out, bits, entry.getValue());
+                }
+            }
+        }
+
+        try {
+            Files.move(temp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 1件分のデータを書き込む
+     * @param out 書き込み先
+     * @param bits UUID
+     * @param name プレイヤー名
+     * @throws IOException
+     */
+    private static void writeRecord(DataOutputStream out, long[] bits, String name)
+            throws IOException {
+        out.writeLong(bits[0]);
+        out.writeLong(bits[1]);
+        out.writeUTF(name);
+    }
+
+    /**
+     * UUID文字列を、ファイルに書き込むための数値に変換する
+     * @param uuid UUID文字列
+     * @return 上位64bitと下位64bit、UUIDでない場合はnull
+     */
+    private static long[] toBits(String uuid) {
+        try {
+            UUID id = UUID.fromString(uuid);
+            if ( !id.toString().equals(uuid) ) {
+                return null;
             }
+            return new long[] { id.getMostSignificantBits(), id.getLeastSignificantBits() };
+        } catch (IllegalArgumentException e) {
+            return null;
         }
-        return null;
     }
 }
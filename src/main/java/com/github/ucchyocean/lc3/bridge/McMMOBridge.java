@@ -7,18 +7,22 @@ package com.github.ucchyocean.lc3.bridge;
 
 import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 
 import com.github.ucchyocean.lc3.LunaChat;
 import com.github.ucchyocean.lc3.LunaChatAPI;
 import com.github.ucchyocean.lc3.LunaChatBukkit;
 import com.github.ucchyocean.lc3.LunaChatConfig;
+import com.github.ucchyocean.lc3.LunaChatExecutor;
 import com.github.ucchyocean.lc3.bukkit.BukkitRecipientChatJapanizeTask;
+import com.github.ucchyocean.lc3.channel.JapanizeSequencer;
 import com.github.ucchyocean.lc3.japanize.JapanizeType;
 import com.github.ucchyocean.lc3.member.ChannelMember;
 import com.github.ucchyocean.lc3.util.Utility;
@@ -31,6 +35,13 @@ import com.gmail.nossr50.events.chat.McMMOPartyChatEvent;
  */
 public class McMMOBridge implements Listener {
 
+    /** パーティチャットのJapanize変換の結果を、発言の順番どおりに表示するためのシーケンサー */
+    private final JapanizeSequencer sequencer = new JapanizeSequencer();
+
+    /** mcMMOが元の発言を表示するのを待っている、Japanize変換の結果 */
+    private final Map<McMMOPartyChatEvent, JapanizeSequencer.Line> pendingJapanize =
+            new ConcurrentHashMap<McMMOPartyChatEvent, JapanizeSequencer.Line>();
+
     /**
      * mcMMOのパーティチャットが発生したときのイベント
      * @param event
@@ -43,17 +54,11 @@ public class McMMOBridge implements Listener {
 
         String message = event.getMessage();
         ChannelMember player = ChannelMember.getChannelMember(event.getSender());
-        LunaChatConfig config = LunaChat.getConfig();
+        LunaChatConfig.Snapshot config = LunaChat.getConfig().getSnapshot();
         LunaChatAPI api = LunaChat.getAPI();
 
         // NGワード発言をマスク
-        for ( Pattern pattern : config.getNgwordCompiled() ) {
-            Matcher matcher = pattern.matcher(message);
-            if ( matcher.find() ) {
-                message = matcher.replaceAll(
-                        Utility.getAstariskString(matcher.group(0).length()));
-            }
-        }
+        message = config.getNgwordFilter().mask(message);
 
         // カラーコード置き換え
         // 置き換え設定になっていて、発言者がパーミッションを持っているなら、置き換えする
@@ -64,10 +69,9 @@ public class McMMOBridge implements Listener {
 
         // 一時的にJapanizeスキップ設定かどうかを確認する
         boolean skipJapanize = false;
-        String marker = config.getNoneJapanizeMarker();
-        if ( !marker.equals("") && message.startsWith(marker) ) {
+        if ( config.isNoneJapanizeMarkerMessage(message) ) {
             skipJapanize = true;
-            message = message.substring(marker.length());
+            message = message.substring(config.getNoneJapanizeMarker().length());
         }
 
         // 2byteコードを含むなら、Japanize変換は行わない
@@ -87,7 +91,7 @@ public class McMMOBridge implements Listener {
 
             if ( lineType == 1 ) {
 
-                String taskFormat = Utility.replaceColorCode(config.getJapanizeLine1Format());
+                String taskFormat = config.getJapanizeLine1FormatColored();
 
                 String japanized = api.japanize(
                         kanaTemp, config.getJapanizeType());
@@ -98,18 +102,46 @@ public class McMMOBridge implements Listener {
 
             } else {
 
-                String taskFormat = Utility.replaceColorCode(config.getJapanizeLine2Format());
+                String taskFormat = config.getJapanizeLine2FormatColored();
 
+                // 発言処理と並行して変換し、変換結果は元の発言が表示された後に表示する
+                JapanizeSequencer.Line line = sequencer.reserve();
                 BukkitRecipientChatJapanizeTask task = new BukkitRecipientChatJapanizeTask(
-                        message, config.getJapanizeType(), player, taskFormat, recipients);
-
-                // 発言処理を必ず先に実施させるため、遅延を入れてタスクを実行する。
-                int wait = config.getJapanizeWait();
-                task.runTaskLater(LunaChatBukkit.getInstance(), wait);
+                        message, config.getJapanizeType(), player, taskFormat, recipients, line);
+                pendingJapanize.put(event, line);
+                LunaChat.runAsyncTask(LunaChatExecutor.Lane.JAPANIZE, task);
             }
         }
 
         // 発言内容の設定
         event.setMessage(message);
     }
+
+    /**
+     * mcMMOがパーティチャットを表示する直前に呼び出されるメソッド
+     * @param event
+     */
+    @EventHandler(priority=EventPriority.MONITOR)
+    public void onMcMMOPartyChatEventMonitor(McMMOPartyChatEvent event) {
+
+        final JapanizeSequencer.Line line = pendingJapanize.remove(event);
+        if ( line == null ) {
+            return;
+        }
+
+        // 他のプラグインで発言がキャンセルされたなら、変換結果も表示しない
+        if ( event.isCancelled() ) {
+            line.cancel();
+            return;
+        }
+
+        // mcMMOはこのイベントの直後に元の発言を送信するので、
+        // 次のティックからは、変換結果を変換が終わりしだい表示する
+        Bukkit.getScheduler().runTask(LunaChatBukkit.getInstance(), new Runnable() {
+            @Override
+            public void run() {
+                line.originalDelivered();
+            }
+        });
+    }
 }
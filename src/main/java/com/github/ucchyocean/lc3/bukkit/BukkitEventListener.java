@@ -10,24 +10,32 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
+import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
 
 import com.github.ucchyocean.lc3.LunaChat;
 import com.github.ucchyocean.lc3.LunaChatAPI;
 import com.github.ucchyocean.lc3.LunaChatBukkit;
 import com.github.ucchyocean.lc3.LunaChatConfig;
+import com.github.ucchyocean.lc3.LunaChatExecutor;
 import com.github.ucchyocean.lc3.Messages;
 import com.github.ucchyocean.lc3.channel.Channel;
+import com.github.ucchyocean.lc3.channel.ChannelManager;
+import com.github.ucchyocean.lc3.channel.JapanizeSequencer;
 import com.github.ucchyocean.lc3.event.EventResult;
 import com.github.ucchyocean.lc3.japanize.JapanizeType;
 import com.github.ucchyocean.lc3.member.ChannelMember;
@@ -49,6 +57,13 @@ public class BukkitEventListener implements Listener {
 
     private static final int MAX_LIST_ITEMS = 8;
 
+    /** 通常チャットのJapanize変換の結果を、発言の順番どおりに表示するためのシーケンサー */
+    private final JapanizeSequencer normalChatSequencer = new JapanizeSequencer();
+
+    /** サーバーが元の発言を表示するのを待っている、Japanize変換の結果 */
+    private final Map<AsyncPlayerChatEvent, JapanizeSequencer.Line> pendingJapanize =
+            new ConcurrentHashMap<AsyncPlayerChatEvent, JapanizeSequencer.Line>();
+
     /**
      * プレイヤーがチャット発言したときに呼び出されるメソッド
      * @param event
@@ -104,6 +119,39 @@ public class BukkitEventListener implements Listener {
         }
     }
 
+    /**
+     * サーバーがチャット発言を表示する直前に呼び出されるメソッド
+     * @param event
+     */
+    @EventHandler(priority=EventPriority.MONITOR)
+    public void onAsyncPlayerChatMonitor(AsyncPlayerChatEvent event) {
+
+        final JapanizeSequencer.Line line = pendingJapanize.remove(event);
+        if ( line == null ) {
+            return;
+        }
+
+        // 他のプラグインで発言がキャンセルされたなら、変換結果も表示しない
+        if ( event.isCancelled() ) {
+            line.cancel();
+            return;
+        }
+
+        // サーバーはこのイベントの直後に元の発言を送信するので、
+        // 次のティックからは、変換結果を変換が終わりしだい表示する
+        try {
+            Bukkit.getScheduler().runTask(LunaChatBukkit.getInstance(), new Runnable() {
+                @Override
+                public void run() {
+                    line.originalDelivered();
+                }
+            });
+        } catch (RuntimeException e) {
+            // プラグインの無効化中などでタスクを登録できないなら、変換結果は表示せずに順番を譲る
+            line.cancel();
+        }
+    }
+
     /**
      * プレイヤーのサーバー参加ごとに呼び出されるメソッド
      * @param event プレイヤー参加イベント
@@ -111,12 +159,35 @@ public class BukkitEventListener implements Listener {
     @EventHandler
     public void onJoin(PlayerJoinEvent event) {
 
-        LunaChatConfig config = LunaChat.getConfig();
+        LunaChatConfig.Snapshot config = LunaChat.getConfig().getSnapshot();
         Player player = event.getPlayer();
 
+        // 位置インデックスに登録
+        updateLocationGrid(player, player.getLocation());
+
+        // 参加しているチャンネルのオンラインメンバーを更新
+        ChannelMember member = ChannelMember.getChannelMember(player);
+        if ( LunaChat.getAPI() instanceof ChannelManager ) {
+            ((ChannelManager)LunaChat.getAPI()).updateOnlineMember(member, true);
+        } else {
+            for ( Channel channel : LunaChat.getAPI().getChannels() ) {
+                channel.updateOnlineMember(member, true);
+            }
+        }
+
         // UUIDをキャッシュ
         LunaChat.getUUIDCacheData().put(player.getUniqueId().toString(), player.getName());
-        LunaChat.getUUIDCacheData().save();
+        LunaChat.runAsyncTask(LunaChatExecutor.Lane.IO, new Runnable() {
+            @Override
+            public void run() {
+                LunaChat.getUUIDCacheData().save();
+            }
+        });
+
+        // Japanize変換から除外するプレイヤー名に追加
+        if ( LunaChat.getAPI() instanceof ChannelManager ) {
+            ((ChannelManager)LunaChat.getAPI()).getKeywordLocker().addPlayerName(player.getName());
+        }
 
         // 強制参加チャンネル設定を確認し、参加させる
         forceJoinToForceJoinChannels(player);
@@ -144,22 +215,36 @@ public class BukkitEventListener implements Listener {
         Player player = event.getPlayer();
         String pname = player.getName();
 
+        // Japanize変換から除外するプレイヤー名から削除
+        if ( LunaChat.getAPI() instanceof ChannelManager ) {
+            ((ChannelManager)LunaChat.getAPI()).getKeywordLocker().removePlayerName(pname);
+        }
+
+        // 位置インデックスから削除
+        PlayerLocationGrid grid = LunaChatBukkit.getInstance().getPlayerLocationGrid();
+        if ( grid != null ) {
+            grid.remove(player.getUniqueId());
+        }
+
+        // 参加しているチャンネルのオンラインメンバーを更新
+        ChannelMember member = ChannelMember.getChannelMember(player);
+        if ( LunaChat.getAPI() instanceof ChannelManager ) {
+            ((ChannelManager)LunaChat.getAPI()).updateOnlineMember(member, false);
+        } else {
+            for ( Channel channel : LunaChat.getAPI().getChannels() ) {
+                channel.updateOnlineMember(member, false);
+            }
+        }
+
         // お互いがオフラインになるPMチャンネルがある場合は
         // チャンネルをクリアする
         ArrayList<Channel> deleteList = new ArrayList<Channel>();
 
         for ( Channel channel : LunaChat.getAPI().getChannels() ) {
             String cname = channel.getName();
-            if ( channel.isPersonalChat() && cname.contains(pname) ) {
-                boolean isAllOffline = true;
-                for ( ChannelMember cp : channel.getMembers() ) {
-                    if ( cp.isOnline() ) {
-                        isAllOffline = false;
-                    }
-                }
-                if ( isAllOffline ) {
-                    deleteList.add(channel);
-                }
+            if ( channel.isPersonalChat() && cname.contains(pname)
+                    && channel.getOnlineNum() == 0 ) {
+                deleteList.add(channel);
             }
         }
 
@@ -168,13 +253,52 @@ public class BukkitEventListener implements Listener {
         }
     }
 
+    /**
+     * プレイヤーが移動したときに呼び出されるメソッド
+     * @param event プレイヤー移動イベント
+     */
+    @EventHandler(priority=EventPriority.MONITOR, ignoreCancelled=true)
+    public void onMove(PlayerMoveEvent event) {
+
+        // 視点移動だけの場合は、何もしない
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        if ( to == null || (from.getX() == to.getX()
+                && from.getY() == to.getY() && from.getZ() == to.getZ()) ) {
+            return;
+        }
+
+        updateLocationGrid(event.getPlayer(), to);
+    }
+
+    /**
+     * プレイヤーがテレポートしたときに呼び出されるメソッド
+     * @param event プレイヤーテレポートイベント
+     */
+    @EventHandler(priority=EventPriority.MONITOR, ignoreCancelled=true)
+    public void onTeleport(PlayerTeleportEvent event) {
+        if ( event.getTo() != null ) {
+            updateLocationGrid(event.getPlayer(), event.getTo());
+        }
+    }
+
+    /**
+     * プレイヤーがワールドを移動したときに呼び出されるメソッド
+     * @param event ワールド変更イベント
+     */
+    @EventHandler(priority=EventPriority.MONITOR)
+    public void onChangedWorld(PlayerChangedWorldEvent event) {
+        Player player = event.getPlayer();
+        updateLocationGrid(player, player.getLocation());
+    }
+
     /**
      * プレイヤーのチャットごとに呼び出されるメソッド
      * @param event チャットイベント
      */
     private void processChatEvent(AsyncPlayerChatEvent event) {
 
-        LunaChatConfig config = LunaChat.getConfig();
+        LunaChatConfig.Snapshot config = LunaChat.getConfig().getSnapshot();
         LunaChatAPI api = LunaChat.getAPI();
 
         // Bungeeパススルーモードなら、メッセージを返送して終了する
@@ -183,17 +307,14 @@ public class BukkitEventListener implements Listener {
             if ( player instanceof ChannelMemberPlayer ) {
                 ChannelMemberOther other = ((ChannelMemberPlayer)player).toChannelMemberOther();
                 BukkitChatMessage msg = new BukkitChatMessage(other, event.getMessage());
-                LunaChatBukkit.getInstance().sendPluginMessage(msg.toByteArray());
+                LunaChatBukkit.getInstance().sendPluginMessage(event.getPlayer(), msg.toByteArray());
                 event.setCancelled(true);
                 return;
             }
         }
 
         // 頭にglobalMarkerが付いている場合は、グローバル発言にする
-        if ( config.getGlobalMarker() != null &&
-                !config.getGlobalMarker().equals("") &&
-                event.getMessage().startsWith(config.getGlobalMarker()) &&
-                event.getMessage().length() > config.getGlobalMarker().length() ) {
+        if ( config.isGlobalMarkerMessage(event.getMessage()) ) {
 
             int offset = config.getGlobalMarker().length();
             event.setMessage( event.getMessage().substring(offset) );
@@ -206,7 +327,7 @@ public class BukkitEventListener implements Listener {
         if ( config.isEnableQuickChannelChat() ) {
             String separator = config.getQuickChannelChatSeparator();
             if ( event.getMessage().contains(separator) ) {
-                String[] temp = event.getMessage().split(separator, 2);
+                String[] temp = config.getQuickChannelChatSeparatorPattern().split(event.getMessage(), 2);
                 String name = temp[0];
                 String value = "";
                 if ( temp.length > 0 ) {
@@ -262,7 +383,7 @@ public class BukkitEventListener implements Listener {
      */
     private void chatGlobal(AsyncPlayerChatEvent event) {
 
-        LunaChatConfig config = LunaChat.getConfig();
+        LunaChatConfig.Snapshot config = LunaChat.getConfig().getSnapshot();
         LunaChatAPI api = LunaChat.getAPI();
         ChannelMember player =
                 ChannelMember.getChannelMember(event.getPlayer());
@@ -297,13 +418,7 @@ public class BukkitEventListener implements Listener {
 
             String message = event.getMessage();
             // NGワード発言をマスク
-            for ( Pattern pattern : config.getNgwordCompiled() ) {
-                Matcher matcher = pattern.matcher(message);
-                if ( matcher.find() ) {
-                    message = matcher.replaceAll(
-                            Utility.getAstariskString(matcher.group(0).length()));
-                }
-            }
+            message = config.getNgwordFilter().mask(message);
 
             // カラーコード置き換え
             // 置き換え設定になっていて、発言者がパーミッションを持っているなら、置き換えする
@@ -322,10 +437,9 @@ public class BukkitEventListener implements Listener {
 
             // 一時的にJapanizeスキップ設定かどうかを確認する
             boolean skipJapanize = false;
-            String marker = config.getNoneJapanizeMarker();
-            if ( !marker.equals("") && message.startsWith(marker) ) {
+            if ( config.isNoneJapanizeMarkerMessage(message) ) {
                 skipJapanize = true;
-                message = message.substring(marker.length());
+                message = message.substring(config.getNoneJapanizeMarker().length());
             }
 
             // 2byteコードを含む、または、半角カタカナのみなら、Japanize変換は行わない
@@ -337,6 +451,7 @@ public class BukkitEventListener implements Listener {
             }
 
             // Japanize変換と、発言処理
+            JapanizeSequencer.Line japanizeLine = null;
             if ( !skipJapanize &&
                     LunaChat.getAPI().isPlayerJapanize(player.getName()) &&
                     config.getJapanizeType() != JapanizeType.NONE ) {
@@ -345,7 +460,7 @@ public class BukkitEventListener implements Listener {
 
                 if ( lineType == 1 ) {
 
-                    String taskFormat = Utility.replaceColorCode(config.getJapanizeLine1Format());
+                    String taskFormat = config.getJapanizeLine1FormatColored();
 
                     String japanized = api.japanize(
                             kanaTemp, config.getJapanizeType());
@@ -356,39 +471,46 @@ public class BukkitEventListener implements Listener {
 
                 } else {
 
-                    String taskFormat = Utility.replaceColorCode(config.getJapanizeLine2Format());
+                    String taskFormat = config.getJapanizeLine2FormatColored();
 
+                    // 発言処理と並行して変換し、変換結果は元の発言が表示された後に表示する
+                    japanizeLine = normalChatSequencer.reserve();
                     BukkitNormalChatJapanizeTask task = new BukkitNormalChatJapanizeTask(
-                            message, config.getJapanizeType(), player, taskFormat, event);
-
-                    // 発言処理を必ず先に実施させるため、遅延を入れてタスクを実行する。
-                    int wait = config.getJapanizeWait();
-                    task.runTaskLater(LunaChatBukkit.getInstance(), wait);
+                            message, config.getJapanizeType(), player, taskFormat, event,
+                            japanizeLine);
+                    LunaChat.runAsyncTask(LunaChatExecutor.Lane.JAPANIZE, task);
                 }
             }
 
             if ( config.isEnableNormalChatClickable() ) {
                 // クリック可能チャットで発言
 
-                // チャットフォーマット装飾の適用
-                ClickableFormat format;
-                if ( config.isEnableNormalChatMessageFormat() ) {
-                    String f = config.getNormalChatMessageFormat();
-                    format = ClickableFormat.makeFormat(f, ChannelMember.getChannelMember(event.getPlayer()));
-                } else {
-                    String f = event.getFormat()
-                            .replace("%1$s", "%displayName")
-                            .replace("%2$s", "%msg");
-                    format = ClickableFormat.makeFormat(f, ChannelMember.getChannelMember(event.getPlayer()));
-                }
+                try {
+                    // チャットフォーマット装飾の適用
+                    ClickableFormat format;
+                    if ( config.isEnableNormalChatMessageFormat() ) {
+                        String f = config.getNormalChatMessageFormat();
+                        format = ClickableFormat.makeFormat(f, ChannelMember.getChannelMember(event.getPlayer()));
+                    } else {
+                        String f = event.getFormat()
+                                .replace("%1$s", "%displayName")
+                                .replace("%2$s", "%msg");
+                        format = ClickableFormat.makeFormat(f, ChannelMember.getChannelMember(event.getPlayer()));
+                    }
 
-                // 発言内容の送信
-                format.replace("%msg", message);
-                BaseComponent[] comps = format.makeTextComponent();
-                for ( Player recipient : event.getRecipients() ) {
-                    ChannelMember cm = ChannelMember.getChannelMember(recipient);
-                    if ( cm != null ) {
-                        cm.sendMessage(comps);
+                    // 発言内容の送信
+                    format.replace("%msg", message);
+                    BaseComponent[] comps = format.makeTextComponent();
+                    for ( Player recipient : event.getRecipients() ) {
+                        ChannelMember cm = ChannelMember.getChannelMember(recipient);
+                        if ( cm != null ) {
+                            cm.sendMessage(comps);
+                        }
+                    }
+                } finally {
+                    // 元の発言を送信したので、変換結果は変換が終わりしだい表示する
+                    if ( japanizeLine != null ) {
+                        japanizeLine.originalDelivered();
                     }
                 }
 
@@ -398,16 +520,30 @@ public class BukkitEventListener implements Listener {
             } else {
                 // 通常チャットイベントで発言
 
-                // チャットフォーマット装飾の適用
-                if ( config.isEnableNormalChatMessageFormat() ) {
-                    String f = config.getNormalChatMessageFormat();
-                    f = ClickableFormat.replaceForNormalChatFormat(
-                            f, ChannelMember.getChannelMember(event.getPlayer()));
-                    event.setFormat(Utility.replaceColorCode(f));
-                }
+                boolean pending = false;
+                try {
+                    // チャットフォーマット装飾の適用
+                    if ( config.isEnableNormalChatMessageFormat() ) {
+                        String f = config.getNormalChatMessageFormat();
+                        f = ClickableFormat.replaceForNormalChatFormat(
+                                f, ChannelMember.getChannelMember(event.getPlayer()));
+                        event.setFormat(Utility.replaceColorCode(f));
+                    }
+
+                    // 発言内容の設定
+                    event.setMessage(message);
 
-                // 発言内容の設定
-                event.setMessage(message);
+                    // 元の発言はサーバーが送信するので、送信されるのを待つ
+                    if ( japanizeLine != null ) {
+                        pendingJapanize.put(event, japanizeLine);
+                    }
+                    pending = true;
+                } finally {
+                    // フォーマットが不正などで発言できなかったなら、後ろの行が待ち続けないように順番を譲る
+                    if ( !pending && japanizeLine != null ) {
+                        japanizeLine.cancel();
+                    }
+                }
             }
 
             // ロギング
@@ -417,6 +553,19 @@ public class BukkitEventListener implements Listener {
         }
     }
 
+    /**
+     * 範囲チャット用の位置インデックスを更新する
+     * @param player プレイヤー
+     * @param location 新しい位置
+     */
+    private void updateLocationGrid(Player player, Location location) {
+        PlayerLocationGrid grid = LunaChatBukkit.getInstance().getPlayerLocationGrid();
+        if ( grid != null && location.getWorld() != null ) {
+            grid.update(player.getUniqueId(), location.getWorld().getName(),
+                    location.getX(), location.getY(), location.getZ());
+        }
+    }
+
     /**
      * 既定のチャンネルへの参加を試みる。
      * @param player プレイヤー
@@ -424,7 +573,7 @@ public class BukkitEventListener implements Listener {
      */
     private boolean tryJoinToGlobalChannel(Player player) {
 
-        LunaChatConfig config = LunaChat.getConfig();
+        LunaChatConfig.Snapshot config = LunaChat.getConfig().getSnapshot();
         LunaChatAPI api = LunaChat.getAPI();
 
         String gcName = config.getGlobalChannel();
@@ -450,7 +599,7 @@ public class BukkitEventListener implements Listener {
      */
     private void forceJoinToForceJoinChannels(Player player) {
 
-        LunaChatConfig config = LunaChat.getConfig();
+        LunaChatConfig.Snapshot config = LunaChat.getConfig().getSnapshot();
         LunaChatAPI api = LunaChat.getAPI();
 
         List<String> forceJoinChannels = config.getForceJoinChannels();
@@ -8,25 +8,28 @@ package com.github.ucchyocean.lc3.bukkit;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import com.github.ucchyocean.lc3.LunaChat;
 import com.github.ucchyocean.lc3.LunaChatBukkit;
+import com.github.ucchyocean.lc3.LunaChatExecutor;
 import com.github.ucchyocean.lc3.channel.JapanizeConvertTask;
+import com.github.ucchyocean.lc3.channel.JapanizeSequencer;
 import com.github.ucchyocean.lc3.japanize.JapanizeType;
 import com.github.ucchyocean.lc3.member.ChannelMember;
 import com.github.ucchyocean.lc3.member.ChannelMemberPlayer;
 
 /**
- * Japanize2行表示のときに、変換結果を遅延して通常チャットに表示するためのタスク
+ * Japanize2行表示のときに、変換結果を遅延して通常チャットに表示するためのタスク。
+ * 変換結果は、元の発言が表示された後に、発言の順番どおりに表示する。
  * @author ucchy
  */
-public class BukkitNormalChatJapanizeTask extends BukkitRunnable {
+public class BukkitNormalChatJapanizeTask implements LunaChatExecutor.DroppableTask {
 
     private ChannelMember player;
     private AsyncPlayerChatEvent event;
 
     private JapanizeConvertTask task;
+    private JapanizeSequencer.Line line;
 
     /**
      * コンストラクタ
@@ -35,13 +38,16 @@ public class BukkitNormalChatJapanizeTask extends BukkitRunnable {
      * @param player 発言したプレイヤー
      * @param japanizeFormat 変換後に発言するときの、発言フォーマット
      * @param event イベント
+     * @param line 変換結果を表示する順番
      */
     public BukkitNormalChatJapanizeTask(String org, JapanizeType type,
-            ChannelMember player, String japanizeFormat, final AsyncPlayerChatEvent event) {
+            ChannelMember player, String japanizeFormat, final AsyncPlayerChatEvent event,
+            JapanizeSequencer.Line line) {
 
         task = new JapanizeConvertTask(org, type, japanizeFormat, null, player);
         this.player = player;
         this.event = event;
+        this.line = line;
     }
 
     /**
@@ -49,26 +55,53 @@ public class BukkitNormalChatJapanizeTask extends BukkitRunnable {
      */
     @Override
     public void run() {
+        boolean completed = false;
+        try {
+            if ( task.runSync() ) {
+                final String result = task.getResult();
+                line.complete(new Runnable() {
+                    @Override
+                    public void run() {
+                        send(result);
+                    }
+                });
+                completed = true;
+            }
+        } finally {
+            if ( !completed ) {
+                line.cancel();
+            }
+        }
+    }
 
-        if ( task.runSync() ) {
+    /**
+     * @see com.github.ucchyocean.lc3.LunaChatExecutor.DroppableTask#onDropped()
+     */
+    @Override
+    public void onDropped() {
+        line.cancel();
+    }
 
-            String result = task.getResult();
+    /**
+     * 変換結果を送信する
+     * @param result 変換結果
+     */
+    private void send(String result) {
 
-            // 送信
-            for ( Player p : event.getRecipients() ) {
-                p.sendMessage(result);
-            }
-            Bukkit.getConsoleSender().sendMessage(result);
+        // 送信
+        for ( Player p : event.getRecipients() ) {
+            p.sendMessage(result);
+        }
+        Bukkit.getConsoleSender().sendMessage(result);
 
-            // 設定に応じてdynmapへ送信する
-            if ( LunaChat.getConfig().isSendBroadcastChannelChatToDynmap() &&
-                    LunaChatBukkit.getInstance().getDynmap() != null ) {
-                if ( player != null && player instanceof ChannelMemberPlayer
-                        && ((ChannelMemberPlayer)player).getPlayer() != null )
-                    LunaChatBukkit.getInstance().getDynmap().chat(((ChannelMemberPlayer)player).getPlayer(), result);
-                else
-                    LunaChatBukkit.getInstance().getDynmap().broadcast(result);
-            }
+        // 設定に応じてdynmapへ送信する
+        if ( LunaChat.getConfig().isSendBroadcastChannelChatToDynmap() &&
+                LunaChatBukkit.getInstance().getDynmap() != null ) {
+            if ( player != null && player instanceof ChannelMemberPlayer
+                    && ((ChannelMemberPlayer)player).getPlayer() != null )
+                LunaChatBukkit.getInstance().getDynmap().chat(((ChannelMemberPlayer)player).getPlayer(), result);
+            else
+                LunaChatBukkit.getInstance().getDynmap().broadcast(result);
         }
     }
 }
@@ -9,22 +9,25 @@ import java.util.List;
 
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
 
+import com.github.ucchyocean.lc3.LunaChatExecutor;
 import com.github.ucchyocean.lc3.channel.JapanizeConvertTask;
+import com.github.ucchyocean.lc3.channel.JapanizeSequencer;
 import com.github.ucchyocean.lc3.japanize.JapanizeType;
 import com.github.ucchyocean.lc3.member.ChannelMember;
 
 /**
  * Japanize2行表示のときに、変換結果を遅延して指定した受信者に表示するためのタスク。
  * 他プラグインのチャンネル（mcMMOのパーティチャットや、TownyChatなど）に、Japanize変換結果を表示するために使用する。
+ * 変換結果は、元の発言が表示された後に、発言の順番どおりに表示する。
  * @author ucchy
  */
-public class BukkitRecipientChatJapanizeTask extends BukkitRunnable {
+public class BukkitRecipientChatJapanizeTask implements LunaChatExecutor.DroppableTask {
 
     private List<Player> recipients;
 
     private JapanizeConvertTask task;
+    private JapanizeSequencer.Line line;
 
     /**
      * コンストラクタ
@@ -33,11 +36,13 @@ public class BukkitRecipientChatJapanizeTask extends BukkitRunnable {
      * @param player 発言したプレイヤー
      * @param japanizeFormat 変換後に発言するときの、発言フォーマット
      * @param recipients メッセージ受信者
+     * @param line 変換結果を表示する順番
      */
     public BukkitRecipientChatJapanizeTask(String org, JapanizeType type, ChannelMember player,
-            String japanizeFormat, List<Player> recipients) {
+            String japanizeFormat, List<Player> recipients, JapanizeSequencer.Line line) {
         task = new JapanizeConvertTask(org, type, japanizeFormat, null, player);
         this.recipients = recipients;
+        this.line = line;
     }
 
     /**
@@ -45,16 +50,43 @@ public class BukkitRecipientChatJapanizeTask extends BukkitRunnable {
      */
     @Override
     public void run() {
+        boolean completed = false;
+        try {
+            if ( task.runSync() ) {
+                final String result = task.getResult();
+                line.complete(new Runnable() {
+                    @Override
+                    public void run() {
+                        send(result);
+                    }
+                });
+                completed = true;
+            }
+        } finally {
+            if ( !completed ) {
+                line.cancel();
+            }
+        }
+    }
 
-        if ( task.runSync() ) {
+    /**
+     * @see com.github.ucchyocean.lc3.LunaChatExecutor.DroppableTask#onDropped()
+     */
+    @Override
+    public void onDropped() {
+        line.cancel();
+    }
 
-            String result = task.getResult();
+    /**
+     * 変換結果を送信する
+     * @param result 変換結果
+     */
+    private void send(String result) {
 
-            // 送信
-            for ( Player p : recipients ) {
-                p.sendMessage(result);
-            }
-            Bukkit.getConsoleSender().sendMessage(result);
+        // 送信
+        for ( Player p : recipients ) {
+            p.sendMessage(result);
         }
+        Bukkit.getConsoleSender().sendMessage(result);
     }
 }
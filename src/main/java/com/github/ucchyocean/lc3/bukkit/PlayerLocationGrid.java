@@ -0,0 +1,238 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.bukkit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * プレイヤー位置の空間インデックス。
+ * ワールドごとに、チャンク単位（16x16ブロック）のグリッドでプレイヤーを管理し、
+ * 範囲チャットの受信者検索を、半径に掛かるセルだけの走査で行えるようにする。
+ * @author ucchy
+ */
+public class PlayerLocationGrid {
+
+    /** セルの一辺のブロック数を表すシフト量（16ブロック = チャンク） */
+    private static final int CELL_SHIFT = 4;
+
+    /** プレイヤーごとの位置 */
+    private Map<UUID, Entry> entries;
+
+    /** ワールド名 → セルキー → セル内のプレイヤー */
+    private Map<String, Map<Long, Set<UUID>>> worlds;
+
+    /**
+     * コンストラクタ
+     */
+    public PlayerLocationGrid() {
+        entries = new HashMap<UUID, Entry>();
+        worlds = new HashMap<String, Map<Long, Set<UUID>>>();
+    }
+
+    /**
+     * プレイヤーの位置を更新する。未登録のプレイヤーなら追加する。
+     * @param id プレイヤーのUUID
+     * @param world ワールド名
+     * @param x X座標
+     * @param y Y座標
+     * @param z Z座標
+     */
+    public synchronized void update(UUID id, String world, double x, double y, double z) {
+
+        long key = cellKey(cellOf(x), cellOf(z));
+        Entry entry = entries.get(id);
+
+        if ( entry == null ) {
+            entry = new Entry();
+            entries.put(id, entry);
+        } else if ( !entry.world.equals(world) || entry.key != key ) {
+            // セルが変わったので、古いセルから抜く
+            removeFromCell(id, entry);
+        } else {
+            // 同じセル内の移動なら、座標だけ更新する
+            entry.x = x;
+            entry.y = y;
+            entry.z = z;
+            return;
+        }
+
+        entry.world = world;
+        entry.key = key;
+        entry.x = x;
+        entry.y = y;
+        entry.z = z;
+
+        Map<Long, Set<UUID>> cells = worlds.get(world);
+        if ( cells == null ) {
+            cells = new HashMap<Long, Set<UUID>>();
+            worlds.put(world, cells);
+        }
+        Set<UUID> cell = cells.get(key);
+        if ( cell == null ) {
+            cell = new HashSet<UUID>();
+            cells.put(key, cell);
+        }
+        cell.add(id);
+    }
+
+    /**
+     * プレイヤーをインデックスから削除する
+     * @param id プレイヤーのUUID
+     */
+    public synchronized void remove(UUID id) {
+        Entry entry = entries.remove(id);
+        if ( entry != null ) {
+            removeFromCell(id, entry);
+        }
+    }
+
+    /**
+     * 全てのプレイヤーをインデックスから削除する
+     */
+    public synchronized void clear() {
+        entries.clear();
+        worlds.clear();
+    }
+
+    /**
+     * 登録されているプレイヤー数を返す
+     * @return プレイヤー数
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 指定した地点から、指定した半径内にいるプレイヤーを取得する
+     * @param world ワールド名
+     * @param x 中心のX座標
+     * @param y 中心のY座標
+     * @param z 中心のZ座標
+     * @param range 半径
+     * @return 範囲内にいるプレイヤーのUUID
+     */
+    public synchronized List<UUID> getPlayersInRange(
+            String world, double x, double y, double z, double range) {
+
+        List<UUID> result = new ArrayList<UUID>();
+        Map<Long, Set<UUID>> cells = worlds.get(world);
+        if ( cells == null ) {
+            return result;
+        }
+
+        double rangeSquared = range * range;
+        int minX = cellOf(x - range);
+        int maxX = cellOf(x + range);
+        int minZ = cellOf(z - range);
+        int maxZ = cellOf(z + range);
+
+        // 半径に掛かるセルが、プレイヤーのいるセルより多い場合は、プレイヤーのいるセルを走査する
+        long span = ((long)maxX - minX + 1) * ((long)maxZ - minZ + 1);
+        if ( span > cells.size() ) {
+            for ( Map.Entry<Long, Set<UUID>> cell : cells.entrySet() ) {
+                long key = cell.getKey();
+                int cx = (int)(key >> 32);
+                int cz = (int)key;
+                if ( minX <= cx && cx <= maxX && minZ <= cz && cz <= maxZ ) {
+                    addPlayersInRange(cell.getValue(), x, y, z, rangeSquared, result);
+                }
+            }
+            return result;
+        }
+
+        for ( int cx = minX; cx <= maxX; cx++ ) {
+            for ( int cz = minZ; cz <= maxZ; cz++ ) {
+                Set<UUID> cell = cells.get(cellKey(cx, cz));
+                if ( cell != null ) {
+                    addPlayersInRange(cell, x, y, z, rangeSquared, result);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * セル内のプレイヤーのうち、指定した地点から半径内にいるプレイヤーを結果に追加する
+     * @param cell セル内のプレイヤー
+     * @param x 中心のX座標
+     * @param y 中心のY座標
+     * @param z 中心のZ座標
+     * @param rangeSquared 半径の2乗
+     * @param result 結果
+     */
+    private void addPlayersInRange(Set<UUID> cell, double x, double y, double z,
+            double rangeSquared, List<UUID> result) {
+        for ( UUID id : cell ) {
+            Entry entry = entries.get(id);
+            double dx = entry.x - x;
+            double dy = entry.y - y;
+            double dz = entry.z - z;
+            if ( dx * dx + dy * dy + dz * dz <= rangeSquared ) {
+                result.add(id);
+            }
+        }
+    }
+
+    /**
+     * 所属しているセルからプレイヤーを抜く
+     * @param id プレイヤーのUUID
+     * @param entry プレイヤーの位置
+     */
+    private void removeFromCell(UUID id, Entry entry) {
+        Map<Long, Set<UUID>> cells = worlds.get(entry.world);
+        if ( cells == null ) {
+            return;
+        }
+        Set<UUID> cell = cells.get(entry.key);
+        if ( cell == null ) {
+            return;
+        }
+        cell.remove(id);
+        if ( cell.isEmpty() ) {
+            cells.remove(entry.key);
+            if ( cells.isEmpty() ) {
+                worlds.remove(entry.world);
+            }
+        }
+    }
+
+    /**
+     * 座標から、セルのインデックスを求める
+     * @param coordinate 座標
+     * @return セルのインデックス
+     */
+    private static int cellOf(double coordinate) {
+        return ((int)Math.floor(coordinate)) >> CELL_SHIFT;
+    }
+
+    /**
+     * セルのインデックスから、セルキーを作成する
+     * @param cx セルのX
+     * @param cz セルのZ
+     * @return セルキー
+     */
+    private static long cellKey(int cx, int cz) {
+        return ((long)cx << 32) | (cz & 0xffffffffL);
+    }
+
+    /**
+     * プレイヤーの位置
+     */
+    private static class Entry {
+        private String world;
+        private long key;
+        private double x;
+        private double y;
+        private double z;
+    }
+}
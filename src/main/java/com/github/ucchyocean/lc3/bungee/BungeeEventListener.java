@@ -10,26 +10,26 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import com.github.ucchyocean.lc3.LunaChat;
 import com.github.ucchyocean.lc3.LunaChatAPI;
 import com.github.ucchyocean.lc3.LunaChatBungee;
 import com.github.ucchyocean.lc3.LunaChatConfig;
+import com.github.ucchyocean.lc3.LunaChatExecutor;
 import com.github.ucchyocean.lc3.Messages;
 import com.github.ucchyocean.lc3.channel.Channel;
+import com.github.ucchyocean.lc3.channel.ChannelManager;
 import com.github.ucchyocean.lc3.event.EventResult;
 import com.github.ucchyocean.lc3.japanize.Japanizer;
 import com.github.ucchyocean.lc3.member.ChannelMember;
 import com.github.ucchyocean.lc3.member.ChannelMemberOther;
 import com.github.ucchyocean.lc3.messaging.BukkitChatMessage;
+import com.github.ucchyocean.lc3.messaging.PluginMessageCodec;
 import com.github.ucchyocean.lc3.util.ChatColor;
 import com.github.ucchyocean.lc3.util.ClickableFormat;
 import com.github.ucchyocean.lc3.util.Utility;
 
 import net.md_5.bungee.api.CommandSender;
-import net.md_5.bungee.api.ProxyServer;
 import net.md_5.bungee.api.chat.BaseComponent;
 import net.md_5.bungee.api.chat.TextComponent;
 import net.md_5.bungee.api.config.ServerInfo;
@@ -129,9 +129,29 @@ public class BungeeEventListener implements Listener {
         LunaChatConfig config = LunaChat.getConfig();
         ProxiedPlayer player = event.getPlayer();
 
+        // 参加しているチャンネルのオンラインメンバーを更新
+        ChannelMember member = ChannelMember.getChannelMember(player);
+        if ( LunaChat.getAPI() instanceof ChannelManager ) {
+            ((ChannelManager)LunaChat.getAPI()).updateOnlineMember(member, true);
+        } else {
+            for ( Channel channel : LunaChat.getAPI().getChannels() ) {
+                channel.updateOnlineMember(member, true);
+            }
+        }
+
         // UUIDをキャッシュ
         LunaChat.getUUIDCacheData().put(player.getUniqueId().toString(), player.getName());
-        LunaChat.getUUIDCacheData().save();
+        LunaChat.runAsyncTask(LunaChatExecutor.Lane.IO, new Runnable() {
+            @Override
+            public void run() {
+                LunaChat.getUUIDCacheData().save();
+            }
+        });
+
+        // Japanize変換から除外するプレイヤー名に追加
+        if ( LunaChat.getAPI() instanceof ChannelManager ) {
+            ((ChannelManager)LunaChat.getAPI()).getKeywordLocker().addPlayerName(player.getName());
+        }
 
         // 強制参加チャンネル設定を確認し、参加させる
         forceJoinToForceJoinChannels(player);
@@ -159,22 +179,30 @@ public class BungeeEventListener implements Listener {
         ProxiedPlayer player = event.getPlayer();
         String pname = player.getName();
 
+        // Japanize変換から除外するプレイヤー名から削除
+        if ( LunaChat.getAPI() instanceof ChannelManager ) {
+            ((ChannelManager)LunaChat.getAPI()).getKeywordLocker().removePlayerName(pname);
+        }
+
+        // 参加しているチャンネルのオンラインメンバーを更新
+        ChannelMember member = ChannelMember.getChannelMember(player);
+        if ( LunaChat.getAPI() instanceof ChannelManager ) {
+            ((ChannelManager)LunaChat.getAPI()).updateOnlineMember(member, false);
+        } else {
+            for ( Channel channel : LunaChat.getAPI().getChannels() ) {
+                channel.updateOnlineMember(member, false);
+            }
+        }
+
         // お互いがオフラインになるPMチャンネルがある場合は
         // チャンネルをクリアする
         ArrayList<Channel> deleteList = new ArrayList<Channel>();
 
         for ( Channel channel : LunaChat.getAPI().getChannels() ) {
             String cname = channel.getName();
-            if ( channel.isPersonalChat() && cname.contains(pname) ) {
-                boolean isAllOffline = true;
-                for ( ChannelMember cp : channel.getMembers() ) {
-                    if ( cp.isOnline() ) {
-                        isAllOffline = false;
-                    }
-                }
-                if ( isAllOffline ) {
-                    deleteList.add(channel);
-                }
+            if ( channel.isPersonalChat() && cname.contains(pname)
+                    && channel.getOnlineNum() == 0 ) {
+                deleteList.add(channel);
             }
         }
 
@@ -195,29 +223,29 @@ public class BungeeEventListener implements Listener {
             return;
         }
 
-        // データをメッセージに復元する
-        BukkitChatMessage msg = BukkitChatMessage.fromByteArray(event.getData());
-        if ( msg == null ) return;
+        // 受信者がプレイヤーでない場合は無視する
+        if ( !(event.getReceiver() instanceof ProxiedPlayer) ) {
+            return;
+        }
+        ProxiedPlayer receiver = (ProxiedPlayer)event.getReceiver();
 
-        // 受信者と発言者が一致しない場合は無視する
-        if ( event.getReceiver() instanceof ProxiedPlayer ) {
-            ProxiedPlayer receiver = (ProxiedPlayer)event.getReceiver();
+        // データをメッセージに復元する（1つのパケットに、複数のメッセージが入っていることがある）
+        for ( BukkitChatMessage msg : PluginMessageCodec.decode(event.getData()) ) {
+
+            // 受信者と発言者が一致しない場合は無視する
             if ( !receiver.getName().equals(msg.getMember().getName()) ) {
-                return;
+                continue;
             }
-        } else {
-            return;
-        }
 
-        // 発言者を取得する　サーバー名を設定できる場合は設定する
-        ChannelMemberOther member = msg.getMember();
-        ProxiedPlayer player = ProxyServer.getInstance().getPlayer(member.getName());
-        if ( player != null ) {
-            member.setServerName(player.getServer().getInfo().getName());
-        }
+            // 発言者を取得する　サーバー名を設定できる場合は設定する
+            ChannelMemberOther member = msg.getMember();
+            if ( receiver.getServer() != null ) {
+                member.setServerName(receiver.getServer().getInfo().getName());
+            }
 
-        // 発言処理する
-        processChat(member, msg.getMessage());
+            // 発言処理する
+            processChat(member, msg.getMessage());
+        }
     }
 
     /**
@@ -250,11 +278,10 @@ public class BungeeEventListener implements Listener {
 
     private void processChat(ChannelMember member, String message) {
 
+        LunaChatConfig.Snapshot config = this.config.getSnapshot();
+
         // 頭にglobalMarkerが付いている場合は、グローバル発言にする
-        if ( config.getGlobalMarker() != null &&
-                !config.getGlobalMarker().equals("") &&
-                message.startsWith(config.getGlobalMarker()) &&
-                message.length() > config.getGlobalMarker().length() ) {
+        if ( config.isGlobalMarkerMessage(message) ) {
 
             int offset = config.getGlobalMarker().length();
             message = message.substring(offset);
@@ -267,7 +294,7 @@ public class BungeeEventListener implements Listener {
         if ( config.isEnableQuickChannelChat() ) {
             String separator = config.getQuickChannelChatSeparator();
             if ( message.contains(separator) ) {
-                String[] temp = message.split(separator, 2);
+                String[] temp = config.getQuickChannelChatSeparatorPattern().split(message, 2);
                 String name = temp[0];
                 String value = "";
                 if ( temp.length > 0 ) {
@@ -311,7 +338,7 @@ public class BungeeEventListener implements Listener {
 
     private void chatGlobal(ChannelMember member, String message) {
 
-        LunaChatConfig config = LunaChat.getConfig();
+        LunaChatConfig.Snapshot config = LunaChat.getConfig().getSnapshot();
 
         if ( !config.getGlobalChannel().equals("") ) {
             // グローバルチャンネル設定がある場合
@@ -337,15 +364,14 @@ public class BungeeEventListener implements Listener {
             // グローバルチャンネル設定が無い場合
 
             // NGワードのマスク
-            message = maskNGWord(message, config.getNgwordCompiled());
+            message = config.getNgwordFilter().mask(message);
 
             // Japanizeをスキップするかどうかフラグ
             boolean skipJapanize = !LunaChat.getAPI().isPlayerJapanize(member.getName());
 
             // 一時的なJapanizeスキップが指定されているか確認する
-            String marker = config.getNoneJapanizeMarker();
-            if ( !marker.equals("") && message.startsWith(marker) ) {
-                message = message.substring(marker.length());
+            if ( config.isNoneJapanizeMarkerMessage(message) ) {
+                message = message.substring(config.getNoneJapanizeMarker().length());
                 skipJapanize = true;
             }
 
@@ -362,11 +388,11 @@ public class BungeeEventListener implements Listener {
             if ( !skipJapanize ) {
 
                 String japanize = Japanizer.japanize(Utility.stripColorCode(message), config.getJapanizeType(),
-                        LunaChat.getAPI().getAllDictionary());
+                        ChannelManager.getKeywordLockerOf(LunaChat.getAPI()), config.isJapanizeIgnorePlayerName());
                 if ( japanize.length() > 0 ) {
 
                     // NGワードのマスク
-                    japanize = maskNGWord(japanize, config.getNgwordCompiled());
+                    japanize = config.getNgwordFilter().mask(japanize);
 
                     // フォーマット化してメッセージを上書きする
                     String japanizeFormat = config.getJapanizeDisplayLine() == 1 ?
@@ -435,23 +461,6 @@ public class BungeeEventListener implements Listener {
         return false;
     }
 
-    /**
-     * NGワードをマスクする
-     * @param message メッセージ
-     * @param ngwords NGワード
-     * @return マスクされたメッセージ
-     */
-    private String maskNGWord(String message, List<Pattern> ngwords) {
-        for ( Pattern pattern : ngwords ) {
-            Matcher matcher = pattern.matcher(message);
-            if ( matcher.find() ) {
-                message = matcher.replaceAll(
-                        Utility.getAstariskString(matcher.group(0).length()));
-            }
-        }
-        return message;
-    }
-
     /**
      * 強制参加チャンネルへ参加させる
      * @param player プレイヤー
@@ -7,6 +7,7 @@ package com.github.ucchyocean.lc3.channel;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -21,6 +22,7 @@ import com.github.ucchyocean.lc3.LunaChatBukkit;
 import com.github.ucchyocean.lc3.LunaChatConfig;
 import com.github.ucchyocean.lc3.Messages;
 import com.github.ucchyocean.lc3.bridge.DynmapBridge;
+import com.github.ucchyocean.lc3.bukkit.PlayerLocationGrid;
 import com.github.ucchyocean.lc3.event.EventResult;
 import com.github.ucchyocean.lc3.member.ChannelMember;
 import com.github.ucchyocean.lc3.member.ChannelMemberBukkit;
@@ -55,12 +57,12 @@ public class BukkitChannel extends Channel {
             ChannelMember player, String message,
             @Nullable ClickableFormat format, boolean sendDynmap) {
 
-        LunaChatConfig config = LunaChat.getConfig();
+        LunaChatConfig.Snapshot config = LunaChat.getConfig().getSnapshot();
 
         String originalMessage = new String(message);
 
         // 受信者を設定する
-        List<ChannelMember> recipients = new ArrayList<ChannelMember>();
+        List<ChannelMember> recipients = new ChannelMemberList();
         boolean sendNoRecipientMessage = false;
 
         if ( isBroadcastChannel() ) {
@@ -76,13 +78,18 @@ public class BukkitChannel extends Channel {
                     if ( player instanceof ChannelMemberBukkit ) {
                         // ↑常にtrueだと思うが、念のため。
 
+                        // 位置インデックスから、範囲に掛かるセルにいるプレイヤーだけを取得する
                         Location origin = ((ChannelMemberBukkit)player).getLocation();
-                        for ( Player p : Bukkit.getOnlinePlayers() ) {
+                        PlayerLocationGrid grid = LunaChatBukkit.getInstance().getPlayerLocationGrid();
+                        for ( UUID id : grid.getPlayersInRange(player.getWorldName(),
+                                origin.getX(), origin.getY(), origin.getZ(), getChatRange()) ) {
+                            Player p = Bukkit.getPlayer(id);
+                            if ( p == null ) {
+                                continue;
+                            }
                             ChannelMember cp = ChannelMember.getChannelMember(p);
-                            if ( p.getWorld().equals(w) &&
-                                    origin.distance(p.getLocation()) <= getChatRange() &&
-                                    !getHided().contains(cp) ) {
-                                recipients.add(ChannelMember.getChannelMember(p));
+                            if ( !getHided().contains(cp) ) {
+                                recipients.add(cp);
                             }
                         }
                     }
@@ -99,7 +106,7 @@ public class BukkitChannel extends Channel {
                 }
 
                 // 受信者が自分以外いない場合は、メッセージを表示する
-                if ( Messages.noRecipientMessage("", "").length > 0 && (
+                if ( !Messages.getTemplates().noRecipientMessage.isEmpty() && (
                         recipients.size() == 0 ||
                         (recipients.size() == 1 &&
                          recipients.get(0).getName().equals(player.getName()) ) ) ) {
@@ -120,8 +127,8 @@ public class BukkitChannel extends Channel {
         } else {
             // 通常チャンネル
 
-            for ( ChannelMember mem : getMembers() ) {
-                if ( mem != null && mem.isOnline() && !getHided().contains(mem) ) {
+            for ( ChannelMember mem : getOnlineMembers() ) {
+                if ( !getHided().contains(mem) ) {
                     recipients.add(mem);
                 }
             }
@@ -143,9 +150,7 @@ public class BukkitChannel extends Channel {
         // hideされている場合は、受信対象者から抜く。
         LunaChatAPI api = LunaChat.getAPI();
         for ( ChannelMember cp : api.getHidelist(player) )  {
-            if ( recipients.contains(cp) ) {
-                recipients.remove(cp);
-            }
+            recipients.remove(cp);
         }
 
         // LunaChatChannelMessageEvent イベントコール
@@ -263,8 +268,8 @@ public class BukkitChannel extends Channel {
 
         // LunaChatのチャットログへ記録
         LunaChatConfig config = LunaChat.getConfig();
-        if ( config.isLoggingChat() && logger != null ) {
-            logger.log(message, name);
+        if ( config.isLoggingChat() ) {
+            getLogger().log(message, name);
         }
 
         // TODO ログ記録プラグイン連携を検討する
@@ -52,7 +52,72 @@ public class BungeeChannel extends Channel {
         String originalMessage = new String(message);
 
         // 受信者を設定する
-        List<ChannelMember> recipients = new ArrayList<ChannelMember>();
+        List<ChannelMember> recipients = getRecipients(player);
+
+        // フォーマットがある場合は置き換える
+
+        // LunaChatChannelMessageEvent イベントコール
+        String name = (player != null) ? player.getDisplayName() : "<null>";
+        EventResult result = LunaChat.getEventSender().sendLunaChatChannelMessageEvent(
+                getName(), player, message, recipients, name, originalMessage);
+        message = result.getMessage();
+        recipients = result.getRecipients();
+
+        // 送信する
+        if ( format != null ) {
+            format.replace("%msg", message);
+            BaseComponent[] comps = format.makeTextComponent();
+            for ( ChannelMember p : recipients ) {
+                p.sendMessage(comps);
+            }
+            message = format.toLegacyText();
+            ChannelReplicator.publishChat(this, player, message, comps);
+        } else {
+            for ( ChannelMember p : recipients ) {
+                p.sendMessage(message);
+            }
+            ChannelReplicator.publishChat(this, player, message, null);
+        }
+
+        // 設定に応じて、コンソールに出力する
+        if ( config.isDisplayChatOnConsole() ) {
+            LunaChatBungee.getInstance().getLogger().info(message);
+        }
+
+        // ロギング
+        log(originalMessage, name);
+    }
+
+    /**
+     * ほかのプロキシから受信した発言を、このプロキシにいる受信者へ送信する。
+     * イベントの呼び出し、コンソールへの出力、ロギングは、送信元のプロキシで行われる。
+     * @param member 発言者
+     * @param comps 発言内容、クリック可能なフォーマットを使っていないならnull
+     * @param message 発言内容（レガシー形式の文字列）、compsがある場合はnull
+     * @see com.github.ucchyocean.lc3.channel.Channel#deliverReplicated(com.github.ucchyocean.lc3.member.ChannelMember, net.md_5.bungee.api.chat.BaseComponent[], java.lang.String)
+     */
+    @Override
+    protected void deliverReplicated(@Nullable ChannelMember member,
+            @Nullable BaseComponent[] comps, @Nullable String message) {
+
+        for ( ChannelMember p : getRecipients(member) ) {
+            if ( comps != null ) {
+                p.sendMessage(comps);
+            } else {
+                p.sendMessage(message);
+            }
+        }
+    }
+
+    /**
+     * 発言の受信者を返す
+     * @param player 発言者
+     * @return 受信者
+     */
+    private List<ChannelMember> getRecipients(@Nullable ChannelMember player) {
+
+        LunaChatConfig config = LunaChat.getConfig();
+        List<ChannelMember> recipients = new ChannelMemberList();
 
         if ( isBroadcastChannel() ) {
             // ブロードキャストチャンネル
@@ -70,8 +135,8 @@ public class BungeeChannel extends Channel {
         } else {
             // 通常チャンネル
 
-            for ( ChannelMember mem : getMembers() ) {
-                if ( mem != null && mem.isOnline() && !getHided().contains(mem) ) {
+            for ( ChannelMember mem : getOnlineMembers() ) {
+                if ( !getHided().contains(mem) ) {
                     recipients.add(mem);
                 }
             }
@@ -93,41 +158,10 @@ public class BungeeChannel extends Channel {
         // hideされている場合は、受信対象者から抜く。
         LunaChatAPI api = LunaChat.getAPI();
         for ( ChannelMember cp : api.getHidelist(player) )  {
-            if ( recipients.contains(cp) ) {
-                recipients.remove(cp);
-            }
+            recipients.remove(cp);
         }
 
-        // フォーマットがある場合は置き換える
-
-        // LunaChatChannelMessageEvent イベントコール
-        String name = (player != null) ? player.getDisplayName() : "<null>";
-        EventResult result = LunaChat.getEventSender().sendLunaChatChannelMessageEvent(
-                getName(), player, message, recipients, name, originalMessage);
-        message = result.getMessage();
-        recipients = result.getRecipients();
-
-        // 送信する
-        if ( format != null ) {
-            format.replace("%msg", message);
-            BaseComponent[] comps = format.makeTextComponent();
-            for ( ChannelMember p : recipients ) {
-                p.sendMessage(comps);
-            }
-            message = format.toLegacyText();
-        } else {
-            for ( ChannelMember p : recipients ) {
-                p.sendMessage(message);
-            }
-        }
-
-        // 設定に応じて、コンソールに出力する
-        if ( config.isDisplayChatOnConsole() ) {
-            LunaChatBungee.getInstance().getLogger().info(message);
-        }
-
-        // ロギング
-        log(originalMessage, name);
+        return recipients;
     }
 
     /**
@@ -193,8 +227,8 @@ public class BungeeChannel extends Channel {
 
         // LunaChatのチャットログへ記録
         LunaChatConfig config = LunaChat.getConfig();
-        if ( config.isLoggingChat() && logger != null ) {
-            logger.log(message, name);
+        if ( config.isLoggingChat() ) {
+            getLogger().log(message, name);
         }
 
         // TODO ログ記録プラグイン連携を検討する
@@ -6,16 +6,17 @@
 package com.github.ucchyocean.lc3.channel;
 
 import java.io.File;
-import java.io.FilenameFilter;
-import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.jetbrains.annotations.Nullable;
 
@@ -23,6 +24,7 @@ import com.github.ucchyocean.lc3.LunaChat;
 import com.github.ucchyocean.lc3.LunaChatAPI;
 import com.github.ucchyocean.lc3.LunaChatBukkit;
 import com.github.ucchyocean.lc3.LunaChatConfig;
+import com.github.ucchyocean.lc3.LunaChatExecutor;
 import com.github.ucchyocean.lc3.LunaChatLogger;
 import com.github.ucchyocean.lc3.LunaChatMode;
 import com.github.ucchyocean.lc3.Messages;
@@ -32,10 +34,13 @@ import com.github.ucchyocean.lc3.event.EventResult;
 import com.github.ucchyocean.lc3.japanize.JapanizeType;
 import com.github.ucchyocean.lc3.member.ChannelMember;
 import com.github.ucchyocean.lc3.member.ChannelMemberOther;
+import com.github.ucchyocean.lc3.storage.LunaChatStorage;
+import com.github.ucchyocean.lc3.storage.YamlStorage;
 import com.github.ucchyocean.lc3.util.ChatColor;
+import com.github.ucchyocean.lc3.util.ChatFormatTemplate;
 import com.github.ucchyocean.lc3.util.ClickableFormat;
+import com.github.ucchyocean.lc3.util.NGWordFilter;
 import com.github.ucchyocean.lc3.util.Utility;
-import com.github.ucchyocean.lc3.util.YamlConfig;
 
 import net.md_5.bungee.api.chat.BaseComponent;
 import net.md_5.bungee.api.chat.TextComponent;
@@ -48,8 +53,6 @@ public abstract class Channel {
 
     private static final String PERMISSION_SPEAK_PREFIX = "lunachat.speak";
 
-    private static final String FOLDER_NAME_CHANNELS = "channels";
-
     private static final String KEY_NAME = "name";
     private static final String KEY_ALIAS = "alias";
     private static final String KEY_DESC = "desc";
@@ -70,9 +73,23 @@ public abstract class Channel {
     private static final String KEY_ALLOWCC = "allowcc";
     private static final String KEY_JAPANIZE = "japanize";
 
+    /** 最初にアクセスされたときに読み込まれるリストのキー */
+    private static final String[] LIST_KEYS = {
+            KEY_MEMBERS, KEY_BANNED, KEY_MUTED, KEY_HIDED, KEY_MODERATOR,
+            KEY_BAN_EXPIRES, KEY_MUTE_EXPIRES };
+
+    /** APIがChannelManagerでない場合に使う、YAMLファイルの保存先 */
+    private static YamlStorage fallbackStorage;
+
+    /** fallbackStorageのデータフォルダ */
+    private static File fallbackStorageFolder;
+
     /** 参加者 */
     private List<ChannelMember> members;
 
+    /** オンラインになっている参加者（参加、退出、サーバー接続、切断のたびに更新される） */
+    private Set<ChannelMember> onlineMembers;
+
     /** チャンネルモデレータ */
     private List<ChannelMember> moderator;
 
@@ -114,6 +131,9 @@ public abstract class Channel {
      * */
     private String format;
 
+    /** コンパイル済みのメッセージフォーマット、未コンパイルならnull */
+    private volatile ChatFormatTemplate compiledFormat;
+
     /** ブロードキャストチャンネルかどうか */
     private boolean broadcastChannel;
 
@@ -138,8 +158,20 @@ public abstract class Channel {
     /** チャンネルごとのjapanize変換設定 */
     private JapanizeType japanizeType;
 
+    /** まだ読み込んでいないリストの元データ（読み込み済みならnull） */
+    private volatile Map<String, Object> unloadedLists;
+
+    /** 最後に発言があった時刻（ミリ秒） */
+    private volatile long lastActivity;
 
-    protected LunaChatLogger logger;
+    /** チャンネルのロガー、まだ作成していないならnull */
+    private volatile LunaChatLogger logger;
+
+    /** Japanize変換の結果を、発言の順番どおりに表示するためのシーケンサー */
+    private final JapanizeSequencer japanizeSequencer = new JapanizeSequencer();
+
+    /** リストの読み込み前に切断したメンバー。thisのロックを取得して操作する */
+    private final Set<ChannelMember> departedMembers = new HashSet<ChannelMember>();
 
     /**
      * コンストラクタ
@@ -150,11 +182,12 @@ public abstract class Channel {
         this.name = name;
         this.alias = "";
         this.description = "";
-        this.members = new ArrayList<ChannelMember>();
-        this.banned = new ArrayList<ChannelMember>();
-        this.muted = new ArrayList<ChannelMember>();
-        this.hided = new ArrayList<ChannelMember>();
-        this.moderator = new ArrayList<ChannelMember>();
+        this.members = new ChannelMemberList();
+        this.onlineMembers = Collections.newSetFromMap(new ConcurrentHashMap<ChannelMember, Boolean>());
+        this.banned = new ChannelMemberList();
+        this.muted = new ChannelMemberList();
+        this.hided = new ChannelMemberList();
+        this.moderator = new ChannelMemberList();
         this.password = "";
         this.visible = true;
         this.colorCode = "";
@@ -173,12 +206,13 @@ public abstract class Channel {
             this.format = config.getDefaultFormat();
         }
         this.japanizeType = config.getJapanizeType();
-
-        logger = new LunaChatLogger(name.replace(">", "-").replace("*", "_"));
+        this.lastActivity = System.currentTimeMillis();
     }
 
     /**
-     * 1:1チャットかどうか
+     * 1:1チャットかどうか。
+     * 1:1チャットはメモリ上にだけ存在し、保存先には書き込まれない。
+     * 一定時間発言がないと、ChannelManager#removeIdlePersonalChats() で削除される。
      * @return 1:1チャットかどうか
      */
     public boolean isPersonalChat() {
@@ -207,8 +241,7 @@ public abstract class Channel {
      * @return 強制参加チャンネルかどうか
      */
     public boolean isForceJoinChannel() {
-        LunaChatConfig config = LunaChat.getConfig();
-        return config.getForceJoinChannels().contains(getName());
+        return LunaChat.getConfig().getSnapshot().isForceJoinChannel(getName());
     }
 
     /**
@@ -218,6 +251,7 @@ public abstract class Channel {
      */
     public boolean hasModeratorPermission(ChannelMember player) {
         if ( player == null ) return false;
+        loadLists();
         return player.hasPermission("lunachat-admin.mod-all-channels") || moderator.contains(player);
     }
 
@@ -228,6 +262,8 @@ public abstract class Channel {
      */
     public void chat(ChannelMember player, String message) {
 
+        lastActivity = System.currentTimeMillis();
+
         // 発言権限を確認する
         String node = PERMISSION_SPEAK_PREFIX + "." + getName();
         if ( player.isPermissionSet(node) && !player.hasPermission(node) ) {
@@ -235,7 +271,7 @@ public abstract class Channel {
             return;
         }
 
-        LunaChatConfig config = LunaChat.getConfig();
+        LunaChatConfig.Snapshot config = LunaChat.getConfig().getSnapshot();
         LunaChatAPI api = LunaChat.getAPI();
 
         // Muteされているかどうかを確認する
@@ -248,25 +284,18 @@ public abstract class Channel {
 
         // 一時的にJapanizeスキップ設定かどうかを確認する
         boolean skipJapanize = false;
-        String marker = config.getNoneJapanizeMarker();
-        if ( !marker.equals("") && maskedMessage.startsWith(marker) ) {
+        if ( config.isNoneJapanizeMarkerMessage(maskedMessage) ) {
             skipJapanize = true;
-            maskedMessage = maskedMessage.substring(marker.length());
+            maskedMessage = maskedMessage.substring(config.getNoneJapanizeMarker().length());
         }
 
         // NGワード発言をしたかどうかのチェックとマスク
-        boolean isNG = false;
-        for ( Pattern pattern : config.getNgwordCompiled() ) {
-            Matcher matcher = pattern.matcher(maskedMessage);
-            if ( matcher.find() ) {
-                maskedMessage = matcher.replaceAll(
-                        Utility.getAstariskString(matcher.group(0).length()));
-                isNG = true;
-            }
-        }
+        NGWordFilter.Result ngResult = config.getNgwordFilter().filter(maskedMessage);
+        maskedMessage = ngResult.getMessage();
+        boolean isNG = ngResult.isMatched();
 
         // キーワード置き換え
-        ClickableFormat cf = ClickableFormat.makeFormat(getFormat(), player, this, true);
+        ClickableFormat cf = getCompiledFormat().render(player, this, true);
 
         // カラーコード置き換え
         // チャンネルで許可されていて、発言者がパーミッションを持っている場合に置き換える
@@ -306,11 +335,11 @@ public abstract class Channel {
             String jpFormat;
             ClickableFormat messageFormat = null;
             if ( lineType == 1 ) {
-                jpFormat = Utility.replaceColorCode(config.getJapanizeLine1Format());
+                jpFormat = config.getJapanizeLine1FormatColored();
                 messageFormat = cf;
                 isIncludeSyncChat = false;
             } else {
-                jpFormat = Utility.replaceColorCode(config.getJapanizeLine2Format());
+                jpFormat = config.getJapanizeLine2FormatColored();
             }
 
             // タスクを作成しておく
@@ -318,14 +347,22 @@ public abstract class Channel {
                     japanizeType, this, player, jpFormat, messageFormat);
         }
 
-        if ( isIncludeSyncChat ) {
-            // メッセージの送信
-            sendMessage(player, maskedMessage, cf, true);
+        // 非同期実行タスクがある場合、元の発言の送信と並行して変換する
+        if ( delayedTask != null ) {
+            LunaChat.runAsyncTask(LunaChatExecutor.Lane.JAPANIZE, delayedTask);
         }
 
-        // 非同期実行タスクがある場合、追加で実行する
-        if ( delayedTask != null ) {
-            LunaChat.runAsyncTask(delayedTask);
+        try {
+            if ( isIncludeSyncChat ) {
+                // メッセージの送信
+                sendMessage(player, maskedMessage, cf, true);
+            }
+        } finally {
+            // 元の発言を送信したので、変換結果は変換が終わりしだい表示する。
+            // 送信に失敗しても、後続の発言の変換結果が待ち続けないように、必ず通知する。
+            if ( delayedTask != null ) {
+                delayedTask.originalDelivered();
+            }
         }
 
         // NGワード発言者に、NGワードアクションを実行する
@@ -336,7 +373,7 @@ public abstract class Channel {
                 if ( !isGlobalChannel() ) {
                     getBanned().add(player);
                     removeMember(player);
-                    if ( Messages.banNGWordMessage("", "", "").length > 0 ) {
+                    if ( !Messages.getTemplates().banNGWordMessage.isEmpty() ) {
                         BaseComponent[] m = Messages.banNGWordMessage(getColorCode(), getName(), player.getName());
                         player.sendMessage(m);
                         sendSystemMessage(m, true, "system");
@@ -348,7 +385,7 @@ public abstract class Channel {
 
                 if ( !isGlobalChannel() ) {
                     removeMember(player);
-                    if ( Messages.kickNGWordMessage("", "", "").length > 0 ) {
+                    if ( !Messages.getTemplates().kickNGWordMessage.isEmpty() ) {
                         BaseComponent[] m = Messages.kickNGWordMessage(getColorCode(), getName(), player.getName());
                         player.sendMessage(m);
                         sendSystemMessage(m, true, "system");
@@ -360,7 +397,7 @@ public abstract class Channel {
 
                 getMuted().add(player);
                 save();
-                if ( Messages.muteNGWordMessage("", "", "").length > 0 ) {
+                if ( !Messages.getTemplates().muteNGWordMessage.isEmpty() ) {
                     BaseComponent[] m = Messages.muteNGWordMessage(getColorCode(), getName(), player.getName());
                     player.sendMessage(m);
                     sendSystemMessage(m, true, "system");
@@ -377,7 +414,7 @@ public abstract class Channel {
      */
     public void chatFromOtherSource(String player, @Nullable String source, String message) {
 
-        LunaChatConfig config = LunaChat.getConfig();
+        LunaChatConfig.Snapshot config = LunaChat.getConfig().getSnapshot();
 
         // 表示名
         String name;
@@ -389,16 +426,10 @@ public abstract class Channel {
 
         // NGワード発言のマスク
         String maskedMessage = new String(message);
-        for ( Pattern pattern : config.getNgwordCompiled() ) {
-            Matcher matcher = pattern.matcher(maskedMessage);
-            if ( matcher.find() ) {
-                maskedMessage = matcher.replaceAll(
-                        Utility.getAstariskString(matcher.group(0).length()));
-            }
-        }
+        maskedMessage = config.getNgwordFilter().mask(maskedMessage);
 
         // キーワード置き換え
-        ClickableFormat msgFormat = ClickableFormat.makeFormat(getFormat(), new ChannelMemberOther(name), this, false);
+        ClickableFormat msgFormat = getCompiledFormat().render(new ChannelMemberOther(name), this, false);
 
         // カラーコード置き換え チャンネルで許可されている場合に置き換える。
         if ( isAllowCC() ) {
@@ -428,29 +459,10 @@ public abstract class Channel {
      */
     public void sendSystemMessage(BaseComponent[] message, boolean sendDynmap, String name) {
 
-        LunaChatConfig config = LunaChat.getConfig();
+        LunaChatConfig.Snapshot config = LunaChat.getConfig().getSnapshot();
 
         // 受信者（＝メンバー全員からhideしているプレイヤーを除く）
-        List<ChannelMember> recipients = new ArrayList<>(getMembers());
-        for ( ChannelMember cp : getHided() ) {
-            if ( recipients.contains(cp) ) {
-                recipients.remove(cp);
-            }
-        }
-
-        // opListenAllChannel 設定がある場合は、
-        // パーミッション lunachat-admin.listen-all-channels を持つプレイヤーを
-        // 受信者に加える。
-        if ( config.isOpListenAllChannel() ) {
-            for ( String playerName : LunaChat.getPlugin().getOnlinePlayerNames() ) {
-                ChannelMember cp = ChannelMember.getChannelMember(playerName);
-                if ( cp != null
-                        && cp.hasPermission("lunachat-admin.listen-all-channels")
-                        && !recipients.contains(cp) ) {
-                    recipients.add(cp);
-                }
-            }
-        }
+        List<ChannelMember> recipients = getSystemMessageRecipients();
 
         // 通常ブロードキャストなら、設定に応じてdynmapへ送信する
         DynmapBridge dynmap = LunaChatBukkit.getInstance().getDynmap();
@@ -467,6 +479,7 @@ public abstract class Channel {
         for ( ChannelMember p : recipients ) {
             p.sendMessage(message);
         }
+        ChannelReplicator.publishSystemMessage(this, message);
 
         // 設定に応じて、コンソールに出力する
         if ( config.isDisplayChatOnConsole() ) {
@@ -477,12 +490,64 @@ public abstract class Channel {
         log(makePlainText(message), name);
     }
 
+    /**
+     * ほかのプロキシから受信したシステムメッセージを、このサーバーにいる受信者へ送信する。
+     * コンソールへの出力とロギングは、送信元のプロキシで行われる。
+     * @param message メッセージ
+     */
+    protected void deliverSystemMessage(BaseComponent[] message) {
+        for ( ChannelMember p : getSystemMessageRecipients() ) {
+            p.sendMessage(message);
+        }
+    }
+
+    /**
+     * ほかのプロキシから受信した発言を、このサーバーにいる受信者へ送信する。
+     * 複製はBungeeCordでのみ行うので、ここでは何もしない。
+     * @param member 発言者
+     * @param comps 発言内容、クリック可能なフォーマットを使っていないならnull
+     * @param message 発言内容（レガシー形式の文字列）、compsがある場合はnull
+     */
+    protected void deliverReplicated(@Nullable ChannelMember member,
+            @Nullable BaseComponent[] comps, @Nullable String message) {
+        // do nothing.
+    }
+
+    /**
+     * システムメッセージの受信者を返す
+     * @return 受信者（＝メンバー全員からhideしているプレイヤーを除き、全チャンネルを聞く権限を持つプレイヤーを加える）
+     */
+    private List<ChannelMember> getSystemMessageRecipients() {
+
+        List<ChannelMember> recipients = new ChannelMemberList(getMembers());
+        for ( ChannelMember cp : getHided() ) {
+            recipients.remove(cp);
+        }
+
+        // opListenAllChannel 設定がある場合は、
+        // パーミッション lunachat-admin.listen-all-channels を持つプレイヤーを
+        // 受信者に加える。
+        if ( LunaChat.getConfig().isOpListenAllChannel() ) {
+            for ( String playerName : LunaChat.getPlugin().getOnlinePlayerNames() ) {
+                ChannelMember cp = ChannelMember.getChannelMember(playerName);
+                if ( cp != null
+                        && cp.hasPermission("lunachat-admin.listen-all-channels")
+                        && !recipients.contains(cp) ) {
+                    recipients.add(cp);
+                }
+            }
+        }
+        return recipients;
+    }
+
     /**
      * メンバーを追加する
      * @param player 追加するプレイヤー
      */
     public void addMember(ChannelMember player) {
 
+        loadLists();
+
         // 既に参加しているなら、何もしない
         if ( members.contains(player) ) {
             return;
@@ -502,7 +567,15 @@ public abstract class Channel {
         if ( members.size() == 0 && moderator.size() == 0 ) {
             moderator.add(player);
         }
-        members = after;
+        members = new ChannelMemberList(after);
+        if ( player.isOnline() ) {
+            onlineMembers.add(player);
+        }
+        ChannelManager manager = getManager();
+        if ( manager != null ) {
+            manager.onMemberAdded(this, player);
+        }
+        ChannelReplicator.publishMemberAdded(this, player);
 
         if ( !isPersonalChat() ) {
             player.sendMessage(Messages.joinMessage(getColorCode(), getName(), player.getName()));
@@ -517,6 +590,8 @@ public abstract class Channel {
      */
     public void removeMember(ChannelMember player) {
 
+        loadLists();
+
         // 既に削除しているなら、何もしない
         if ( !members.contains(player) ) {
             return;
@@ -542,6 +617,12 @@ public abstract class Channel {
 
         // 実際にメンバーから削除する
         members.remove(player);
+        onlineMembers.remove(player);
+        ChannelManager manager = getManager();
+        if ( manager != null ) {
+            manager.onMemberRemoved(this, player);
+        }
+        ChannelReplicator.publishMemberRemoved(this, player);
 
         if ( !isPersonalChat() ) {
             player.sendMessage(Messages.quitMessage(getColorCode(), getName(), player.getName()));
@@ -573,6 +654,8 @@ public abstract class Channel {
      */
     public void addModerator(ChannelMember player) {
 
+        loadLists();
+
         // 既にモデレータなら何もしない
         if ( moderator.contains(player) ) {
             return;
@@ -595,6 +678,8 @@ public abstract class Channel {
      */
     public void removeModerator(ChannelMember player) {
 
+        loadLists();
+
         // 既にモデレータでないなら何もしない
         if ( !moderator.contains(player) ) {
             return;
@@ -769,6 +854,28 @@ public abstract class Channel {
      */
     public void checkExpires() {
 
+        // 期限のチェックは、それぞれのプロキシで行うので、ほかのプロキシへは送信しない
+        boolean before = ChannelReplicator.beginLocal();
+        try {
+            checkExpiresLocally();
+        } finally {
+            ChannelReplicator.endLocal(before);
+        }
+    }
+
+    /**
+     * 期限付きBanや期限付きMuteをチェックし、期限が切れていたら解除を行う
+     */
+    private void checkExpiresLocally() {
+
+        // リストの読み込み前で、期限付きのBANもMuteも無いなら、読み込まずに終わる
+        Map<String, Object> lists = unloadedLists;
+        if ( lists != null
+                && castToStringLongMap(lists.get(KEY_BAN_EXPIRES)).isEmpty()
+                && castToStringLongMap(lists.get(KEY_MUTE_EXPIRES)).isEmpty() ) {
+            return;
+        }
+
         long now = System.currentTimeMillis();
 
         // 期限付きBANのチェック
@@ -831,7 +938,41 @@ public abstract class Channel {
     public ArrayList<String> getLog(
             String player, String filter, String date, boolean reverse) {
 
-        return logger.getLog(player, filter, date, reverse);
+        return getLogger().getLog(player, filter, date, reverse);
+    }
+
+    /**
+     * ログファイルを新しい行から読み込んで、ログデータを取得する
+     * @param player プレイヤー名、フィルタしないならnullを指定すること
+     * @param filter フィルタ、フィルタしないならnullを指定すること
+     * @param date 日付、今日のデータを取得するならnullを指定すること
+     * @param reverse 逆順取得
+     * @param offset 新しい方から読み飛ばす件数
+     * @param limit 取得する最大件数
+     * @return ログデータ
+     */
+    public ArrayList<String> getLog(String player, String filter, String date,
+            boolean reverse, int offset, int limit) {
+
+        return getLogger().getLog(player, filter, date, reverse, offset, limit);
+    }
+
+    /**
+     * 複数の日付のログから、全ての検索語を含む行を検索する
+     * @param terms 検索語
+     * @param player プレイヤー名、フィルタしないならnullを指定すること
+     * @param filter フィルタ、フィルタしないならnullを指定すること
+     * @param from 開始日、nullなら終了日の6日前
+     * @param to 終了日、nullなら今日
+     * @param reverse 逆順取得
+     * @param offset 新しい方から読み飛ばす件数
+     * @param limit 取得する最大件数
+     * @return ログデータ
+     */
+    public ArrayList<String> searchLog(List<String> terms, String player, String filter,
+            String from, String to, boolean reverse, int offset, int limit) {
+
+        return getLogger().searchLog(terms, player, filter, from, to, reverse, offset, limit);
     }
 
     /**
@@ -839,15 +980,67 @@ public abstract class Channel {
      * @return オンライン人数
      */
     public int getOnlineNum() {
+        loadLists();
+        return onlineMembers.size();
+    }
 
-        // オンラインになっているメンバーの人数を数える
-        int onlineNum = 0;
-        for ( ChannelMember player : members ) {
-            if ( player.isOnline() ) {
-                onlineNum++;
+    /**
+     * オンラインになっているチャンネルメンバーを返す
+     * @return オンラインのメンバー（読み取り専用）
+     */
+    public Collection<ChannelMember> getOnlineMembers() {
+        loadLists();
+        return Collections.unmodifiableSet(onlineMembers);
+    }
+
+    /**
+     * メンバーのオンライン状態を更新する。
+     * サーバーへの接続時と切断時に呼び出すこと。
+     * @param member メンバー
+     * @param online オンラインになったかどうか
+     */
+    public void updateOnlineMember(ChannelMember member, boolean online) {
+        // loadLists()と同じロックで、読み込み中の再構築と入れ違いにならないようにする
+        synchronized (this) {
+            if ( unloadedLists != null ) {
+                // 読み込み前なら、読み込むときにオンライン状態を確認する。
+                // ただし、切断イベントの間はまだオンラインと判定されるので、切断したメンバーを覚えておく
+                if ( online ) {
+                    departedMembers.remove(member);
+                } else {
+                    departedMembers.add(member);
+                }
+                return;
+            }
+            if ( online && members.contains(member) ) {
+                onlineMembers.add(member);
+            } else {
+                onlineMembers.remove(member);
             }
         }
-        return onlineNum;
+    }
+
+    /**
+     * 全メンバーのオンライン状態を確認して、オンラインのメンバーを再構築する
+     */
+    public void refreshOnlineMembers() {
+        loadLists();
+        synchronized (this) {
+            rebuildOnlineMembers();
+        }
+    }
+
+    /**
+     * membersから、オンラインのメンバーを再構築する。thisのロックを取得して呼び出すこと。
+     */
+    private void rebuildOnlineMembers() {
+        onlineMembers.clear();
+        for ( ChannelMember member : members ) {
+            if ( member != null && member.isOnline() && !departedMembers.contains(member) ) {
+                onlineMembers.add(member);
+            }
+        }
+        departedMembers.clear();
     }
 
     /**
@@ -855,6 +1048,10 @@ public abstract class Channel {
      * @return 総参加人数
      */
     public int getTotalNum() {
+        Map<String, Object> lists = unloadedLists;
+        if ( lists != null ) {
+            return castToStringList(lists.get(KEY_MEMBERS)).size();
+        }
         return members.size();
     }
 
@@ -870,19 +1067,25 @@ public abstract class Channel {
         map.put(KEY_ALIAS, alias);
         map.put(KEY_DESC, description);
         map.put(KEY_FORMAT, format);
-        map.put(KEY_MEMBERS, getStringList(members));
-        map.put(KEY_BANNED, getStringList(banned));
-        map.put(KEY_MUTED, getStringList(muted));
-        map.put(KEY_HIDED, getStringList(hided));
-        map.put(KEY_MODERATOR, getStringList(moderator));
+        Map<String, Object> lists = unloadedLists;
+        if ( lists != null ) {
+            // 読み込み前なら、元データをそのまま使う
+            map.putAll(lists);
+        } else {
+            map.put(KEY_MEMBERS, getStringList(members));
+            map.put(KEY_BANNED, getStringList(banned));
+            map.put(KEY_MUTED, getStringList(muted));
+            map.put(KEY_HIDED, getStringList(hided));
+            map.put(KEY_MODERATOR, getStringList(moderator));
+            map.put(KEY_BAN_EXPIRES, getStringLongMap(banExpires));
+            map.put(KEY_MUTE_EXPIRES, getStringLongMap(muteExpires));
+        }
         map.put(KEY_PASSWORD, password);
         map.put(KEY_VISIBLE, visible);
         map.put(KEY_COLOR, colorCode);
         map.put(KEY_BROADCAST, broadcastChannel);
         map.put(KEY_WORLD, isWorldRange);
         map.put(KEY_RANGE, chatRange);
-        map.put(KEY_BAN_EXPIRES, getStringLongMap(banExpires));
-        map.put(KEY_MUTE_EXPIRES, getStringLongMap(muteExpires));
         map.put(KEY_ALLOWCC, allowcc);
         map.put(KEY_JAPANIZE, japanizeType == null ? null : japanizeType.toString());
         return map;
@@ -912,24 +1115,90 @@ public abstract class Channel {
         channel.alias = castWithDefault(data.get(KEY_ALIAS), "");
         channel.description = castWithDefault(data.get(KEY_DESC), "");
         channel.format = castWithDefault(data.get(KEY_FORMAT), channel.format);
-        channel.members = castToChannelMemberList(data.get(KEY_MEMBERS));
-        channel.banned = castToChannelMemberList(data.get(KEY_BANNED));
-        channel.muted = castToChannelMemberList(data.get(KEY_MUTED));
-        channel.hided = castToChannelMemberList(data.get(KEY_HIDED));
-        channel.moderator = castToChannelMemberList(data.get(KEY_MODERATOR));
         channel.password = castWithDefault(data.get(KEY_PASSWORD), "");
         channel.visible = castWithDefault(data.get(KEY_VISIBLE), true);
         channel.colorCode = castWithDefault(data.get(KEY_COLOR), "");
         channel.broadcastChannel = castWithDefault(data.get(KEY_BROADCAST), false);
         channel.isWorldRange = castWithDefault(data.get(KEY_WORLD), false);
         channel.chatRange = castWithDefault(data.get(KEY_RANGE), 0);
-        channel.banExpires = castToChannelMemberLongMap(data.get(KEY_BAN_EXPIRES));
-        channel.muteExpires = castToChannelMemberLongMap(data.get(KEY_MUTE_EXPIRES));
         channel.allowcc = castWithDefault(data.get(KEY_ALLOWCC), true);
         channel.japanizeType = JapanizeType.fromID(data.get(KEY_JAPANIZE) + "", null);
+
+        // メンバーなどのリストは、チャンネルが最初にアクセスされたときに読み込む
+        HashMap<String, Object> lists = new HashMap<String, Object>();
+        for ( String key : LIST_KEYS ) {
+            lists.put(key, data.get(key));
+        }
+        channel.unloadedLists = lists;
+
         return channel;
     }
 
+    /**
+     * メンバー、モデレーター、BAN、Mute、hideのリストを、まだ読み込んでいなければ読み込む。
+     * 起動時に全チャンネルのリストを作らないように、最初にアクセスされたときに呼び出される。
+     */
+    private void loadLists() {
+
+        if ( unloadedLists == null ) {
+            return;
+        }
+
+        synchronized (this) {
+            Map<String, Object> data = unloadedLists;
+            if ( data == null ) {
+                return;
+            }
+
+            members = castToChannelMemberList(data.get(KEY_MEMBERS));
+            banned = castToChannelMemberList(data.get(KEY_BANNED));
+            muted = castToChannelMemberList(data.get(KEY_MUTED));
+            hided = castToChannelMemberList(data.get(KEY_HIDED));
+            moderator = castToChannelMemberList(data.get(KEY_MODERATOR));
+            banExpires = castToChannelMemberLongMap(data.get(KEY_BAN_EXPIRES));
+            muteExpires = castToChannelMemberLongMap(data.get(KEY_MUTE_EXPIRES));
+
+            // オンラインのメンバーを作ってから、読み込み済みにする
+            rebuildOnlineMembers();
+            unloadedLists = null;
+        }
+    }
+
+    /**
+     * ほかのプロキシから受信したチャンネルの設定（メンバー以外）を適用する。
+     * @param data Channel#serialize() で作成されたデータ
+     */
+    protected void applyState(Map<String, Object> data) {
+
+        String newAlias = castWithDefault(data.get(KEY_ALIAS), "");
+        if ( !newAlias.equals(alias) ) {
+            setAlias(newAlias);
+        }
+        description = castWithDefault(data.get(KEY_DESC), "");
+        setFormat(castWithDefault(data.get(KEY_FORMAT), format));
+        password = castWithDefault(data.get(KEY_PASSWORD), "");
+        visible = castWithDefault(data.get(KEY_VISIBLE), true);
+        colorCode = castWithDefault(data.get(KEY_COLOR), "");
+        boolean newBroadcast = castWithDefault(data.get(KEY_BROADCAST), false);
+        if ( newBroadcast != broadcastChannel ) {
+            setBroadcast(newBroadcast);
+        }
+        isWorldRange = castWithDefault(data.get(KEY_WORLD), false);
+        chatRange = castWithDefault(data.get(KEY_RANGE), 0);
+        allowcc = castWithDefault(data.get(KEY_ALLOWCC), true);
+        japanizeType = JapanizeType.fromID(data.get(KEY_JAPANIZE) + "", null);
+
+        loadLists();
+        synchronized (this) {
+            banned = castToChannelMemberList(data.get(KEY_BANNED));
+            muted = castToChannelMemberList(data.get(KEY_MUTED));
+            hided = castToChannelMemberList(data.get(KEY_HIDED));
+            moderator = castToChannelMemberList(data.get(KEY_MODERATOR));
+            banExpires = castToChannelMemberLongMap(data.get(KEY_BAN_EXPIRES));
+            muteExpires = castToChannelMemberLongMap(data.get(KEY_MUTE_EXPIRES));
+        }
+    }
+
     /**
      * チャンネルの別名を返す
      * @return チャンネルの別名
@@ -943,7 +1212,12 @@ public abstract class Channel {
      * @param alias チャンネルの別名
      */
     public void setAlias(String alias) {
+        String oldAlias = this.alias;
         this.alias = alias;
+        ChannelManager manager = getManager();
+        if ( manager != null ) {
+            manager.onAliasChanged(this, oldAlias);
+        }
     }
 
     /**
@@ -1008,6 +1282,21 @@ public abstract class Channel {
      */
     public void setFormat(String format) {
         this.format = format;
+        this.compiledFormat = null;
+    }
+
+    /**
+     * コンパイル済みのメッセージフォーマットを返す。
+     * フォーマットやテンプレートが変更されていたら、コンパイルし直す。
+     * @return コンパイル済みのメッセージフォーマット
+     */
+    protected ChatFormatTemplate getCompiledFormat() {
+        ChatFormatTemplate compiled = compiledFormat;
+        if ( compiled == null || !compiled.isValid() ) {
+            compiled = ChatFormatTemplate.compile(format, true);
+            compiledFormat = compiled;
+        }
+        return compiled;
     }
 
     /**
@@ -1015,6 +1304,7 @@ public abstract class Channel {
      * @return チャンネルのメンバー
      */
     public List<ChannelMember> getMembers() {
+        loadLists();
         return members;
     }
 
@@ -1023,6 +1313,7 @@ public abstract class Channel {
      * @return チャンネルのモデレーター
      */
     public List<ChannelMember> getModerator() {
+        loadLists();
         return moderator;
     }
 
@@ -1031,6 +1322,7 @@ public abstract class Channel {
      * @return チャンネルのBANリスト
      */
     public List<ChannelMember> getBanned() {
+        loadLists();
         return banned;
     }
 
@@ -1039,6 +1331,7 @@ public abstract class Channel {
      * @return チャンネルのMuteリスト
      */
     public List<ChannelMember> getMuted() {
+        loadLists();
         return muted;
     }
 
@@ -1047,6 +1340,7 @@ public abstract class Channel {
      * @return banExpires
      */
     public Map<ChannelMember, Long> getBanExpires() {
+        loadLists();
         return banExpires;
     }
 
@@ -1055,6 +1349,7 @@ public abstract class Channel {
      * @return muteExpires
      */
     public Map<ChannelMember, Long> getMuteExpires() {
+        loadLists();
         return muteExpires;
     }
 
@@ -1063,6 +1358,7 @@ public abstract class Channel {
      * @return チャンネルの非表示プレイヤーの一覧
      */
     public List<ChannelMember> getHided() {
+        loadLists();
         return hided;
     }
 
@@ -1096,6 +1392,10 @@ public abstract class Channel {
      */
     public void setBroadcast(boolean broadcast) {
         this.broadcastChannel = broadcast;
+        ChannelManager manager = getManager();
+        if ( manager != null ) {
+            manager.onBroadcastChanged(this);
+        }
     }
 
     /**
@@ -1162,6 +1462,14 @@ public abstract class Channel {
         this.allowcc = allowcc;
     }
 
+    /**
+     * Japanize変換の結果を、発言の順番どおりに表示するためのシーケンサーを取得する
+     * @return シーケンサー
+     */
+    protected JapanizeSequencer getJapanizeSequencer() {
+        return japanizeSequencer;
+    }
+
     /**
      * Japanize変換設定を取得する
      * @return japanize
@@ -1179,96 +1487,149 @@ public abstract class Channel {
     }
 
     /**
-     * チャンネルの情報をファイルに保存する。
+     * チャンネルの情報を保存する。
+     * 保存先によっては遅延して書き込まれ、一定時間内の複数回の保存は、まとめて書き込まれる。
      * @return 保存をしたかどうか。
      */
     public boolean save() {
 
-        // フォルダーの取得と、必要に応じて作成
-        File folder = new File(
-                LunaChat.getDataFolder(), FOLDER_NAME_CHANNELS);
-        if ( !folder.exists() ) {
-            folder.mkdirs();
-        }
-
         // 1:1チャットチャンネルの場合は、何もしない。
         if ( isPersonalChat() ) {
             return false;
         }
 
-        File file = new File(folder, name + ".yml");
-
-        // ファイルへ保存する
-        YamlConfig conf = new YamlConfig();
         Map<String, Object> data = this.serialize();
-        for ( String key : data.keySet() ) {
-            conf.set(key, data.get(key));
-        }
-        try {
-            conf.save(file);
-            return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+
+        // メンバーの変更は別に送信しているので、メンバー以外の設定を、ほかのプロキシへ送信する
+        Map<String, Object> state = new HashMap<String, Object>(data);
+        state.remove(KEY_MEMBERS);
+        ChannelReplicator.publishState(this, state);
+
+        return getStorage().saveChannel(name, data);
     }
 
     /**
-     * チャンネルの情報を保存したファイルを、削除する。
+     * 保存されているチャンネルの情報を、削除する。
      * @return 削除したかどうか。
      */
     protected boolean remove() {
 
-        // フォルダーの取得
-        File folder = new File(
-                LunaChat.getDataFolder(), FOLDER_NAME_CHANNELS);
-        if ( !folder.exists() ) {
-            return false;
-        }
-        File file = new File(folder, name + ".yml");
-        if ( !file.exists() ) {
+        // 1:1チャットチャンネルの場合は、保存されていないので何もしない。
+        if ( isPersonalChat() ) {
             return false;
         }
 
-        // ファイルを削除
-        return file.delete();
+        return getStorage().removeChannel(name);
     }
 
     /**
-     * チャンネルの情報を保存したファイルから全てのチャンネルを復元して返す。
-     * @return 全てのチャンネル
+     * メンバーのIDの一覧を返す。
+     * リストの読み込み前でも、全てのメンバーがID形式で保存されているなら、読み込まずに返す。
+     * @return メンバーのID
      */
-    protected static HashMap<String, Channel> loadAllChannels() {
+    protected List<String> getMemberIds() {
 
-        // フォルダーの取得
-        File folder = new File(
-                LunaChat.getDataFolder(), FOLDER_NAME_CHANNELS);
-        if ( !folder.exists() ) {
-            return new HashMap<String, Channel>();
+        Map<String, Object> lists = unloadedLists;
+        if ( lists != null ) {
+            List<String> entries = castToStringList(lists.get(KEY_MEMBERS));
+            boolean allIds = true;
+            for ( String entry : entries ) {
+                if ( entry == null || !entry.startsWith("$") ) {
+                    allIds = false;
+                    break;
+                }
+            }
+            if ( allIds ) {
+                return entries;
+            }
         }
 
-        File[] files = folder.listFiles(new FilenameFilter() {
-            @Override
-            public boolean accept(File dir, String name) {
-                return name.endsWith(".yml");
+        loadLists();
+        return getStringList(members);
+    }
+
+    /**
+     * 最後に発言があった時刻を返す
+     * @return 最後に発言があった時刻（ミリ秒）
+     */
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    /**
+     * チャンネルのロガーを返す。
+     * ログディレクトリの確認を伴うので、最初に必要になったときに作成する。
+     * @return ロガー
+     */
+    protected LunaChatLogger getLogger() {
+
+        LunaChatLogger l = logger;
+        if ( l == null ) {
+            synchronized (this) {
+                l = logger;
+                if ( l == null ) {
+                    l = new LunaChatLogger(name.replace(">", "-").replace("*", "_"));
+                    logger = l;
+                }
             }
-        });
-        if ( files == null ) files = new File[0];
+        }
+        return l;
+    }
+
+    /**
+     * 読み込んだデータから、全てのチャンネルを復元して返す。
+     * @param channelData 保存先から読み込んだ、全てのチャンネルのデータ
+     * @return 全てのチャンネル
+     */
+    protected static HashMap<String, Channel> loadAllChannels(Map<String, Map<String, Object>> channelData) {
 
         HashMap<String, Channel> result = new HashMap<String, Channel>();
-        for ( File file : files ) {
-            YamlConfig config = YamlConfig.load(file);
-            Map<String, Object> data = new HashMap<String, Object>();
-            for ( String key : config.getKeys(false) ) {
-                data.put(key, config.get(key));
-            }
+        for ( Map<String, Object> data : channelData.values() ) {
             Channel channel = deserialize(data);
-            result.put(channel.name.toLowerCase(), channel);
+            if ( channel != null ) {
+                result.put(channel.name.toLowerCase(), channel);
+            }
         }
 
         return result;
     }
 
+    /**
+     * チャンネルの保存先を返す。
+     * APIがChannelManagerでない場合は、共有のYAMLファイルの保存先を返す。
+     * @return 保存先
+     */
+    private static LunaChatStorage getStorage() {
+        ChannelManager manager = getManager();
+        if ( manager != null ) {
+            return manager.getStorage();
+        }
+        synchronized ( Channel.class ) {
+            // 呼び出しごとに作ると、WriteBehindSaverのスレッドが残り続けるので、1つを使い回す
+            File dataFolder = LunaChat.getDataFolder();
+            if ( fallbackStorage == null || !dataFolder.equals(fallbackStorageFolder) ) {
+                if ( fallbackStorage != null ) {
+                    fallbackStorage.close();
+                }
+                fallbackStorage = new YamlStorage(dataFolder);
+                fallbackStorageFolder = dataFolder;
+            }
+            return fallbackStorage;
+        }
+    }
+
+    /**
+     * チャンネルを管理しているChannelManagerを返す
+     * @return ChannelManager、APIがChannelManagerでないならnull
+     */
+    private static ChannelManager getManager() {
+        LunaChatAPI api = LunaChat.getAPI();
+        if ( api instanceof ChannelManager ) {
+            return (ChannelManager)api;
+        }
+        return null;
+    }
+
     /**
      * List&lt;ChannelMember&gt;を、List&lt;String&gt;に変換する。
      * @param org 変換元
@@ -1320,7 +1681,7 @@ public abstract class Channel {
     private static List<ChannelMember> castToChannelMemberList(Object obj) {
 
         List<String> entries = castToStringList(obj);
-        ArrayList<ChannelMember> players = new ArrayList<ChannelMember>();
+        ChannelMemberList players = new ChannelMemberList();
 
         for ( String entry : entries ) {
             players.add(ChannelMember.getChannelMember(entry));
@@ -5,21 +5,24 @@
  */
 package com.github.ucchyocean.lc3.channel;
 
+import com.github.ucchyocean.lc3.LunaChatExecutor;
 import com.github.ucchyocean.lc3.japanize.JapanizeType;
 import com.github.ucchyocean.lc3.member.ChannelMember;
 import com.github.ucchyocean.lc3.util.ClickableFormat;
 
 /**
- * Japanize2行表示のときに、変換結果を遅延してチャンネルに表示するためのタスク
+ * Japanize2行表示のときに、変換結果を遅延してチャンネルに表示するためのタスク。
+ * 変換結果は、チャンネルの発言の順番どおりに表示する。
  * @author ucchy
  */
-public class ChannelChatJapanizeTask implements Runnable {
+public class ChannelChatJapanizeTask implements LunaChatExecutor.DroppableTask {
 
     private Channel channel;
     private ChannelMember player;
     private ClickableFormat lineFormat;
 
     private JapanizeConvertTask task;
+    private JapanizeSequencer.Line line;
 
     /**
      * コンストラクタ
@@ -37,6 +40,15 @@ public class ChannelChatJapanizeTask implements Runnable {
         this.channel = channel;
         this.player = player;
         this.lineFormat = lineFormat;
+        this.line = channel.getJapanizeSequencer().reserve();
+    }
+
+    /**
+     * 元の発言がチャンネルに表示されたことを通知する。
+     * 変換が終わっていれば、変換結果がすぐに表示される。
+     */
+    public void originalDelivered() {
+        line.originalDelivered();
     }
 
     /**
@@ -44,9 +56,31 @@ public class ChannelChatJapanizeTask implements Runnable {
      */
     @Override
     public void run() {
-        if ( task.runSync() ) {
-            // チャンネルへ送信
-            channel.sendMessage(player, task.getResult(), lineFormat, true);
+        boolean completed = false;
+        try {
+            if ( task.runSync() ) {
+                final String result = task.getResult();
+                line.complete(new Runnable() {
+                    @Override
+                    public void run() {
+                        // チャンネルへ送信
+                        channel.sendMessage(player, result, lineFormat, true);
+                    }
+                });
+                completed = true;
+            }
+        } finally {
+            if ( !completed ) {
+                line.cancel();
+            }
         }
     }
+
+    /**
+     * @see com.github.ucchyocean.lc3.LunaChatExecutor.DroppableTask#onDropped()
+     */
+    @Override
+    public void onDropped() {
+        line.cancel();
+    }
 }
@@ -0,0 +1,152 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.channel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * チャンネルを、別名やメンバーから引くための索引。
+ * ChannelManagerが保持し、チャンネルの作成と削除、別名やメンバーの変更のたびに更新される。
+ * @author ucchy
+ */
+class ChannelIndex {
+
+    /** 別名（小文字） → チャンネル */
+    private ConcurrentHashMap<String, Channel> aliases;
+
+    /** メンバーのID → 参加しているチャンネル */
+    private ConcurrentHashMap<String, Set<Channel>> memberships;
+
+    /** ブロードキャストチャンネル */
+    private Set<Channel> broadcasts;
+
+    /**
+     * コンストラクタ
+     */
+    ChannelIndex() {
+        aliases = new ConcurrentHashMap<String, Channel>();
+        memberships = new ConcurrentHashMap<String, Set<Channel>>();
+        broadcasts = Collections.newSetFromMap(new ConcurrentHashMap<Channel, Boolean>());
+    }
+
+    /**
+     * チャンネルを索引に追加する
+     * @param channel チャンネル
+     */
+    synchronized void add(Channel channel) {
+        updateAlias(channel, null);
+        updateBroadcast(channel);
+        for ( String id : channel.getMemberIds() ) {
+            addMember(channel, id);
+        }
+    }
+
+    /**
+     * チャンネルを索引から削除する
+     * @param channel チャンネル
+     */
+    synchronized void remove(Channel channel) {
+        String alias = channel.getAlias();
+        if ( alias != null && alias.length() > 0 ) {
+            aliases.remove(alias.toLowerCase(), channel);
+        }
+        broadcasts.remove(channel);
+        for ( String id : channel.getMemberIds() ) {
+            removeMember(channel, id);
+        }
+    }
+
+    /**
+     * チャンネルの別名の変更を、索引に反映する
+     * @param channel チャンネル
+     * @param oldAlias 変更前の別名、無いならnull
+     */
+    synchronized void updateAlias(Channel channel, String oldAlias) {
+        if ( oldAlias != null && oldAlias.length() > 0 ) {
+            aliases.remove(oldAlias.toLowerCase(), channel);
+        }
+        String alias = channel.getAlias();
+        if ( alias != null && alias.length() > 0 ) {
+            aliases.put(alias.toLowerCase(), channel);
+        }
+    }
+
+    /**
+     * チャンネルのブロードキャスト設定の変更を、索引に反映する
+     * @param channel チャンネル
+     */
+    void updateBroadcast(Channel channel) {
+        if ( channel.isBroadcastChannel() ) {
+            broadcasts.add(channel);
+        } else {
+            broadcasts.remove(channel);
+        }
+    }
+
+    /**
+     * チャンネルへのメンバーの追加を、索引に反映する
+     * @param channel チャンネル
+     * @param id メンバーのID
+     */
+    synchronized void addMember(Channel channel, String id) {
+        Set<Channel> set = memberships.get(id);
+        if ( set == null ) {
+            set = Collections.newSetFromMap(new ConcurrentHashMap<Channel, Boolean>());
+            memberships.put(id, set);
+        }
+        set.add(channel);
+    }
+
+    /**
+     * チャンネルからのメンバーの削除を、索引に反映する
+     * @param channel チャンネル
+     * @param id メンバーのID
+     */
+    synchronized void removeMember(Channel channel, String id) {
+        Set<Channel> set = memberships.get(id);
+        if ( set == null ) {
+            return;
+        }
+        set.remove(channel);
+        if ( set.isEmpty() ) {
+            memberships.remove(id);
+        }
+    }
+
+    /**
+     * 別名からチャンネルを取得する
+     * @param alias 別名
+     * @return チャンネル、見つからないならnull
+     */
+    Channel getByAlias(String alias) {
+        return aliases.get(alias.toLowerCase());
+    }
+
+    /**
+     * メンバーが参加しているチャンネルを取得する
+     * @param id メンバーのID
+     * @return チャンネル
+     */
+    Collection<Channel> getByMember(String id) {
+        Set<Channel> set = memberships.get(id);
+        if ( set == null ) {
+            return new ArrayList<Channel>();
+        }
+        return new ArrayList<Channel>(set);
+    }
+
+    /**
+     * ブロードキャストチャンネルを取得する
+     * @return ブロードキャストチャンネル
+     */
+    Collection<Channel> getBroadcastChannels() {
+        return new ArrayList<Channel>(broadcasts);
+    }
+}
@@ -6,20 +6,31 @@
 package com.github.ucchyocean.lc3.channel;
 
 import java.io.File;
-import java.io.IOException;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 
 import com.github.ucchyocean.lc3.LunaChat;
 import com.github.ucchyocean.lc3.LunaChatAPI;
+import com.github.ucchyocean.lc3.LunaChatConfig;
 import com.github.ucchyocean.lc3.LunaChatMode;
 import com.github.ucchyocean.lc3.Messages;
 import com.github.ucchyocean.lc3.event.EventResult;
 import com.github.ucchyocean.lc3.japanize.JapanizeType;
+import com.github.ucchyocean.lc3.japanize.KeywordLocker;
 import com.github.ucchyocean.lc3.member.ChannelMember;
-import com.github.ucchyocean.lc3.util.YamlConfig;
+import com.github.ucchyocean.lc3.storage.JdbcStorage;
+import com.github.ucchyocean.lc3.storage.LunaChatStorage;
+import com.github.ucchyocean.lc3.storage.StorageDataType;
+import com.github.ucchyocean.lc3.storage.YamlStorage;
+import com.github.ucchyocean.lc3.util.ChatFormatTemplate;
 
 /**
  * チャンネルマネージャー
@@ -27,28 +38,24 @@ import com.github.ucchyocean.lc3.util.YamlConfig;
  */
 public class ChannelManager implements LunaChatAPI {
 
-    private static final String FILE_NAME_DCHANNELS = "defaults.yml";
-    private static final String FILE_NAME_TEMPLATES = "templates.yml";
-    private static final String FILE_NAME_JAPANIZE = "japanize.yml";
-    private static final String FILE_NAME_DICTIONARY = "dictionary.yml";
-    private static final String FILE_NAME_HIDELIST = "hidelist.yml";
-
-    private File fileDefaults;
-    private File fileTemplates;
-    private File fileJapanize;
-    private File fileDictionary;
-    private File fileHidelist;
-    private HashMap<String, Channel> channels;
+    private static final String DEFAULT_DATABASE_FILE = "lunachat.db";
+
+    private ConcurrentHashMap<String, Channel> channels;
+    private ChannelIndex index;
     private HashMap<String, String> defaultChannels;
     private HashMap<String, String> templates;
     private HashMap<String, Boolean> japanize;
     private HashMap<String, String> dictionary;
+    private KeywordLocker keywordLocker;
     private HashMap<String, List<ChannelMember>> hidelist;
+    private LunaChatStorage storage;
 
     /**
      * コンストラクタ
      */
     public ChannelManager() {
+        storage = createStorage();
+        keywordLocker = new KeywordLocker();
         reloadAllData();
     }
 
@@ -58,84 +65,91 @@ public class ChannelManager implements LunaChatAPI {
     @Override
     public void reloadAllData() {
 
-        // デフォルトチャンネル設定のロード
-        fileDefaults = new File(LunaChat.getDataFolder(), FILE_NAME_DCHANNELS);
-
-        if ( !fileDefaults.exists() ) {
-            makeEmptyFile(fileDefaults);
-        }
+        // 保存待ちの内容を、読み込む前に書き込んでおく
+        storage.flush();
 
-        YamlConfig config = YamlConfig.load(fileDefaults);
+        // デフォルトチャンネル設定のロード
+        Map<String, Object> data = storage.loadData(StorageDataType.DEFAULTS);
 
         defaultChannels = new HashMap<String, String>();
-        for ( String key : config.getKeys(false) ) {
-            String value = config.getString(key);
-            if ( value != null) {
-                defaultChannels.put(key, value.toLowerCase());
-            }
+        for ( String key : data.keySet() ) {
+            defaultChannels.put(key, data.get(key).toString().toLowerCase());
         }
 
         // テンプレート設定のロード
-        fileTemplates = new File(LunaChat.getDataFolder(), FILE_NAME_TEMPLATES);
-
-        if ( !fileTemplates.exists() ) {
-            makeEmptyFile(fileTemplates);
-        }
-
-        YamlConfig configTemplates = YamlConfig.load(fileTemplates);
+        data = storage.loadData(StorageDataType.TEMPLATES);
 
         templates = new HashMap<String, String>();
-        for ( String key : configTemplates.getKeys(false) ) {
-            templates.put(key, configTemplates.getString(key));
+        for ( String key : data.keySet() ) {
+            templates.put(key, data.get(key).toString());
         }
+        ChatFormatTemplate.invalidateAll();
 
         // Japanize設定のロード
-        fileJapanize = new File(LunaChat.getDataFolder(), FILE_NAME_JAPANIZE);
-
-        if ( !fileJapanize.exists() ) {
-            makeEmptyFile(fileJapanize);
-        }
-
-        YamlConfig configJapanize = YamlConfig.load(fileJapanize);
+        data = storage.loadData(StorageDataType.JAPANIZE);
 
         japanize = new HashMap<String, Boolean>();
-        for ( String key : configJapanize.getKeys(false) ) {
-            japanize.put(key, configJapanize.getBoolean(key));
+        for ( String key : data.keySet() ) {
+            japanize.put(key, Boolean.TRUE.equals(data.get(key)));
         }
 
         // dictionaryのロード
-        fileDictionary = new File(LunaChat.getDataFolder(), FILE_NAME_DICTIONARY);
-
-        if ( !fileDictionary.exists() ) {
-            makeEmptyFile(fileDictionary);
-        }
-
-        YamlConfig configDictionary = YamlConfig.load(fileDictionary);
+        data = storage.loadData(StorageDataType.DICTIONARY);
 
         dictionary = new HashMap<String, String>();
-        for ( String key : configDictionary.getKeys(false) ) {
-            dictionary.put(key, configDictionary.getString(key));
+        for ( String key : data.keySet() ) {
+            dictionary.put(key, data.get(key).toString());
         }
+        keywordLocker.setDictionary(dictionary);
+        keywordLocker.setPlayerNames(LunaChat.getPlugin().getOnlinePlayerNames());
 
         // hideリストのロード
-        fileHidelist = new File(LunaChat.getDataFolder(), FILE_NAME_HIDELIST);
-
-        if ( !fileHidelist.exists() ) {
-            makeEmptyFile(fileHidelist);
-        }
-
-        YamlConfig configHidelist = YamlConfig.load(fileHidelist);
+        data = storage.loadData(StorageDataType.HIDELIST);
 
         hidelist = new HashMap<String, List<ChannelMember>>();
-        for ( String key : configHidelist.getKeys(false) ) {
+        for ( String key : data.keySet() ) {
             hidelist.put(key, new ArrayList<ChannelMember>());
-            for ( String id : configHidelist.getStringList(key) ) {
-                hidelist.get(key).add(ChannelMember.getChannelMember(id));
+            if ( !(data.get(key) instanceof List) ) {
+                continue;
+            }
+            for ( Object id : (List<?>)data.get(key) ) {
+                hidelist.get(key).add(ChannelMember.getChannelMember(id.toString()));
             }
         }
 
         // チャンネル設定のロード
-        channels = Channel.loadAllChannels();
+        long start = System.currentTimeMillis();
+        Map<String, Map<String, Object>> channelData = storage.loadChannels();
+        long loaded = System.currentTimeMillis();
+        ConcurrentHashMap<String, Channel> loadedChannels =
+                new ConcurrentHashMap<String, Channel>(Channel.loadAllChannels(channelData));
+        long end = System.currentTimeMillis();
+
+        // 1:1チャットはメモリ上にだけ存在するので、以前のバージョンで保存されたものは削除し、
+        // 現在の1:1チャットは、再読み込み後も引き継ぐ
+        for ( Channel channel : new ArrayList<Channel>(loadedChannels.values()) ) {
+            if ( channel.isPersonalChat() ) {
+                loadedChannels.remove(channel.getName().toLowerCase());
+                storage.removeChannel(channel.getName());
+            }
+        }
+        if ( channels != null ) {
+            for ( Channel channel : channels.values() ) {
+                if ( channel.isPersonalChat() ) {
+                    loadedChannels.put(channel.getName().toLowerCase(), channel);
+                }
+            }
+        }
+        ChannelIndex loadedIndex = new ChannelIndex();
+        for ( Channel channel : loadedChannels.values() ) {
+            loadedIndex.add(channel);
+        }
+        channels = loadedChannels;
+        index = loadedIndex;
+
+        LunaChat.getPlugin().log(Level.INFO, String.format(
+                "Loaded %d channels from %s in %d ms (read: %d ms, restore: %d ms).",
+                channels.size(), storage.getName(), end - start, loaded - start, end - loaded));
     }
 
     /**
@@ -143,7 +157,7 @@ public class ChannelManager implements LunaChatAPI {
      */
     protected void saveAllChannels() {
 
-        saveDefaults();
+        storage.saveAllData(StorageDataType.DEFAULTS, defaultChannels);
 
         for ( Channel channel : channels.values() ) {
             channel.save();
@@ -151,97 +165,183 @@ public class ChannelManager implements LunaChatAPI {
     }
 
     /**
-     * デフォルトチャンネル設定を保存する
-     * @return 保存したかどうか
+     * 保存先を返す
+     * @return 保存先
      */
-    private boolean saveDefaults() {
+    public LunaChatStorage getStorage() {
+        return storage;
+    }
 
-        try {
-            YamlConfig config = new YamlConfig();
-            for ( String key : defaultChannels.keySet() ) {
-                config.set(key, defaultChannels.get(key));
-            }
-            config.save(fileDefaults);
-            return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
+    /**
+     * 保存待ちの内容を、全てすぐに書き込む
+     */
+    public void flushAllData() {
+        storage.flush();
+    }
+
+    /**
+     * 保存待ちの内容を全て書き込んで、保存先を閉じる。
+     * プラグインの無効化時に呼び出すこと。
+     */
+    public void shutdown() {
+        storage.close();
+    }
+
+    /**
+     * YAMLファイルに保存されているデータを、全て現在の保存先に移行する。
+     * 移行後は、現在の保存先から全て読み込みし直す。
+     * @return 移行したチャンネルの数、現在の保存先がYAMLファイルの場合は-1
+     */
+    public int migrateFromYaml() {
+
+        if ( storage instanceof YamlStorage ) {
+            return -1;
+        }
+
+        YamlStorage yaml = new YamlStorage(LunaChat.getDataFolder());
+
+        for ( StorageDataType type : StorageDataType.values() ) {
+            storage.saveAllData(type, yaml.loadData(type));
         }
+
+        Map<String, Map<String, Object>> channelData = yaml.loadChannels();
+        for ( String name : channelData.keySet() ) {
+            storage.saveChannel(name, channelData.get(name));
+        }
+
+        yaml.close();
+        reloadAllData();
+        return channelData.size();
     }
 
     /**
-     * テンプレート設定を保存する
-     * @return 保存したかどうか
+     * チャンネルの別名が変更されたときに、Channelから呼び出される
+     * @param channel チャンネル
+     * @param oldAlias 変更前の別名
      */
-    private boolean saveTemplates() {
+    void onAliasChanged(Channel channel, String oldAlias) {
+        if ( isRegistered(channel) ) {
+            index.updateAlias(channel, oldAlias);
+        }
+    }
 
-        try {
-            YamlConfig config = new YamlConfig();
-            for ( String key : templates.keySet() ) {
-                config.set(key, templates.get(key));
-            }
-            config.save(fileTemplates);
-            return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
+    /**
+     * チャンネルのブロードキャスト設定が変更されたときに、Channelから呼び出される
+     * @param channel チャンネル
+     */
+    void onBroadcastChanged(Channel channel) {
+        if ( isRegistered(channel) ) {
+            index.updateBroadcast(channel);
+        }
+    }
+
+    /**
+     * メンバーのオンライン状態を、チャンネルに反映する。
+     * 全てのチャンネルは確認せず、索引から、参加しているチャンネルとブロードキャストチャンネルだけを更新する。
+     * @param member メンバー
+     * @param online オンラインになったかどうか
+     */
+    public void updateOnlineMember(ChannelMember member, boolean online) {
+        LinkedHashSet<Channel> targets = new LinkedHashSet<Channel>(index.getByMember(member.toString()));
+        targets.addAll(index.getBroadcastChannels());
+        for ( Channel channel : targets ) {
+            channel.updateOnlineMember(member, online);
         }
     }
 
     /**
-     * Japanize設定を保存する
-     * @return 保存したかどうか
+     * チャンネルにメンバーが追加されたときに、Channelから呼び出される
+     * @param channel チャンネル
+     * @param member メンバー
      */
-    private boolean saveJapanize() {
+    void onMemberAdded(Channel channel, ChannelMember member) {
+        if ( isRegistered(channel) ) {
+            index.addMember(channel, member.toString());
+        }
+    }
 
-        try {
-            YamlConfig config = new YamlConfig();
-            for ( String key : japanize.keySet() ) {
-                config.set(key, japanize.get(key));
-            }
-            config.save(fileJapanize);
-            return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
+    /**
+     * チャンネルからメンバーが削除されたときに、Channelから呼び出される
+     * @param channel チャンネル
+     * @param member メンバー
+     */
+    void onMemberRemoved(Channel channel, ChannelMember member) {
+        if ( isRegistered(channel) ) {
+            index.removeMember(channel, member.toString());
         }
     }
 
     /**
-     * Dictionary設定を保存する
-     * @return 保存したかどうか
+     * 指定したチャンネルが、このマネージャーに登録されているかどうかを返す
+     * @param channel チャンネル
+     * @return 登録されているかどうか
      */
-    private boolean saveDictionary() {
+    private boolean isRegistered(Channel channel) {
+        return channels != null && channels.get(channel.getName().toLowerCase()) == channel;
+    }
 
-        try {
-            YamlConfig config = new YamlConfig();
-            for ( String key : dictionary.keySet() ) {
-                config.set(key, dictionary.get(key));
+    /**
+     * 一定時間発言のない、1:1チャットのチャンネルを削除する。
+     * 1:1チャットはメモリ上にだけ存在するので、保存先には影響しない。
+     * 非同期で呼び出されるので、削除する直前にもう一度発言の有無を確認し、
+     * 確認したチャンネルそのものだけを削除する（同じ名前で作り直されたチャンネルは削除しない）。
+     * @return 削除したチャンネルの数
+     */
+    public int removeIdlePersonalChats() {
+
+        LunaChatConfig config = LunaChat.getConfig();
+        int timeout = config.getPrivateMessageIdleTimeout();
+        if ( timeout <= 0 ) {
+            return 0;
+        }
+
+        long limit = System.currentTimeMillis() - timeout * 60000L;
+        int removed = 0;
+        for ( Channel channel : new ArrayList<Channel>(channels.values()) ) {
+            if ( !channel.isPersonalChat() || channel.getLastActivity() > limit ) {
+                continue;
+            }
+
+            // LunaChatChannelRemoveEvent イベントコール
+            EventResult result = LunaChat.getEventSender().sendLunaChatChannelRemoveEvent(channel.getName(), null);
+            if ( result.isCancelled() ) {
+                continue;
+            }
+
+            // イベントの間に発言があったなら、削除しない
+            if ( channel.getLastActivity() > limit ) {
+                continue;
+            }
+            if ( channels.remove(channel.getName().toLowerCase(), channel) ) {
+                index.remove(channel);
+                removed++;
             }
-            config.save(fileDictionary);
-            return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
         }
+        return removed;
     }
 
     /**
-     * Hidelist設定を保存する
-     * @return 保存したかどうか
+     * config.ymlの設定に従って、保存先を作成する
+     * @return 保存先
      */
-    private boolean saveHidelist() {
+    private LunaChatStorage createStorage() {
+
+        LunaChatConfig config = LunaChat.getConfig();
+        if ( config == null || !config.getStorageType().equalsIgnoreCase("jdbc") ) {
+            return new YamlStorage(LunaChat.getDataFolder());
+        }
+
+        String url = config.getJdbcUrl();
+        if ( url.isEmpty() ) {
+            url = "jdbc:sqlite:" + new File(LunaChat.getDataFolder(), DEFAULT_DATABASE_FILE).getAbsolutePath();
+        }
 
         try {
-            YamlConfig config = new YamlConfig();
-            for ( String key : hidelist.keySet() ) {
-                config.set(key, getIdList(hidelist.get(key)));
-            }
-            config.save(fileHidelist);
-            return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
+            return new JdbcStorage(url, config.getJdbcDriver());
+        } catch (SQLException e) {
+            LunaChat.getPlugin().log(Level.WARNING,
+                    "Cannot connect to the database, so YAML files are used instead : " + e.getMessage());
+            return new YamlStorage(LunaChat.getDataFolder());
         }
     }
 
@@ -250,7 +350,7 @@ public class ChannelManager implements LunaChatAPI {
      */
     public void removeAllDefaultChannels() {
         defaultChannels.clear();
-        saveDefaults();
+        storage.saveAllData(StorageDataType.DEFAULTS, defaultChannels);
     }
 
     /**
@@ -301,15 +401,25 @@ public class ChannelManager implements LunaChatAPI {
     public Collection<Channel> getChannelsByPlayer(String playerName) {
 
         ChannelMember cp = ChannelMember.getChannelMember(playerName);
-        Collection<Channel> result = new ArrayList<Channel>();
-        for ( String key : channels.keySet() ) {
-            Channel channel = channels.get(key);
-            if ( channel.getMembers().contains(cp) ||
-                    channel.isGlobalChannel() ) {
+        LinkedHashSet<Channel> result = new LinkedHashSet<Channel>();
+        if ( cp != null ) {
+            result.addAll(index.getByMember(cp.toString()));
+        }
+
+        // ブロードキャストチャンネルは、接続している全員がメンバーになる
+        for ( Channel channel : index.getBroadcastChannels() ) {
+            if ( channel.getMembers().contains(cp) ) {
                 result.add(channel);
             }
         }
-        return result;
+
+        // グローバルチャンネルは、常に含める
+        Channel global = channels.get(LunaChat.getConfig().getGlobalChannel().toLowerCase());
+        if ( global != null && global.isGlobalChannel() ) {
+            result.add(global);
+        }
+
+        return new ArrayList<Channel>(result);
     }
 
     /**
@@ -342,7 +452,7 @@ public class ChannelManager implements LunaChatAPI {
             return;
         }
         defaultChannels.put(playerName, channelName.toLowerCase());
-        saveDefaults();
+        storage.putData(StorageDataType.DEFAULTS, playerName, channelName.toLowerCase());
     }
 
     /**
@@ -354,8 +464,8 @@ public class ChannelManager implements LunaChatAPI {
     public void removeDefaultChannel(String playerName) {
         if ( defaultChannels.containsKey(playerName) ) {
             defaultChannels.remove(playerName);
+            storage.removeData(StorageDataType.DEFAULTS, playerName);
         }
-        saveDefaults();
     }
 
     /**
@@ -369,14 +479,7 @@ public class ChannelManager implements LunaChatAPI {
         if ( channelName == null ) return null;
         Channel channel = channels.get(channelName.toLowerCase());
         if ( channel != null ) return channel;
-        for ( Channel ch : channels.values() ) {
-            String alias = ch.getAlias();
-            if ( alias != null && alias.length() > 0
-                    && channelName.equalsIgnoreCase(ch.getAlias()) ) {
-                return ch;
-            }
-        }
-        return null;
+        return index.getByAlias(channelName);
     }
 
     /**
@@ -417,6 +520,7 @@ public class ChannelManager implements LunaChatAPI {
         }
 
         channels.put(name.toLowerCase(), channel);
+        index.add(channel);
         channel.save();
         return channel;
     }
@@ -464,7 +568,12 @@ public class ChannelManager implements LunaChatAPI {
 
             // チャンネルの削除
             channel.remove();
-            channels.remove(channelName);
+            if ( channels.remove(channel.getName().toLowerCase(), channel) ) {
+                index.remove(channel);
+            }
+            if ( !channel.isPersonalChat() ) {
+                ChannelReplicator.publishRemoved(channel.getName());
+            }
         }
 
         return true;
@@ -490,7 +599,8 @@ public class ChannelManager implements LunaChatAPI {
     @Override
     public void setTemplate(String id, String template) {
         templates.put(id, template);
-        saveTemplates();
+        ChatFormatTemplate.invalidateAll();
+        storage.putData(StorageDataType.TEMPLATES, id, template);
     }
 
     /**
@@ -501,7 +611,8 @@ public class ChannelManager implements LunaChatAPI {
     @Override
     public void removeTemplate(String id) {
         templates.remove(id);
-        saveTemplates();
+        ChatFormatTemplate.invalidateAll();
+        storage.removeData(StorageDataType.TEMPLATES, id);
     }
 
     /**
@@ -519,7 +630,8 @@ public class ChannelManager implements LunaChatAPI {
      */
     public void setDictionary(String key, String value) {
         dictionary.put(key, value);
-        saveDictionary();
+        keywordLocker.putDictionary(key, value);
+        storage.putData(StorageDataType.DICTIONARY, key, value);
     }
 
     /**
@@ -528,7 +640,35 @@ public class ChannelManager implements LunaChatAPI {
      */
     public void removeDictionary(String key) {
         dictionary.remove(key);
-        saveDictionary();
+        keywordLocker.removeDictionary(key);
+        storage.removeData(StorageDataType.DICTIONARY, key);
+    }
+
+    /**
+     * Japanize変換の前に、プレイヤー名と辞書のキーワードを置き換えるクラスを取得する
+     * @return キーワードロッカー
+     */
+    public KeywordLocker getKeywordLocker() {
+        return keywordLocker;
+    }
+
+    /**
+     * Japanize変換の前に、プレイヤー名と辞書のキーワードを置き換えるクラスを、APIから取得する。
+     * APIがChannelManagerでない場合は、辞書とオンラインのプレイヤー名から作成する。
+     * @param api API
+     * @return キーワードロッカー
+     */
+    public static KeywordLocker getKeywordLockerOf(LunaChatAPI api) {
+        if ( api instanceof ChannelManager ) {
+            return ((ChannelManager)api).getKeywordLocker();
+        }
+        KeywordLocker locker = new KeywordLocker();
+        locker.setDictionary(api.getAllDictionary());
+        Set<String> names = LunaChat.getPlugin().getOnlinePlayerNames();
+        if ( names != null ) {
+            locker.setPlayerNames(names);
+        }
+        return locker;
     }
 
     /**
@@ -576,7 +716,7 @@ public class ChannelManager implements LunaChatAPI {
         }
         if ( !hidelist.get(hidedId).contains(player) ) {
             hidelist.get(hidedId).add(player);
-            saveHidelist();
+            storage.putData(StorageDataType.HIDELIST, hidedId, getIdList(hidelist.get(hidedId)));
         }
     }
 
@@ -594,8 +734,10 @@ public class ChannelManager implements LunaChatAPI {
             hidelist.get(hidedId).remove(player);
             if ( hidelist.get(hidedId).size() <= 0 ) {
                 hidelist.remove(hidedId);
+                storage.removeData(StorageDataType.HIDELIST, hidedId);
+            } else {
+                storage.putData(StorageDataType.HIDELIST, hidedId, getIdList(hidelist.get(hidedId)));
             }
-            saveHidelist();
         }
     }
 
@@ -628,7 +770,7 @@ public class ChannelManager implements LunaChatAPI {
     @Override
     public void setPlayersJapanize(String playerName, boolean doJapanize) {
         japanize.put(playerName, doJapanize);
-        saveJapanize();
+        storage.putData(StorageDataType.JAPANIZE, playerName, doJapanize);
     }
 
     /**
@@ -643,23 +785,4 @@ public class ChannelManager implements LunaChatAPI {
         }
         return results;
     }
-
-    /**
-     * 指定されたファイル出力先に、空のYamlファイルを作成する
-     * @param file 出力先
-     */
-    private void makeEmptyFile(File file) {
-//        try {
-//            file.createNewFile();
-//        } catch (IOException e) {
-//            e.printStackTrace();
-//        }
-
-        YamlConfig config = new YamlConfig();
-        try {
-            config.save(file);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
 }
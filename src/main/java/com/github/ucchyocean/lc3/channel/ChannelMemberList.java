@@ -0,0 +1,206 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.channel;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+import com.github.ucchyocean.lc3.member.ChannelMember;
+
+/**
+ * チャンネルメンバーのリスト。
+ * 中身は挿入順を保持するハッシュセットで管理しており、containsやremoveをO(1)で行える。
+ * 既存APIとの互換性のため、Listとして扱えるようにしている。
+ * 同じメンバーを重複して追加することはできない。
+ * 変更は1つのスレッドから行うこと。変更しない間は、複数スレッドから同時に読み取ってもよい。
+ * @author ucchy
+ */
+public class ChannelMemberList extends AbstractList<ChannelMember> {
+
+    /** メンバー */
+    private LinkedHashSet<ChannelMember> members;
+
+    /** インデックスアクセス用のキャッシュ（変更があったらnullに戻す） */
+    private volatile ArrayList<ChannelMember> indexCache;
+
+    /**
+     * コンストラクタ
+     */
+    public ChannelMemberList() {
+        members = new LinkedHashSet<ChannelMember>();
+    }
+
+    /**
+     * コンストラクタ
+     * @param members 初期メンバー
+     */
+    public ChannelMemberList(Collection<? extends ChannelMember> members) {
+        this();
+        for ( ChannelMember member : members ) {
+            if ( member != null ) {
+                this.members.add(member);
+            }
+        }
+    }
+
+    /**
+     * 指定したメンバーが含まれるかどうかを返す
+     * @see java.util.AbstractCollection#contains(java.lang.Object)
+     */
+    @Override
+    public boolean contains(Object o) {
+        return members.contains(o);
+    }
+
+    /**
+     * メンバーを末尾に追加する。既に含まれている場合は何もしない。
+     * @return 追加されたかどうか
+     * @see java.util.AbstractList#add(java.lang.Object)
+     */
+    @Override
+    public boolean add(ChannelMember member) {
+        if ( member == null || !members.add(member) ) {
+            return false;
+        }
+        modified();
+        return true;
+    }
+
+    /**
+     * 指定位置にメンバーを追加する。既に含まれている場合は何もしない。
+     * @see java.util.AbstractList#add(int, java.lang.Object)
+     */
+    @Override
+    public void add(int index, ChannelMember member) {
+        if ( index == members.size() ) {
+            add(member);
+            return;
+        }
+        if ( member == null || members.contains(member) ) {
+            return;
+        }
+        ArrayList<ChannelMember> temp = new ArrayList<ChannelMember>(members);
+        temp.add(index, member);
+        members = new LinkedHashSet<ChannelMember>(temp);
+        modified();
+    }
+
+    /**
+     * メンバーを削除する
+     * @see java.util.AbstractCollection#remove(java.lang.Object)
+     */
+    @Override
+    public boolean remove(Object o) {
+        if ( !members.remove(o) ) {
+            return false;
+        }
+        modified();
+        return true;
+    }
+
+    /**
+     * 指定位置のメンバーを削除する
+     * @see java.util.AbstractList#remove(int)
+     */
+    @Override
+    public ChannelMember remove(int index) {
+        ChannelMember member = get(index);
+        remove(member);
+        return member;
+    }
+
+    /**
+     * 指定位置のメンバーを置き換える。リストの大きさは変わらない。
+     * @throws NullPointerException memberがnullの場合
+     * @throws IllegalArgumentException memberが、ほかの位置に既に含まれている場合
+     * @see java.util.AbstractList#set(int, java.lang.Object)
+     */
+    @Override
+    public ChannelMember set(int index, ChannelMember member) {
+        if ( member == null ) {
+            throw new NullPointerException("member is null.");
+        }
+        ArrayList<ChannelMember> temp = new ArrayList<ChannelMember>(members);
+        ChannelMember old = temp.get(index);
+        if ( old.equals(member) ) {
+            return old;
+        }
+        if ( members.contains(member) ) {
+            // 重複させると大きさが変わってしまうので、受け付けない
+            throw new IllegalArgumentException("member is already contained : " + member);
+        }
+        temp.set(index, member);
+        members = new LinkedHashSet<ChannelMember>(temp);
+        modified();
+        return old;
+    }
+
+    /**
+     * 全てのメンバーを削除する
+     * @see java.util.AbstractList#clear()
+     */
+    @Override
+    public void clear() {
+        members.clear();
+        modified();
+    }
+
+    /**
+     * 指定位置のメンバーを返す
+     * @see java.util.AbstractList#get(int)
+     */
+    @Override
+    public ChannelMember get(int index) {
+        // 読み取りだけのスレッドが同時に作っても、それぞれが作ったものを使うので問題ない
+        ArrayList<ChannelMember> cache = indexCache;
+        if ( cache == null ) {
+            cache = new ArrayList<ChannelMember>(members);
+            indexCache = cache;
+        }
+        return cache.get(index);
+    }
+
+    /**
+     * メンバー数を返す
+     * @see java.util.AbstractCollection#size()
+     */
+    @Override
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * イテレータを返す
+     * @see java.util.AbstractList#iterator()
+     */
+    @Override
+    public Iterator<ChannelMember> iterator() {
+        final Iterator<ChannelMember> it = members.iterator();
+        return new Iterator<ChannelMember>() {
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+            public ChannelMember next() {
+                return it.next();
+            }
+            public void remove() {
+                it.remove();
+                modified();
+            }
+        };
+    }
+
+    /**
+     * 変更があったことを記録する
+     */
+    private void modified() {
+        indexCache = null;
+        modCount++;
+    }
+}
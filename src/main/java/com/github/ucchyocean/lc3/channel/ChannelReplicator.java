@@ -0,0 +1,380 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.channel;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.github.ucchyocean.lc3.LunaChat;
+import com.github.ucchyocean.lc3.LunaChatAPI;
+import com.github.ucchyocean.lc3.member.ChannelMember;
+import com.github.ucchyocean.lc3.messaging.MessageBus;
+import com.github.ucchyocean.lc3.messaging.ReplicationTransport;
+import com.github.ucchyocean.lc3.util.ByteReader;
+import com.github.ucchyocean.lc3.util.ByteWriter;
+
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.chat.ComponentSerializer;
+
+/**
+ * 複数のBungeeCordプロキシの間で、チャンネルの発言、メンバーの変更、チャンネル設定の変更を複製するクラス。
+ * 変更を受信した側では、受信したことによる変更を、さらに送信し直すことはしない。
+ * 同じチャンネル設定を複数のプロキシで同時に変更した場合は、後から届いた方が有効になる。
+ * @author ucchy
+ */
+public class ChannelReplicator implements MessageBus.Handler {
+
+    private static final int TYPE_CHAT = 1;
+    private static final int TYPE_SYSTEM_MESSAGE = 2;
+    private static final int TYPE_MEMBER_ADD = 3;
+    private static final int TYPE_MEMBER_REMOVE = 4;
+    private static final int TYPE_CHANNEL_STATE = 5;
+    private static final int TYPE_CHANNEL_REMOVE = 6;
+
+    private static final int VALUE_NULL = 0;
+    private static final int VALUE_STRING = 1;
+    private static final int VALUE_BOOLEAN = 2;
+    private static final int VALUE_INT = 3;
+    private static final int VALUE_LONG = 4;
+    private static final int VALUE_LIST = 5;
+    private static final int VALUE_MAP = 6;
+
+    /** 動作中のインスタンス、複製していないならnull */
+    private static volatile ChannelReplicator instance;
+
+    /** 受信した変更を適用している間、または、複製しない処理の間はtrue */
+    private static final ThreadLocal<Boolean> local = new ThreadLocal<Boolean>();
+
+    private final MessageBus bus;
+
+    /**
+     * コンストラクタ
+     * @param transport フレームの送受信に使うtransport
+     * @param executor 送信処理を実行するExecutor
+     */
+    private ChannelReplicator(ReplicationTransport transport, Executor executor) {
+        this.bus = new MessageBus(transport, executor, this);
+    }
+
+    /**
+     * 複製を開始する
+     * @param transport フレームの送受信に使うtransport
+     * @param executor 送信処理を実行するExecutor
+     * @throws IOException transportを開始できなかった場合
+     */
+    public static synchronized void startInstance(
+            ReplicationTransport transport, Executor executor) throws IOException {
+        shutdownInstance();
+        ChannelReplicator replicator = new ChannelReplicator(transport, executor);
+        replicator.bus.start();
+        instance = replicator;
+    }
+
+    /**
+     * 送信待ちの変更を送信してから、複製を停止する
+     */
+    public static synchronized void shutdownInstance() {
+        if ( instance != null ) {
+            instance.bus.stop();
+            instance = null;
+        }
+    }
+
+    /**
+     * 動作中のインスタンスを返す
+     * @return インスタンス、複製していないならnull
+     */
+    public static @Nullable ChannelReplicator getInstance() {
+        return instance;
+    }
+
+    /**
+     * @return 送受信に使っているMessageBus
+     */
+    public MessageBus getMessageBus() {
+        return bus;
+    }
+
+    /**
+     * ここから endLocal() までの、このスレッドでの変更を、ほかのプロキシへ送信しないようにする。
+     * @return 開始前の状態、endLocal() に渡すこと
+     */
+    protected static boolean beginLocal() {
+        boolean before = isLocal();
+        local.set(Boolean.TRUE);
+        return before;
+    }
+
+    /**
+     * beginLocal() で開始した状態を、元に戻す
+     * @param before beginLocal() が返した値
+     */
+    protected static void endLocal(boolean before) {
+        if ( !before ) {
+            local.remove();
+        }
+    }
+
+    private static boolean isLocal() {
+        return local.get() != null;
+    }
+
+    /**
+     * 送信するべき状態なら、インスタンスを返す
+     * @return インスタンス、送信しないならnull
+     */
+    private static ChannelReplicator publisher() {
+        ChannelReplicator replicator = instance;
+        if ( replicator == null || isLocal() ) {
+            return null;
+        }
+        return replicator;
+    }
+
+    /**
+     * チャンネルの発言を送信する
+     * @param channel チャンネル
+     * @param member 発言者
+     * @param message 発言内容（レガシー形式の文字列）
+     * @param comps 発言内容、クリック可能なフォーマットを使っていないならnull
+     */
+    protected static void publishChat(Channel channel, @Nullable ChannelMember member,
+            String message, @Nullable BaseComponent[] comps) {
+        ChannelReplicator replicator = publisher();
+        if ( replicator == null || channel.isPersonalChat() ) return;
+        ByteWriter out = new ByteWriter(64 + message.length());
+        out.writeString(channel.getName());
+        out.writeString(member == null ? "" : member.toString());
+        if ( comps != null ) {
+            out.writeByte(1);
+            out.writeString(ComponentSerializer.toString(comps));
+        } else {
+            out.writeByte(0);
+            out.writeString(message);
+        }
+        replicator.bus.publish(TYPE_CHAT, out);
+    }
+
+    /**
+     * チャンネルのシステムメッセージを送信する
+     * @param channel チャンネル
+     * @param message メッセージ
+     */
+    protected static void publishSystemMessage(Channel channel, BaseComponent[] message) {
+        ChannelReplicator replicator = publisher();
+        if ( replicator == null || channel.isPersonalChat() ) return;
+        ByteWriter out = new ByteWriter(128);
+        out.writeString(channel.getName());
+        out.writeString(ComponentSerializer.toString(message));
+        replicator.bus.publish(TYPE_SYSTEM_MESSAGE, out);
+    }
+
+    /**
+     * チャンネルへのメンバーの追加を送信する
+     * @param channel チャンネル
+     * @param member 追加されたメンバー
+     */
+    protected static void publishMemberAdded(Channel channel, ChannelMember member) {
+        publishMember(TYPE_MEMBER_ADD, channel, member);
+    }
+
+    /**
+     * チャンネルからのメンバーの削除を送信する
+     * @param channel チャンネル
+     * @param member 削除されたメンバー
+     */
+    protected static void publishMemberRemoved(Channel channel, ChannelMember member) {
+        publishMember(TYPE_MEMBER_REMOVE, channel, member);
+    }
+
+    private static void publishMember(int type, Channel channel, ChannelMember member) {
+        ChannelReplicator replicator = publisher();
+        if ( replicator == null || channel.isPersonalChat() ) return;
+        ByteWriter out = new ByteWriter(64);
+        out.writeString(channel.getName());
+        out.writeString(member.toString());
+        replicator.bus.publish(type, out);
+    }
+
+    /**
+     * チャンネルの設定（メンバー以外）を送信する
+     * @param channel チャンネル
+     * @param data Channel#serialize() で作成したデータ
+     */
+    protected static void publishState(Channel channel, Map<String, Object> data) {
+        ChannelReplicator replicator = publisher();
+        if ( replicator == null || channel.isPersonalChat() ) return;
+        ByteWriter out = new ByteWriter(256);
+        out.writeString(channel.getName());
+        writeValue(out, data);
+        replicator.bus.publish(TYPE_CHANNEL_STATE, out);
+    }
+
+    /**
+     * チャンネルの削除を送信する
+     * @param channelName チャンネル名
+     */
+    protected static void publishRemoved(String channelName) {
+        ChannelReplicator replicator = publisher();
+        if ( replicator == null ) return;
+        ByteWriter out = new ByteWriter(32);
+        out.writeString(channelName);
+        replicator.bus.publish(TYPE_CHANNEL_REMOVE, out);
+    }
+
+    /**
+     * 受信した変更を、このプロキシのチャンネルに適用する
+     * @param type レコードの種類
+     * @param data レコードの中身
+     * @see com.github.ucchyocean.lc3.messaging.MessageBus.Handler#handle(int, com.github.ucchyocean.lc3.util.ByteReader)
+     */
+    @Override
+    public void handle(int type, ByteReader data) {
+
+        LunaChatAPI api = LunaChat.getAPI();
+        if ( api == null ) return;
+
+        boolean before = beginLocal();
+        try {
+            String channelName = data.readString();
+            Channel channel = api.getChannel(channelName);
+
+            if ( type == TYPE_CHANNEL_STATE ) {
+                // 無いチャンネルなら、作成してから適用する
+                if ( channel == null ) {
+                    channel = api.createChannel(channelName);
+                }
+                if ( channel != null ) {
+                    channel.applyState(castToMap(readValue(data)));
+                    channel.save();
+                }
+                return;
+            }
+
+            if ( channel == null ) {
+                return;
+            }
+
+            switch ( type ) {
+            case TYPE_CHAT:
+                String sender = data.readString();
+                ChannelMember member = sender.isEmpty() ? null : ChannelMember.getChannelMember(sender);
+                if ( data.readByte() == 1 ) {
+                    channel.deliverReplicated(member, ComponentSerializer.parse(data.readString()), null);
+                } else {
+                    channel.deliverReplicated(member, null, data.readString());
+                }
+                break;
+            case TYPE_SYSTEM_MESSAGE:
+                channel.deliverSystemMessage(ComponentSerializer.parse(data.readString()));
+                break;
+            case TYPE_MEMBER_ADD:
+                channel.addMember(ChannelMember.getChannelMember(data.readString()));
+                break;
+            case TYPE_MEMBER_REMOVE:
+                channel.removeMember(ChannelMember.getChannelMember(data.readString()));
+                break;
+            case TYPE_CHANNEL_REMOVE:
+                api.removeChannel(channel.getName());
+                break;
+            default:
+                // 知らない種類のレコードは、無視する
+                break;
+            }
+
+        } finally {
+            endLocal(before);
+        }
+    }
+
+    /**
+     * チャンネル設定の値を書き込む。
+     * Channel#serialize() が作成する、文字列、真偽値、数値、リスト、マップだけを扱う。
+     * @param out 書き込み先
+     * @param value 値
+     */
+    private static void writeValue(ByteWriter out, Object value) {
+        if ( value instanceof String ) {
+            out.writeByte(VALUE_STRING);
+            out.writeString((String)value);
+        } else if ( value instanceof Boolean ) {
+            out.writeByte(VALUE_BOOLEAN);
+            out.writeByte((Boolean)value ? 1 : 0);
+        } else if ( value instanceof Integer ) {
+            out.writeByte(VALUE_INT);
+            out.writeVarLong((Integer)value);
+        } else if ( value instanceof Number ) {
+            out.writeByte(VALUE_LONG);
+            out.writeVarLong(((Number)value).longValue());
+        } else if ( value instanceof List<?> ) {
+            List<?> list = (List<?>)value;
+            out.writeByte(VALUE_LIST);
+            out.writeVarInt(list.size());
+            for ( Object item : list ) {
+                writeValue(out, item);
+            }
+        } else if ( value instanceof Map<?, ?> ) {
+            Map<?, ?> map = (Map<?, ?>)value;
+            out.writeByte(VALUE_MAP);
+            out.writeVarInt(map.size());
+            for ( Map.Entry<?, ?> entry : map.entrySet() ) {
+                out.writeString(String.valueOf(entry.getKey()));
+                writeValue(out, entry.getValue());
+            }
+        } else {
+            out.writeByte(VALUE_NULL);
+        }
+    }
+
+    /**
+     * チャンネル設定の値を読み込む
+     * @param in 読み込み元
+     * @return 値
+     */
+    private static Object readValue(ByteReader in) {
+        switch ( in.readByte() ) {
+        case VALUE_STRING:
+            return in.readString();
+        case VALUE_BOOLEAN:
+            return in.readByte() != 0;
+        case VALUE_INT:
+            return (int)in.readVarLong();
+        case VALUE_LONG:
+            return in.readVarLong();
+        case VALUE_LIST:
+            int size = in.readVarInt();
+            List<Object> list = new ArrayList<Object>(Math.min(size, 64));
+            for ( int i = 0; i < size; i++ ) {
+                list.add(readValue(in));
+            }
+            return list;
+        case VALUE_MAP:
+            int count = in.readVarInt();
+            Map<String, Object> map = new HashMap<String, Object>();
+            for ( int i = 0; i < count; i++ ) {
+                String key = in.readString();
+                map.put(key, readValue(in));
+            }
+            return map;
+        default:
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> castToMap(Object value) {
+        if ( value instanceof Map<?, ?> ) {
+            return (Map<String, Object>)value;
+        }
+        return new HashMap<String, Object>();
+    }
+}
@@ -5,16 +5,11 @@
  */
 package com.github.ucchyocean.lc3.channel;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import com.github.ucchyocean.lc3.LunaChat;
 import com.github.ucchyocean.lc3.event.EventResult;
 import com.github.ucchyocean.lc3.japanize.IMEConverter;
 import com.github.ucchyocean.lc3.japanize.JapanizeType;
+import com.github.ucchyocean.lc3.japanize.KeywordLocker;
 import com.github.ucchyocean.lc3.japanize.YukiKanaConverter;
 import com.github.ucchyocean.lc3.member.ChannelMember;
 import com.github.ucchyocean.lc3.util.Utility;
@@ -61,59 +56,28 @@ public class JapanizeConvertTask {
      */
     public boolean runSync() {
 
-        // 変換対象外のキーワード
-        HashMap<String, String> keywordMap = new HashMap<String, String>();
-        ArrayList<String> keywords = new ArrayList<String>();
-        if ( LunaChat.getConfig().isJapanizeIgnorePlayerName() ) {
-            keywords.addAll(LunaChat.getPlugin().getOnlinePlayerNames());
-        }
-        Map<String, String> dictionary =
-                LunaChat.getAPI().getAllDictionary();
-
         // カラーコード削除、URL削除
         String deletedURL = Utility.stripColorCode(org.replaceAll(REGEX_URL, " "));
 
         // キーワードをロック
-        int index = 0;
-        String keywordLocked = deletedURL;
-        for ( String keyword : keywords ) {
-            if ( keywordLocked.contains(keyword) ) {
-                index++;
-                String key = "＜" + makeMultibytesDigit(index) + "＞";
-                keywordLocked = keywordLocked.replace(keyword, key);
-                keywordMap.put(key, keyword);
-            }
-        }
-        for ( String dickey : dictionary.keySet() ) {
-            if ( keywordLocked.contains(dickey) ) {
-                index++;
-                String key = "＜" + makeMultibytesDigit(index) + "＞";
-                keywordLocked = keywordLocked.replace(dickey, key);
-                keywordMap.put(key, dictionary.get(dickey));
-            }
-        }
+        KeywordLocker.Locked keywordLocked = ChannelManager.getKeywordLockerOf(LunaChat.getAPI()).lock(
+                deletedURL, LunaChat.getConfig().isJapanizeIgnorePlayerName());
 
         // カナ変換
-        String japanized = YukiKanaConverter.conv(keywordLocked);
+        String japanized = YukiKanaConverter.conv(keywordLocked.getText());
 
         // IME変換
         if ( type == JapanizeType.GOOGLE_IME ) {
             japanized = IMEConverter.convByGoogleIME(japanized);
+        } else if ( type == JapanizeType.LOCAL_IME ) {
+            japanized = IMEConverter.convByLocalIME(japanized);
         }
 
         // キーワードのアンロック
-        for ( String key : keywordMap.keySet() ) {
-            japanized = japanized.replace(key, keywordMap.get(key));
-        }
+        japanized = keywordLocked.unlock(japanized);
 
         // 変換後の文字列にNGワードが含まれている場合は、マスクする
-        for ( Pattern pattern : LunaChat.getConfig().getNgwordCompiled() ) {
-            Matcher matcher = pattern.matcher(japanized);
-            if ( matcher.find() ) {
-                japanized = matcher.replaceAll(
-                        Utility.getAstariskString(matcher.group(0).length()));
-            }
-        }
+        japanized = LunaChat.getConfig().getNgwordFilter().mask(japanized);
 
         // LunaChatPostJapanizeEvent イベントコール
         String channelName = (channel == null) ? "" : channel.getName();
@@ -138,31 +102,5 @@ public class JapanizeConvertTask {
     public String getResult() {
         return result;
     }
-
-    /**
-     * 数値を、全角文字の文字列に変換して返す
-     * @param digit
-     * @return
-     */
-    private String makeMultibytesDigit(int digit) {
-
-        String half = Integer.toString(digit);
-        StringBuilder result = new StringBuilder();
-        for ( int index=0; index < half.length(); index++ ) {
-            switch ( half.charAt(index) ) {
-            case '0' : result.append("０"); break;
-            case '1' : result.append("１"); break;
-            case '2' : result.append("２"); break;
-            case '3' : result.append("３"); break;
-            case '4' : result.append("４"); break;
-            case '5' : result.append("５"); break;
-            case '6' : result.append("６"); break;
-            case '7' : result.append("７"); break;
-            case '8' : result.append("８"); break;
-            case '9' : result.append("９"); break;
-            }
-        }
-        return result.toString();
-    }
 }
 
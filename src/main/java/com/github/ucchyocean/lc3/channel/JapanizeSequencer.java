@@ -0,0 +1,137 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.channel;
+
+import java.util.ArrayDeque;
+
+/**
+ * Japanize変換の結果を、発言の順番どおりに表示するためのクラス。
+ * 発言ごとに予約を取り、元の発言が表示されて、変換が終わったものから、予約した順番に表示する。
+ * 固定の待ち時間は入れないので、変換が終わっていれば、すぐに表示される。
+ * @author ucchy
+ */
+public class JapanizeSequencer {
+
+    private final ArrayDeque<Line> lines;
+
+    /** 表示を実行しているスレッドがあるかどうか */
+    private boolean draining;
+
+    /**
+     * コンストラクタ
+     */
+    public JapanizeSequencer() {
+        this.lines = new ArrayDeque<Line>();
+    }
+
+    /**
+     * 発言の順番を予約する
+     * @return 予約した行
+     */
+    public synchronized Line reserve() {
+        Line line = new Line();
+        lines.add(line);
+        return line;
+    }
+
+    /**
+     * 表示待ちの行の数を返す
+     * @return 表示待ちの行の数
+     */
+    public synchronized int getPendingCount() {
+        return lines.size();
+    }
+
+    /**
+     * 先頭から、表示できる行を順番に表示する。
+     * 他のスレッドが表示している間は、そのスレッドに任せる。
+     */
+    private void drain() {
+
+        synchronized ( this ) {
+            if ( draining ) {
+                return;
+            }
+            draining = true;
+        }
+
+        while ( true ) {
+            Runnable delivery;
+            synchronized ( this ) {
+                Line head = lines.peek();
+                if ( head == null || !head.isReady() ) {
+                    draining = false;
+                    return;
+                }
+                lines.poll();
+                delivery = head.delivery;
+            }
+            if ( delivery != null ) {
+                try {
+                    delivery.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * 予約した行
+     */
+    public class Line {
+
+        private boolean originalDelivered;
+        private boolean finished;
+        private Runnable delivery;
+
+        private Line() {
+        }
+
+        /**
+         * 元の発言が表示されたことを通知する。
+         * 元の発言を表示しない場合も、これを呼び出す。
+         */
+        public void originalDelivered() {
+            synchronized ( JapanizeSequencer.this ) {
+                originalDelivered = true;
+            }
+            drain();
+        }
+
+        /**
+         * 変換が終わったことを通知する。表示できる順番になったら、表示処理が実行される。
+         * @param delivery 変換結果の表示処理
+         */
+        public void complete(Runnable delivery) {
+            synchronized ( JapanizeSequencer.this ) {
+                if ( finished ) {
+                    return;
+                }
+                finished = true;
+                this.delivery = delivery;
+            }
+            drain();
+        }
+
+        /**
+         * 変換結果を表示せずに、順番を後ろの行に譲る。
+         * 変換が終わった後でも、まだ表示していなければ、表示を取り止める。
+         */
+        public void cancel() {
+            synchronized ( JapanizeSequencer.this ) {
+                finished = true;
+                originalDelivered = true;
+                delivery = null;
+            }
+            drain();
+        }
+
+        private boolean isReady() {
+            return originalDelivered && finished;
+        }
+    }
+}
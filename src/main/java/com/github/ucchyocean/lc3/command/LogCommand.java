@@ -6,8 +6,10 @@
 package com.github.ucchyocean.lc3.command;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import com.github.ucchyocean.lc3.LunaChat;
+import com.github.ucchyocean.lc3.LunaChatExecutor;
 import com.github.ucchyocean.lc3.LunaChatLogger;
 import com.github.ucchyocean.lc3.Messages;
 import com.github.ucchyocean.lc3.channel.Channel;
@@ -22,6 +24,9 @@ public class LogCommand extends LunaChatSubCommand {
     private static final String COMMAND_NAME = "log";
     private static final String PERMISSION_NODE = "lunachat." + COMMAND_NAME;
 
+    /** 1ページに表示するログの行数 */
+    private static final int PAGE_SIZE = 20;
+
     /**
      * コマンドを取得します。
      * @return コマンド
@@ -73,14 +78,18 @@ public class LogCommand extends LunaChatSubCommand {
      * @see com.github.ucchyocean.lc3.command.LunaChatSubCommand#runCommand(java.lang.String[])
      */
     @Override
-    public boolean runCommand(ChannelMember sender, String label, String[] args) {
+    public boolean runCommand(final ChannelMember sender, String label, String[] args) {
 
         // 引数チェック
         String cname = null;
         String argsPlayer = null;
         String argsFilter = null;
         String argsDate = null;
+        String argsFrom = null;
+        String argsTo = null;
+        List<String> argsTerms = new ArrayList<String>();
         boolean reverse = false;
+        int page = 1;
 
         int index = 1;
         if ( args.length >= 2 && !args[1].contains("=")) {
@@ -96,8 +105,16 @@ public class LogCommand extends LunaChatSubCommand {
                 argsFilter = arg.substring(2);
             } else if ( arg.startsWith("d=") ) {
                 argsDate = arg.substring(2);
+            } else if ( arg.startsWith("q=") && arg.length() > 2 ) {
+                argsTerms.add(arg.substring(2));
+            } else if ( arg.startsWith("from=") ) {
+                argsFrom = arg.substring(5);
+            } else if ( arg.startsWith("to=") ) {
+                argsTo = arg.substring(3);
             } else if ( arg.equals("r=") ) {
                 reverse = true;
+            } else if ( arg.matches("page=[1-9][0-9]{0,5}") ) {
+                page = Integer.parseInt(arg.substring(5));
             }
         }
 
@@ -115,23 +132,25 @@ public class LogCommand extends LunaChatSubCommand {
             return true;
         }
 
-        // ログの取得
-        ArrayList<String> logs;
+        // 検索語か期間が指定されたら、全文検索用の索引を使って、複数の日付のログを検索する
+        boolean search = !argsTerms.isEmpty() || argsFrom != null || argsTo != null;
+        if ( search && argsFrom == null && argsTo == null && argsDate != null ) {
+            argsFrom = argsDate;
+            argsTo = argsDate;
+        }
 
+        Channel channel = null;
         if ( config.getGlobalChannel().equals("") &&
                 (cname == null || cname.equals(config.getGlobalMarker())) ) {
 
             // グローバルチャンネル設定が無くて、指定チャンネルがマーカーの場合、
             // 通常チャットのログを取得する
-            LunaChatLogger logger = LunaChat.getNormalChatLogger();
-            logs = logger.getLog(argsPlayer, argsFilter, argsDate, reverse);
-
             cname = "GlobalChat";
 
         } else {
 
             // チャンネルが存在するかどうか確認する
-            Channel channel = api.getChannel(cname);
+            channel = api.getChannel(cname);
             if ( channel == null ) {
                 sender.sendMessage(Messages.errmsgNotExist());
                 return true;
@@ -148,12 +167,64 @@ public class LogCommand extends LunaChatSubCommand {
                 sender.sendMessage(Messages.errmsgNomember());
                 return true;
             }
+        }
+
+        // ログファイルの読み込みを伴うので、IOレーンで取得して、取得できたら表示する
+        final LogQuery query = new LogQuery(channel, search, argsTerms, argsPlayer, argsFilter,
+                argsDate, argsFrom, argsTo, reverse, page);
+        final String title = cname;
+        LunaChat.runAsyncTask(LunaChatExecutor.Lane.IO, new Runnable() {
+            @Override
+            public void run() {
+                sendLogs(sender, title, query);
+            }
+        });
+
+        return true;
+    }
+
+    /**
+     * ログを取得して、senderに表示します。
+     * @param sender コマンド実行者
+     * @param title 表示するチャンネル名
+     * @param query 取得条件
+     */
+    private void sendLogs(ChannelMember sender, String title, LogQuery query) {
+
+        // ログの取得
+        // 次のページがあるかどうかを調べるため、1行多く取得する
+        ArrayList<String> logs;
+        int offset = (query.page - 1) * PAGE_SIZE;
+        int limit = PAGE_SIZE + 1;
+        boolean reverse = query.reverse;
+
+        if ( query.channel == null ) {
+            LunaChatLogger logger = LunaChat.getNormalChatLogger();
+            if ( query.search ) {
+                logs = logger.searchLog(query.terms, query.player, query.filter,
+                        query.from, query.to, reverse, offset, limit);
+            } else {
+                logs = logger.getLog(query.player, query.filter, query.date, reverse, offset, limit);
+            }
+        } else {
+            if ( query.search ) {
+                logs = query.channel.searchLog(query.terms, query.player, query.filter,
+                        query.from, query.to, reverse, offset, limit);
+            } else {
+                logs = query.channel.getLog(query.player, query.filter, query.date, reverse, offset, limit);
+            }
+        }
 
-            logs = channel.getLog(argsPlayer, argsFilter, argsDate, reverse);
+        // 1行多く取得できたなら、次のページがある
+        boolean hasNext = logs.size() > PAGE_SIZE;
+        if ( hasNext ) {
+            // 取得したログは、逆順なら新しい順、そうでなければ古い順に並んでいるので、
+            // 一番古い行を除く
+            logs.remove(reverse ? logs.size() - 1 : 0);
         }
 
         // 整形と表示
-        sender.sendMessage(Messages.logDisplayFirstLine(cname));
+        sender.sendMessage(Messages.logDisplayFirstLine(title));
 
         for ( String log : logs ) {
 
@@ -169,7 +240,54 @@ public class LogCommand extends LunaChatSubCommand {
 
         sender.sendMessage(Messages.logDisplayEndLine());
 
-        return true;
+        if ( hasNext ) {
+            sender.sendMessage(Messages.logDisplayNextPage(query.page + 1));
+        }
+    }
+
+    /**
+     * ログの取得条件
+     * @author ucchy
+     */
+    private static class LogQuery {
+
+        private final Channel channel;
+        private final boolean search;
+        private final List<String> terms;
+        private final String player;
+        private final String filter;
+        private final String date;
+        private final String from;
+        private final String to;
+        private final boolean reverse;
+        private final int page;
+
+        /**
+         * コンストラクタ
+         * @param channel チャンネル、通常チャットのログならnull
+         * @param search 全文検索用の索引を使って検索するかどうか
+         * @param terms 検索語
+         * @param player プレイヤー名
+         * @param filter フィルタ
+         * @param date 日付
+         * @param from 開始日
+         * @param to 終了日
+         * @param reverse 逆順取得
+         * @param page ページ
+         */
+        private LogQuery(Channel channel, boolean search, List<String> terms, String player,
+                String filter, String date, String from, String to, boolean reverse, int page) {
+            this.channel = channel;
+            this.search = search;
+            this.terms = terms;
+            this.player = player;
+            this.filter = filter;
+            this.date = date;
+            this.from = from;
+            this.to = to;
+            this.reverse = reverse;
+            this.page = page;
+        }
     }
 
 }
@@ -61,6 +61,7 @@ public class LunaChatCommand {
         commonCommands.add(new DictionaryCommand());
         commonCommands.add(new DicCommand());
         commonCommands.add(new ReloadCommand());
+        commonCommands.add(new MigrateCommand());
     }
 
     /**
@@ -73,7 +74,7 @@ public class LunaChatCommand {
     public boolean execute(ChannelMember sender, String label, String[] args) {
 
         // チャンネルチャットが無効でも利用できるコマンドはここで処理する
-        // （hide, unhide, dic, dictionary, reload）
+        // （hide, unhide, dic, dictionary, reload, migrate）
         if ( args.length >= 1 ) {
             for ( LunaChatSubCommand c : commonCommands ) {
                 if ( c.getCommandName().equalsIgnoreCase(args[0]) ) {
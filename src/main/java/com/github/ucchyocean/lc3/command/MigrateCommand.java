@@ -0,0 +1,109 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.command;
+
+import java.util.logging.Level;
+
+import com.github.ucchyocean.lc3.LunaChat;
+import com.github.ucchyocean.lc3.LunaChatExecutor;
+import com.github.ucchyocean.lc3.Messages;
+import com.github.ucchyocean.lc3.channel.ChannelManager;
+import com.github.ucchyocean.lc3.member.ChannelMember;
+import com.github.ucchyocean.lc3.storage.YamlStorage;
+
+/**
+ * migrateコマンドの実行クラス
+ * @author ucchy
+ */
+public class MigrateCommand extends LunaChatSubCommand {
+
+    private static final String COMMAND_NAME = "migrate";
+    private static final String PERMISSION_NODE = "lunachat-admin." + COMMAND_NAME;
+
+    /**
+     * コマンドを取得します。
+     * @return コマンド
+     * @see com.github.ucchyocean.lc3.command.LunaChatSubCommand#getCommandName()
+     */
+    @Override
+    public String getCommandName() {
+        return COMMAND_NAME;
+    }
+
+    /**
+     * パーミッションノードを取得します。
+     * @return パーミッションノード
+     * @see com.github.ucchyocean.lc3.command.LunaChatSubCommand#getPermissionNode()
+     */
+    @Override
+    public String getPermissionNode() {
+        return PERMISSION_NODE;
+    }
+
+    /**
+     * コマンドの種別を取得します。
+     * @return コマンド種別
+     * @see com.github.ucchyocean.lc3.command.LunaChatSubCommand#getCommandType()
+     */
+    @Override
+    public CommandType getCommandType() {
+        return CommandType.ADMIN;
+    }
+
+    /**
+     * 使用方法に関するメッセージをsenderに送信します。
+     * @param sender コマンド実行者
+     * @param label 実行ラベル
+     * @see com.github.ucchyocean.lc3.command.LunaChatSubCommand#sendUsageMessage()
+     */
+    @Override
+    public void sendUsageMessage(
+            ChannelMember sender, String label) {
+        sender.sendMessage(Messages.usageMigrate(label));
+    }
+
+    /**
+     * コマンドを実行します。
+     * @param sender コマンド実行者
+     * @param label 実行ラベル
+     * @param args 実行時の引数
+     * @return コマンドが実行されたかどうか
+     * @see com.github.ucchyocean.lc3.command.LunaChatSubCommand#runCommand(java.lang.String[])
+     */
+    @Override
+    public boolean runCommand(
+            final ChannelMember sender, String label, String[] args) {
+
+        if ( !(api instanceof ChannelManager)
+                || ((ChannelManager)api).getStorage() instanceof YamlStorage ) {
+            sender.sendMessage(Messages.errmsgMigrateNotRequired());
+            return true;
+        }
+
+        // 全データの読み書きを行うので、IOレーンで実行して、終わったら結果を通知する
+        final ChannelManager manager = (ChannelManager)api;
+        LunaChat.runAsyncTask(LunaChatExecutor.Lane.IO, new Runnable() {
+            @Override
+            public void run() {
+                int count;
+                try {
+                    count = manager.migrateFromYaml();
+                } catch (RuntimeException e) {
+                    LunaChat.getPlugin().log(Level.WARNING,
+                            "Failed to migrate the data from the YAML files: " + e);
+                    return;
+                }
+                if ( count < 0 ) {
+                    sender.sendMessage(Messages.errmsgMigrateNotRequired());
+                    return;
+                }
+                sender.sendMessage(Messages.cmdmsgMigrate(count, manager.getStorage().getName()));
+            }
+        });
+        return true;
+    }
+
+}
@@ -8,7 +8,9 @@ package com.github.ucchyocean.lc3.command;
 import java.io.File;
 
 import com.github.ucchyocean.lc3.LunaChat;
+import com.github.ucchyocean.lc3.LunaChatExecutor;
 import com.github.ucchyocean.lc3.Messages;
+import com.github.ucchyocean.lc3.japanize.LocalIME;
 import com.github.ucchyocean.lc3.member.ChannelMember;
 
 /**
@@ -75,9 +77,16 @@ public class ReloadCommand extends LunaChatSubCommand {
             ChannelMember sender, String label, String[] args) {
 
         api.reloadAllData();
-        config.reloadConfig(LunaChat.getDataFolder(), LunaChat.getPluginJarFile());
+        // config.yml に誤りがある場合は、それまでの設定のまま動作する
+        boolean reloaded = config.reloadConfig(LunaChat.getDataFolder(), LunaChat.getPluginJarFile());
+        LunaChatExecutor.reloadInstance();
+        LocalIME.reloadInstance();
         Messages.initialize(new File(LunaChat.getDataFolder(), "messages"),
                 LunaChat.getPluginJarFile(), config.getLang());
+        if ( !reloaded ) {
+            sender.sendMessage(Messages.errmsgReloadConfig());
+            return true;
+        }
         sender.sendMessage(Messages.cmdmsgReload());
         return true;
     }
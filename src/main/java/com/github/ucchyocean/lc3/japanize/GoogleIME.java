@@ -6,6 +6,9 @@ import com.google.gson.JsonElement;
 
 public class GoogleIME {
 
+    /** Gsonはスレッドセーフなので、使い回す */
+    private static final Gson GSON = new Gson();
+
     protected GoogleIME() {
     }
 
@@ -18,7 +21,7 @@ public class GoogleIME {
      */
     public static String parseJson(String json) {
         StringBuilder result = new StringBuilder();
-        for ( JsonElement response : new Gson().fromJson(json, JsonArray.class) ) {
+        for ( JsonElement response : GSON.fromJson(json, JsonArray.class) ) {
             result.append(response.getAsJsonArray().get(1).getAsJsonArray().get(0).getAsString());
         }
         return result.toString();
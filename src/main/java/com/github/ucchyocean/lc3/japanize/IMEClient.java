@@ -0,0 +1,265 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.japanize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.ucchyocean.lc3.util.CircuitBreaker;
+import com.google.common.io.CharStreams;
+
+/**
+ * GoogleIMEを非同期で呼び出すクライアント。
+ * 接続と読み込みにタイムアウトを設定し、接続はKeep-Aliveで使い回す。
+ * 変換結果は、かな文字をキーにして一定数までキャッシュする。
+ * 変換の失敗が続いている間は、GoogleIMEを呼び出さずに、かな文字のまま返す。
+ * @author ucchy
+ */
+public class IMEClient {
+
+    private static final String GOOGLE_IME_URL =
+            "https://www.google.com/transliterate?langpair=ja-Hira|ja&text=";
+
+    /** 接続のタイムアウト（ミリ秒） */
+    private static final int CONNECT_TIMEOUT = 2000;
+
+    /** 読み込みのタイムアウト（ミリ秒） */
+    private static final int READ_TIMEOUT = 3000;
+
+    /** キャッシュする変換結果の最大数 */
+    private static final int CACHE_SIZE = 2048;
+
+    /** GoogleIMEの呼び出しを止めるまでの、連続した失敗の回数 */
+    private static final int FAILURE_THRESHOLD = 3;
+
+    /** GoogleIMEの呼び出しを止める時間（ミリ秒） */
+    private static final long OPEN_MILLIS = 30000;
+
+    /** 同時に呼び出す最大数 */
+    private static final int THREADS = 4;
+
+    /** 呼び出し待ちの最大数 */
+    private static final int QUEUE_SIZE = 256;
+
+    private static IMEClient instance;
+
+    private final String baseUrl;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final LinkedHashMap<String, String> cache;
+    private final CircuitBreaker breaker;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * コンストラクタ
+     * @param baseUrl 変換するかな文字を後ろに付けて呼び出すURL
+     * @param connectTimeout 接続のタイムアウト（ミリ秒）
+     * @param readTimeout 読み込みのタイムアウト（ミリ秒）
+     * @param cacheSize キャッシュする変換結果の最大数
+     * @param failureThreshold 呼び出しを止めるまでの、連続した失敗の回数
+     * @param openMillis 呼び出しを止める時間（ミリ秒）
+     */
+    IMEClient(String baseUrl, int connectTimeout, int readTimeout,
+            final int cacheSize, int failureThreshold, long openMillis) {
+
+        this.baseUrl = baseUrl;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.cache = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.breaker = new CircuitBreaker(failureThreshold, openMillis);
+
+        final AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(QUEUE_SIZE), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "LunaChat-IME-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * GoogleIMEを呼び出す、共有のインスタンスを返す
+     * @return インスタンス
+     */
+    public static synchronized IMEClient getInstance() {
+        if ( instance == null ) {
+            instance = new IMEClient(GOOGLE_IME_URL, CONNECT_TIMEOUT, READ_TIMEOUT,
+                    CACHE_SIZE, FAILURE_THRESHOLD, OPEN_MILLIS);
+        }
+        return instance;
+    }
+
+    /**
+     * 共有のインスタンスを停止する
+     */
+    public static synchronized void shutdownInstance() {
+        if ( instance != null ) {
+            instance.shutdown();
+            instance = null;
+        }
+    }
+
+    /**
+     * かな文字を、非同期で漢字に変換する。
+     * 変換に失敗した場合や、GoogleIMEの呼び出しを止めている場合は、かな文字のまま返す。
+     * @param kana かな文字
+     * @return 変換結果
+     */
+    public CompletableFuture<String> convertAsync(final String kana) {
+
+        if ( kana.length() == 0 ) {
+            return CompletableFuture.completedFuture("");
+        }
+
+        String cached = getCache(kana);
+        if ( cached != null ) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        if ( !breaker.allowRequest() ) {
+            return CompletableFuture.completedFuture(kana);
+        }
+
+        final CompletableFuture<String> future = new CompletableFuture<String>();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    String result = kana;
+                    try {
+                        result = request(kana);
+                        breaker.recordSuccess();
+                        putCache(kana, result);
+                    } catch (IOException | RuntimeException e) {
+                        breaker.recordFailure();
+                    }
+                    future.complete(result);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 呼び出し待ちがあふれるほど応答が遅いので、失敗として扱う
+            breaker.recordFailure();
+            future.complete(kana);
+        }
+        return future;
+    }
+
+    /**
+     * かな文字を漢字に変換する。
+     * タイムアウトまでに変換できなかった場合は、かな文字のまま返す。
+     * @param kana かな文字
+     * @return 変換結果
+     */
+    public String convert(String kana) {
+        try {
+            return convertAsync(kana).get(connectTimeout + readTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // かな文字のまま返す
+        }
+        return kana;
+    }
+
+    /**
+     * 呼び出しに使うスレッドを停止する
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * サーキットブレーカーの状態を返す
+     * @return 状態
+     */
+    public CircuitBreaker.State getState() {
+        return breaker.getState();
+    }
+
+    /**
+     * GoogleIMEを呼び出して、かな文字を漢字に変換する
+     * @param kana かな文字
+     * @return 変換結果
+     * @throws IOException 呼び出しに失敗した場合
+     */
+    private String request(String kana) throws IOException {
+
+        URL url = new URL(baseUrl + URLEncoder.encode(kana, "UTF-8"));
+        HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        connection.setRequestMethod("GET");
+        connection.setInstanceFollowRedirects(false);
+
+        int code = connection.getResponseCode();
+        if ( code != HttpURLConnection.HTTP_OK ) {
+            // 接続を使い回せるように、エラーの内容も最後まで読み込んでおく
+            InputStream error = connection.getErrorStream();
+            if ( error != null ) {
+                byte[] buffer = new byte[1024];
+                while ( error.read(buffer) >= 0 );
+                error.close();
+            }
+            throw new IOException("GoogleIME returned HTTP " + code);
+        }
+
+        // 最後まで読み込んで閉じれば、disconnectしなくても接続はKeep-Aliveで使い回される
+        String json;
+        try ( Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8) ) {
+            json = CharStreams.toString(reader);
+        }
+        return GoogleIME.parseJson(json);
+    }
+
+    /**
+     * キャッシュから変換結果を取得する
+     * @param kana かな文字
+     * @return 変換結果、キャッシュに無い場合はnull
+     */
+    private String getCache(String kana) {
+        synchronized ( cache ) {
+            return cache.get(kana);
+        }
+    }
+
+    /**
+     * 変換結果をキャッシュする
+     * @param kana かな文字
+     * @param result 変換結果
+     */
+    private void putCache(String kana, String result) {
+        synchronized ( cache ) {
+            cache.put(kana, result);
+        }
+    }
+}
@@ -25,16 +25,34 @@ public class IMEConverter {
 
     private static final String SOCIAL_IME_URL =
         "https://www.social-ime.com/api/?string=";
-    private static final String GOOGLE_IME_URL =
-        "https://www.google.com/transliterate?langpair=ja-Hira|ja&text=";
+
+    /** SocialIMEの接続と読み込みのタイムアウト（ミリ秒） */
+    private static final int SOCIAL_IME_TIMEOUT = 3000;
 
     /**
-     * GoogleIMEを使って変換する
+     * GoogleIMEを使って変換する。
+     * 変換できなかった場合は、変換元のかな文字のまま返す。
      * @param org 変換元
      * @return 変換後
+     * @see IMEClient
      */
     public static String convByGoogleIME(String org) {
-        return conv(org, true);
+        return IMEClient.getInstance().convert(org);
+    }
+
+    /**
+     * 辞書を使って、ネットワークに接続せずに変換する。
+     * 辞書が読み込み中か、読み込めなかった場合は、変換元のかな文字のまま返す。
+     * @param org 変換元
+     * @return 変換後
+     * @see LocalIME
+     */
+    public static String convByLocalIME(String org) {
+        LocalIME ime = LocalIME.getInstance();
+        if ( ime == null ) {
+            return org;
+        }
+        return ime.convert(org);
     }
 
     /**
@@ -45,11 +63,6 @@ public class IMEConverter {
      */
     @Deprecated
     public static String convBySocialIME(String org) {
-        return conv(org, false);
-    }
-
-    // 変換の実行
-    private static String conv(String org, boolean isGoogleIME) {
 
         if ( org.length() == 0 ) {
             return "";
@@ -58,18 +71,13 @@ public class IMEConverter {
         HttpURLConnection urlconn = null;
         BufferedReader reader = null;
         try {
-            String baseurl;
-            String encode;
-            if ( isGoogleIME ) {
-                baseurl = GOOGLE_IME_URL + URLEncoder.encode(org , "UTF-8");
-                encode = "UTF-8";
-            } else {
-                baseurl = SOCIAL_IME_URL + URLEncoder.encode(org , "UTF-8");
-                encode = "EUC_JP";
-            }
+            String baseurl = SOCIAL_IME_URL + URLEncoder.encode(org , "UTF-8");
+            String encode = "EUC_JP";
             URL url = new URL(baseurl);
 
             urlconn = (HttpURLConnection)url.openConnection();
+            urlconn.setConnectTimeout(SOCIAL_IME_TIMEOUT);
+            urlconn.setReadTimeout(SOCIAL_IME_TIMEOUT);
             urlconn.setRequestMethod("GET");
             urlconn.setInstanceFollowRedirects(false);
             urlconn.connect();
@@ -13,7 +13,10 @@ public enum JapanizeType {
     KANA("kana"),
 
     /** カナ変換後、GoogleIMEで漢字変換 */
-    GOOGLE_IME("googleime");
+    GOOGLE_IME("googleime"),
+
+    /** カナ変換後、辞書を使って漢字変換 */
+    LOCAL_IME("localime");
 
     private String id;
 
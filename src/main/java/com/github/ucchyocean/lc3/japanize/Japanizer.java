@@ -5,7 +5,6 @@
  */
 package com.github.ucchyocean.lc3.japanize;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -26,6 +25,22 @@ public class Japanizer {
     public static String japanize(String org, JapanizeType type,
             Map<String, String> dictionary) {
 
+        KeywordLocker locker = new KeywordLocker();
+        locker.setDictionary(dictionary);
+        return japanize(org, type, locker, false);
+    }
+
+    /**
+     * メッセージの日本語化をする
+     * @param org
+     * @param type
+     * @param locker 変換しないキーワードを置き換えるキーワードロッカー
+     * @param lockPlayerNames プレイヤー名も変換しないかどうか
+     * @return
+     */
+    public static String japanize(String org, JapanizeType type,
+            KeywordLocker locker, boolean lockPlayerNames) {
+
         // 変換不要なら空文字列を返す
         if ( type == JapanizeType.NONE || !isNeedToJapanize(org) ) {
             return "";
@@ -35,32 +50,22 @@ public class Japanizer {
         String deletedURL = org.replaceAll(REGEX_URL, " ");
 
         // キーワードをロック
-        HashMap<String, String> keywordMap = new HashMap<String, String>();
-        int index = 0;
-        String keywordLocked = deletedURL;
-        for ( String dickey : dictionary.keySet() ) {
-            if ( keywordLocked.contains(dickey) ) {
-                index++;
-                String key = "＜" + makeMultibytesDigit(index) + "＞";
-                keywordLocked = keywordLocked.replace(dickey, key);
-                keywordMap.put(key, dictionary.get(dickey));
-            }
-        }
+        KeywordLocker.Locked keywordLocked = locker.lock(deletedURL, lockPlayerNames);
 
         // カナ変換
-        String japanized = YukiKanaConverter.conv(keywordLocked);
+        String japanized = YukiKanaConverter.conv(keywordLocked.getText());
 
         // IME変換
         if ( type == JapanizeType.GOOGLE_IME ) {
             japanized = IMEConverter.convByGoogleIME(japanized);
+        } else if ( type == JapanizeType.LOCAL_IME ) {
+            japanized = IMEConverter.convByLocalIME(japanized);
 //        } else if ( type == JapanizeType.SOCIAL_IME ) {
 //            japanized = IMEConverter.convBySocialIME(japanized);
         }
 
         // キーワードのアンロック
-        for ( String key : keywordMap.keySet() ) {
-            japanized = japanized.replace(key, keywordMap.get(key));
-        }
+        japanized = keywordLocked.unlock(japanized);
 
         // 返す
         return japanized.trim();
@@ -75,30 +80,4 @@ public class Japanizer {
         return ( org.getBytes().length == org.length()
                 && !org.matches("[ \\uFF61-\\uFF9F]+") );
     }
-
-    /**
-     * 数値を、全角文字の文字列に変換して返す
-     * @param digit
-     * @return
-     */
-    private static String makeMultibytesDigit(int digit) {
-
-        String half = Integer.toString(digit);
-        StringBuilder result = new StringBuilder();
-        for ( int index=0; index < half.length(); index++ ) {
-            switch ( half.charAt(index) ) {
-            case '0' : result.append("０"); break;
-            case '1' : result.append("１"); break;
-            case '2' : result.append("２"); break;
-            case '3' : result.append("３"); break;
-            case '4' : result.append("４"); break;
-            case '5' : result.append("５"); break;
-            case '6' : result.append("６"); break;
-            case '7' : result.append("７"); break;
-            case '8' : result.append("８"); break;
-            case '9' : result.append("９"); break;
-            }
-        }
-        return result.toString();
-    }
 }
@@ -0,0 +1,604 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.japanize;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 読み（ひらがな）から変換候補を引く、かな漢字変換用の辞書。
+ * テキストの辞書をダブル配列のトライに変換してファイルに保存し、
+ * 以降はそのファイルをメモリマップして読み込む。
+ * <p>
+ * テキストの辞書は、次の2つの形式に対応する。
+ * <ul>
+ * <li>SKK形式 : <code>よみ /候補1/候補2;注釈/</code>（送りありの見出しは使わない）</li>
+ * <li>タブ区切り形式 : <code>よみ[TAB]候補[TAB]コスト</code>（コストは省略可、小さいほど優先）</li>
+ * </ul>
+ * @author ucchy
+ */
+public class KanaKanjiDictionary {
+
+    private static final int MAGIC = 0x4C434B4A; // "LCKJ"
+    private static final int VERSION = 1;
+
+    /** SKK形式の辞書で、1番目の候補に付けるコスト */
+    protected static final int SKK_COST = 1000;
+
+    /** SKK形式の辞書で、候補の順位が1つ下がるごとに加えるコスト */
+    protected static final int SKK_RANK_COST = 100;
+
+    /** タブ区切り形式の辞書で、コストを省略したときのコスト */
+    protected static final int DEFAULT_COST = 1000;
+
+    /** 読みに使える文字の種類の数（終端を表す0を含む） */
+    private static final int CODE_SIZE = 0x3096 - 0x3041 + 3;
+
+    private static final Pattern CODING = Pattern.compile("coding:\\s*([\\w\\-]+)");
+
+    private final IntBuffer base;
+    private final IntBuffer check;
+    private final IntBuffer entryStart;
+    private final IntBuffer surfaceStart;
+    private final IntBuffer costs;
+    private final CharBuffer pool;
+    private final int size;
+
+    /**
+     * コンストラクタ
+     * @param buffer コンパイル済みの辞書
+     * @throws IOException 辞書の形式が正しくない場合
+     */
+    private KanaKanjiDictionary(ByteBuffer buffer) throws IOException {
+
+        if ( buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION ) {
+            throw new IOException("Invalid dictionary format.");
+        }
+        size = buffer.getInt(16);
+        int entries = buffer.getInt(20);
+        int candidates = buffer.getInt(24);
+        int chars = buffer.getInt(28);
+
+        int position = 32;
+        base = slice(buffer, position, size * 4).asIntBuffer();
+        position += size * 4;
+        check = slice(buffer, position, size * 4).asIntBuffer();
+        position += size * 4;
+        entryStart = slice(buffer, position, (entries + 1) * 4).asIntBuffer();
+        position += (entries + 1) * 4;
+        surfaceStart = slice(buffer, position, (candidates + 1) * 4).asIntBuffer();
+        position += (candidates + 1) * 4;
+        costs = slice(buffer, position, candidates * 4).asIntBuffer();
+        position += candidates * 4;
+        pool = slice(buffer, position, chars * 2).asCharBuffer();
+    }
+
+    /**
+     * 辞書を読み込む。
+     * コンパイル済みの辞書が無いか、テキストの辞書が更新されている場合は、コンパイルし直す。
+     * @param sources テキストの辞書
+     * @param compiled コンパイル済みの辞書の保存先
+     * @return 辞書
+     * @throws IOException 辞書の読み込みに失敗した場合
+     */
+    public static KanaKanjiDictionary load(List<File> sources, File compiled) throws IOException {
+
+        long stamp = getStamp(sources);
+        if ( !compiled.exists() || readStamp(compiled) != stamp ) {
+            compile(sources, compiled, stamp);
+        }
+
+        try ( RandomAccessFile raf = new RandomAccessFile(compiled, "r");
+                FileChannel channel = raf.getChannel() ) {
+            // マップした内容は、チャネルを閉じた後も有効
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new KanaKanjiDictionary(buffer);
+        }
+    }
+
+    /**
+     * 指定した位置から始まる読みのうち、辞書に登録されているものを、短い順に全て探す
+     * @param text 探す対象の文字列
+     * @param start 探し始める位置
+     * @param lengths 見つかった読みの長さを格納する配列
+     * @param entries 見つかった見出しの番号を格納する配列
+     * @return 見つかった数
+     */
+    public int commonPrefixSearch(CharSequence text, int start, int[] lengths, int[] entries) {
+
+        int found = 0;
+        int state = 1;
+        for ( int i = start; i < text.length() && found < lengths.length; i++ ) {
+            int code = toCode(text.charAt(i));
+            if ( code == 0 ) {
+                break;
+            }
+            int next = base.get(state) + code;
+            if ( next >= size || check.get(next) != state ) {
+                break;
+            }
+            state = next;
+
+            int terminal = base.get(state);
+            if ( terminal < size && check.get(terminal) == state && base.get(terminal) < 0 ) {
+                lengths[found] = i - start + 1;
+                entries[found] = -base.get(terminal) - 1;
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 読みに完全に一致する見出しを探す
+     * @param reading 読み
+     * @return 見出しの番号、見つからない場合は-1
+     */
+    public int exactMatch(String reading) {
+        int[] lengths = new int[reading.length()];
+        int[] entries = new int[reading.length()];
+        int found = commonPrefixSearch(reading, 0, lengths, entries);
+        if ( found > 0 && lengths[found - 1] == reading.length() ) {
+            return entries[found - 1];
+        }
+        return -1;
+    }
+
+    /**
+     * 見出しの、最もコストの小さい候補を返す
+     * @param entry 見出しの番号
+     * @return 候補
+     */
+    public String getBestCandidate(int entry) {
+        return getSurface(entryStart.get(entry));
+    }
+
+    /**
+     * 見出しの、最もコストの小さい候補のコストを返す
+     * @param entry 見出しの番号
+     * @return コスト
+     */
+    public int getBestCost(int entry) {
+        return costs.get(entryStart.get(entry));
+    }
+
+    /**
+     * 読みに対する全ての候補を、コストの小さい順に返す
+     * @param reading 読み
+     * @return 候補、見つからない場合は空のリスト
+     */
+    public List<String> getCandidates(String reading) {
+        int entry = exactMatch(reading);
+        if ( entry < 0 ) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<String>();
+        for ( int i = entryStart.get(entry); i < entryStart.get(entry + 1); i++ ) {
+            result.add(getSurface(i));
+        }
+        return result;
+    }
+
+    /**
+     * 候補の文字列を取得する
+     * @param candidate 候補の番号
+     * @return 候補
+     */
+    private String getSurface(int candidate) {
+        int from = surfaceStart.get(candidate);
+        int to = surfaceStart.get(candidate + 1);
+        char[] chars = new char[to - from];
+        for ( int i = 0; i < chars.length; i++ ) {
+            chars[i] = pool.get(from + i);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 読みに使う文字を、トライの遷移に使う番号に変換する
+     * @param c 文字
+     * @return 番号、読みに使えない文字の場合は0
+     */
+    protected static int toCode(char c) {
+        if ( c >= 0x3041 && c <= 0x3096 ) {
+            return c - 0x3041 + 1;
+        } else if ( c == 'ー' ) {
+            return CODE_SIZE - 1;
+        }
+        return 0;
+    }
+
+    /**
+     * テキストの辞書をコンパイルして保存する
+     * @param sources テキストの辞書
+     * @param compiled 保存先
+     * @param stamp テキストの辞書の更新を検出するための値
+     * @throws IOException 読み込みや保存に失敗した場合
+     */
+    private static void compile(List<File> sources, File compiled, long stamp) throws IOException {
+
+        // 読みごとに候補をまとめる。TreeMapにしておけば、トライを作るときの順番に並ぶ。
+        TreeMap<String, List<Candidate>> table = new TreeMap<String, List<Candidate>>();
+        for ( File source : sources ) {
+            if ( source.exists() ) {
+                read(source, table);
+            }
+        }
+
+        String[] keys = table.keySet().toArray(new String[table.size()]);
+        Builder builder = new Builder(keys);
+        builder.build();
+
+        List<Integer> entryStart = new ArrayList<Integer>();
+        List<Integer> surfaceStart = new ArrayList<Integer>();
+        List<Integer> costs = new ArrayList<Integer>();
+        StringBuilder pool = new StringBuilder();
+        for ( Map.Entry<String, List<Candidate>> entry : table.entrySet() ) {
+            entryStart.add(costs.size());
+            List<Candidate> candidates = entry.getValue();
+            Collections.sort(candidates, new Comparator<Candidate>() {
+                @Override
+                public int compare(Candidate o1, Candidate o2) {
+                    return Integer.compare(o1.cost, o2.cost);
+                }
+            });
+            for ( Candidate candidate : candidates ) {
+                surfaceStart.add(pool.length());
+                costs.add(candidate.cost);
+                pool.append(candidate.surface);
+            }
+        }
+        entryStart.add(costs.size());
+        surfaceStart.add(pool.length());
+
+        File parent = compiled.getAbsoluteFile().getParentFile();
+        if ( !parent.exists() ) {
+            parent.mkdirs();
+        }
+        File temp = new File(parent, compiled.getName() + ".tmp");
+        try ( DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp))) ) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(stamp);
+            out.writeInt(builder.size);
+            out.writeInt(keys.length);
+            out.writeInt(costs.size());
+            out.writeInt(pool.length());
+            for ( int i = 0; i < builder.size; i++ ) {
+                out.writeInt(builder.base[i]);
+            }
+            for ( int i = 0; i < builder.size; i++ ) {
+                out.writeInt(builder.check[i]);
+            }
+            for ( int value : entryStart ) {
+                out.writeInt(value);
+            }
+            for ( int value : surfaceStart ) {
+                out.writeInt(value);
+            }
+            for ( int value : costs ) {
+                out.writeInt(value);
+            }
+            out.writeChars(pool.toString());
+        }
+
+        // 読み込み中の辞書を壊さないように、書き終わってから置き換える
+        if ( compiled.exists() && !compiled.delete() ) {
+            temp.delete();
+            throw new IOException("Could not replace " + compiled.getPath());
+        }
+        if ( !temp.renameTo(compiled) ) {
+            throw new IOException("Could not rename " + temp.getPath());
+        }
+    }
+
+    /**
+     * テキストの辞書を読み込む
+     * @param source テキストの辞書
+     * @param table 読みごとの候補の格納先
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private static void read(File source, TreeMap<String, List<Candidate>> table) throws IOException {
+
+        try ( BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(source), detectCharset(source))) ) {
+
+            String line;
+            while ( (line = reader.readLine()) != null ) {
+                if ( line.isEmpty() || line.startsWith(";") || line.startsWith("#") ) {
+                    continue;
+                }
+
+                if ( line.indexOf('\t') >= 0 ) {
+                    // タブ区切り形式
+                    String[] items = line.split("\t");
+                    if ( items.length < 2 || !isReading(items[0]) || items[1].isEmpty() ) {
+                        continue;
+                    }
+                    int cost = DEFAULT_COST;
+                    if ( items.length >= 3 ) {
+                        try {
+                            cost = Integer.parseInt(items[2].trim());
+                        } catch (NumberFormatException e) {
+                            continue;
+                        }
+                    }
+                    add(table, items[0], items[1], cost);
+
+                } else {
+                    // SKK形式
+                    int space = line.indexOf(" /");
+                    if ( space <= 0 || !isReading(line.substring(0, space)) ) {
+                        continue;
+                    }
+                    String reading = line.substring(0, space);
+                    int rank = 0;
+                    for ( String item : line.substring(space + 2).split("/") ) {
+                        int semicolon = item.indexOf(';');
+                        String surface = semicolon >= 0 ? item.substring(0, semicolon) : item;
+                        // Lispの式で書かれた候補は使わない
+                        if ( surface.isEmpty() || surface.startsWith("(") ) {
+                            continue;
+                        }
+                        add(table, reading, surface, SKK_COST + SKK_RANK_COST * rank);
+                        rank++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 候補を追加する。同じ候補が既にある場合は、コストの小さい方を残す。
+     * @param table 読みごとの候補の格納先
+     * @param reading 読み
+     * @param surface 候補
+     * @param cost コスト
+     */
+    private static void add(TreeMap<String, List<Candidate>> table,
+            String reading, String surface, int cost) {
+
+        List<Candidate> candidates = table.get(reading);
+        if ( candidates == null ) {
+            candidates = new ArrayList<Candidate>();
+            table.put(reading, candidates);
+        }
+        for ( Candidate candidate : candidates ) {
+            if ( candidate.surface.equals(surface) ) {
+                candidate.cost = Math.min(candidate.cost, cost);
+                return;
+            }
+        }
+        candidates.add(new Candidate(surface, cost));
+    }
+
+    /**
+     * 辞書の読みとして使える文字列かどうかを返す
+     * @param reading 読み
+     * @return 使えるかどうか
+     */
+    private static boolean isReading(String reading) {
+        if ( reading.isEmpty() ) {
+            return false;
+        }
+        for ( int i = 0; i < reading.length(); i++ ) {
+            if ( toCode(reading.charAt(i)) == 0 ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * テキストの辞書の文字コードを判定する。
+     * 1行目に「coding: euc-jp」のような指定があればそれを使い、無ければUTF-8とする。
+     * @param source テキストの辞書
+     * @return 文字コード
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private static Charset detectCharset(File source) throws IOException {
+
+        byte[] head = new byte[256];
+        int length;
+        try ( FileInputStream in = new FileInputStream(source) ) {
+            length = Math.max(in.read(head), 0);
+        }
+        String first = new String(head, 0, length, StandardCharsets.ISO_8859_1);
+        int newline = first.indexOf('\n');
+        if ( newline >= 0 ) {
+            first = first.substring(0, newline);
+        }
+
+        Matcher matcher = CODING.matcher(first);
+        if ( matcher.find() ) {
+            try {
+                return Charset.forName(matcher.group(1));
+            } catch (IllegalArgumentException e) {
+                // UTF-8として読む
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * テキストの辞書の、更新を検出するための値を計算する
+     * @param sources テキストの辞書
+     * @return 値
+     */
+    private static long getStamp(List<File> sources) {
+        long stamp = VERSION;
+        for ( File source : sources ) {
+            stamp = stamp * 31 + source.getAbsolutePath().hashCode();
+            stamp = stamp * 31 + source.length();
+            stamp = stamp * 31 + source.lastModified();
+        }
+        return stamp;
+    }
+
+    /**
+     * コンパイル済みの辞書に保存されている、テキストの辞書の更新を検出するための値を読み込む
+     * @param compiled コンパイル済みの辞書
+     * @return 値、読み込めない場合は0
+     */
+    private static long readStamp(File compiled) {
+        try ( RandomAccessFile raf = new RandomAccessFile(compiled, "r") ) {
+            if ( raf.readInt() != MAGIC || raf.readInt() != VERSION ) {
+                return 0;
+            }
+            return raf.readLong();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position);
+        duplicate.limit(position + length);
+        return duplicate.slice();
+    }
+
+    /**
+     * 変換候補
+     */
+    private static class Candidate {
+
+        private final String surface;
+        private int cost;
+
+        private Candidate(String surface, int cost) {
+            this.surface = surface;
+            this.cost = cost;
+        }
+    }
+
+    /**
+     * ダブル配列を作成するクラス。
+     * base[s] + code の位置が、状態sから文字codeで遷移した先の状態になり、
+     * 遷移先のcheckには遷移元の状態sが入る。
+     * 読みの終端はcode 0 の遷移で表し、遷移先のbaseに「-(見出しの番号 + 1)」を入れる。
+     * 状態0は使わず、状態1を根とする。
+     */
+    private static class Builder {
+
+        private final String[] keys;
+        private int[] base;
+        private int[] check;
+        private int size;
+        private int firstFree;
+
+        private Builder(String[] keys) {
+            this.keys = keys;
+            int capacity = Math.max(keys.length * 4, 1024);
+            this.base = new int[capacity];
+            this.check = new int[capacity];
+            this.check[0] = -1;
+            this.check[1] = -1;
+            this.size = 2;
+            this.firstFree = 2;
+        }
+
+        private void build() {
+            if ( keys.length > 0 ) {
+                insert(1, 0, keys.length, 0);
+            }
+        }
+
+        /**
+         * 同じ親を持つ見出しの範囲から、子の遷移を作成する
+         * @param parent 親の状態
+         * @param from 見出しの範囲の開始位置
+         * @param to 見出しの範囲の終了位置（この位置は含まない）
+         * @param depth 見出しの何文字目を見るか
+         */
+        private void insert(int parent, int from, int to, int depth) {
+
+            // 子の文字の一覧を作る（見出しは並んでいるので、同じ文字は連続している）
+            int[] codes = new int[CODE_SIZE];
+            int[] starts = new int[CODE_SIZE + 1];
+            int count = 0;
+            int previous = -1;
+            for ( int i = from; i < to; i++ ) {
+                int code = depth < keys[i].length() ? toCode(keys[i].charAt(depth)) : 0;
+                if ( code != previous ) {
+                    codes[count] = code;
+                    starts[count] = i;
+                    count++;
+                    previous = code;
+                }
+            }
+            starts[count] = to;
+
+            // 全ての子が空いている位置に入るように、baseを決める
+            int begin = Math.max(firstFree - codes[0], 1);
+            while ( true ) {
+                ensure(begin + codes[count - 1] + 1);
+                boolean ok = true;
+                for ( int i = 0; i < count; i++ ) {
+                    if ( check[begin + codes[i]] != 0 ) {
+                        ok = false;
+                        break;
+                    }
+                }
+                if ( ok ) {
+                    break;
+                }
+                begin++;
+            }
+
+            base[parent] = begin;
+            for ( int i = 0; i < count; i++ ) {
+                check[begin + codes[i]] = parent;
+            }
+            size = Math.max(size, begin + codes[count - 1] + 1);
+            while ( firstFree < check.length && check[firstFree] != 0 ) {
+                firstFree++;
+            }
+
+            for ( int i = 0; i < count; i++ ) {
+                int state = begin + codes[i];
+                if ( codes[i] == 0 ) {
+                    // 終端。同じ見出しは1つしか無いので、範囲の先頭が見出しの番号になる。
+                    base[state] = -starts[i] - 1;
+                } else {
+                    insert(state, starts[i], starts[i + 1], depth + 1);
+                }
+            }
+        }
+
+        private void ensure(int length) {
+            if ( length > check.length ) {
+                int capacity = Math.max(length, check.length * 2);
+                base = Arrays.copyOf(base, capacity);
+                check = Arrays.copyOf(check, capacity);
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.japanize;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.ucchyocean.lc3.util.AhoCorasickMatcher;
+
+/**
+ * Japanize変換の前に、プレイヤー名と辞書のキーワードを、変換されない文字列（＜１＞など）に置き換えるクラス。
+ * 全てのキーワードをAho-Corasick法でまとめて、発言を1回走査するだけで置き換える。
+ * キーワードが変更されたときは、次に使うときに検索用のオートマトンを作り直す。
+ * @author ucchy
+ */
+public class KeywordLocker {
+
+    private final Set<String> playerNames;
+    private final Map<String, String> dictionary;
+
+    /** 検索用のオートマトン。キーワードが変更されたらnullにする。 */
+    private volatile Automaton automaton;
+
+    /**
+     * コンストラクタ
+     */
+    public KeywordLocker() {
+        this.playerNames = new HashSet<String>();
+        this.dictionary = new HashMap<String, String>();
+    }
+
+    /**
+     * 辞書のキーワードを全て置き換える
+     * @param dictionary 辞書
+     */
+    public synchronized void setDictionary(Map<String, String> dictionary) {
+        this.dictionary.clear();
+        this.dictionary.putAll(dictionary);
+        automaton = null;
+    }
+
+    /**
+     * 辞書のキーワードを追加する
+     * @param key キーワード
+     * @param value 変換後の文字列
+     */
+    public synchronized void putDictionary(String key, String value) {
+        if ( !value.equals(dictionary.put(key, value)) ) {
+            automaton = null;
+        }
+    }
+
+    /**
+     * 辞書のキーワードを削除する
+     * @param key キーワード
+     */
+    public synchronized void removeDictionary(String key) {
+        if ( dictionary.remove(key) != null ) {
+            automaton = null;
+        }
+    }
+
+    /**
+     * プレイヤー名を全て置き換える
+     * @param names プレイヤー名
+     */
+    public synchronized void setPlayerNames(Collection<String> names) {
+        playerNames.clear();
+        playerNames.addAll(names);
+        automaton = null;
+    }
+
+    /**
+     * プレイヤー名を追加する
+     * @param name プレイヤー名
+     */
+    public synchronized void addPlayerName(String name) {
+        if ( playerNames.add(name) ) {
+            automaton = null;
+        }
+    }
+
+    /**
+     * プレイヤー名を削除する
+     * @param name プレイヤー名
+     */
+    public synchronized void removePlayerName(String name) {
+        if ( playerNames.remove(name) ) {
+            automaton = null;
+        }
+    }
+
+    /**
+     * 発言に含まれるキーワードを、変換されない文字列に置き換える。
+     * キーワードが重なっている場合は、先に始まるもの、同じ位置なら長いものを優先する。
+     * @param text 発言
+     * @param lockPlayerNames プレイヤー名も置き換えるかどうか
+     * @return 置き換えた結果
+     */
+    public Locked lock(String text, boolean lockPlayerNames) {
+
+        Automaton current = getAutomaton();
+        Map<String, String> keywordMap = new HashMap<String, String>();
+        Map<Integer, String> lockedKeys = new HashMap<Integer, String>();
+        StringBuilder locked = new StringBuilder(text.length());
+
+        // findAllは終端順に返すので、開始位置ごとに最も長いキーワードを選ぶ
+        int[] longest = new int[text.length()];
+        int[] lengths = new int[text.length()];
+        for ( AhoCorasickMatcher.Match match : current.matcher.findAll(text) ) {
+            int index = match.getIndex();
+            if ( current.values[index] == null
+                    || (!lockPlayerNames && current.dictionaryValues[index] == null) ) {
+                continue;
+            }
+            int start = match.getStart();
+            if ( match.getEnd() - start > lengths[start] ) {
+                longest[start] = index + 1;
+                lengths[start] = match.getEnd() - start;
+            }
+        }
+
+        int position = 0;
+        for ( int start = 0; start < text.length(); start++ ) {
+            if ( start < position || longest[start] == 0 ) {
+                continue;
+            }
+            int index = longest[start] - 1;
+            String key = lockedKeys.get(index);
+            if ( key == null ) {
+                key = "＜" + makeMultibytesDigit(lockedKeys.size() + 1) + "＞";
+                lockedKeys.put(index, key);
+                keywordMap.put(key, lockPlayerNames ? current.values[index]
+                        : current.dictionaryValues[index]);
+            }
+            locked.append(text, position, start).append(key);
+            position = start + lengths[start];
+        }
+        locked.append(text, position, text.length());
+
+        return new Locked(locked.toString(), keywordMap);
+    }
+
+    /**
+     * 検索用のオートマトンを取得する。キーワードが変更されていたら作り直す。
+     * @return オートマトン
+     */
+    private Automaton getAutomaton() {
+        Automaton current = automaton;
+        if ( current != null ) {
+            return current;
+        }
+        synchronized ( this ) {
+            if ( automaton == null ) {
+                automaton = new Automaton(playerNames, dictionary);
+            }
+            return automaton;
+        }
+    }
+
+    /**
+     * 数値を、全角文字の文字列に変換して返す
+     * @param digit
+     * @return
+     */
+    private static String makeMultibytesDigit(int digit) {
+
+        String half = Integer.toString(digit);
+        StringBuilder result = new StringBuilder();
+        for ( int index=0; index < half.length(); index++ ) {
+            result.append((char)('０' + (half.charAt(index) - '0')));
+        }
+        return result.toString();
+    }
+
+    /**
+     * キーワードの検索用のオートマトンと、キーワードごとの置き換え後の文字列
+     */
+    private static class Automaton {
+
+        private final AhoCorasickMatcher matcher;
+
+        /** プレイヤー名も置き換える場合の、置き換え後の文字列 */
+        private final String[] values;
+
+        /** 辞書のキーワードだけ置き換える場合の、置き換え後の文字列（プレイヤー名だけの場合はnull） */
+        private final String[] dictionaryValues;
+
+        private Automaton(Set<String> playerNames, Map<String, String> dictionary) {
+
+            List<String> keywords = new ArrayList<String>(
+                    new LinkedHashSet<String>(playerNames));
+            for ( String key : dictionary.keySet() ) {
+                if ( !playerNames.contains(key) ) {
+                    keywords.add(key);
+                }
+            }
+
+            matcher = new AhoCorasickMatcher(keywords);
+            values = new String[keywords.size()];
+            dictionaryValues = new String[keywords.size()];
+            for ( int i = 0; i < keywords.size(); i++ ) {
+                String keyword = keywords.get(i);
+                if ( keyword == null || keyword.isEmpty() ) {
+                    continue;
+                }
+                dictionaryValues[i] = dictionary.get(keyword);
+                // プレイヤー名と辞書のキーワードが同じ場合は、プレイヤー名として扱う
+                values[i] = playerNames.contains(keyword) ? keyword : dictionaryValues[i];
+            }
+        }
+    }
+
+    /**
+     * キーワードを置き換えた発言
+     */
+    public static class Locked {
+
+        private final String text;
+        private final Map<String, String> keywordMap;
+
+        private Locked(String text, Map<String, String> keywordMap) {
+            this.text = text;
+            this.keywordMap = keywordMap;
+        }
+
+        /**
+         * @return キーワードを置き換えた発言
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Japanize変換した結果に含まれる置き換え後の文字列を、元のキーワードに戻す
+         * @param converted Japanize変換した結果
+         * @return 元に戻した結果
+         */
+        public String unlock(String converted) {
+
+            if ( keywordMap.isEmpty() ) {
+                return converted;
+            }
+
+            StringBuilder result = new StringBuilder(converted.length());
+            int position = 0;
+            int open;
+            while ( (open = converted.indexOf('＜', position)) >= 0 ) {
+                int close = converted.indexOf('＞', open);
+                if ( close < 0 ) {
+                    break;
+                }
+                String value = keywordMap.get(converted.substring(open, close + 1));
+                if ( value == null ) {
+                    result.append(converted, position, open + 1);
+                    position = open + 1;
+                    continue;
+                }
+                result.append(converted, position, open).append(value);
+                position = close + 1;
+            }
+            result.append(converted, position, converted.length());
+            return result.toString();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.japanize;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.ucchyocean.lc3.LunaChat;
+import com.github.ucchyocean.lc3.LunaChatExecutor;
+import com.github.ucchyocean.lc3.util.Utility;
+
+/**
+ * 外部のサービスを使わずに、辞書だけでかな漢字変換を行うクラス。
+ * かな文字の文を、辞書の読みで区切った全ての組み合わせ（ラティス）の中から、
+ * コストの合計が最も小さくなる区切り方をビタビアルゴリズムで選んで、変換する。
+ * @author ucchy
+ */
+public class LocalIME {
+
+    /** プラグインに同梱している辞書のファイル名 */
+    public static final String DEFAULT_DICTIONARY = "localime.txt";
+
+    /** コンパイル済みの辞書のファイル名 */
+    private static final String COMPILED_DICTIONARY = "localime.dat";
+
+    /** 辞書に無いかな文字を、変換せずに残すときの1文字あたりのコスト */
+    private static final int UNKNOWN_COST = 800;
+
+    /** 1つの位置から探す、読みの最大数 */
+    private static final int MAX_MATCHES = 32;
+
+    /** 共有のインスタンス（発言のたびに参照されるので、ロックを取らずに読めるようにする） */
+    private static volatile LocalIME instance;
+
+    /** 共有のインスタンスの辞書ファイル（LocalIME.classのロックで保護する） */
+    private static List<File> instanceSources;
+
+    private final KanaKanjiDictionary dictionary;
+
+    /**
+     * コンストラクタ
+     * @param dictionary 辞書
+     */
+    public LocalIME(KanaKanjiDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * 読み込み済みの、共有のインスタンスを返す。ロックを取らないので、発言のたびに呼び出してよい。
+     * @return インスタンス、まだ読み込まれていないか、辞書を読み込めなかった場合はnull
+     * @see #reloadInstance()
+     */
+    public static LocalIME getInstance() {
+        return instance;
+    }
+
+    /**
+     * 設定された辞書で、共有のインスタンスをIOレーンで読み込み直す。
+     * プラグインの有効化時と、設定のリロード時に呼び出すこと。
+     * 読み込みが終わるまでは、それまでのインスタンスが使われる。
+     */
+    public static void reloadInstance() {
+        LunaChat.runAsyncTask(LunaChatExecutor.Lane.IO, new Runnable() {
+            @Override
+            public void run() {
+                loadInstance();
+            }
+        });
+    }
+
+    /**
+     * 設定された辞書を使う、共有のインスタンスを読み込む。
+     * 同梱の辞書がデータフォルダに無い場合は、コピーしてから読み込む。
+     * @return インスタンス、辞書を読み込めなかった場合はnull
+     */
+    static synchronized LocalIME loadInstance() {
+
+        File folder = LunaChat.getDataFolder();
+        List<File> sources = new ArrayList<File>();
+        for ( String name : LunaChat.getConfig().getJapanizeLocalDictionaries() ) {
+            File file = new File(folder, name);
+            if ( !file.exists() && name.equals(DEFAULT_DICTIONARY) ) {
+                Utility.copyFileFromJar(
+                        LunaChat.getPluginJarFile(), file, DEFAULT_DICTIONARY, false);
+            }
+            sources.add(file);
+        }
+
+        // 設定が変わっていなければ、読み込み済みの辞書をそのまま使う
+        if ( instance != null && sources.equals(instanceSources) ) {
+            return instance;
+        }
+
+        try {
+            instance = new LocalIME(KanaKanjiDictionary.load(
+                    sources, new File(folder, COMPILED_DICTIONARY)));
+            instanceSources = sources;
+        } catch (IOException e) {
+            e.printStackTrace();
+            instance = null;
+            instanceSources = null;
+        }
+        return instance;
+    }
+
+    /**
+     * 共有のインスタンスを破棄する
+     */
+    public static synchronized void shutdownInstance() {
+        instance = null;
+        instanceSources = null;
+    }
+
+    /**
+     * かな文字を漢字に変換する
+     * @param kana かな文字
+     * @return 変換結果
+     */
+    public String convert(String kana) {
+
+        int length = kana.length();
+        if ( length == 0 ) {
+            return kana;
+        }
+
+        // cost[i] : i文字目までを変換したときの、最小のコスト
+        // from[i], word[i] : そのときの、最後の単語の開始位置と辞書の見出しの番号（-1なら変換しない）
+        int[] cost = new int[length + 1];
+        int[] from = new int[length + 1];
+        int[] word = new int[length + 1];
+        for ( int i = 1; i <= length; i++ ) {
+            cost[i] = Integer.MAX_VALUE;
+        }
+
+        int[] lengths = new int[MAX_MATCHES];
+        int[] entries = new int[MAX_MATCHES];
+
+        for ( int i = 0; i < length; i++ ) {
+            if ( cost[i] == Integer.MAX_VALUE ) {
+                continue;
+            }
+
+            // かな文字以外は、コストをかけずにそのまま残す
+            if ( KanaKanjiDictionary.toCode(kana.charAt(i)) == 0 ) {
+                relax(cost, from, word, i, i + 1, cost[i], -1);
+                continue;
+            }
+
+            // 1文字だけ、変換せずに残す
+            relax(cost, from, word, i, i + 1, cost[i] + UNKNOWN_COST, -1);
+
+            // 辞書の読みで区切って変換する
+            int found = dictionary.commonPrefixSearch(kana, i, lengths, entries);
+            for ( int j = 0; j < found; j++ ) {
+                relax(cost, from, word, i, i + lengths[j],
+                        cost[i] + dictionary.getBestCost(entries[j]), entries[j]);
+            }
+        }
+
+        // 最後から区切りをたどって、変換結果を組み立てる
+        List<String> parts = new ArrayList<String>();
+        int position = length;
+        while ( position > 0 ) {
+            int start = from[position];
+            parts.add(word[position] >= 0 ? dictionary.getBestCandidate(word[position])
+                    : kana.substring(start, position));
+            position = start;
+        }
+        StringBuilder result = new StringBuilder(length);
+        for ( int i = parts.size() - 1; i >= 0; i-- ) {
+            result.append(parts.get(i));
+        }
+        return result.toString();
+    }
+
+    /**
+     * コストが小さくなる場合は、区切り方を更新する
+     * @param cost 最小のコスト
+     * @param from 最後の単語の開始位置
+     * @param word 最後の単語の、辞書の見出しの番号
+     * @param start 単語の開始位置
+     * @param end 単語の終了位置
+     * @param total 単語までのコストの合計
+     * @param entry 辞書の見出しの番号、変換しない場合は-1
+     */
+    private static void relax(int[] cost, int[] from, int[] word,
+            int start, int end, int total, int entry) {
+        if ( total < cost[end] ) {
+            cost[end] = total;
+            from[end] = start;
+            word[end] = entry;
+        }
+    }
+}
@@ -17,8 +17,19 @@ public class YukiKanaConverter {
 
     private static final ImmutableMap<String, String> MAP;
 
-    private static final String[] ROMAJI_LIST;
-    private static final String[] HIRAGANA_LIST;
+    /** 「ローマ字」の先頭から1文字ずつたどる、変換表のトライ木 */
+    private static final Node ROOT;
+
+    /** 変換結果を組み立てるバッファ（スレッドごとに使い回す） */
+    private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(256);
+        }
+    };
+
+    /** 使い回すバッファの最大の大きさ */
+    private static final int MAX_BUFFER_CAPACITY = 4096;
 
     protected YukiKanaConverter() {
     }
@@ -340,8 +351,10 @@ public class YukiKanaConverter {
 
         MAP = builder.build();
 
-        ROMAJI_LIST = MAP.keySet().toArray(new String[0]);
-        HIRAGANA_LIST = MAP.values().toArray(new String[0]);
+        ROOT = new Node();
+        for ( Map.Entry<String, String> entry : MAP.entrySet() ) {
+            ROOT.put(entry.getKey(), entry.getValue());
+        }
     }
 
     /**
@@ -356,14 +369,65 @@ public class YukiKanaConverter {
     }
 
     /**
-     * 「ローマ字」から「かな文字」に変換する
+     * 「ローマ字」から「かな文字」に変換する。
+     * 先頭から順に、変換表に一致する最も長い「ローマ字」を「かな文字」に置き換える。
+     * 一致しない文字は、そのまま残す。
      *
      * @param romaji 変換元の「ローマ字」
      * @return 変換後の「かな文字」
      * @since 2.8.10
      */
     public static String conv(String romaji) {
-        return StringUtils.replaceEach(romaji, ROMAJI_LIST, HIRAGANA_LIST);
+
+        if ( romaji == null || romaji.isEmpty() ) {
+            return romaji;
+        }
+
+        StringBuilder result = BUFFER.get();
+        if ( result.capacity() > MAX_BUFFER_CAPACITY ) {
+            result = new StringBuilder(256);
+            BUFFER.set(result);
+        }
+        result.setLength(0);
+
+        int length = romaji.length();
+        int index = 0;
+        while ( index < length ) {
+
+            // トライ木をたどって、最も長く一致する「ローマ字」を探す
+            Node node = ROOT;
+            String kana = null;
+            int end = index;
+            for ( int i = index; i < length; i++ ) {
+                node = node.get(romaji.charAt(i));
+                if ( node == null ) {
+                    break;
+                }
+                if ( node.kana != null ) {
+                    kana = node.kana;
+                    end = i + 1;
+                }
+            }
+
+            if ( kana != null ) {
+                result.append(kana);
+                index = end;
+            } else {
+                result.append(romaji.charAt(index));
+                index++;
+            }
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * 変換表の「ローマ字」と「かな文字」の一覧を取得する
+     *
+     * @return 「ローマ字」から「かな文字」への変換表
+     */
+    static Map<String, String> getTable() {
+        return MAP;
     }
 
     /**
@@ -378,4 +442,44 @@ public class YukiKanaConverter {
         String[] half = new String[] { "(", ")" };
         return StringUtils.replaceEach(text, full, half);
     }
+
+    /**
+     * 変換表のトライ木の節
+     */
+    private static class Node {
+
+        /** 「ローマ字」はASCII文字だけなので、子の節は文字コードで引く */
+        private final Node[] children = new Node[128];
+
+        /** ここまでの文字列に対応する「かな文字」、無ければnull */
+        private String kana;
+
+        /**
+         * 「ローマ字」と「かな文字」の組を追加する
+         *
+         * @param romaji 「ローマ字」
+         * @param value 「かな文字」
+         */
+        private void put(String romaji, String value) {
+            Node node = this;
+            for ( int i = 0; i < romaji.length(); i++ ) {
+                char c = romaji.charAt(i);
+                if ( node.children[c] == null ) {
+                    node.children[c] = new Node();
+                }
+                node = node.children[c];
+            }
+            node.kana = value;
+        }
+
+        /**
+         * 次の文字に対応する子の節を取得する
+         *
+         * @param c 次の文字
+         * @return 子の節、無ければnull
+         */
+        private Node get(char c) {
+            return c < children.length ? children[c] : null;
+        }
+    }
 }
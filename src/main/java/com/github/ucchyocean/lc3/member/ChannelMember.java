@@ -104,12 +104,25 @@ public abstract class ChannelMember implements Comparable<ChannelMember> {
      */
     @Override
     public boolean equals(Object other) {
+        if ( this == other ) {
+            return true;
+        }
         if ( !(other instanceof ChannelMember) ) {
             return false;
         }
         return this.toString().equals(other.toString());
     }
 
+    /**
+     * ハッシュコードを返す
+     * @return ハッシュコード
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return this.toString().hashCode();
+    }
+
     /**
      * インスタンス同士の比較を行う。このメソッドを実装しておくことで、
      * Java8でのHashMapのキー挿入における高速化が期待できる（らしい）。
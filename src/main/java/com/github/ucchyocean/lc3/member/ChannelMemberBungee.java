@@ -57,7 +57,7 @@ public abstract class ChannelMemberBungee extends ChannelMember {
     public static ChannelMemberBungee getChannelMemberBungee(Object sender) {
         if ( sender == null || !(sender instanceof CommandSender) ) return null;
         if ( sender instanceof ProxiedPlayer ) {
-            return new ChannelMemberProxiedPlayer(((ProxiedPlayer)sender).getUniqueId());
+            return ChannelMemberProxiedPlayer.getChannelMemberProxiedPlayer(((ProxiedPlayer)sender).getUniqueId());
         } else {
             // ProxiedPlayer以外のCommandSenderは、ConsoleSenderしかないはず
             return new ChannelMemberBungeeConsole((CommandSender)sender);
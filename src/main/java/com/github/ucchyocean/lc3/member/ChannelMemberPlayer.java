@@ -6,6 +6,7 @@
 package com.github.ucchyocean.lc3.member;
 
 import java.util.UUID;
+import java.util.function.Function;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
@@ -27,14 +28,25 @@ import net.md_5.bungee.api.chat.BaseComponent;
  */
 public class ChannelMemberPlayer extends ChannelMemberBukkit {
 
+    /** UUIDごとのインスタンスのレジストリ */
+    private static final ChannelMemberRegistry<ChannelMemberPlayer> REGISTRY =
+            new ChannelMemberRegistry<ChannelMemberPlayer>(new Function<UUID, ChannelMemberPlayer>() {
+        public ChannelMemberPlayer apply(UUID id) {
+            return new ChannelMemberPlayer(id);
+        }
+    });
+
     private UUID id;
 
+    /** 文字列表現（"$" + UUID） */
+    private String key;
+
     /**
      * コンストラクタ
      * @param id プレイヤーID
      */
     public ChannelMemberPlayer(String id) {
-        this.id = UUID.fromString(id);
+        this(UUID.fromString(id));
     }
 
     /**
@@ -43,6 +55,17 @@ public class ChannelMemberPlayer extends ChannelMemberBukkit {
      */
     public ChannelMemberPlayer(UUID id) {
         this.id = id;
+        this.key = "$" + id.toString();
+    }
+
+    /**
+     * UUIDから、正規化されたChannelMemberPlayerを返す。
+     * 同じUUIDに対しては、同じインスタンスが返される。
+     * @param id UUID
+     * @return ChannelMemberPlayer
+     */
+    public static ChannelMemberPlayer getChannelMemberPlayer(UUID id) {
+        return REGISTRY.get(id);
     }
 
     /**
@@ -53,12 +76,12 @@ public class ChannelMemberPlayer extends ChannelMemberBukkit {
     public static ChannelMemberPlayer getChannelMemberPlayerFromName(String name) {
         Player player = Bukkit.getPlayerExact(name);
         if ( player != null ) {
-            return new ChannelMemberPlayer(player.getUniqueId());
+            return getChannelMemberPlayer(player.getUniqueId());
         }
         @SuppressWarnings("deprecation")
         OfflinePlayer offline = Bukkit.getOfflinePlayer(name);
         if ( offline != null && offline.getUniqueId() != null ) {
-            return new ChannelMemberPlayer(offline.getUniqueId());
+            return getChannelMemberPlayer(offline.getUniqueId());
         }
         return null;
     }
@@ -70,9 +93,9 @@ public class ChannelMemberPlayer extends ChannelMemberBukkit {
      */
     public static ChannelMemberPlayer getChannelPlayer(CommandSender sender) {
         if ( sender instanceof Player ) {
-            return new ChannelMemberPlayer(((Player)sender).getUniqueId());
+            return getChannelMemberPlayer(((Player)sender).getUniqueId());
         }
-        return new ChannelMemberPlayer(sender.getName());
+        return getChannelMemberPlayer(UUID.fromString(sender.getName()));
     }
 
     /**
@@ -287,17 +310,17 @@ public class ChannelMemberPlayer extends ChannelMemberBukkit {
      */
     @Override
     public String toString() {
-        return "$" + id.toString();
+        return key;
     }
 
     public static ChannelMemberPlayer getChannelMember(String nameOrUuid) {
         if ( nameOrUuid.startsWith("$") ) {
-            return new ChannelMemberPlayer(nameOrUuid.substring(1));
+            return getChannelMemberPlayer(UUID.fromString(nameOrUuid.substring(1)));
         } else {
             @SuppressWarnings("deprecation")
             OfflinePlayer op = Bukkit.getOfflinePlayer(nameOrUuid);
             if ( op == null ) return null;
-            return new ChannelMemberPlayer(op.getUniqueId());
+            return getChannelMemberPlayer(op.getUniqueId());
         }
     }
 
@@ -6,6 +6,7 @@
 package com.github.ucchyocean.lc3.member;
 
 import java.util.UUID;
+import java.util.function.Function;
 
 import org.jetbrains.annotations.Nullable;
 
@@ -26,14 +27,25 @@ import net.md_5.bungee.api.connection.Server;
  */
 public class ChannelMemberProxiedPlayer extends ChannelMemberBungee {
 
+    /** UUIDごとのインスタンスのレジストリ */
+    private static final ChannelMemberRegistry<ChannelMemberProxiedPlayer> REGISTRY =
+            new ChannelMemberRegistry<ChannelMemberProxiedPlayer>(new Function<UUID, ChannelMemberProxiedPlayer>() {
+        public ChannelMemberProxiedPlayer apply(UUID id) {
+            return new ChannelMemberProxiedPlayer(id);
+        }
+    });
+
     private UUID id;
 
+    /** 文字列表現（"$" + UUID） */
+    private String key;
+
     /**
      * コンストラクタ
      * @param id プレイヤーID
      */
     public ChannelMemberProxiedPlayer(String id) {
-        this.id = UUID.fromString(id);
+        this(UUID.fromString(id));
     }
 
     /**
@@ -42,6 +54,17 @@ public class ChannelMemberProxiedPlayer extends ChannelMemberBungee {
      */
     public ChannelMemberProxiedPlayer(UUID id) {
         this.id = id;
+        this.key = "$" + id.toString();
+    }
+
+    /**
+     * UUIDから、正規化されたChannelMemberProxiedPlayerを返す。
+     * 同じUUIDに対しては、同じインスタンスが返される。
+     * @param id UUID
+     * @return ChannelMemberProxiedPlayer
+     */
+    public static ChannelMemberProxiedPlayer getChannelMemberProxiedPlayer(UUID id) {
+        return REGISTRY.get(id);
     }
 
     /**
@@ -51,10 +74,10 @@ public class ChannelMemberProxiedPlayer extends ChannelMemberBungee {
      */
     public static ChannelMemberProxiedPlayer getChannelMember(String nameOrUuid) {
         if ( nameOrUuid.startsWith("$") ) {
-            return new ChannelMemberProxiedPlayer(UUID.fromString(nameOrUuid.substring(1)));
+            return getChannelMemberProxiedPlayer(UUID.fromString(nameOrUuid.substring(1)));
         } else {
             ProxiedPlayer player = ProxyServer.getInstance().getPlayer(nameOrUuid);
-            if ( player != null ) return new ChannelMemberProxiedPlayer(player.getUniqueId());
+            if ( player != null ) return getChannelMemberProxiedPlayer(player.getUniqueId());
         }
         return null;
     }
@@ -215,7 +238,7 @@ public class ChannelMemberProxiedPlayer extends ChannelMemberBungee {
      */
     @Override
     public String toString() {
-        return "$" + id.toString();
+        return key;
     }
 
     /**
@@ -0,0 +1,100 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.member;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * プレイヤーのChannelMemberを、UUIDごとに1つのインスタンスに正規化して管理するレジストリ。
+ * インスタンスは弱参照で保持するので、チャンネルなどから参照されなくなった
+ * オフラインプレイヤーのインスタンスは、GCによって自動的に解放される。
+ * @author ucchy
+ * @param <T> 管理するChannelMemberの型
+ */
+public class ChannelMemberRegistry<T extends ChannelMember> {
+
+    /** UUID → インスタンス */
+    private ConcurrentHashMap<UUID, MemberReference<T>> members;
+
+    /** GCで解放されたインスタンスの参照を受け取るキュー */
+    private ReferenceQueue<T> queue;
+
+    /** インスタンスの作成処理 */
+    private Function<UUID, T> factory;
+
+    /**
+     * コンストラクタ
+     * @param factory UUIDからインスタンスを作成する処理
+     */
+    public ChannelMemberRegistry(Function<UUID, T> factory) {
+        this.members = new ConcurrentHashMap<UUID, MemberReference<T>>();
+        this.queue = new ReferenceQueue<T>();
+        this.factory = factory;
+    }
+
+    /**
+     * 指定したUUIDのインスタンスを返す。無い場合は作成して登録する。
+     * @param id UUID
+     * @return インスタンス
+     */
+    public T get(UUID id) {
+
+        MemberReference<T> ref = members.get(id);
+        T member = (ref != null) ? ref.get() : null;
+        if ( member != null ) {
+            return member;
+        }
+
+        expunge();
+
+        synchronized (this) {
+            ref = members.get(id);
+            member = (ref != null) ? ref.get() : null;
+            if ( member == null ) {
+                member = factory.apply(id);
+                members.put(id, new MemberReference<T>(id, member, queue));
+            }
+            return member;
+        }
+    }
+
+    /**
+     * 登録されているインスタンスの数を返す（解放済みのものは除く）
+     * @return インスタンス数
+     */
+    public int size() {
+        expunge();
+        return members.size();
+    }
+
+    /**
+     * GCで解放されたインスタンスのエントリを削除する
+     */
+    @SuppressWarnings("unchecked")
+    private void expunge() {
+        MemberReference<T> ref;
+        while ( (ref = (MemberReference<T>)queue.poll()) != null ) {
+            members.remove(ref.id, ref);
+        }
+    }
+
+    /**
+     * UUIDを保持する弱参照
+     */
+    private static class MemberReference<T> extends WeakReference<T> {
+
+        private final UUID id;
+
+        private MemberReference(UUID id, T referent, ReferenceQueue<T> queue) {
+            super(referent, queue);
+            this.id = id;
+        }
+    }
+}
@@ -10,6 +10,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.List;
 
 import org.jetbrains.annotations.Nullable;
 
@@ -54,8 +55,28 @@ public class BukkitChatMessage {
     /**
      * このメッセージをbyte配列に変換する
      * @return byte配列
+     * @see PluginMessageCodec
      */
     public byte[] toByteArray() {
+        return PluginMessageCodec.encode(this);
+    }
+
+    /**
+     * byte配列からメッセージに変換する
+     * @param bytes byte配列
+     * @return メッセージ
+     * @see PluginMessageCodec
+     */
+    public static @Nullable BukkitChatMessage fromByteArray(byte[] bytes) {
+        List<BukkitChatMessage> messages = PluginMessageCodec.decode(bytes);
+        return messages.isEmpty() ? null : messages.get(0);
+    }
+
+    /**
+     * このメッセージを、以前のバージョンの形式のbyte配列に変換する
+     * @return byte配列
+     */
+    protected byte[] toLegacyByteArray() {
         try ( ByteArrayOutputStream baos = new ByteArrayOutputStream();
                 DataOutputStream out = new DataOutputStream(baos) ) {
             out.writeUTF(member.getName());
@@ -73,11 +94,11 @@ public class BukkitChatMessage {
     }
 
     /**
-     * byte配列からメッセージに変換する
+     * 以前のバージョンの形式のbyte配列から、メッセージに変換する
      * @param bytes byte配列
      * @return メッセージ
      */
-    public static @Nullable BukkitChatMessage fromByteArray(byte[] bytes) {
+    protected static @Nullable BukkitChatMessage fromLegacyByteArray(byte[] bytes) {
         try ( DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes)) ) {
             String name = in.readUTF();
             String displayName = in.readUTF();
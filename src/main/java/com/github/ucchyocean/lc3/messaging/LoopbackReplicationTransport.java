@@ -0,0 +1,72 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.messaging;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 同じプロセスの中だけでフレームを受け渡す ReplicationTransport の実装。
+ * 同じ Hub につないだ、自分以外のすべての transport へ、送信したスレッドのまま届ける。
+ * テストや、1つのプロキシだけで動作を確認するときに使う。
+ * @author ucchy
+ */
+public class LoopbackReplicationTransport implements ReplicationTransport {
+
+    private final Hub hub;
+    private volatile Receiver receiver;
+
+    /**
+     * コンストラクタ
+     * @param hub つなぐ先のHub
+     */
+    public LoopbackReplicationTransport(Hub hub) {
+        this.hub = hub;
+    }
+
+    /**
+     * 送受信を開始する
+     * @param receiver 受信したフレームを渡す先
+     * @see com.github.ucchyocean.lc3.messaging.ReplicationTransport#start(com.github.ucchyocean.lc3.messaging.ReplicationTransport.Receiver)
+     */
+    @Override
+    public void start(Receiver receiver) {
+        this.receiver = receiver;
+        hub.transports.addIfAbsent(this);
+    }
+
+    /**
+     * ほかのすべてのtransportへ、フレームを送信する
+     * @param frame フレーム
+     * @see com.github.ucchyocean.lc3.messaging.ReplicationTransport#send(byte[])
+     */
+    @Override
+    public void send(byte[] frame) {
+        for ( LoopbackReplicationTransport transport : hub.transports ) {
+            Receiver r = transport.receiver;
+            if ( transport != this && r != null ) {
+                r.receive(frame);
+            }
+        }
+    }
+
+    /**
+     * 送受信を停止する
+     * @see com.github.ucchyocean.lc3.messaging.ReplicationTransport#stop()
+     */
+    @Override
+    public void stop() {
+        hub.transports.remove(this);
+        receiver = null;
+    }
+
+    /**
+     * LoopbackReplicationTransport どうしをつなぐクラス
+     */
+    public static class Hub {
+        private final CopyOnWriteArrayList<LoopbackReplicationTransport> transports =
+                new CopyOnWriteArrayList<LoopbackReplicationTransport>();
+    }
+}
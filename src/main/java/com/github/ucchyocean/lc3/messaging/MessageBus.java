@@ -0,0 +1,324 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.messaging;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.ucchyocean.lc3.util.ByteReader;
+import com.github.ucchyocean.lc3.util.ByteWriter;
+
+/**
+ * 複数のプロキシの間で、レコード（種類と中身のbyte配列）を複製するクラス。
+ * 送信するレコードには、プロキシごとの連番を付け、まとめて1つのフレームにして ReplicationTransport で送る。
+ * 受信側では、送信元ごとに連番を確認し、すでに処理したレコードは捨てる。
+ * <pre>
+ * フレーム : MAGIC(1) KIND(1) VERSION(1) 送信元ID(long 2つ) 最初の連番(varlong) 件数(varint)
+ *            { 種類(varint) 長さ(varint) データ }...
+ * </pre>
+ * @author ucchy
+ */
+public class MessageBus implements ReplicationTransport.Receiver {
+
+    protected static final byte MAGIC = 0x4C;
+    protected static final byte KIND = 0x52;
+    protected static final byte VERSION = 1;
+
+    /** 1つのフレームに入れるレコードの大きさの合計の目安（バイト） */
+    private static final int MAX_BATCH_BYTES = 32 * 1024;
+
+    private final ReplicationTransport transport;
+    private final Executor executor;
+    private final Handler handler;
+
+    /** このプロキシのID、起動するたびに変わる */
+    private final UUID nodeId;
+
+    /** 送信待ちのレコード */
+    private final ConcurrentLinkedQueue<Record> pending;
+    private final AtomicBoolean flushScheduled;
+    private final Runnable flushTask;
+
+    /** 最後に付けた連番 */
+    private long lastSequence;
+
+    /** 送信元ごとの受信状況 */
+    private final Map<UUID, Origin> origins;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong sentFrames = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong missing = new AtomicLong();
+    private final AtomicLong malformed = new AtomicLong();
+
+    private volatile boolean running;
+
+    /**
+     * コンストラクタ
+     * @param transport フレームの送受信に使うtransport
+     * @param executor 送信処理を実行するExecutor
+     * @param handler 受信したレコードを処理するハンドラ
+     */
+    public MessageBus(ReplicationTransport transport, Executor executor, Handler handler) {
+        this.transport = transport;
+        this.executor = executor;
+        this.handler = handler;
+        this.nodeId = UUID.randomUUID();
+        this.pending = new ConcurrentLinkedQueue<Record>();
+        this.flushScheduled = new AtomicBoolean();
+        this.origins = new ConcurrentHashMap<UUID, Origin>();
+        this.flushTask = new Runnable() {
+            public void run() {
+                flush();
+            }
+        };
+    }
+
+    /**
+     * 送受信を開始する
+     * @throws IOException transportを開始できなかった場合
+     */
+    public void start() throws IOException {
+        transport.start(this);
+        running = true;
+    }
+
+    /**
+     * 送信待ちのレコードを送信してから、送受信を停止する
+     */
+    public void stop() {
+        flush();
+        running = false;
+        transport.stop();
+    }
+
+    /**
+     * レコードを、ほかのすべてのプロキシへ送信する。
+     * 送信は executor で行われ、続けて発行されたレコードは、1つのフレームにまとめて送信される。
+     * @param type レコードの種類
+     * @param data レコードの中身
+     */
+    public void publish(int type, ByteWriter data) {
+        if ( !running ) {
+            return;
+        }
+        pending.add(new Record(type, data.toByteArray()));
+        published.incrementAndGet();
+        if ( flushScheduled.compareAndSet(false, true) ) {
+            executor.execute(flushTask);
+        }
+    }
+
+    /**
+     * 送信待ちのレコードに連番を付けて、フレームにまとめて送信する
+     */
+    protected synchronized void flush() {
+
+        flushScheduled.set(false);
+
+        ByteWriter records = new ByteWriter(256);
+        Record record;
+        int count = 0;
+        while ( (record = pending.poll()) != null ) {
+            records.writeVarInt(record.type);
+            records.writeVarInt(record.data.length);
+            records.writeBytes(record.data, 0, record.data.length);
+            count++;
+            if ( records.size() >= MAX_BATCH_BYTES ) {
+                sendFrame(records, count);
+                records.reset();
+                count = 0;
+            }
+        }
+        if ( count > 0 ) {
+            sendFrame(records, count);
+        }
+    }
+
+    /**
+     * フレームを作成して送信する
+     * @param records まとめたレコード
+     * @param count レコードの件数
+     */
+    private void sendFrame(ByteWriter records, int count) {
+
+        ByteWriter frame = new ByteWriter(records.size() + 32);
+        frame.writeByte(MAGIC);
+        frame.writeByte(KIND);
+        frame.writeByte(VERSION);
+        frame.writeLong(nodeId.getMostSignificantBits());
+        frame.writeLong(nodeId.getLeastSignificantBits());
+        frame.writeVarLong(lastSequence + 1);
+        frame.writeVarInt(count);
+        frame.writeBytes(records);
+        lastSequence += count;
+
+        try {
+            transport.send(frame.toByteArray());
+            sentFrames.incrementAndGet();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * フレームを受信したときに、transportから呼び出される
+     * @param frame フレーム
+     * @see com.github.ucchyocean.lc3.messaging.ReplicationTransport.Receiver#receive(byte[])
+     */
+    @Override
+    public void receive(byte[] frame) {
+
+        ByteReader in = new ByteReader(frame);
+        UUID origin;
+        long sequence;
+        int count;
+        try {
+            if ( in.readByte() != MAGIC || in.readByte() != KIND || in.readByte() != VERSION ) {
+                malformed.incrementAndGet();
+                return;
+            }
+            origin = new UUID(in.readLong(), in.readLong());
+            sequence = in.readVarLong();
+            count = in.readVarInt();
+        } catch (IllegalArgumentException e) {
+            malformed.incrementAndGet();
+            return;
+        }
+
+        // 自分が送信したフレームは処理しない
+        if ( origin.equals(nodeId) ) {
+            return;
+        }
+
+        Origin state = origins.get(origin);
+        if ( state == null ) {
+            Origin created = new Origin();
+            state = origins.putIfAbsent(origin, created);
+            if ( state == null ) {
+                state = created;
+            }
+        }
+
+        // 同じ送信元からのレコードは、受信した順に1つずつ処理する
+        synchronized (state) {
+            try {
+                for ( int i = 0; i < count; i++, sequence++ ) {
+                    int type = in.readVarInt();
+                    ByteReader data = in.slice(in.readVarInt());
+
+                    if ( state.lastSequence >= sequence ) {
+                        duplicates.incrementAndGet();
+                        continue;
+                    }
+                    if ( state.lastSequence + 1 < sequence ) {
+                        missing.addAndGet(sequence - state.lastSequence - 1);
+                    }
+                    state.lastSequence = sequence;
+                    received.incrementAndGet();
+
+                    try {
+                        handler.handle(type, data);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                malformed.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return このプロキシのID
+     */
+    public UUID getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * @return 送信したレコードの数
+     */
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    /**
+     * @return 送信したフレームの数
+     */
+    public long getSentFrameCount() {
+        return sentFrames.get();
+    }
+
+    /**
+     * @return 受信して処理したレコードの数
+     */
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    /**
+     * @return 重複して受信したため、捨てたレコードの数
+     */
+    public long getDuplicateCount() {
+        return duplicates.get();
+    }
+
+    /**
+     * @return 連番が飛んでいたため、受信できなかったと思われるレコードの数
+     */
+    public long getMissingCount() {
+        return missing.get();
+    }
+
+    /**
+     * @return 形式が正しくなかったため、捨てたフレームの数
+     */
+    public long getMalformedCount() {
+        return malformed.get();
+    }
+
+    /**
+     * 受信したレコードを処理するインターフェイス
+     */
+    public interface Handler {
+
+        /**
+         * レコードを受信したときに呼び出される。
+         * 同じ送信元からのレコードは、送信された順に、1つずつ呼び出される。
+         * @param type レコードの種類
+         * @param data レコードの中身
+         */
+        public void handle(int type, ByteReader data);
+    }
+
+    /**
+     * 送信待ちのレコード
+     */
+    private static class Record {
+        private final int type;
+        private final byte[] data;
+
+        private Record(int type, byte[] data) {
+            this.type = type;
+            this.data = data;
+        }
+    }
+
+    /**
+     * 送信元ごとの受信状況
+     */
+    private static class Origin {
+        private long lastSequence;
+    }
+}
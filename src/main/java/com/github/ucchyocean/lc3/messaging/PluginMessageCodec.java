@@ -0,0 +1,302 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.messaging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.github.ucchyocean.lc3.member.ChannelMemberOther;
+import com.github.ucchyocean.lc3.util.BlockLocation;
+import com.github.ucchyocean.lc3.util.ByteReader;
+import com.github.ucchyocean.lc3.util.ByteWriter;
+
+/**
+ * BukkitとBungeeCordの間のプラグインメッセージ（LunaChat.PMC_MESSAGE）の、バイナリ形式を扱うクラス。
+ * <pre>
+ * パケット : MAGIC(1) VERSION(1) FLAGS(1) [展開後の長さ(varint)] 本体
+ * 本体     : 件数(varint) { 種類(varint) 長さ(varint) データ }...
+ * チャット : 項目の有無(varint) 名前 [表示名] [プレフィックス] [サフィックス]
+ *            [位置 : ワールド名 x y z(zigzag varint)] [UUID(long 2つ) | ID] 発言内容
+ * </pre>
+ * 文字列は、長さ(varint)とUTF-8のバイト列で表す。
+ * 1つのパケットに複数のメッセージを入れることができ、本体が一定の大きさを超えたら圧縮する。
+ * 以前のバージョンの形式（先頭が名前の長さのため、1バイト目が0になる）も読み込むことができる。
+ * @author ucchy
+ */
+public class PluginMessageCodec {
+
+    /** パケットの先頭の1バイト。以前の形式では、ここが必ず0になる。 */
+    protected static final byte MAGIC = 0x4C;
+
+    /** 形式のバージョン */
+    protected static final byte VERSION = 1;
+
+    /** 本体が、この大きさ（バイト）を超えたら圧縮する */
+    protected static final int COMPRESS_THRESHOLD = 256;
+
+    /** 展開後の本体の大きさの上限（バイト） */
+    private static final int MAX_BODY_LENGTH = 1 << 20;
+
+    private static final int FLAG_COMPRESSED = 0x01;
+
+    private static final int TYPE_CHAT = 1;
+
+    private static final int HAS_DISPLAY_NAME = 0x01;
+    private static final int HAS_PREFIX = 0x02;
+    private static final int HAS_SUFFIX = 0x04;
+    private static final int HAS_LOCATION = 0x08;
+    private static final int HAS_UUID = 0x10;
+    private static final int HAS_ID = 0x20;
+
+    /**
+     * メッセージを、1つのパケットに変換する
+     * @param message メッセージ
+     * @return パケット
+     */
+    public static byte[] encode(BukkitChatMessage message) {
+        return encode(Collections.singletonList(message));
+    }
+
+    /**
+     * 複数のメッセージを、1つのパケットに変換する
+     * @param messages メッセージ
+     * @return パケット
+     */
+    public static byte[] encode(List<BukkitChatMessage> messages) {
+
+        ByteWriter body = new ByteWriter(64 * messages.size());
+        ByteWriter chat = new ByteWriter(64);
+        body.writeVarInt(messages.size());
+        for ( BukkitChatMessage message : messages ) {
+            chat.reset();
+            writeChat(chat, message);
+            body.writeVarInt(TYPE_CHAT);
+            body.writeVarInt(chat.size());
+            body.writeBytes(chat);
+        }
+
+        ByteWriter packet = new ByteWriter(body.size() + 8);
+        packet.writeByte(MAGIC);
+        packet.writeByte(VERSION);
+        if ( body.size() > COMPRESS_THRESHOLD ) {
+            byte[] compressed = deflate(body.getBuffer(), body.size());
+            if ( compressed.length < body.size() ) {
+                packet.writeByte(FLAG_COMPRESSED);
+                packet.writeVarInt(body.size());
+                packet.writeBytes(compressed, 0, compressed.length);
+                return packet.toByteArray();
+            }
+        }
+        packet.writeByte(0);
+        packet.writeBytes(body);
+        return packet.toByteArray();
+    }
+
+    /**
+     * パケットを、メッセージに変換する。
+     * 以前の形式のパケットも変換できる。
+     * @param bytes パケット
+     * @return メッセージ（変換できなかった場合は空のリスト）
+     */
+    public static List<BukkitChatMessage> decode(byte[] bytes) {
+
+        if ( bytes == null || bytes.length == 0 ) {
+            return Collections.emptyList();
+        }
+
+        // 以前の形式
+        if ( bytes[0] == 0 ) {
+            BukkitChatMessage legacy = BukkitChatMessage.fromLegacyByteArray(bytes);
+            if ( legacy == null ) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(legacy);
+        }
+
+        try {
+            ByteReader header = new ByteReader(bytes);
+            if ( header.readByte() != MAGIC || header.readByte() != VERSION ) {
+                return Collections.emptyList();
+            }
+            int flags = header.readByte();
+
+            ByteReader body = header;
+            if ( (flags & FLAG_COMPRESSED) != 0 ) {
+                int length = header.readVarInt();
+                if ( length < 0 || length > MAX_BODY_LENGTH ) {
+                    return Collections.emptyList();
+                }
+                byte[] inflated = inflate(bytes, header.getPosition(), header.remaining(), length);
+                body = new ByteReader(inflated);
+            }
+
+            int count = body.readVarInt();
+            List<BukkitChatMessage> messages = new ArrayList<BukkitChatMessage>(Math.min(count, 16));
+            for ( int i = 0; i < count; i++ ) {
+                int type = body.readVarInt();
+                int length = body.readVarInt();
+                ByteReader data = body.slice(length);
+                if ( type == TYPE_CHAT ) {
+                    messages.add(readChat(data));
+                }
+                // 知らない種類のメッセージは、読み飛ばす
+            }
+            return messages;
+
+        } catch (IllegalArgumentException | DataFormatException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * チャットのメッセージを書き込む
+     * @param out 書き込み先
+     * @param message メッセージ
+     */
+    private static void writeChat(ByteWriter out, BukkitChatMessage message) {
+
+        ChannelMemberOther member = message.getMember();
+        String name = member.getName();
+        String displayName = member.getDisplayName();
+        String prefix = member.getPrefix();
+        String suffix = member.getSuffix();
+        BlockLocation location = member.getLocation();
+        String id = member.getId();
+        UUID uuid = toUUID(id);
+
+        int presence = 0;
+        if ( displayName != null && !displayName.equals(name) ) presence |= HAS_DISPLAY_NAME;
+        if ( prefix != null && !prefix.isEmpty() ) presence |= HAS_PREFIX;
+        if ( suffix != null && !suffix.isEmpty() ) presence |= HAS_SUFFIX;
+        if ( location != null ) presence |= HAS_LOCATION;
+        if ( uuid != null ) {
+            presence |= HAS_UUID;
+        } else if ( id != null ) {
+            presence |= HAS_ID;
+        }
+
+        out.writeVarInt(presence);
+        out.writeString(name);
+        if ( (presence & HAS_DISPLAY_NAME) != 0 ) out.writeString(displayName);
+        if ( (presence & HAS_PREFIX) != 0 ) out.writeString(prefix);
+        if ( (presence & HAS_SUFFIX) != 0 ) out.writeString(suffix);
+        if ( (presence & HAS_LOCATION) != 0 ) {
+            out.writeString(location.getWorldName());
+            out.writeVarInt(zigzag(location.getX()));
+            out.writeVarInt(zigzag(location.getY()));
+            out.writeVarInt(zigzag(location.getZ()));
+        }
+        if ( (presence & HAS_UUID) != 0 ) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else if ( (presence & HAS_ID) != 0 ) {
+            out.writeString(id);
+        }
+        out.writeString(message.getMessage());
+    }
+
+    /**
+     * チャットのメッセージを読み込む
+     * @param in 読み込み元
+     * @return メッセージ
+     */
+    private static BukkitChatMessage readChat(ByteReader in) {
+
+        int presence = in.readVarInt();
+        String name = in.readString();
+        String displayName = (presence & HAS_DISPLAY_NAME) != 0 ? in.readString() : name;
+        String prefix = (presence & HAS_PREFIX) != 0 ? in.readString() : "";
+        String suffix = (presence & HAS_SUFFIX) != 0 ? in.readString() : "";
+        BlockLocation location = null;
+        if ( (presence & HAS_LOCATION) != 0 ) {
+            String world = in.readString();
+            int x = unzigzag(in.readVarInt());
+            int y = unzigzag(in.readVarInt());
+            int z = unzigzag(in.readVarInt());
+            location = new BlockLocation(world, x, y, z);
+        }
+        String id = null;
+        if ( (presence & HAS_UUID) != 0 ) {
+            id = new UUID(in.readLong(), in.readLong()).toString();
+        } else if ( (presence & HAS_ID) != 0 ) {
+            id = in.readString();
+        }
+        String message = in.readString();
+
+        ChannelMemberOther member = new ChannelMemberOther(
+                name, displayName, prefix, suffix, location, id);
+        return new BukkitChatMessage(member, message);
+    }
+
+    /**
+     * UUIDとして書き込めるIDなら、UUIDに変換する
+     * @param id ID
+     * @return UUID、変換できない場合はnull
+     */
+    private static UUID toUUID(String id) {
+        if ( id == null ) return null;
+        try {
+            UUID uuid = UUID.fromString(id);
+            // 元の文字列に戻せない場合は、文字列のまま送る
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static byte[] deflate(byte[] data, int length) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            ByteWriter out = new ByteWriter(length / 2 + 16);
+            byte[] buffer = new byte[1024];
+            while ( !deflater.finished() ) {
+                int size = deflater.deflate(buffer);
+                out.writeBytes(buffer, 0, size);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int offset, int length, int inflatedLength)
+            throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, offset, length);
+            byte[] result = new byte[inflatedLength];
+            int size = 0;
+            while ( size < inflatedLength && !inflater.finished() ) {
+                int count = inflater.inflate(result, size, inflatedLength - size);
+                if ( count == 0 && (inflater.needsInput() || inflater.needsDictionary()) ) {
+                    break;
+                }
+                size += count;
+            }
+            if ( size != inflatedLength ) {
+                throw new DataFormatException("Unexpected inflated length.");
+            }
+            return result;
+        } finally {
+            inflater.end();
+        }
+    }
+}
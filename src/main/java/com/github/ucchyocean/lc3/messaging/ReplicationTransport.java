@@ -0,0 +1,48 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.messaging;
+
+import java.io.IOException;
+
+/**
+ * 複数のBungeeCordプロキシの間で、MessageBus のフレームを送受信する仕組みのインターフェイス。
+ * フレームの中身は扱わず、届いたフレームをそのまま Receiver に渡す。
+ * 送信は呼び出し元をブロックしないように実装し、届かなかったフレームは捨ててよい。
+ * @author ucchy
+ */
+public interface ReplicationTransport {
+
+    /**
+     * 送受信を開始する
+     * @param receiver 受信したフレームを渡す先
+     * @throws IOException 開始できなかった場合
+     */
+    public void start(Receiver receiver) throws IOException;
+
+    /**
+     * ほかのすべてのプロキシへ、フレームを送信する
+     * @param frame フレーム
+     */
+    public void send(byte[] frame);
+
+    /**
+     * 送受信を停止する
+     */
+    public void stop();
+
+    /**
+     * 受信したフレームを受け取るインターフェイス
+     */
+    public interface Receiver {
+
+        /**
+         * フレームを受信したときに呼び出される。
+         * 受信用のスレッドから呼び出されるので、時間のかかる処理はしないこと。
+         * @param frame フレーム
+         */
+        public void receive(byte[] frame);
+    }
+}
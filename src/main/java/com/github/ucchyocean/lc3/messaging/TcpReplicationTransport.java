@@ -0,0 +1,432 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.messaging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * TCPで、ほかのプロキシとフレームを送受信する ReplicationTransport の実装。
+ * 指定したポートで待ち受けて受信し、送信は相手ごとの接続と送信用スレッドで行う。
+ * <pre>
+ * 受信側から : MAGIC(int) チャレンジ(32バイト)
+ * 送信側から : MAGIC(int) HMAC(合言葉, "auth" チャレンジ)
+ * 以降       : { フレームの長さ(int) フレーム HMAC(セッション鍵, 連番(long) フレーム) }...
+ * </pre>
+ * 合言葉そのものは送らず、セッション鍵は合言葉とチャレンジから作る。
+ * フレームごとのHMACに連番を含めるので、他の接続のフレームの再送や、途中への差し込みは受け付けない。
+ * 送信待ちが一定の数を超えた場合や、相手に接続できない間のフレームは捨てる。
+ * 通信は暗号化しないので、信頼できるネットワークの中だけで使用すること。
+ * @author ucchy
+ */
+public class TcpReplicationTransport implements ReplicationTransport {
+
+    private static final int MAGIC = 0x4C435252;
+
+    /** 受信するフレームの大きさの上限（バイト） */
+    private static final int MAX_FRAME_LENGTH = 1 << 20;
+
+    /** 相手ごとの送信待ちの上限 */
+    private static final int QUEUE_CAPACITY = 4096;
+
+    /** 同時に受け付ける接続の上限 */
+    private static final int MAX_CONNECTIONS = 16;
+
+    /** 接続直後の認証を待つ時間（ミリ秒） */
+    private static final int HANDSHAKE_TIMEOUT = 5000;
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int CHALLENGE_LENGTH = 32;
+    private static final int MAC_LENGTH = 32;
+    private static final byte[] AUTH_LABEL = "auth".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SESSION_LABEL = "session".getBytes(StandardCharsets.UTF_8);
+
+    private static final int CONNECT_TIMEOUT = 3000;
+    private static final long MIN_RETRY_WAIT = 100;
+    private static final long MAX_RETRY_WAIT = 5000;
+
+    private final String bindAddress;
+    private final int port;
+    private final List<InetSocketAddress> peers;
+    private final byte[] secret;
+
+    private final List<Peer> connections;
+    private final Set<Socket> accepted;
+    private final AtomicLong dropped = new AtomicLong();
+    private final SecureRandom random = new SecureRandom();
+
+    private volatile Receiver receiver;
+    private volatile boolean running;
+    private ServerSocket server;
+
+    /**
+     * コンストラクタ
+     * @param bindAddress 待ち受けるアドレス
+     * @param port 待ち受けるポート（0なら空いているポート）
+     * @param peers 送信先のプロキシのアドレス
+     * @param secret 共有の合言葉
+     */
+    public TcpReplicationTransport(
+            String bindAddress, int port, List<InetSocketAddress> peers, String secret) {
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.peers = new ArrayList<InetSocketAddress>(peers);
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.connections = new ArrayList<Peer>();
+        this.accepted = Collections.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+    }
+
+    /**
+     * 待ち受けを開始し、送信用のスレッドを起動する
+     * @param receiver 受信したフレームを渡す先
+     * @throws IOException 待ち受けを開始できなかった場合
+     * @see com.github.ucchyocean.lc3.messaging.ReplicationTransport#start(com.github.ucchyocean.lc3.messaging.ReplicationTransport.Receiver)
+     */
+    @Override
+    public synchronized void start(Receiver receiver) throws IOException {
+
+        this.receiver = receiver;
+        server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(new InetSocketAddress(InetAddress.getByName(bindAddress), port));
+        running = true;
+
+        startThread("LunaChat-Replication-Accept", new Runnable() {
+            public void run() {
+                acceptLoop();
+            }
+        });
+
+        for ( InetSocketAddress address : peers ) {
+            final Peer peer = new Peer(address);
+            connections.add(peer);
+            startThread("LunaChat-Replication-" + address, new Runnable() {
+                public void run() {
+                    peer.sendLoop();
+                }
+            });
+        }
+    }
+
+    /**
+     * すべての送信先へ、フレームを送信する。送信は、相手ごとの送信用スレッドで行われる。
+     * @param frame フレーム
+     * @see com.github.ucchyocean.lc3.messaging.ReplicationTransport#send(byte[])
+     */
+    @Override
+    public void send(byte[] frame) {
+        for ( Peer peer : connections ) {
+            if ( !peer.queue.offer(frame) ) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 待ち受けと、すべての接続を停止する
+     * @see com.github.ucchyocean.lc3.messaging.ReplicationTransport#stop()
+     */
+    @Override
+    public synchronized void stop() {
+
+        if ( !running ) {
+            return;
+        }
+        running = false;
+
+        closeQuietly(server);
+        for ( Socket socket : accepted ) {
+            closeQuietly(socket);
+        }
+        for ( Peer peer : connections ) {
+            peer.close();
+        }
+    }
+
+    /**
+     * @return 待ち受けているポート
+     */
+    public int getLocalPort() {
+        return server == null ? -1 : server.getLocalPort();
+    }
+
+    /**
+     * @return 送信待ちがあふれたため、捨てたフレームの数
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * 接続を受け付けて、接続ごとに受信用のスレッドを起動する。
+     * 上限を超える接続は、すぐに切断する。
+     */
+    private void acceptLoop() {
+        while ( running ) {
+            try {
+                final Socket socket = server.accept();
+                if ( accepted.size() >= MAX_CONNECTIONS ) {
+                    closeQuietly(socket);
+                    continue;
+                }
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout(HANDSHAKE_TIMEOUT);
+                accepted.add(socket);
+                startThread("LunaChat-Replication-" + socket.getRemoteSocketAddress(), new Runnable() {
+                    public void run() {
+                        receiveLoop(socket);
+                    }
+                });
+            } catch (IOException e) {
+                if ( running ) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * チャレンジへの応答で合言葉を確認してから、接続が切れるまでフレームを受信する
+     * @param socket 受け付けた接続
+     */
+    private void receiveLoop(Socket socket) {
+        try ( DataInputStream in = new DataInputStream(
+                new BufferedInputStream(socket.getInputStream())) ) {
+
+            byte[] challenge = new byte[CHALLENGE_LENGTH];
+            random.nextBytes(challenge);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(MAGIC);
+            out.write(challenge);
+            out.flush();
+
+            if ( in.readInt() != MAGIC ) {
+                return;
+            }
+            byte[] response = new byte[MAC_LENGTH];
+            in.readFully(response);
+            if ( !MessageDigest.isEqual(deriveKey(AUTH_LABEL, challenge), response) ) {
+                return;
+            }
+
+            // 認証が済んだら、フレームが来るまで待ち続ける
+            socket.setSoTimeout(0);
+            Mac mac = createMac(deriveKey(SESSION_LABEL, challenge));
+            byte[] given = new byte[MAC_LENGTH];
+            long sequence = 0;
+
+            while ( running ) {
+                int length = in.readInt();
+                if ( length < 0 || length > MAX_FRAME_LENGTH ) {
+                    return;
+                }
+                byte[] frame = new byte[length];
+                in.readFully(frame);
+                in.readFully(given);
+                if ( !MessageDigest.isEqual(sign(mac, sequence++, frame), given) ) {
+                    return;
+                }
+                Receiver r = receiver;
+                if ( r != null ) {
+                    r.receive(frame);
+                }
+            }
+
+        } catch (IOException e) {
+            // 切断された
+        } finally {
+            accepted.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * 合言葉とチャレンジから、用途ごとの値を作る
+     * @param label 用途
+     * @param challenge チャレンジ
+     * @return HMAC(合言葉, 用途 チャレンジ)
+     */
+    private byte[] deriveKey(byte[] label, byte[] challenge) {
+        Mac mac = createMac(secret);
+        mac.update(label);
+        mac.update(challenge);
+        return mac.doFinal();
+    }
+
+    /**
+     * フレームのHMACを作る
+     * @param mac セッション鍵で初期化したMac
+     * @param sequence 接続してからのフレームの連番
+     * @param frame フレーム
+     * @return HMAC(セッション鍵, 連番 フレーム)
+     */
+    private static byte[] sign(Mac mac, long sequence, byte[] frame) {
+        for ( int shift = 56; shift >= 0; shift -= 8 ) {
+            mac.update((byte)(sequence >>> shift));
+        }
+        mac.update(frame);
+        return mac.doFinal();
+    }
+
+    private static Mac createMac(byte[] key) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(key, HMAC_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            // HmacSHA256は、すべてのJava実行環境で使用できる
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void startThread(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if ( closeable == null ) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // do nothing.
+        }
+    }
+
+    /**
+     * 送信先のプロキシ
+     */
+    private class Peer {
+
+        private final InetSocketAddress address;
+        private final BlockingQueue<byte[]> queue;
+        private volatile Socket socket;
+        private DataOutputStream out;
+        private Mac mac;
+        private long sequence;
+
+        private Peer(InetSocketAddress address) {
+            this.address = address;
+            this.queue = new ArrayBlockingQueue<byte[]>(QUEUE_CAPACITY);
+        }
+
+        /**
+         * 送信待ちのフレームを、接続が切れたら再接続しながら送信し続ける。
+         * 送信に失敗したフレームは、再接続してから送り直す。重複して届いた場合は、受信側で捨てられる。
+         */
+        private void sendLoop() {
+
+            // flushが成功するまでは、書き込んだフレームも送信済みとせずに持っておく
+            List<byte[]> batch = new ArrayList<byte[]>();
+            long wait = MIN_RETRY_WAIT;
+
+            while ( running ) {
+                try {
+                    if ( batch.isEmpty() ) {
+                        byte[] frame = queue.poll(1, TimeUnit.SECONDS);
+                        if ( frame == null ) {
+                            continue;
+                        }
+                        // 続けて送信待ちになっているフレームは、まとめて書き込んでから送る
+                        batch.add(frame);
+                        queue.drainTo(batch);
+                    }
+
+                    if ( out == null ) {
+                        connect();
+                    }
+
+                    for ( byte[] frame : batch ) {
+                        out.writeInt(frame.length);
+                        out.write(frame);
+                        out.write(sign(mac, sequence++, frame));
+                    }
+                    out.flush();
+                    batch.clear();
+                    wait = MIN_RETRY_WAIT;
+
+                } catch (InterruptedException e) {
+                    return;
+                } catch (IOException e) {
+                    disconnect();
+                    try {
+                        Thread.sleep(wait);
+                    } catch (InterruptedException e1) {
+                        return;
+                    }
+                    wait = Math.min(wait * 2, MAX_RETRY_WAIT);
+                }
+            }
+            disconnect();
+        }
+
+        private void connect() throws IOException {
+            Socket s = new Socket();
+            socket = s;
+            s.setTcpNoDelay(true);
+            // 起動時に名前解決できなかった相手は、接続するたびに名前解決し直す
+            InetSocketAddress target = address;
+            if ( target.isUnresolved() ) {
+                target = new InetSocketAddress(target.getHostString(), target.getPort());
+            }
+            s.connect(target, CONNECT_TIMEOUT);
+
+            // 受信側のチャレンジに、合言葉そのものではなくHMACで応答する
+            s.setSoTimeout(HANDSHAKE_TIMEOUT);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            if ( in.readInt() != MAGIC ) {
+                throw new IOException("Unexpected handshake from " + address);
+            }
+            byte[] challenge = new byte[CHALLENGE_LENGTH];
+            in.readFully(challenge);
+            s.setSoTimeout(0);
+
+            out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            out.writeInt(MAGIC);
+            out.write(deriveKey(AUTH_LABEL, challenge));
+            mac = createMac(deriveKey(SESSION_LABEL, challenge));
+            sequence = 0;
+        }
+
+        private void disconnect() {
+            closeQuietly(socket);
+            socket = null;
+            out = null;
+        }
+
+        private void close() {
+            // 送信用スレッドは、runningを確認して終了する
+            closeQuietly(socket);
+        }
+    }
+}
@@ -0,0 +1,536 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.storage;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import com.github.ucchyocean.lc3.LunaChat;
+import com.github.ucchyocean.lc3.util.YamlConfig;
+
+/**
+ * JDBCによる保存先（SQLiteやH2などの組み込みデータベースを想定）。
+ * 変更は行単位で書き込まれるので、データ量が多くてもファイル全体の書き直しは発生しない。
+ * チャンネルのデータのうち、リストの値（メンバーなど）は1要素を1行として保存し、
+ * 保存のたびに前回保存した内容との差分だけを書き込む。
+ * データベースへのアクセスは全て専用の1スレッドで順番に行うので、保存系のメソッドは待たずに戻る。
+ * @author ucchy
+ */
+public class JdbcStorage implements LunaChatStorage {
+
+    private static final String TABLE_CHANNELS = "lunachat_channels";
+    private static final String TABLE_CHANNEL_LISTS = "lunachat_channel_lists";
+    private static final String TABLE_DATA = "lunachat_data";
+
+    /** 読み込みと書き込みを待つ最大時間（秒） */
+    private static final int TIMEOUT_SECONDS = 60;
+
+    private Connection connection;
+    private ExecutorService executor;
+
+    /** チャンネル名 → リストのキー → 最後に保存したリストの内容（DBスレッドからのみアクセスする） */
+    private HashMap<String, Map<String, Set<String>>> savedLists;
+
+    /** リストの要素の並び順（DBスレッドからのみアクセスする） */
+    private long nextSeq;
+
+    /**
+     * コンストラクタ
+     * @param url JDBC接続URL
+     * @param driver JDBCドライバのクラス名（空文字列ならロードしない）
+     * @throws SQLException 接続やテーブルの作成に失敗した場合
+     */
+    public JdbcStorage(String url, String driver) throws SQLException {
+
+        if ( driver != null && !driver.isEmpty() ) {
+            try {
+                Class.forName(driver);
+            } catch (ClassNotFoundException e) {
+                throw new SQLException("JDBC driver " + driver + " is not found.", e);
+            }
+        }
+
+        connection = DriverManager.getConnection(url);
+        savedLists = new HashMap<String, Map<String, Set<String>>>();
+        createTables();
+
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "LunaChat-JdbcStorage");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#getName()
+     */
+    @Override
+    public String getName() {
+        return "jdbc";
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#loadChannels()
+     */
+    @Override
+    public Map<String, Map<String, Object>> loadChannels() {
+
+        Map<String, Map<String, Object>> result = call(new Callable<Map<String, Map<String, Object>>>() {
+            @Override
+            public Map<String, Map<String, Object>> call() throws Exception {
+
+                Map<String, Map<String, Object>> channels = new HashMap<String, Map<String, Object>>();
+                savedLists.clear();
+
+                try ( Statement st = connection.createStatement();
+                        ResultSet rs = st.executeQuery("SELECT name, data FROM " + TABLE_CHANNELS) ) {
+                    while ( rs.next() ) {
+                        Map<String, Object> data = fromYaml(rs.getString(2));
+                        Map<String, Set<String>> lists = new HashMap<String, Set<String>>();
+                        for ( String key : data.keySet() ) {
+                            if ( data.get(key) instanceof List ) {
+                                lists.put(key, new LinkedHashSet<String>());
+                            }
+                        }
+                        channels.put(rs.getString(1), data);
+                        savedLists.put(rs.getString(1), lists);
+                    }
+                }
+
+                try ( Statement st = connection.createStatement();
+                        ResultSet rs = st.executeQuery("SELECT channel, list_key, item, seq FROM "
+                                + TABLE_CHANNEL_LISTS + " ORDER BY seq") ) {
+                    while ( rs.next() ) {
+                        Map<String, Set<String>> lists = savedLists.get(rs.getString(1));
+                        if ( lists == null || !lists.containsKey(rs.getString(2)) ) {
+                            continue;
+                        }
+                        lists.get(rs.getString(2)).add(rs.getString(3));
+                        nextSeq = Math.max(nextSeq, rs.getLong(4) + 1);
+                    }
+                }
+
+                for ( String name : channels.keySet() ) {
+                    Map<String, Set<String>> lists = savedLists.get(name);
+                    for ( String key : lists.keySet() ) {
+                        channels.get(name).put(key, new ArrayList<String>(lists.get(key)));
+                    }
+                }
+
+                return channels;
+            }
+        });
+
+        return (result == null) ? new HashMap<String, Map<String, Object>>() : result;
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#saveChannel(java.lang.String, java.util.Map)
+     */
+    @Override
+    public boolean saveChannel(final String name, final Map<String, Object> data) {
+
+        return submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+
+                // リスト以外の値は、まとめてYAMLにして1行に保存する
+                // リストの値は、キーだけを空のリストとして残しておく
+                Map<String, Object> values = new HashMap<String, Object>();
+                Map<String, Set<String>> lists = new HashMap<String, Set<String>>();
+                for ( String key : data.keySet() ) {
+                    Object value = data.get(key);
+                    if ( value instanceof List ) {
+                        Set<String> set = new LinkedHashSet<String>();
+                        for ( Object item : (List<?>)value ) {
+                            if ( item != null ) set.add(item.toString());
+                        }
+                        lists.put(key, set);
+                        values.put(key, new ArrayList<String>());
+                    } else {
+                        values.put(key, value);
+                    }
+                }
+
+                Map<String, Set<String>> saved = savedLists.get(name);
+
+                connection.setAutoCommit(false);
+                try {
+                    if ( saved == null ) {
+                        // 前回保存した内容が分からない場合は、全て書き直す
+                        execute("DELETE FROM " + TABLE_CHANNEL_LISTS + " WHERE channel=?", name);
+                        saved = new HashMap<String, Set<String>>();
+                    }
+                    upsert("UPDATE " + TABLE_CHANNELS + " SET data=? WHERE name=?",
+                            "INSERT INTO " + TABLE_CHANNELS + " (data, name) VALUES (?, ?)",
+                            toYaml(values), name);
+
+                    // 前回保存した内容との差分だけを書き込む
+                    try ( PreparedStatement delete = connection.prepareStatement("DELETE FROM "
+                            + TABLE_CHANNEL_LISTS + " WHERE channel=? AND list_key=? AND item=?");
+                            PreparedStatement insert = connection.prepareStatement("INSERT INTO "
+                            + TABLE_CHANNEL_LISTS + " (channel, list_key, item, seq) VALUES (?, ?, ?, ?)") ) {
+
+                        Set<String> keys = new LinkedHashSet<String>(saved.keySet());
+                        keys.addAll(lists.keySet());
+                        for ( String key : keys ) {
+                            Set<String> before = saved.containsKey(key) ? saved.get(key) : new LinkedHashSet<String>();
+                            Set<String> after = lists.containsKey(key) ? lists.get(key) : new LinkedHashSet<String>();
+                            for ( String value : before ) {
+                                if ( !after.contains(value) ) {
+                                    delete.setString(1, name);
+                                    delete.setString(2, key);
+                                    delete.setString(3, value);
+                                    delete.addBatch();
+                                }
+                            }
+                            for ( String value : after ) {
+                                if ( !before.contains(value) ) {
+                                    insert.setString(1, name);
+                                    insert.setString(2, key);
+                                    insert.setString(3, value);
+                                    insert.setLong(4, nextSeq++);
+                                    insert.addBatch();
+                                }
+                            }
+                        }
+                        delete.executeBatch();
+                        insert.executeBatch();
+                    }
+
+                    connection.commit();
+                    savedLists.put(name, lists);
+
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#removeChannel(java.lang.String)
+     */
+    @Override
+    public boolean removeChannel(final String name) {
+
+        return submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                connection.setAutoCommit(false);
+                try {
+                    execute("DELETE FROM " + TABLE_CHANNELS + " WHERE name=?", name);
+                    execute("DELETE FROM " + TABLE_CHANNEL_LISTS + " WHERE channel=?", name);
+                    connection.commit();
+                    savedLists.remove(name);
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#loadData(com.github.ucchyocean.lc3.storage.StorageDataType)
+     */
+    @Override
+    public Map<String, Object> loadData(final StorageDataType type) {
+
+        Map<String, Object> result = call(new Callable<Map<String, Object>>() {
+            @Override
+            public Map<String, Object> call() throws Exception {
+                Map<String, Object> data = new HashMap<String, Object>();
+                try ( PreparedStatement st = connection.prepareStatement(
+                        "SELECT data_key, data_value FROM " + TABLE_DATA + " WHERE data_type=?") ) {
+                    st.setString(1, type.getId());
+                    try ( ResultSet rs = st.executeQuery() ) {
+                        while ( rs.next() ) {
+                            Object value = fromYaml(rs.getString(2)).get("value");
+                            if ( value != null ) {
+                                data.put(rs.getString(1), value);
+                            }
+                        }
+                    }
+                }
+                return data;
+            }
+        });
+
+        return (result == null) ? new HashMap<String, Object>() : result;
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#putData(com.github.ucchyocean.lc3.storage.StorageDataType, java.lang.String, java.lang.Object)
+     */
+    @Override
+    public boolean putData(final StorageDataType type, final String key, final Object value) {
+
+        return submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                upsertData(type, key, value);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#removeData(com.github.ucchyocean.lc3.storage.StorageDataType, java.lang.String)
+     */
+    @Override
+    public boolean removeData(final StorageDataType type, final String key) {
+
+        return submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                execute("DELETE FROM " + TABLE_DATA + " WHERE data_type=? AND data_key=?", type.getId(), key);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#saveAllData(com.github.ucchyocean.lc3.storage.StorageDataType, java.util.Map)
+     */
+    @Override
+    public boolean saveAllData(final StorageDataType type, Map<String, ?> data) {
+
+        final Map<String, Object> copy = new HashMap<String, Object>(data);
+
+        return submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                connection.setAutoCommit(false);
+                try {
+                    execute("DELETE FROM " + TABLE_DATA + " WHERE data_type=?", type.getId());
+                    for ( String key : copy.keySet() ) {
+                        upsertData(type, key, copy.get(key));
+                    }
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#flush()
+     */
+    @Override
+    public void flush() {
+        call(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#close()
+     */
+    @Override
+    public void close() {
+
+        if ( executor.isShutdown() ) {
+            return;
+        }
+
+        executor.shutdown();
+        try {
+            executor.awaitTermination(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * テーブルが無ければ作成する
+     * @throws SQLException
+     */
+    private void createTables() throws SQLException {
+        try ( Statement st = connection.createStatement() ) {
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS " + TABLE_CHANNELS + " ("
+                    + "name VARCHAR(255) NOT NULL PRIMARY KEY, "
+                    + "data TEXT NOT NULL)");
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS " + TABLE_CHANNEL_LISTS + " ("
+                    + "channel VARCHAR(255) NOT NULL, "
+                    + "list_key VARCHAR(64) NOT NULL, "
+                    + "item VARCHAR(255) NOT NULL, "
+                    + "seq BIGINT NOT NULL, "
+                    + "PRIMARY KEY (channel, list_key, item))");
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS " + TABLE_DATA + " ("
+                    + "data_type VARCHAR(32) NOT NULL, "
+                    + "data_key VARCHAR(255) NOT NULL, "
+                    + "data_value TEXT, "
+                    + "PRIMARY KEY (data_type, data_key))");
+        }
+    }
+
+    /**
+     * データを1行、挿入または更新する
+     * @param type データの種類
+     * @param key キー
+     * @param value 値
+     * @throws SQLException
+     */
+    private void upsertData(StorageDataType type, String key, Object value) throws SQLException {
+        Map<String, Object> wrapper = new HashMap<String, Object>();
+        wrapper.put("value", value);
+        upsert("UPDATE " + TABLE_DATA + " SET data_value=? WHERE data_type=? AND data_key=?",
+                "INSERT INTO " + TABLE_DATA + " (data_value, data_type, data_key) VALUES (?, ?, ?)",
+                toYaml(wrapper), type.getId(), key);
+    }
+
+    /**
+     * 行を更新し、更新対象の行が無ければ挿入する。
+     * どちらのSQLも、同じ順番でパラメータを受け取ること。
+     * @param update 更新のSQL
+     * @param insert 挿入のSQL
+     * @param params パラメータ
+     * @throws SQLException
+     */
+    private void upsert(String update, String insert, String... params) throws SQLException {
+        if ( execute(update, params) == 0 ) {
+            execute(insert, params);
+        }
+    }
+
+    /**
+     * SQLを実行する
+     * @param sql SQL
+     * @param params パラメータ
+     * @return 更新された行数
+     * @throws SQLException
+     */
+    private int execute(String sql, String... params) throws SQLException {
+        try ( PreparedStatement st = connection.prepareStatement(sql) ) {
+            for ( int i = 0; i < params.length; i++ ) {
+                st.setString(i + 1, params[i]);
+            }
+            return st.executeUpdate();
+        }
+    }
+
+    /**
+     * DBスレッドに処理を登録する。処理の完了は待たない。
+     * @param task 処理
+     * @return 登録できたかどうか
+     */
+    private boolean submit(final Callable<Void> task) {
+
+        if ( executor.isShutdown() ) {
+            return false;
+        }
+
+        executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                try {
+                    return task.call();
+                } catch (Exception e) {
+                    LunaChat.getPlugin().log(Level.WARNING, "Failed to write to the database: " + e);
+                    e.printStackTrace();
+                    throw e;
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * DBスレッドで処理を実行し、完了を待って結果を返す
+     * @param task 処理
+     * @return 結果、失敗した場合はnull
+     */
+    private <T> T call(Callable<T> task) {
+
+        if ( executor.isShutdown() ) {
+            return null;
+        }
+
+        Future<T> future = executor.submit(task);
+        try {
+            return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * MapをYAMLの文字列に変換する
+     * @param map Map
+     * @return YAMLの文字列
+     */
+    private static String toYaml(Map<String, Object> map) {
+        YamlConfig config = new YamlConfig();
+        for ( String key : map.keySet() ) {
+            config.set(key, map.get(key));
+        }
+        return config.getRawData();
+    }
+
+    /**
+     * YAMLの文字列をMapに変換する
+     * @param yaml YAMLの文字列
+     * @return Map
+     * @throws IOException 変換できない場合
+     */
+    private static Map<String, Object> fromYaml(String yaml) throws IOException {
+        YamlConfig config = YamlConfig.load(new StringReader(yaml));
+        Map<String, Object> map = new HashMap<String, Object>();
+        for ( String key : config.getKeys(false) ) {
+            map.put(key, config.get(key));
+        }
+        return map;
+    }
+}
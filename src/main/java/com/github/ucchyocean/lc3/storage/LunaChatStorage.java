@@ -0,0 +1,88 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.storage;
+
+import java.util.Map;
+
+/**
+ * チャンネルと、各種設定データの保存先のインターフェイス。
+ * 保存系のメソッドは、実装によっては遅延して書き込まれるが、
+ * 同じ保存先への変更は、呼び出された順に反映される。
+ * 保存系のメソッドに渡した内容は、呼び出し後に変更しないこと。
+ * @author ucchy
+ */
+public interface LunaChatStorage {
+
+    /**
+     * 保存先の種類を示す名前を返す
+     * @return 名前
+     */
+    public String getName();
+
+    /**
+     * 全てのチャンネルのデータを読み込む
+     * @return チャンネル名 → シリアライズされたチャンネルのデータ
+     */
+    public Map<String, Map<String, Object>> loadChannels();
+
+    /**
+     * チャンネルのデータを保存する
+     * @param name チャンネル名
+     * @param data シリアライズされたチャンネルのデータ
+     * @return 保存したかどうか
+     */
+    public boolean saveChannel(String name, Map<String, Object> data);
+
+    /**
+     * チャンネルのデータを削除する
+     * @param name チャンネル名
+     * @return 削除したかどうか
+     */
+    public boolean removeChannel(String name);
+
+    /**
+     * 指定した種類のデータを全て読み込む
+     * @param type データの種類
+     * @return キー → 値
+     */
+    public Map<String, Object> loadData(StorageDataType type);
+
+    /**
+     * 指定した種類のデータの、1件の値を保存する
+     * @param type データの種類
+     * @param key キー
+     * @param value 値（String、Boolean、List&lt;String&gt;のいずれか）
+     * @return 保存したかどうか
+     */
+    public boolean putData(StorageDataType type, String key, Object value);
+
+    /**
+     * 指定した種類のデータの、1件の値を削除する
+     * @param type データの種類
+     * @param key キー
+     * @return 削除したかどうか
+     */
+    public boolean removeData(StorageDataType type, String key);
+
+    /**
+     * 指定した種類のデータを、全て置き換えて保存する
+     * @param type データの種類
+     * @param data キー → 値
+     * @return 保存したかどうか
+     */
+    public boolean saveAllData(StorageDataType type, Map<String, ?> data);
+
+    /**
+     * 保存待ちの内容を、全てすぐに書き込む
+     */
+    public void flush();
+
+    /**
+     * 保存待ちの内容を全て書き込んでから、保存先を閉じる。
+     * 閉じた後の保存は、すぐに書き込まれるか、無視される。
+     */
+    public void close();
+}
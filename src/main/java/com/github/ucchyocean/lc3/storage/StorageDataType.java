@@ -0,0 +1,54 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.storage;
+
+/**
+ * チャンネル以外の、キーと値の組で保存されるデータの種類
+ * @author ucchy
+ */
+public enum StorageDataType {
+
+    /** デフォルトチャンネル設定（プレイヤー → チャンネル名） */
+    DEFAULTS("defaults"),
+
+    /** テンプレート設定（テンプレートID → フォーマット） */
+    TEMPLATES("templates"),
+
+    /** Japanize設定（プレイヤー → オン/オフ） */
+    JAPANIZE("japanize"),
+
+    /** Japanize変換辞書（ワード → 変換結果） */
+    DICTIONARY("dictionary"),
+
+    /** hideリスト（hideされているプレイヤー → hideしているプレイヤーのリスト） */
+    HIDELIST("hidelist");
+
+    private final String id;
+
+    /**
+     * コンストラクタ
+     * @param id 識別文字列
+     */
+    StorageDataType(String id) {
+        this.id = id;
+    }
+
+    /**
+     * 識別文字列を返す
+     * @return 識別文字列
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * YAMLで保存するときのファイル名を返す
+     * @return ファイル名
+     */
+    public String getFileName() {
+        return id + ".yml";
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.storage;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.github.ucchyocean.lc3.LunaChat;
+import com.github.ucchyocean.lc3.LunaChatConfig;
+import com.github.ucchyocean.lc3.util.WriteBehindSaver;
+import com.github.ucchyocean.lc3.util.YamlConfig;
+
+/**
+ * YAMLファイルによる保存先。
+ * チャンネルは1チャンネルにつき1ファイル、その他のデータは種類ごとに1ファイルに保存する。
+ * 書き込みはWriteBehindSaverによって遅延され、まとめて行われる。
+ * @author ucchy
+ */
+public class YamlStorage implements LunaChatStorage {
+
+    private static final String FOLDER_NAME_CHANNELS = "channels";
+
+    /** チャンネルファイルを並列に読み込むときの、1タスクあたりのファイル数 */
+    private static final int LOAD_CHUNK_SIZE = 64;
+
+    private File dataFolder;
+    private WriteBehindSaver saver;
+
+    /** 種類ごとのデータの、最後に保存された内容 */
+    private EnumMap<StorageDataType, HashMap<String, Object>> cache;
+
+    /**
+     * コンストラクタ
+     * @param dataFolder データフォルダ
+     */
+    public YamlStorage(File dataFolder) {
+        this.dataFolder = dataFolder;
+        this.saver = new WriteBehindSaver();
+        this.cache = new EnumMap<StorageDataType, HashMap<String, Object>>(StorageDataType.class);
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#getName()
+     */
+    @Override
+    public String getName() {
+        return "yaml";
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#loadChannels()
+     */
+    @Override
+    public Map<String, Map<String, Object>> loadChannels() {
+
+        Map<String, Map<String, Object>> result = new ConcurrentHashMap<String, Map<String, Object>>();
+
+        // フォルダーの取得
+        File folder = new File(dataFolder, FOLDER_NAME_CHANNELS);
+        if ( !folder.exists() ) {
+            return result;
+        }
+
+        File[] files = folder.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".yml");
+            }
+        });
+        if ( files == null ) files = new File[0];
+
+        // ファイル数が多いと時間がかかるので、Fork/Joinプールで並列に解析する
+        ForkJoinPool.commonPool().invoke(new LoadChannelsTask(files, 0, files.length, result));
+
+        return result;
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#saveChannel(java.lang.String, java.util.Map)
+     */
+    @Override
+    public boolean saveChannel(String name, Map<String, Object> data) {
+
+        // フォルダーの取得と、必要に応じて作成
+        File folder = new File(dataFolder, FOLDER_NAME_CHANNELS);
+        if ( !folder.exists() ) {
+            folder.mkdirs();
+        }
+
+        YamlConfig conf = new YamlConfig();
+        for ( String key : data.keySet() ) {
+            conf.set(key, data.get(key));
+        }
+        return saver.save(new File(folder, name + ".yml"), conf, getSaveDelayMillis());
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#removeChannel(java.lang.String)
+     */
+    @Override
+    public boolean removeChannel(String name) {
+
+        File file = new File(new File(dataFolder, FOLDER_NAME_CHANNELS), name + ".yml");
+
+        // 保存待ちの内容が後から書き込まれないように、取り消しておく
+        saver.cancel(file);
+
+        if ( !file.exists() ) {
+            return false;
+        }
+        return file.delete();
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#loadData(com.github.ucchyocean.lc3.storage.StorageDataType)
+     */
+    @Override
+    public Map<String, Object> loadData(StorageDataType type) {
+
+        File file = new File(dataFolder, type.getFileName());
+        if ( !file.exists() ) {
+            makeEmptyFile(file);
+        }
+
+        YamlConfig config = YamlConfig.load(file);
+
+        HashMap<String, Object> data = new HashMap<String, Object>();
+        for ( String key : config.getKeys(false) ) {
+            Object value;
+            if ( type == StorageDataType.HIDELIST ) {
+                value = config.getStringList(key);
+            } else if ( type == StorageDataType.JAPANIZE ) {
+                value = config.getBoolean(key);
+            } else {
+                value = config.getString(key);
+            }
+            if ( value != null ) {
+                data.put(key, value);
+            }
+        }
+
+        cache.put(type, data);
+        return new HashMap<String, Object>(data);
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#putData(com.github.ucchyocean.lc3.storage.StorageDataType, java.lang.String, java.lang.Object)
+     */
+    @Override
+    public boolean putData(StorageDataType type, String key, Object value) {
+        getCache(type).put(key, value);
+        return saveData(type);
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#removeData(com.github.ucchyocean.lc3.storage.StorageDataType, java.lang.String)
+     */
+    @Override
+    public boolean removeData(StorageDataType type, String key) {
+        getCache(type).remove(key);
+        return saveData(type);
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#saveAllData(com.github.ucchyocean.lc3.storage.StorageDataType, java.util.Map)
+     */
+    @Override
+    public boolean saveAllData(StorageDataType type, Map<String, ?> data) {
+        cache.put(type, new HashMap<String, Object>(data));
+        return saveData(type);
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#flush()
+     */
+    @Override
+    public void flush() {
+        saver.flush();
+    }
+
+    /**
+     * @see com.github.ucchyocean.lc3.storage.LunaChatStorage#close()
+     */
+    @Override
+    public void close() {
+        saver.shutdown();
+    }
+
+    /**
+     * 指定した種類のデータの、最後に保存された内容を返す。
+     * まだ読み込まれていない場合は、ファイルから読み込む。
+     * @param type データの種類
+     * @return データ
+     */
+    private HashMap<String, Object> getCache(StorageDataType type) {
+        if ( !cache.containsKey(type) ) {
+            loadData(type);
+        }
+        return cache.get(type);
+    }
+
+    /**
+     * 指定した種類のデータを、ファイルに保存する
+     * @param type データの種類
+     * @return 保存したかどうか
+     */
+    private boolean saveData(StorageDataType type) {
+        YamlConfig config = new YamlConfig();
+        Map<String, Object> data = getCache(type);
+        for ( String key : data.keySet() ) {
+            config.set(key, data.get(key));
+        }
+        return saver.save(new File(dataFolder, type.getFileName()), config, getSaveDelayMillis());
+    }
+
+    /**
+     * 書き込みを遅延させる時間を返す
+     * @return 遅延時間（ミリ秒）
+     */
+    private long getSaveDelayMillis() {
+        LunaChatConfig config = LunaChat.getConfig();
+        return (config == null) ? 0 : config.getSaveDelay() * 1000L;
+    }
+
+    /**
+     * チャンネルファイルを読み込む
+     * @param file ファイル
+     * @return シリアライズされたチャンネルのデータ
+     */
+    private static Map<String, Object> loadChannelFile(File file) {
+        YamlConfig config = YamlConfig.load(file);
+        Map<String, Object> data = new HashMap<String, Object>();
+        for ( String key : config.getKeys(false) ) {
+            data.put(key, config.get(key));
+        }
+        return data;
+    }
+
+    /**
+     * チャンネルファイルを分割して、並列に読み込むタスク
+     * @author ucchy
+     */
+    private static class LoadChannelsTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final File[] files;
+        private final int from;
+        private final int to;
+        private final Map<String, Map<String, Object>> result;
+
+        /**
+         * コンストラクタ
+         * @param files 全てのファイル
+         * @param from 読み込む範囲の開始位置
+         * @param to 読み込む範囲の終了位置（この位置は含まない）
+         * @param result 読み込み結果の格納先
+         */
+        LoadChannelsTask(File[] files, int from, int to, Map<String, Map<String, Object>> result) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+            this.result = result;
+        }
+
+        /**
+         * @see java.util.concurrent.RecursiveAction#compute()
+         */
+        @Override
+        protected void compute() {
+
+            if ( to - from > LOAD_CHUNK_SIZE ) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new LoadChannelsTask(files, from, middle, result),
+                        new LoadChannelsTask(files, middle, to, result));
+                return;
+            }
+
+            for ( int i = from; i < to; i++ ) {
+                File file = files[i];
+                String name = file.getName().substring(0, file.getName().length() - ".yml".length());
+                result.put(name, loadChannelFile(file));
+            }
+        }
+    }
+
+    /**
+     * 指定されたファイル出力先に、空のYamlファイルを作成する
+     * @param file 出力先
+     */
+    private void makeEmptyFile(File file) {
+        YamlConfig config = new YamlConfig();
+        try {
+            config.save(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
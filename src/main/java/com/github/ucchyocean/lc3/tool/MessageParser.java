@@ -19,7 +19,7 @@ import java.util.regex.Pattern;
 import com.github.ucchyocean.lc3.util.YamlConfig;
 
 /**
- * messages_ja.yml を読んで、Messagesクラス用のメソッドを生成するツール
+ * messages_ja.yml を読んで、Messagesクラス用のメソッドと、コンパイル済みメッセージのクラスを生成するツール
  * @author ucchy
  */
 public class MessageParser {
@@ -90,6 +90,8 @@ public class MessageParser {
     private static List<String> makeAutoGeneratedMethods() {
 
         List<String> result = new ArrayList<>();
+        List<String> fields = new ArrayList<>();
+        List<String> compiles = new ArrayList<>();
 
         YamlConfig yaml = YamlConfig.load(new File(INPUT_FILE_PATH));
         for ( String key : yaml.getKeys(false) ) {
@@ -105,61 +107,67 @@ public class MessageParser {
             }
 
             String arguments = "";
+            String names = "";
+            String values = "";
             for ( String keyword : keywords ) {
                 if ( arguments.length() > 0 ) arguments += ", ";
                 arguments += "Object " + keyword;
+                names += ", \"" + keyword + "\"";
+                if ( values.length() > 0 ) values += ", ";
+                values += keyword;
             }
 
             // 出力
+            result.add("");
+            result.add("    /**");
+            result.add("     * " + value);
+            result.add("     */");
             if ( !CLICKABLE_MESSAGES.contains(key) ) {
-                result.add("");
-                result.add("    /**");
-                result.add("     * " + value);
-                result.add("     */");
                 result.add(String.format(
                         "    public static String %s(%s) {", key, arguments));
                 result.add(String.format(
-                        "        String msg = resources.getString(\"%s\");", key));
-                result.add(String.format(
-                        "        if ( msg == null ) return \"\";", key));
-                result.add("        KeywordReplacer kr = new KeywordReplacer(msg);");
+                        "        return templates.%s.toText(%s);", key, values));
 
-                for ( String keyword : keywords ) {
-                    result.add(String.format(
-                            "        kr.replace(\"%%%s%%\", %s.toString());", keyword, keyword));
-                }
+                String prefix = "\"\"";
                 if ( key.startsWith("errmsg") ) {
-                    result.add("        return Utility.replaceColorCode(resources.getString(\"errorPrefix\", \"\") + kr.toString());");
+                    prefix = "errorPrefix";
                 } else if ( key.startsWith("cmdmsg") ) {
-                    result.add("        return Utility.replaceColorCode(resources.getString(\"infoPrefix\", \"\") + kr.toString());");
-                } else {
-                    result.add("        return Utility.replaceColorCode(kr.toString());");
+                    prefix = "infoPrefix";
                 }
-                result.add("    }");
+                compiles.add(String.format(
+                        "            %s = MessageTemplate.compile(%s, resources.getString(\"%s\")%s);",
+                        key, prefix, key, names));
             } else {
-                result.add("");
-                result.add("    /**");
-                result.add("     * " + value);
-                result.add("     */");
                 result.add(String.format(
                         "    public static BaseComponent[] %s(%s) {", key, arguments));
                 result.add(String.format(
-                        "        String msg = resources.getString(\"%s\");", key));
-                result.add(String.format(
-                        "        if ( msg == null ) return new BaseComponent[0];", key));
-                result.add("        ClickableFormat cf = ClickableFormat.makeChannelClickableMessage(msg, channel.toString());");
-
-                for ( String keyword : keywords ) {
-                    if ( keyword.equals("%channel%") ) continue;
-                    result.add(String.format(
-                            "        cf.replace(\"%%%s%%\", %s.toString());", keyword, keyword));
-                }
-                result.add("        return cf.makeTextComponent();");
-                result.add("    }");
+                        "        return templates.%s.toComponents(%s);", key, values));
 
+                compiles.add(String.format(
+                        "            %s = MessageTemplate.compileClickable(resources.getString(\"%s\")%s);",
+                        key, key, names));
             }
+            result.add("    }");
+
+            fields.add("        public final MessageTemplate " + key + ";");
         }
 
+        // 全てのメッセージをまとめてコンパイルするクラス
+        result.add("");
+        result.add("    /**");
+        result.add("     * コンパイル済みのメッセージ。Messages.initialize() で、全てのメッセージをまとめて作成する。");
+        result.add("     */");
+        result.add("    public static class Templates {");
+        result.add("");
+        result.addAll(fields);
+        result.add("");
+        result.add("        private Templates(YamlConfig resources) {");
+        result.add("            String errorPrefix = resources.getString(\"errorPrefix\", \"\");");
+        result.add("            String infoPrefix = resources.getString(\"infoPrefix\", \"\");");
+        result.addAll(compiles);
+        result.add("        }");
+        result.add("    }");
+
         return result;
     }
 
@@ -0,0 +1,197 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho-Corasick法による、複数キーワードの一括検索クラス。
+ * 登録した全てのキーワードの出現箇所を、対象文字列の1回の走査で検出する。
+ * 構築後は変更しないので、複数スレッドから同時に検索してもよい。
+ * @author ucchy
+ */
+public class AhoCorasickMatcher {
+
+    /** ルートノード */
+    private final Node root;
+
+    /** キーワード */
+    private final String[] keywords;
+
+    /**
+     * コンストラクタ
+     * @param keywords キーワード（空文字列は無視される）
+     */
+    public AhoCorasickMatcher(Collection<String> keywords) {
+
+        this.root = new Node();
+        this.keywords = keywords.toArray(new String[keywords.size()]);
+
+        // トライ木の構築
+        for ( int index = 0; index < this.keywords.length; index++ ) {
+            String keyword = this.keywords[index];
+            if ( keyword == null || keyword.isEmpty() ) {
+                continue;
+            }
+            Node node = root;
+            for ( int i = 0; i < keyword.length(); i++ ) {
+                char c = keyword.charAt(i);
+                Node next = node.next.get(c);
+                if ( next == null ) {
+                    next = new Node();
+                    node.next.put(c, next);
+                }
+                node = next;
+            }
+            node.outputs = append(node.outputs, index);
+        }
+
+        // 失敗リンクの構築（幅優先）
+        LinkedList<Node> queue = new LinkedList<Node>();
+        for ( Node child : root.next.values() ) {
+            child.fail = root;
+            queue.add(child);
+        }
+        while ( !queue.isEmpty() ) {
+            Node node = queue.removeFirst();
+            for ( Map.Entry<Character, Node> entry : node.next.entrySet() ) {
+                char c = entry.getKey();
+                Node child = entry.getValue();
+                Node fail = node.fail;
+                while ( fail != root && !fail.next.containsKey(c) ) {
+                    fail = fail.fail;
+                }
+                Node target = fail.next.get(c);
+                child.fail = (target != null && target != child) ? target : root;
+                for ( int output : child.fail.outputs ) {
+                    child.outputs = append(child.outputs, output);
+                }
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * 対象文字列に含まれる、全てのキーワードの出現箇所を返す。
+     * 重なり合う出現箇所も、それぞれ返される。
+     * @param text 対象文字列
+     * @return 出現箇所（出現位置の終端順）
+     */
+    public List<Match> findAll(CharSequence text) {
+
+        List<Match> result = new ArrayList<Match>();
+        Node node = root;
+
+        for ( int i = 0; i < text.length(); i++ ) {
+            node = step(node, text.charAt(i));
+            for ( int index : node.outputs ) {
+                result.add(new Match(i + 1 - keywords[index].length(), i + 1, index));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 対象文字列に、いずれかのキーワードが含まれるかどうかを返す
+     * @param text 対象文字列
+     * @return 含まれるかどうか
+     */
+    public boolean containsAny(CharSequence text) {
+        Node node = root;
+        for ( int i = 0; i < text.length(); i++ ) {
+            node = step(node, text.charAt(i));
+            if ( node.outputs.length > 0 ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * キーワードを返す
+     * @param index キーワードのインデックス
+     * @return キーワード
+     */
+    public String getKeyword(int index) {
+        return keywords[index];
+    }
+
+    /**
+     * 状態遷移を1文字分進める
+     * @param node 現在のノード
+     * @param c 文字
+     * @return 遷移先のノード
+     */
+    private Node step(Node node, char c) {
+        while ( node != root && !node.next.containsKey(c) ) {
+            node = node.fail;
+        }
+        Node next = node.next.get(c);
+        return (next != null) ? next : root;
+    }
+
+    /**
+     * 配列の末尾に要素を追加した、新しい配列を返す
+     */
+    private static int[] append(int[] array, int value) {
+        int[] result = new int[array.length + 1];
+        System.arraycopy(array, 0, result, 0, array.length);
+        result[array.length] = value;
+        return result;
+    }
+
+    /**
+     * トライ木のノード
+     */
+    private static class Node {
+        private Map<Character, Node> next = new HashMap<Character, Node>();
+        private Node fail;
+        private int[] outputs = new int[0];
+    }
+
+    /**
+     * キーワードの出現箇所
+     */
+    public static class Match {
+
+        private final int start;
+        private final int end;
+        private final int index;
+
+        private Match(int start, int end, int index) {
+            this.start = start;
+            this.end = end;
+            this.index = index;
+        }
+
+        /**
+         * @return 出現箇所の開始位置
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * @return 出現箇所の終了位置（この位置の文字は含まない）
+         */
+        public int getEnd() {
+            return end;
+        }
+
+        /**
+         * @return 出現したキーワードのインデックス
+         */
+        public int getIndex() {
+            return index;
+        }
+    }
+}
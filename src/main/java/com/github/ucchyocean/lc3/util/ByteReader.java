@@ -0,0 +1,138 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ByteWriter で書き込んだbyte配列を、途中のストリームを作らずに直接読み込むクラス。
+ * 範囲外を読もうとしたら、IllegalArgumentExceptionになる。
+ * @author ucchy
+ */
+public class ByteReader {
+
+    private final byte[] data;
+    private final int limit;
+    private int position;
+
+    /**
+     * コンストラクタ
+     * @param data byte配列
+     */
+    public ByteReader(byte[] data) {
+        this(data, 0, data.length);
+    }
+
+    /**
+     * コンストラクタ
+     * @param data byte配列
+     * @param offset 読み込みの開始位置
+     * @param limit 読み込みの終了位置（この位置は含まない）
+     */
+    public ByteReader(byte[] data, int offset, int limit) {
+        this.data = data;
+        this.position = offset;
+        this.limit = limit;
+    }
+
+    /**
+     * @return 現在の読み込み位置
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * @return 残りの大きさ（バイト）
+     */
+    public int remaining() {
+        return limit - position;
+    }
+
+    /**
+     * 1バイト読み込む
+     * @return 値（0～255）
+     */
+    public int readByte() {
+        require(1);
+        return data[position++] & 0xFF;
+    }
+
+    /**
+     * 可変長の整数を読み込む
+     * @return 値
+     */
+    public int readVarInt() {
+        int value = 0;
+        for ( int shift = 0; shift < 35; shift += 7 ) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ( (b & 0x80) == 0 ) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint.");
+    }
+
+    /**
+     * 可変長の整数を読み込む
+     * @return 値
+     */
+    public long readVarLong() {
+        long value = 0;
+        for ( int shift = 0; shift < 70; shift += 7 ) {
+            int b = readByte();
+            value |= (long)(b & 0x7F) << shift;
+            if ( (b & 0x80) == 0 ) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varlong.");
+    }
+
+    /**
+     * 8バイトの整数を読み込む
+     * @return 値
+     */
+    public long readLong() {
+        require(8);
+        long value = 0;
+        for ( int i = 0; i < 8; i++ ) {
+            value = (value << 8) | (data[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * 長さ（varint）とUTF-8のバイト列で書き込まれた文字列を読み込む
+     * @return 文字列
+     */
+    public String readString() {
+        int length = readVarInt();
+        require(length);
+        String value = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    /**
+     * 指定した長さの部分を、別のByteReaderとして切り出して、読み飛ばす
+     * @param length 長さ
+     * @return 切り出したByteReader
+     */
+    public ByteReader slice(int length) {
+        require(length);
+        ByteReader slice = new ByteReader(data, position, position + length);
+        position += length;
+        return slice;
+    }
+
+    private void require(int length) {
+        if ( length < 0 || length > limit - position ) {
+            throw new IllegalArgumentException("Unexpected end of data.");
+        }
+    }
+}
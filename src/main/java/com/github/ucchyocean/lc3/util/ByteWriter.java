@@ -0,0 +1,143 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 可変長整数（varint）や文字列を、byte配列へ書き込むクラス。
+ * 読み込みには ByteReader を使用する。
+ * @author ucchy
+ */
+public class ByteWriter {
+
+    private byte[] buffer;
+    private int size;
+
+    /**
+     * コンストラクタ
+     * @param capacity 初期容量（バイト）
+     */
+    public ByteWriter(int capacity) {
+        buffer = new byte[Math.max(capacity, 16)];
+    }
+
+    /**
+     * 書き込んだ内容を消去する。確保した容量はそのまま使う。
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * @return 書き込んだ大きさ（バイト）
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 内部のbyte配列を返す。有効なのは、先頭から size() バイトまで。
+     * @return 内部のbyte配列
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * 1バイト書き込む
+     * @param value 値（下位8bitだけ書き込む）
+     */
+    public void writeByte(int value) {
+        ensure(1);
+        buffer[size++] = (byte)value;
+    }
+
+    /**
+     * byte配列を書き込む
+     * @param data byte配列
+     * @param offset 開始位置
+     * @param length 長さ
+     */
+    public void writeBytes(byte[] data, int offset, int length) {
+        ensure(length);
+        System.arraycopy(data, offset, buffer, size, length);
+        size += length;
+    }
+
+    /**
+     * 別のByteWriterに書き込んだ内容を、そのまま書き込む
+     * @param other 別のByteWriter
+     */
+    public void writeBytes(ByteWriter other) {
+        writeBytes(other.buffer, 0, other.size);
+    }
+
+    /**
+     * 可変長の整数を書き込む（負の数は5バイトになる）
+     * @param value 値
+     */
+    public void writeVarInt(int value) {
+        ensure(5);
+        while ( (value & ~0x7F) != 0 ) {
+            buffer[size++] = (byte)((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte)value;
+    }
+
+    /**
+     * 可変長の整数を書き込む（負の数は10バイトになる）
+     * @param value 値
+     */
+    public void writeVarLong(long value) {
+        ensure(10);
+        while ( (value & ~0x7FL) != 0 ) {
+            buffer[size++] = (byte)((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte)value;
+    }
+
+    /**
+     * 8バイトの整数を書き込む
+     * @param value 値
+     */
+    public void writeLong(long value) {
+        ensure(8);
+        for ( int shift = 56; shift >= 0; shift -= 8 ) {
+            buffer[size++] = (byte)(value >>> shift);
+        }
+    }
+
+    /**
+     * 文字列を、長さ（varint）とUTF-8のバイト列で書き込む
+     * @param value 文字列
+     */
+    public void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 書き込んだ内容を、byte配列にして返す
+     * @return byte配列
+     */
+    public byte[] toByteArray() {
+        byte[] result = new byte[size];
+        System.arraycopy(buffer, 0, result, 0, size);
+        return result;
+    }
+
+    private void ensure(int length) {
+        if ( size + length > buffer.length ) {
+            byte[] grown = new byte[Math.max(buffer.length * 2, size + length)];
+            System.arraycopy(buffer, 0, grown, 0, size);
+            buffer = grown;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.util;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.github.ucchyocean.lc3.LunaChat;
+import com.github.ucchyocean.lc3.LunaChatAPI;
+import com.github.ucchyocean.lc3.Messages;
+import com.github.ucchyocean.lc3.channel.Channel;
+import com.github.ucchyocean.lc3.member.ChannelMember;
+
+/**
+ * コンパイル済みのチャットフォーマット。
+ * フォーマット文字列を、固定文字列、キーワード、クリック可能部分のトークン列に一度だけ分解しておき、
+ * 発言ごとの置き換えを、トークン列の1回の走査で行えるようにする。
+ * @author ucchy
+ */
+public class ChatFormatTemplate {
+
+    /** キャッシュする最大件数 */
+    private static final int CACHE_SIZE = 64;
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    /** チャンネル以外で使われるフォーマットのキャッシュ */
+    private static ConcurrentHashMap<String, ChatFormatTemplate> cache =
+            new ConcurrentHashMap<String, ChatFormatTemplate>();
+
+    /** テンプレートの世代、テンプレートが変更されるたびに増える */
+    private static volatile int generation = 0;
+
+    /**
+     * フォーマットのキーワード
+     */
+    enum Keyword {
+        CH("%ch"),
+        COLOR("%color"),
+        TO("%to"),
+        RECIEVER_SERVER("%recieverserver"),
+        DATE("%date"),
+        TIME("%time"),
+        DISPLAYNAME("%displayname"),
+        USERNAME("%username"),
+        PLAYER("%player"),
+        PREFIX("%prefix"),
+        SUFFIX("%suffix"),
+        WORLD("%world"),
+        SERVER("%server");
+
+        private final String text;
+
+        Keyword(String text) {
+            this.text = text;
+        }
+    }
+
+    /** トークン列（String、Keyword、ClickableFormatのいずれか） */
+    private final Object[] tokens;
+
+    /** コンパイルしたときのテンプレートの世代 */
+    private final int compiledGeneration;
+
+    /**
+     * コンストラクタ
+     * @param tokens トークン列
+     * @param compiledGeneration テンプレートの世代
+     */
+    private ChatFormatTemplate(Object[] tokens, int compiledGeneration) {
+        this.tokens = tokens;
+        this.compiledGeneration = compiledGeneration;
+    }
+
+    /**
+     * フォーマット文字列をコンパイルする
+     * @param format フォーマット文字列
+     * @param expandTemplates テンプレートのキーワード（%0～%9）を展開するかどうか
+     * @return コンパイル結果
+     */
+    public static ChatFormatTemplate compile(String format, boolean expandTemplates) {
+
+        int gen = generation;
+
+        // テンプレートのキーワードを、まず最初に置き換える
+        if ( expandTemplates ) {
+            LunaChatAPI api = LunaChat.getAPI();
+            for ( int i=0; i<=9; i++ ) {
+                String key = "%" + i;
+                if ( format.contains(key) && api.getTemplate("" + i) != null ) {
+                    format = format.replace(key, api.getTemplate("" + i));
+                    break;
+                }
+            }
+        }
+
+        List<Object> tokens = new ArrayList<Object>();
+        StringBuilder literal = new StringBuilder();
+        int index = 0;
+        while ( index < format.length() ) {
+            Keyword keyword = null;
+            if ( format.charAt(index) == '%' ) {
+                keyword = matchKeyword(format, index);
+            }
+            if ( keyword == null ) {
+                literal.append(format.charAt(index));
+                index++;
+                continue;
+            }
+            addLiteral(tokens, literal);
+            tokens.add(keyword);
+            index += keyword.text.length();
+        }
+        addLiteral(tokens, literal);
+
+        return new ChatFormatTemplate(tokens.toArray(), gen);
+    }
+
+    /**
+     * フォーマット文字列のコンパイル結果を、キャッシュから取得する
+     * @param format フォーマット文字列
+     * @param expandTemplates テンプレートのキーワード（%0～%9）を展開するかどうか
+     * @return コンパイル結果
+     */
+    public static ChatFormatTemplate getTemplate(String format, boolean expandTemplates) {
+
+        String key = (expandTemplates ? "T:" : "F:") + format;
+        ChatFormatTemplate template = cache.get(key);
+        if ( template != null && template.isValid() ) {
+            return template;
+        }
+
+        template = compile(format, expandTemplates);
+        if ( cache.size() >= CACHE_SIZE ) {
+            cache.clear();
+        }
+        cache.put(key, template);
+        return template;
+    }
+
+    /**
+     * テンプレートが変更されたときに呼び出して、コンパイル結果を全て無効にする
+     */
+    public static void invalidateAll() {
+        generation++;
+        cache.clear();
+    }
+
+    /**
+     * このコンパイル結果が、現在のテンプレートに対して有効かどうか
+     * @return 有効かどうか
+     */
+    public boolean isValid() {
+        return compiledGeneration == generation;
+    }
+
+    /**
+     * 発言者とチャンネルの情報でキーワードを置き換えて、フォーマットを作成する
+     * @param member 発言者
+     * @param channel チャンネル
+     * @param withPlayerLink プレイヤー名の箇所にクリック可能な部分を挿入するか
+     * @return フォーマット
+     */
+    public ClickableFormat render(
+            @Nullable ChannelMember member, @Nullable Channel channel, boolean withPlayerLink) {
+
+        ClickableFormat result = new ClickableFormat();
+        LocalDateTime now = null;
+
+        for ( Object token : tokens ) {
+
+            if ( token instanceof ClickableFormat ) {
+                result.append((ClickableFormat)token);
+                continue;
+            }
+            if ( !(token instanceof Keyword) ) {
+                result.appendText((String)token);
+                continue;
+            }
+
+            Keyword keyword = (Keyword)token;
+            switch ( keyword ) {
+            case CH:
+                if ( channel == null ) break;
+                result.appendClickable(ClickableFormat.TYPE_RUN_COMMAND,
+                        channel.getName(),
+                        Messages.hoverChannelName(channel.getName()),
+                        String.format(ClickableFormat.JOIN_COMMAND_TEMPLATE, channel.getName()));
+                continue;
+            case COLOR:
+                if ( channel == null ) break;
+                result.appendText(channel.getColorCode());
+                continue;
+            case TO:
+                if ( channel == null || channel.getPrivateMessageTo() == null ) break;
+                ChannelMember to = channel.getPrivateMessageTo();
+                result.appendClickable(ClickableFormat.TYPE_SUGGEST_COMMAND,
+                        to.getDisplayName(),
+                        Messages.hoverPlayerName(to.getName()),
+                        String.format(ClickableFormat.TELL_COMMAND_TEMPLATE, to.getName()));
+                continue;
+            case RECIEVER_SERVER:
+                if ( channel == null || channel.getPrivateMessageTo() == null ) break;
+                result.appendText(channel.getPrivateMessageTo().getServerName());
+                continue;
+            case DATE:
+                if ( now == null ) now = LocalDateTime.now();
+                result.appendText(DATE_FORMAT.format(now));
+                continue;
+            case TIME:
+                if ( now == null ) now = LocalDateTime.now();
+                result.appendText(TIME_FORMAT.format(now));
+                continue;
+            case DISPLAYNAME:
+            case USERNAME:
+                if ( member == null ) break;
+                if ( withPlayerLink ) {
+                    result.appendClickable(ClickableFormat.TYPE_SUGGEST_COMMAND,
+                            member.getDisplayName(),
+                            Messages.hoverPlayerName(member.getName()),
+                            String.format(ClickableFormat.TELL_COMMAND_TEMPLATE, member.getName()));
+                } else {
+                    result.appendText(member.getDisplayName());
+                }
+                continue;
+            case PLAYER:
+                if ( member == null ) break;
+                if ( withPlayerLink ) {
+                    result.appendClickable(ClickableFormat.TYPE_SUGGEST_COMMAND,
+                            member.getName(),
+                            Messages.hoverPlayerName(member.getName()),
+                            String.format(ClickableFormat.TELL_COMMAND_TEMPLATE, member.getName()));
+                } else {
+                    result.appendText(member.getName());
+                }
+                continue;
+            case PREFIX:
+                if ( member == null ) break;
+                result.appendText(member.getPrefix());
+                continue;
+            case SUFFIX:
+                if ( member == null ) break;
+                result.appendText(member.getSuffix());
+                continue;
+            case WORLD:
+                if ( member == null ) break;
+                result.appendText(member.getWorldName());
+                continue;
+            case SERVER:
+                if ( member == null ) break;
+                result.appendText(member.getServerName());
+                continue;
+            }
+
+            // 置き換え対象が無いキーワードは、そのまま残す
+            result.appendText(keyword.text);
+        }
+
+        return result;
+    }
+
+    /**
+     * 指定位置から始まるキーワードを、最長一致で探す
+     * @param format フォーマット文字列
+     * @param index 位置
+     * @return キーワード、無ければnull
+     */
+    private static Keyword matchKeyword(String format, int index) {
+        Keyword found = null;
+        for ( Keyword keyword : Keyword.values() ) {
+            if ( format.startsWith(keyword.text, index) &&
+                    (found == null || found.text.length() < keyword.text.length()) ) {
+                found = keyword;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 固定文字列をトークンに追加する。クリック可能なプレースホルダーが含まれていれば分解する。
+     * @param tokens トークン列
+     * @param literal 固定文字列（追加後にクリアされる）
+     */
+    private static void addLiteral(List<Object> tokens, StringBuilder literal) {
+        if ( literal.length() == 0 ) {
+            return;
+        }
+        String text = literal.toString();
+        literal.setLength(0);
+        if ( text.indexOf('＜') < 0 ) {
+            tokens.add(text);
+            return;
+        }
+        ClickableFormat parsed = new ClickableFormat();
+        parsed.appendFormatText(text);
+        tokens.add(parsed);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.util;
+
+/**
+ * 外部サービスの呼び出しを、失敗が続いている間は止めるためのサーキットブレーカー。
+ * 連続して指定回数失敗すると、一定時間は呼び出しを許可しない（OPEN）。
+ * 時間が経つと、1回だけ試しに呼び出しを許可し（HALF_OPEN）、成功すれば元に戻る（CLOSED）。
+ * @author ucchy
+ */
+public class CircuitBreaker {
+
+    /**
+     * サーキットブレーカーの状態
+     * @author ucchy
+     */
+    public enum State {
+
+        /** 呼び出しを許可している */
+        CLOSED,
+
+        /** 失敗が続いたため、呼び出しを止めている */
+        OPEN,
+
+        /** 試しに1回だけ呼び出している */
+        HALF_OPEN;
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state;
+    private int failures;
+    private long openedAt;
+
+    /**
+     * コンストラクタ
+     * @param failureThreshold 呼び出しを止めるまでの、連続した失敗の回数
+     * @param openMillis 呼び出しを止める時間（ミリ秒）
+     */
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = Math.max(failureThreshold, 1);
+        this.openMillis = openMillis;
+        this.state = State.CLOSED;
+    }
+
+    /**
+     * 呼び出しを許可するかどうかを返す。
+     * 許可した場合は、呼び出しの結果を recordSuccess() か recordFailure() で必ず通知すること。
+     * @return 呼び出してよいかどうか
+     */
+    public synchronized boolean allowRequest() {
+
+        switch ( state ) {
+        case CLOSED:
+            return true;
+        case OPEN:
+            if ( System.currentTimeMillis() - openedAt >= openMillis ) {
+                state = State.HALF_OPEN;
+                return true;
+            }
+            return false;
+        default:
+            // 試しに呼び出している間は、他の呼び出しを止める
+            return false;
+        }
+    }
+
+    /**
+     * 呼び出しが成功したことを通知する
+     */
+    public synchronized void recordSuccess() {
+        failures = 0;
+        state = State.CLOSED;
+    }
+
+    /**
+     * 呼び出しが失敗したことを通知する
+     */
+    public synchronized void recordFailure() {
+        failures++;
+        if ( state == State.HALF_OPEN || failures >= failureThreshold ) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 現在の状態を返す
+     * @return 状態
+     */
+    public synchronized State getState() {
+        return state;
+    }
+}
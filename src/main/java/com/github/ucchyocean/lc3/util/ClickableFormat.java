@@ -5,17 +5,13 @@
  */
 package com.github.ucchyocean.lc3.util;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.jetbrains.annotations.Nullable;
 
-import com.github.ucchyocean.lc3.LunaChat;
-import com.github.ucchyocean.lc3.LunaChatAPI;
 import com.github.ucchyocean.lc3.Messages;
 import com.github.ucchyocean.lc3.channel.Channel;
 import com.github.ucchyocean.lc3.member.ChannelMember;
@@ -32,20 +28,25 @@ import net.md_5.bungee.api.chat.TextComponent;
  */
 public class ClickableFormat {
 
-    private static final String JOIN_COMMAND_TEMPLATE = "/lunachat join %s";
-    private static final String TELL_COMMAND_TEMPLATE = "/tell %s";
+    protected static final String JOIN_COMMAND_TEMPLATE = "/lunachat join %s";
+    protected static final String TELL_COMMAND_TEMPLATE = "/tell %s";
 
-    private static final String PLACEHOLDER_RUN_COMMAND =
-            "＜type=RUN_COMMAND text=\"%s\" hover=\"%s\" command=\"%s\"＞";
-    private static final String PLACEHOLDER_SUGGEST_COMMAND =
-            "＜type=SUGGEST_COMMAND text=\"%s\" hover=\"%s\" command=\"%s\"＞";
-    private static final String PLACEHOLDER_PATTERN =
-            "＜type=(SUGGEST_COMMAND|RUN_COMMAND) text=\"([^\"]*)\" hover=\"([^\"]*)\" command=\"([^\"]*)\"＞";
+    protected static final String TYPE_RUN_COMMAND = "RUN_COMMAND";
+    protected static final String TYPE_SUGGEST_COMMAND = "SUGGEST_COMMAND";
 
-    private KeywordReplacer message;
+    private static final String PLACEHOLDER =
+            "＜type=%s text=\"%s\" hover=\"%s\" command=\"%s\"＞";
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile(
+            "＜type=(SUGGEST_COMMAND|RUN_COMMAND) text=\"([^\"]*)\" hover=\"([^\"]*)\" command=\"([^\"]*)\"＞");
 
-    private ClickableFormat(KeywordReplacer message) {
-        this.message = message;
+    /** 文字列部分とクリック可能部分の並び */
+    private List<Part> parts;
+
+    /**
+     * コンストラクタ
+     */
+    protected ClickableFormat() {
+        this.parts = new ArrayList<Part>();
     }
 
     /**
@@ -68,85 +69,8 @@ public class ClickableFormat {
      */
     public static ClickableFormat makeFormat(String format,
             @Nullable ChannelMember member, @Nullable Channel channel, boolean withPlayerLink) {
-
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy/MM/dd");
-        SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
-
-        LunaChatAPI api = LunaChat.getAPI();
-
-        KeywordReplacer msg = new KeywordReplacer(format);
-
-        //msg.replace("%msg", message);
-
-        if ( channel != null ) {
-
-            // テンプレートのキーワードを、まず最初に置き換える
-            for ( int i=0; i<=9; i++ ) {
-                String key = "%" + i;
-                if ( msg.contains(key) ) {
-                    if ( api.getTemplate("" + i) != null ) {
-                        msg.replace(key, api.getTemplate("" + i));
-                        break;
-                    }
-                }
-            }
-
-            // チャンネル関連のキーワード置き換え
-            msg.replace("%ch", String.format(
-                    PLACEHOLDER_RUN_COMMAND,
-                    channel.getName(),
-                    Messages.hoverChannelName(channel.getName()),
-                    String.format(JOIN_COMMAND_TEMPLATE, channel.getName())));
-            msg.replace("%color", channel.getColorCode());
-            if ( channel.getPrivateMessageTo() != null ) {
-                msg.replace("%to", String.format(
-                        PLACEHOLDER_SUGGEST_COMMAND,
-                        channel.getPrivateMessageTo().getDisplayName(),
-                        Messages.hoverPlayerName(channel.getPrivateMessageTo().getName()),
-                        String.format(TELL_COMMAND_TEMPLATE, channel.getPrivateMessageTo().getName())));
-                msg.replace("%recieverserver", channel.getPrivateMessageTo().getServerName());
-            }
-        }
-
-        if ( msg.contains("%date") ) {
-            msg.replace("%date", dateFormat.format(new Date()));
-        }
-        if ( msg.contains("%time") ) {
-            msg.replace("%time", timeFormat.format(new Date()));
-        }
-
-        if ( member != null ) {
-
-            // ChannelMember関連のキーワード置き換え
-            if ( withPlayerLink ) {
-                String playerPMPlaceHolder = String.format(
-                        PLACEHOLDER_SUGGEST_COMMAND,
-                        member.getDisplayName(),
-                        Messages.hoverPlayerName(member.getName()),
-                        String.format(TELL_COMMAND_TEMPLATE, member.getName()));
-                msg.replace("%displayname", playerPMPlaceHolder);
-                msg.replace("%username", playerPMPlaceHolder);
-                msg.replace("%player", String.format(
-                        PLACEHOLDER_SUGGEST_COMMAND,
-                        member.getName(),
-                        Messages.hoverPlayerName(member.getName()),
-                        String.format(TELL_COMMAND_TEMPLATE, member.getName())));
-            } else {
-                msg.replace("%displayname", member.getDisplayName());
-                msg.replace("%username", member.getDisplayName());
-                msg.replace("%player", member.getName());
-            }
-
-            if ( msg.contains("%prefix") || msg.contains("%suffix") ) {
-                msg.replace("%prefix", member.getPrefix());
-                msg.replace("%suffix", member.getSuffix());
-            }
-
-            msg.replace("%world", member.getWorldName());
-            msg.replace("%server", member.getServerName());
-        }
-
-        return new ClickableFormat(msg);
+        return ChatFormatTemplate.getTemplate(format, channel != null)
+                .render(member, channel, withPlayerLink);
     }
 
     /**
@@ -157,15 +81,23 @@ public class ClickableFormat {
      */
     public static ClickableFormat makeChannelClickableMessage(String format, String channelName) {
 
-        KeywordReplacer msg = new KeywordReplacer(format);
+        ClickableFormat msg = new ClickableFormat();
         String stripped = Utility.stripColorCode(channelName);
-        msg.replace("%channel%", String.format(
-                PLACEHOLDER_RUN_COMMAND,
-                channelName,
-                Messages.hoverChannelName(stripped),
-                String.format(JOIN_COMMAND_TEMPLATE, stripped)));
+        String keyword = "%channel%";
+
+        int index = 0;
+        int found;
+        while ( (found = format.indexOf(keyword, index)) > -1 ) {
+            msg.appendFormatText(format.substring(index, found));
+            msg.appendClickable(TYPE_RUN_COMMAND,
+                    channelName,
+                    Messages.hoverChannelName(stripped),
+                    String.format(JOIN_COMMAND_TEMPLATE, stripped));
+            index = found + keyword.length();
+        }
+        msg.appendFormatText(format.substring(index));
 
-        return new ClickableFormat(msg);
+        return msg;
     }
 
     /**
@@ -181,48 +113,90 @@ public class ClickableFormat {
         return makeFormat(format, member, null, false).toLegacyText();
     }
 
-    public BaseComponent[] makeTextComponent() {
+    /**
+     * 文字列部分を末尾に追加する
+     * @param text 文字列
+     */
+    protected void appendText(String text) {
+        if ( text == null ) {
+            text = "null";
+        }
+        if ( parts.size() > 0 && !parts.get(parts.size() - 1).isClickable() ) {
+            parts.get(parts.size() - 1).text.append(text);
+        } else {
+            parts.add(new Part(null, text, null, null));
+        }
+    }
 
-        message.translateColorCode();
+    /**
+     * クリック可能部分を末尾に追加する
+     * @param type RUN_COMMAND または SUGGEST_COMMAND
+     * @param text 表示文字列
+     * @param hover ホバー文字列
+     * @param command クリック時のコマンド
+     */
+    protected void appendClickable(String type, String text, String hover, String command) {
+        parts.add(new Part(type, text, hover, command));
+    }
 
-        List<BaseComponent> components = new ArrayList<>();
-        Matcher matcher = Pattern.compile(PLACEHOLDER_PATTERN).matcher(message.getStringBuilder());
-        int lastIndex = 0;
+    /**
+     * フォーマット文字列を末尾に追加する。
+     * 文字列内にクリック可能なプレースホルダーが書かれている場合は、クリック可能部分として追加する。
+     * @param text フォーマット文字列
+     */
+    protected void appendFormatText(String text) {
+
+        if ( text.indexOf('＜') < 0 ) {
+            appendText(text);
+            return;
+        }
 
+        Matcher matcher = PLACEHOLDER_PATTERN.matcher(text);
+        int lastIndex = 0;
         while ( matcher.find() ) {
+            appendText(text.substring(lastIndex, matcher.start()));
+            appendClickable(matcher.group(1), matcher.group(2), matcher.group(3), matcher.group(4));
+            lastIndex = matcher.end();
+        }
+        appendText(text.substring(lastIndex));
+    }
 
-            // マッチする箇所までの文字列を取得する
-            if ( lastIndex < matcher.start() ) {
-                for ( BaseComponent c : TextComponent.fromLegacyText(message.substring(lastIndex, matcher.start())) ) {
-                    components.add(c);
-                }
+    /**
+     * 指定されたフォーマットの内容を、末尾に追加する
+     * @param other フォーマット
+     */
+    protected void append(ClickableFormat other) {
+        for ( Part part : other.parts ) {
+            if ( part.isClickable() ) {
+                appendClickable(part.type, part.text.toString(), part.hover, part.command);
+            } else {
+                appendText(part.text.toString());
             }
+        }
+    }
 
-            // マッチした箇所の文字列を解析して追加する
-            String type = matcher.group(1);
-            String text = matcher.group(2);
-            String hover = matcher.group(3);
-            String command = matcher.group(4);
-            TextComponent tc = new TextComponent(text);
-            if ( !hover.isEmpty() ) {
-                tc.setHoverEvent(new HoverEvent(
-                        HoverEvent.Action.SHOW_TEXT, new ComponentBuilder(hover).create()));
-            }
-            if ( type.equals("RUN_COMMAND") ) {
-                tc.setClickEvent(new ClickEvent(ClickEvent.Action.RUN_COMMAND, command));
-            } else { // type.equals("SUGGEST_COMMAND")
-                tc.setClickEvent(new ClickEvent(ClickEvent.Action.SUGGEST_COMMAND, command));
-            }
-            components.add(tc);
+    /**
+     * カラーコードを置き換えして、BaseComponentに変換する
+     * @return 変換結果
+     */
+    public BaseComponent[] makeTextComponent() {
 
-            lastIndex = matcher.end();
-        }
+        translateColorCode();
+
+        List<BaseComponent> components = new ArrayList<>();
+
+        for ( Part part : parts ) {
 
-        if ( lastIndex < message.length() - 1 ) {
-            // 残りの部分の文字列を取得する
-            for ( BaseComponent c : TextComponent.fromLegacyText(message.substring(lastIndex)) ) {
-                components.add(c);
+            if ( !part.isClickable() ) {
+                if ( part.text.length() > 0 ) {
+                    for ( BaseComponent c : TextComponent.fromLegacyText(part.text.toString()) ) {
+                        components.add(c);
+                    }
+                }
+                continue;
             }
+
+            components.add(makeClickableComponent(part.type, part.text.toString(), part.hover, part.command));
         }
 
         BaseComponent[] result = new BaseComponent[components.size()];
@@ -230,25 +204,108 @@ public class ClickableFormat {
         return result;
     }
 
-    public String toLegacyText() {
-
-        StringBuilder msg = new StringBuilder(message.toString());
-        Matcher matcher = Pattern.compile(PLACEHOLDER_PATTERN).matcher(msg);
+    /**
+     * クリック可能部分のコンポーネントを作成する
+     * @param type RUN_COMMAND または SUGGEST_COMMAND
+     * @param text 表示文字列（カラーコード置き換え済み）
+     * @param hover ホバー文字列（カラーコード置き換え済み）
+     * @param command クリック時のコマンド
+     * @return コンポーネント
+     */
+    protected static BaseComponent makeClickableComponent(
+            String type, String text, String hover, String command) {
 
-        while ( matcher.find(0) ) {
-            String text = matcher.group(2);
-            msg.replace(matcher.start(), matcher.end(), text);
+        TextComponent tc = new TextComponent(text);
+        if ( !hover.isEmpty() ) {
+            tc.setHoverEvent(new HoverEvent(
+                    HoverEvent.Action.SHOW_TEXT, new ComponentBuilder(hover).create()));
         }
+        if ( type.equals(TYPE_RUN_COMMAND) ) {
+            tc.setClickEvent(new ClickEvent(ClickEvent.Action.RUN_COMMAND, command));
+        } else { // type.equals(TYPE_SUGGEST_COMMAND)
+            tc.setClickEvent(new ClickEvent(ClickEvent.Action.SUGGEST_COMMAND, command));
+        }
+        return tc;
+    }
 
+    /**
+     * クリック可能部分を表示文字列にした、レガシー形式の文字列を返す
+     * @return レガシー形式の文字列
+     */
+    public String toLegacyText() {
+        StringBuilder msg = new StringBuilder();
+        for ( Part part : parts ) {
+            msg.append(part.text);
+        }
         return msg.toString();
     }
 
+    /**
+     * クリック可能部分をプレースホルダーにした文字列を返す
+     * @see java.lang.Object#toString()
+     */
     @Override
     public String toString() {
-        return message.toString();
+        StringBuilder msg = new StringBuilder();
+        for ( Part part : parts ) {
+            if ( part.isClickable() ) {
+                msg.append(String.format(PLACEHOLDER, part.type, part.text, part.hover, part.command));
+            } else {
+                msg.append(part.text);
+            }
+        }
+        return msg.toString();
     }
 
+    /**
+     * 文字列部分に含まれるキーワードを置き換える
+     * @param keyword キーワード
+     * @param value 置き換える値
+     */
     public void replace(String keyword, String value) {
-        message.replace(keyword, value);
+        for ( Part part : parts ) {
+            if ( !part.isClickable() ) {
+                StringBuilder str = part.text;
+                int start = 0;
+                while ( (start = str.indexOf(keyword, start)) > -1 ) {
+                    str.replace(start, start + keyword.length(), value);
+                    start += value.length();
+                }
+            }
+        }
+    }
+
+    /**
+     * 全ての部分のカラーコードを置き換える
+     */
+    private void translateColorCode() {
+        for ( Part part : parts ) {
+            part.text = new StringBuilder(Utility.replaceColorCode(part.text.toString()));
+            if ( part.isClickable() ) {
+                part.hover = Utility.replaceColorCode(part.hover);
+            }
+        }
+    }
+
+    /**
+     * フォーマットを構成する部分
+     */
+    private static class Part {
+
+        private String type;
+        private StringBuilder text;
+        private String hover;
+        private String command;
+
+        private Part(String type, String text, String hover, String command) {
+            this.type = type;
+            this.text = new StringBuilder(text);
+            this.hover = hover;
+            this.command = command;
+        }
+
+        private boolean isClickable() {
+            return type != null;
+        }
     }
 }
@@ -0,0 +1,312 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.github.ucchyocean.lc3.Messages;
+
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.TextComponent;
+
+/**
+ * コンパイル済みのメッセージリソース。
+ * メッセージを、カラーコードを置き換えた固定文字列、引数、クリック可能部分のトークン列に一度だけ分解しておき、
+ * 表示するときは、トークン列の1回の走査でメッセージを作成する。一度作成したら変更されない。
+ * @author ucchy
+ */
+public class MessageTemplate {
+
+    /** メッセージが無い場合のテンプレート */
+    public static final MessageTemplate EMPTY = new MessageTemplate(new Object[0], -1);
+
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile(
+            "＜type=(SUGGEST_COMMAND|RUN_COMMAND) text=\"([^\"]*)\" hover=\"([^\"]*)\" command=\"([^\"]*)\"＞");
+
+    private static final String CHANNEL_KEYWORD = "%channel%";
+
+    /** トークン列（String、Integer（引数の位置）、Clickable、ChannelLinkのいずれか） */
+    private final Object[] tokens;
+
+    /** チャンネル名の引数の位置、クリック可能なメッセージでなければ-1 */
+    private final int channelIndex;
+
+    /**
+     * コンストラクタ
+     * @param tokens トークン列
+     * @param channelIndex チャンネル名の引数の位置
+     */
+    private MessageTemplate(Object[] tokens, int channelIndex) {
+        this.tokens = tokens;
+        this.channelIndex = channelIndex;
+    }
+
+    /**
+     * 文字列のメッセージをコンパイルする
+     * @param prefix メッセージの前に付ける文字列（キーワードは置き換えない）
+     * @param message メッセージ
+     * @param names 引数の名前（メッセージ内では %名前% と書かれる）
+     * @return コンパイル結果、メッセージがnullならEMPTY
+     */
+    public static MessageTemplate compile(String prefix, @Nullable String message, String... names) {
+
+        if ( message == null ) {
+            return EMPTY;
+        }
+
+        List<Object> tokens = new ArrayList<Object>();
+        addLiteral(tokens, prefix);
+        tokenize(tokens, message, names, false);
+        return new MessageTemplate(tokens.toArray(), -1);
+    }
+
+    /**
+     * クリック可能なメッセージをコンパイルする。
+     * %channel% はチャンネルに参加するリンクになり、＜type=...＞ のプレースホルダーはクリック可能部分になる。
+     * @param message メッセージ
+     * @param names 引数の名前（メッセージ内では %名前% と書かれる）、"channel" を含むこと
+     * @return コンパイル結果、メッセージがnullならEMPTY
+     */
+    public static MessageTemplate compileClickable(@Nullable String message, String... names) {
+
+        if ( message == null ) {
+            return EMPTY;
+        }
+
+        int channelIndex = -1;
+        for ( int i = 0; i < names.length; i++ ) {
+            if ( names[i].equals("channel") ) {
+                channelIndex = i;
+            }
+        }
+
+        List<Object> tokens = new ArrayList<Object>();
+        int index = 0;
+        int found;
+        while ( channelIndex >= 0 && (found = message.indexOf(CHANNEL_KEYWORD, index)) > -1 ) {
+            tokenizeFormatText(tokens, message.substring(index, found), names);
+            tokens.add(ChannelLink.INSTANCE);
+            index = found + CHANNEL_KEYWORD.length();
+        }
+        tokenizeFormatText(tokens, message.substring(index), names);
+        return new MessageTemplate(tokens.toArray(), channelIndex);
+    }
+
+    /**
+     * 表示すると、必ず空になるかどうか
+     * @return 空かどうか
+     */
+    public boolean isEmpty() {
+        return tokens.length == 0;
+    }
+
+    /**
+     * 引数を埋め込んで、カラーコードを置き換えた文字列を作成する
+     * @param args 引数
+     * @return 文字列
+     */
+    public String toText(Object... args) {
+
+        if ( tokens.length == 0 ) {
+            return "";
+        }
+
+        StringBuilder result = new StringBuilder();
+        for ( Object token : tokens ) {
+            if ( token instanceof String ) {
+                result.append((String)token);
+            } else if ( token instanceof Integer ) {
+                result.append(argument(args, (Integer)token));
+            } else if ( token instanceof Clickable ) {
+                result.append(((Clickable)token).text);
+            } else {
+                result.append(argument(args, channelIndex));
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * 引数を埋め込んで、クリック可能部分を含むコンポーネントを作成する
+     * @param args 引数
+     * @return コンポーネント
+     */
+    public BaseComponent[] toComponents(Object... args) {
+
+        if ( tokens.length == 0 ) {
+            return new BaseComponent[0];
+        }
+
+        List<BaseComponent> components = new ArrayList<BaseComponent>();
+        StringBuilder text = new StringBuilder();
+        for ( Object token : tokens ) {
+            if ( token instanceof String ) {
+                text.append((String)token);
+                continue;
+            } else if ( token instanceof Integer ) {
+                text.append(argument(args, (Integer)token));
+                continue;
+            }
+
+            flushText(components, text);
+            if ( token instanceof Clickable ) {
+                Clickable c = (Clickable)token;
+                components.add(ClickableFormat.makeClickableComponent(c.type, c.text, c.hover, c.command));
+            } else {
+                String channelName = String.valueOf(args[channelIndex]);
+                String stripped = Utility.stripColorCode(channelName);
+                components.add(ClickableFormat.makeClickableComponent(ClickableFormat.TYPE_RUN_COMMAND,
+                        Utility.replaceColorCode(channelName),
+                        Messages.hoverChannelName(stripped),
+                        String.format(ClickableFormat.JOIN_COMMAND_TEMPLATE, stripped)));
+            }
+        }
+        flushText(components, text);
+
+        BaseComponent[] result = new BaseComponent[components.size()];
+        components.toArray(result);
+        return result;
+    }
+
+    /**
+     * 引数を文字列にする。カラーコードが含まれていそうな場合だけ、置き換えを行う。
+     * @param args 引数
+     * @param index 位置
+     * @return 文字列
+     */
+    private static String argument(Object[] args, int index) {
+        String value = String.valueOf(args[index]);
+        if ( value.indexOf('&') < 0 && value.indexOf('#') < 0 ) {
+            return value;
+        }
+        return Utility.replaceColorCode(value);
+    }
+
+    private static void flushText(List<BaseComponent> components, StringBuilder text) {
+        if ( text.length() == 0 ) {
+            return;
+        }
+        for ( BaseComponent c : TextComponent.fromLegacyText(text.toString()) ) {
+            components.add(c);
+        }
+        text.setLength(0);
+    }
+
+    /**
+     * クリック可能なプレースホルダーを含む文字列を、トークンに分解する
+     * @param tokens トークン列
+     * @param text 文字列
+     * @param names 引数の名前
+     */
+    private static void tokenizeFormatText(List<Object> tokens, String text, String[] names) {
+
+        if ( text.indexOf('＜') < 0 ) {
+            tokenize(tokens, text, names, true);
+            return;
+        }
+
+        Matcher matcher = PLACEHOLDER_PATTERN.matcher(text);
+        int lastIndex = 0;
+        while ( matcher.find() ) {
+            tokenize(tokens, text.substring(lastIndex, matcher.start()), names, true);
+            tokens.add(new Clickable(matcher.group(1),
+                    Utility.replaceColorCode(matcher.group(2)),
+                    Utility.replaceColorCode(matcher.group(3)),
+                    matcher.group(4)));
+            lastIndex = matcher.end();
+        }
+        tokenize(tokens, text.substring(lastIndex), names, true);
+    }
+
+    /**
+     * 文字列を、固定文字列と引数のトークンに分解する
+     * @param tokens トークン列
+     * @param text 文字列
+     * @param names 引数の名前
+     * @param skipChannel %channel% を引数として扱わないかどうか
+     */
+    private static void tokenize(List<Object> tokens, String text, String[] names, boolean skipChannel) {
+
+        StringBuilder literal = new StringBuilder();
+        int index = 0;
+        while ( index < text.length() ) {
+            int found = -1;
+            if ( text.charAt(index) == '%' ) {
+                found = matchName(text, index, names, skipChannel);
+            }
+            if ( found < 0 ) {
+                literal.append(text.charAt(index));
+                index++;
+                continue;
+            }
+            addLiteral(tokens, literal.toString());
+            literal.setLength(0);
+            tokens.add(found);
+            index += names[found].length() + 2;
+        }
+        addLiteral(tokens, literal.toString());
+    }
+
+    /**
+     * 指定位置から始まる %名前% を、最長一致で探す
+     * @return 引数の位置、無ければ-1
+     */
+    private static int matchName(String text, int index, String[] names, boolean skipChannel) {
+        int found = -1;
+        for ( int i = 0; i < names.length; i++ ) {
+            if ( skipChannel && names[i].equals("channel") ) continue;
+            String name = names[i];
+            if ( text.startsWith(name, index + 1)
+                    && text.startsWith("%", index + 1 + name.length())
+                    && (found < 0 || names[found].length() < name.length()) ) {
+                found = i;
+            }
+        }
+        return found;
+    }
+
+    private static void addLiteral(List<Object> tokens, String literal) {
+        if ( literal.isEmpty() ) {
+            return;
+        }
+        String translated = Utility.replaceColorCode(literal);
+        int last = tokens.size() - 1;
+        if ( last >= 0 && tokens.get(last) instanceof String ) {
+            tokens.set(last, tokens.get(last) + translated);
+        } else {
+            tokens.add(translated);
+        }
+    }
+
+    /**
+     * メッセージ内に書かれていた、クリック可能部分
+     */
+    private static class Clickable {
+        private final String type;
+        private final String text;
+        private final String hover;
+        private final String command;
+
+        private Clickable(String type, String text, String hover, String command) {
+            this.type = type;
+            this.text = text;
+            this.hover = hover;
+            this.command = command;
+        }
+    }
+
+    /**
+     * チャンネルに参加するリンク（%channel%）
+     */
+    private static class ChannelLink {
+        private static final ChannelLink INSTANCE = new ChannelLink();
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * NGワードの検出とマスクを行うクラス。
+ * 正規表現の記号を含まないNGワードと、正規表現のNGワードの先頭にある固定文字列を、
+ * Aho-Corasick法でまとめて1回で検索し、固定文字列が見つかった正規表現だけを個別に検索する。
+ * 先頭に固定文字列が無い正規表現は、それぞれをグループにして1つの選択に連結し、1回の検索で
+ * どの正規表現が見つかったかを判定する。見つかった位置でだけ、後ろの選択肢も同じ位置から照合する。
+ * 構築後は変更しないので、複数スレッドから同時に使用してもよい。
+ * @author ucchy
+ */
+public class NGWordFilter {
+
+    /** 正規表現の記号 */
+    private static final String REGEX_META_CHARS = "\\[](){}.*+?^$|";
+
+    /** 直前の文字を省略可能にする量指定子 */
+    private static final String OPTIONAL_QUANTIFIERS = "*?{";
+
+    /** 後方参照を含むかどうかの判定用 */
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\([1-9]|k<)");
+
+    /** 文字列のNGワードと、正規表現の先頭の固定文字列 */
+    private AhoCorasickMatcher keywords;
+
+    /** キーワードに対応する正規表現、文字列のNGワードの場合はnull */
+    private Pattern[] keywordPatterns;
+
+    /** 先頭に固定文字列が無い正規表現のNGワードのうち、連結したもの */
+    private List<Pattern> patterns;
+
+    /** patternsを、それぞれグループにして連結したもの、patternsが無い場合はnull */
+    private Pattern combined;
+
+    /** patternsのそれぞれに対応する、combinedのグループ番号 */
+    private int[] groupIndexes;
+
+    /** 後方参照を含むなど、連結できないので個別に検索する正規表現のNGワード */
+    private List<Pattern> separatePatterns;
+
+    /**
+     * コンストラクタ
+     * @param words NGワード（正規表現）
+     */
+    public NGWordFilter(List<String> words) {
+
+        List<String> keywordList = new ArrayList<String>();
+        List<Pattern> keywordPatternList = new ArrayList<Pattern>();
+        patterns = new ArrayList<Pattern>();
+        separatePatterns = new ArrayList<Pattern>();
+        List<Integer> groupIndexList = new ArrayList<Integer>();
+        StringBuilder alternation = new StringBuilder();
+        int groupCount = 0;
+
+        for ( String word : words ) {
+            if ( word == null || word.isEmpty() ) {
+                continue;
+            }
+            if ( isLiteral(word) ) {
+                keywordList.add(word);
+                keywordPatternList.add(null);
+                continue;
+            }
+            Pattern pattern = Pattern.compile(word);
+            String prefix = getLiteralPrefix(word);
+            if ( !prefix.isEmpty() ) {
+                keywordList.add(prefix);
+                keywordPatternList.add(pattern);
+                continue;
+            }
+            if ( BACK_REFERENCE.matcher(word).find() ) {
+                // 連結するとグループ番号がずれるので、連結しない
+                separatePatterns.add(pattern);
+                continue;
+            }
+            patterns.add(pattern);
+            groupIndexList.add(groupCount + 1);
+            groupCount += 1 + pattern.matcher("").groupCount();
+            if ( alternation.length() > 0 ) {
+                alternation.append("|");
+            }
+            alternation.append("(").append(word).append(")");
+        }
+
+        keywords = new AhoCorasickMatcher(keywordList);
+        keywordPatterns = keywordPatternList.toArray(new Pattern[keywordPatternList.size()]);
+
+        groupIndexes = new int[groupIndexList.size()];
+        for ( int i = 0; i < groupIndexes.length; i++ ) {
+            groupIndexes[i] = groupIndexList.get(i);
+        }
+        if ( patterns.size() > 0 ) {
+            try {
+                combined = Pattern.compile(alternation.toString());
+            } catch (PatternSyntaxException e) {
+                // 同じ名前のグループが複数のNGワードにある場合は、連結できないので個別に検索する
+                separatePatterns.addAll(patterns);
+                patterns.clear();
+                groupIndexes = new int[0];
+            }
+        }
+    }
+
+    /**
+     * メッセージに含まれるNGワードをマスクする
+     * @param message メッセージ
+     * @return 結果
+     */
+    public Result filter(String message) {
+
+        char[] masked = null;
+        boolean matched = false;
+        Set<Pattern> candidates = new LinkedHashSet<Pattern>();
+
+        for ( AhoCorasickMatcher.Match match : keywords.findAll(message) ) {
+            Pattern pattern = keywordPatterns[match.getIndex()];
+            if ( pattern != null ) {
+                // 先頭の固定文字列が見つかった正規表現は、後で個別に検索する
+                candidates.add(pattern);
+                continue;
+            }
+            if ( masked == null ) {
+                masked = message.toCharArray();
+            }
+            fill(masked, match.getStart(), match.getEnd());
+            matched = true;
+        }
+
+        candidates.addAll(separatePatterns);
+
+        if ( combined != null ) {
+            // 連結した正規表現は、見つかった位置ごとに、NGワードごとの検索と同じ結果になるよう判定する。
+            // nextStarts は、NGワードごとに個別に検索した場合の、次の検索開始位置。
+            int[] nextStarts = new int[patterns.size()];
+            Matcher matcher = combined.matcher(message);
+            int from = 0;
+            while ( from <= message.length() && matcher.find(from) ) {
+                int start = matcher.start();
+                int index = getMatchedIndex(matcher);
+
+                // 見つかった選択肢より前の選択肢は、この位置では一致しないことが分かっている
+                for ( int i = index; i < nextStarts.length; i++ ) {
+                    if ( start < nextStarts[i] ) {
+                        continue;
+                    }
+                    int end;
+                    if ( i == index ) {
+                        end = matcher.end();
+                    } else {
+                        Matcher other = patterns.get(i).matcher(message);
+                        other.region(start, message.length());
+                        other.useTransparentBounds(true);
+                        other.useAnchoringBounds(false);
+                        if ( !other.lookingAt() ) {
+                            continue;
+                        }
+                        end = other.end();
+                    }
+                    if ( masked == null ) {
+                        masked = message.toCharArray();
+                    }
+                    fill(masked, start, end);
+                    matched = true;
+                    nextStarts[i] = (end > start) ? end : start + 1;
+                }
+                from = start + 1;
+            }
+        }
+
+        for ( Pattern pattern : candidates ) {
+            Matcher matcher = pattern.matcher(message);
+            while ( matcher.find() ) {
+                if ( masked == null ) {
+                    masked = message.toCharArray();
+                }
+                fill(masked, matcher.start(), matcher.end());
+                matched = true;
+            }
+        }
+
+        return new Result(masked == null ? message : new String(masked), matched);
+    }
+
+    /**
+     * メッセージに含まれるNGワードをマスクする
+     * @param message メッセージ
+     * @return マスクされたメッセージ
+     */
+    public String mask(String message) {
+        return filter(message).getMessage();
+    }
+
+    /**
+     * メッセージにNGワードが含まれるかどうかを返す
+     * @param message メッセージ
+     * @return 含まれるかどうか
+     */
+    public boolean containsNGWord(String message) {
+        return filter(message).isMatched();
+    }
+
+    /**
+     * 正規表現の記号を含まない、文字列そのもののNGワードかどうかを判定する
+     * @param word NGワード
+     * @return 文字列そのものかどうか
+     */
+    private static boolean isLiteral(String word) {
+        for ( int i = 0; i < word.length(); i++ ) {
+            if ( REGEX_META_CHARS.indexOf(word.charAt(i)) >= 0 ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 正規表現のNGワードにマッチする文字列が、必ず先頭に含む固定文字列を返す
+     * @param word NGワード
+     * @return 固定文字列、判定できない場合は空文字列
+     */
+    private static String getLiteralPrefix(String word) {
+
+        // 選択が含まれる場合は、先頭の固定文字列が必須とは限らない
+        if ( word.indexOf('|') >= 0 ) {
+            return "";
+        }
+
+        int end = 0;
+        while ( end < word.length() && REGEX_META_CHARS.indexOf(word.charAt(end)) < 0 ) {
+            end++;
+        }
+        if ( end < word.length() && OPTIONAL_QUANTIFIERS.indexOf(word.charAt(end)) >= 0 ) {
+            // 直前の文字は省略可能なので、固定文字列に含めない
+            end--;
+        }
+        return (end > 0) ? word.substring(0, end) : "";
+    }
+
+    /**
+     * 連結した正規表現で見つかった、NGワードのインデックスを返す
+     * @param matcher 一致したMatcher
+     * @return patternsのインデックス
+     */
+    private int getMatchedIndex(Matcher matcher) {
+        for ( int i = 0; i < groupIndexes.length; i++ ) {
+            if ( matcher.start(groupIndexes[i]) >= 0 ) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 指定された範囲をアスタリスクで埋める
+     */
+    private static void fill(char[] chars, int start, int end) {
+        for ( int i = start; i < end; i++ ) {
+            chars[i] = '*';
+        }
+    }
+
+    /**
+     * マスクの結果
+     */
+    public static class Result {
+
+        private final String message;
+        private final boolean matched;
+
+        private Result(String message, boolean matched) {
+            this.message = message;
+            this.matched = matched;
+        }
+
+        /**
+         * @return マスクされたメッセージ
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * @return NGワードが含まれていたかどうか
+         */
+        public boolean isMatched() {
+            return matched;
+        }
+    }
+}
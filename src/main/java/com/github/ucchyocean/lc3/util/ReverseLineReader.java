@@ -0,0 +1,164 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * テキストファイルを、末尾の行から順に読み込むクラス。
+ * ファイルの末尾からブロック単位で読み込むので、ファイル全体を読み込まずに、新しい行から取得できる。
+ * 文字コードはUTF-8、改行はLFまたはCRLFとする。
+ * @author ucchy
+ */
+public class ReverseLineReader implements Closeable {
+
+    private static final int BLOCK_SIZE = 8192;
+
+    private FileChannel channel;
+
+    /** 読み込み済みで、まだ行として返していないバイト列 */
+    private byte[] buffer;
+
+    /** bufferの有効な長さ */
+    private int length;
+
+    /** bufferの先頭の、ファイル上の位置 */
+    private long bufferStart;
+
+    /** 最後に返した行の、ファイル上の開始位置 */
+    private long lineOffset;
+
+    /**
+     * コンストラクタ
+     * @param file ファイル
+     * @throws IOException ファイルが開けない場合
+     */
+    public ReverseLineReader(File file) throws IOException {
+        this(file, -1);
+    }
+
+    /**
+     * コンストラクタ
+     * @param file ファイル
+     * @param end 読み込む範囲の終端位置、負の値ならファイルの末尾
+     * @throws IOException ファイルが開けない場合
+     */
+    public ReverseLineReader(File file, long end) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        long size = channel.size();
+        bufferStart = (end < 0 || end > size) ? size : end;
+        buffer = new byte[0];
+        length = 0;
+        lineOffset = bufferStart;
+    }
+
+    /**
+     * 1つ前の行を読み込む
+     * @return 行（改行を含まない）、ファイルの先頭に達したらnull
+     * @throws IOException 読み込みに失敗した場合
+     */
+    public String readLine() throws IOException {
+
+        if ( bufferStart + length == 0 ) {
+            return null;
+        }
+
+        // 行末の改行を除く
+        int end = length;
+        boolean terminated = false;
+        while ( true ) {
+            if ( end == 0 && bufferStart > 0 ) {
+                end += fill();
+                continue;
+            }
+            if ( !terminated && end > 0 && buffer[end - 1] == '\n' ) {
+                end--;
+                terminated = true;
+                continue;
+            }
+            break;
+        }
+        int contentEnd = end;
+
+        // 前の改行を探す
+        int start = -1;
+        int i = contentEnd - 1;
+        while ( true ) {
+            for ( ; i >= 0; i-- ) {
+                if ( buffer[i] == '\n' ) {
+                    start = i + 1;
+                    break;
+                }
+            }
+            if ( start >= 0 || bufferStart == 0 ) {
+                break;
+            }
+            int added = fill();
+            i += added;
+            contentEnd += added;
+        }
+        if ( start < 0 ) {
+            start = 0;
+        }
+
+        int lineEnd = contentEnd;
+        if ( lineEnd > start && buffer[lineEnd - 1] == '\r' ) {
+            lineEnd--;
+        }
+
+        String line = new String(buffer, start, lineEnd - start, StandardCharsets.UTF_8);
+        lineOffset = bufferStart + start;
+        length = start;
+        return line;
+    }
+
+    /**
+     * 最後に読み込んだ行の、ファイル上の開始位置を返す
+     * @return 開始位置
+     */
+    public long getLineOffset() {
+        return lineOffset;
+    }
+
+    /**
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * bufferの前に、1ブロック分を読み込む
+     * @return 読み込んだバイト数
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private int fill() throws IOException {
+
+        int size = (int)Math.min(BLOCK_SIZE, bufferStart);
+        byte[] next = new byte[size + length];
+        ByteBuffer bb = ByteBuffer.wrap(next, 0, size);
+        long position = bufferStart - size;
+        while ( bb.hasRemaining() ) {
+            int read = channel.read(bb, position + bb.position());
+            if ( read < 0 ) {
+                throw new IOException("Unexpected end of file.");
+            }
+        }
+        System.arraycopy(buffer, 0, next, size, length);
+
+        buffer = next;
+        length += size;
+        bufferStart = position;
+        return size;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Yamlファイルの保存を遅延させて、まとめて行うクラス。
+ * 保存要求された内容はファイルごとに最新の1件だけを保持しておき、
+ * 一定時間内の保存要求を、バックグラウンドスレッドでの1回の書き込みにまとめる。
+ * @author ucchy
+ */
+public class WriteBehindSaver {
+
+    /** 保存待ちの内容（ファイル → 最新の内容） */
+    private ConcurrentHashMap<File, YamlConfig> pending;
+
+    /** 書き込みを行うスレッド */
+    private ScheduledExecutorService executor;
+
+    /** 書き込みが予約済みかどうか */
+    private AtomicBoolean scheduled;
+
+    /** ファイル書き込みの排他用 */
+    private final Object writeLock = new Object();
+
+    /**
+     * コンストラクタ
+     */
+    public WriteBehindSaver() {
+        this.pending = new ConcurrentHashMap<File, YamlConfig>();
+        this.scheduled = new AtomicBoolean(false);
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "LunaChat-WriteBehindSaver");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * 内容をファイルに保存する。
+     * 遅延時間が0以下の場合や、停止済みの場合は、すぐに書き込む。
+     * @param file 保存先
+     * @param config 保存する内容（保存要求後に変更しないこと）
+     * @param delayMillis 書き込みまでの遅延時間（ミリ秒）
+     * @return 保存に成功したかどうか（遅延する場合は常にtrue）
+     */
+    public boolean save(File file, YamlConfig config, long delayMillis) {
+
+        if ( delayMillis <= 0 || executor.isShutdown() ) {
+            synchronized (writeLock) {
+                pending.remove(file);
+                return write(file, config);
+            }
+        }
+
+        pending.put(file, config);
+
+        if ( scheduled.compareAndSet(false, true) ) {
+            executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    scheduled.set(false);
+                    flush();
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    /**
+     * 指定したファイルの保存待ちを取り消す。
+     * 書き込み中の場合は、書き込みが終わるまで待つ。
+     * @param file ファイル
+     */
+    public void cancel(File file) {
+        synchronized (writeLock) {
+            pending.remove(file);
+        }
+    }
+
+    /**
+     * 保存待ちの内容を、全てすぐに書き込む
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            for ( File file : new ArrayList<File>(pending.keySet()) ) {
+                YamlConfig config = pending.remove(file);
+                if ( config != null ) {
+                    write(file, config);
+                }
+            }
+        }
+    }
+
+    /**
+     * 保存待ちの内容を全て書き込んでから、スレッドを停止する。
+     * 停止後の保存要求は、すぐに書き込まれる。
+     */
+    public void shutdown() {
+        executor.shutdown();
+        flush();
+    }
+
+    /**
+     * 保存待ちのファイル数を返す
+     * @return 保存待ちのファイル数
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * ファイルに書き込む
+     * @param file 保存先
+     * @param config 保存する内容
+     * @return 書き込みに成功したかどうか
+     */
+    private boolean write(File file, YamlConfig config) {
+        try {
+            config.save(file);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author ucchy
+ */
+public class LogPlayerIndexTest extends TestCase {
+
+    private File folder;
+    private File file;
+
+    @Override
+    protected void setUp() throws Exception {
+        folder = Files.createTempDirectory("lunachat-index").toFile();
+        file = new File(folder, "test.log");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        for ( File child : folder.listFiles() ) {
+            child.delete();
+        }
+        folder.delete();
+    }
+
+    public void testQuery() throws Exception {
+
+        append("2020-01-01 00:00:01,hello,alice",
+                "2020-01-01 00:00:02,hi,bob",
+                "2020-01-01 00:00:03,good morning,alice",
+                "2020-01-01 00:00:04,hello again,alicia");
+
+        LogPlayerIndex index = LogPlayerIndex.open(file);
+        assertTrue(new File(folder, "test.log.idx").exists());
+
+        // 新しい順に、発言者名の部分一致で取得できること
+        assertEquals(Arrays.asList(
+                "2020-01-01 00:00:04,hello again,alicia",
+                "2020-01-01 00:00:03,good morning,alice",
+                "2020-01-01 00:00:01,hello,alice"),
+                index.query("ali", null, 0, 10));
+        assertEquals(Arrays.asList("2020-01-01 00:00:03,good morning,alice"),
+                index.query("alice", null, 0, 1));
+        assertEquals(Arrays.asList("2020-01-01 00:00:01,hello,alice"),
+                index.query("alice", null, 1, 10));
+        assertEquals(Arrays.asList(
+                "2020-01-01 00:00:04,hello again,alicia",
+                "2020-01-01 00:00:01,hello,alice"),
+                index.query("ali", "hello", 0, 10));
+        assertTrue(index.query("carol", null, 0, 10).isEmpty());
+    }
+
+    public void testUpdate() throws Exception {
+
+        append("2020-01-01 00:00:01,first,alice");
+        assertEquals(1, LogPlayerIndex.open(file).query("alice", null, 0, 10).size());
+
+        // 追記された行が、次に開いたときに索引へ追加されること
+        append("2020-01-01 00:00:02,second,alice");
+        List<String> result = LogPlayerIndex.open(file).query("alice", null, 0, 10);
+        assertEquals(Arrays.asList(
+                "2020-01-01 00:00:02,second,alice",
+                "2020-01-01 00:00:01,first,alice"), result);
+
+        // ログファイルが作り直されたら、索引も作り直されること
+        file.delete();
+        append("2020-01-02 00:00:01,new,bob");
+        assertTrue(LogPlayerIndex.open(file).query("alice", null, 0, 10).isEmpty());
+        assertEquals(1, LogPlayerIndex.open(file).query("bob", null, 0, 10).size());
+    }
+
+    public void testAppendIndex() throws Exception {
+
+        append("2020-01-01 00:00:01,first,alice");
+        LogPlayerIndex index = LogPlayerIndex.open(file);
+
+        // 開いた索引は使い回され、追記された分だけが索引ファイルに追記されること
+        append("2020-01-01 00:00:02,second,bob");
+        assertSame(index, LogPlayerIndex.open(file));
+        assertEquals(1, index.query("bob", null, 0, 10).size());
+        File idx = new File(folder, "test.log.idx");
+        List<String> lines = Files.readAllLines(idx.toPath(), StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList("v2", "alice\t0", "#33", "bob\t33", "#65"), lines);
+
+        // 追記に対応する前の形式の索引も読み込めて、新しい形式で書き直されること
+        File old = new File(folder, "old.log");
+        Files.write(old.toPath(), ("2020-01-01 00:00:01,first,alice\r\n"
+                + "2020-01-01 00:00:02,second,bob\r\n").getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(folder, "old.log.idx").toPath(),
+                "33\nalice\t0\n".getBytes(StandardCharsets.UTF_8));
+        assertEquals(1, LogPlayerIndex.open(old).query("alice", null, 0, 10).size());
+        assertEquals(1, LogPlayerIndex.open(old).query("bob", null, 0, 10).size());
+        assertEquals("v2", Files.readAllLines(
+                new File(folder, "old.log.idx").toPath(), StandardCharsets.UTF_8).get(0));
+    }
+
+    private void append(String... lines) throws Exception {
+        try ( Writer writer = new OutputStreamWriter(
+                new FileOutputStream(file, true), StandardCharsets.UTF_8) ) {
+            for ( String line : lines ) {
+                writer.write(line + "\r\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author ucchy
+ */
+public class LogSearchIndexTest extends TestCase {
+
+    private static final LocalDate DAY1 = LocalDate.of(2020, 1, 1);
+    private static final LocalDate DAY3 = LocalDate.of(2020, 1, 3);
+
+    private File folder;
+    private LunaChatLogWriter writer;
+
+    @Override
+    protected void setUp() throws Exception {
+        folder = Files.createTempDirectory("lunachat-search").toFile();
+        writer = new LunaChatLogWriter(folder, 64, false);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        writer.shutdown();
+        delete(folder);
+    }
+
+    public void testTokenize() {
+
+        Set<String> tokens = LogSearchIndex.tokenize("Hello, ＷＯＲＬＤ! 今日は晴れ");
+        assertTrue(tokens.contains("hello"));
+        assertTrue(tokens.contains("world"));
+        assertTrue(tokens.contains("今"));
+        assertTrue(tokens.contains("今日"));
+        assertTrue(tokens.contains("は晴"));
+        assertFalse(tokens.contains("日晴"));
+    }
+
+    public void testSearch() throws Exception {
+
+        write("2020-01-01 10:00:00", "hello world", "alice");
+        write("2020-01-01 11:00:00", "今日はいい天気", "bob");
+        write("2020-01-02 10:00:00", "hello again", "bob");
+        write("2020-01-03 09:00:00", "明日の天気はどうかな", "alice");
+        write("2020-01-03 10:00:00", "Hello World from day3", "carol");
+        writer.flush();
+
+        LogSearchIndex index = writer.getSearchIndex();
+
+        // 複数の日付から、新しい順に取得できること
+        assertEquals(Arrays.asList(
+                "2020-01-03 10:00:00,Hello World from day3,carol",
+                "2020-01-01 10:00:00,hello world,alice"),
+                search(index, "hello", "world"));
+
+        // 単語の一部には一致しないこと
+        assertTrue(search(index, "hell").isEmpty());
+
+        // 日本語は、N-gramで検索できること
+        assertEquals(Arrays.asList(
+                "2020-01-03 09:00:00,明日の天気はどうかな,alice",
+                "2020-01-01 11:00:00,今日はいい天気,bob"),
+                search(index, "天気"));
+        assertEquals(Arrays.asList("2020-01-01 11:00:00,今日はいい天気,bob"),
+                search(index, "今日"));
+
+        // 発言者と期間、件数で絞り込めること
+        assertEquals(Arrays.asList("2020-01-02 10:00:00,hello again,bob"),
+                index.search("test", Arrays.asList("hello"), "bob", null, DAY1, DAY3, 0, 10));
+        assertEquals(Arrays.asList("2020-01-01 10:00:00,hello world,alice"),
+                index.search("test", Arrays.asList("hello"), null, null, DAY1, DAY1, 0, 10));
+        assertEquals(Arrays.asList("2020-01-02 10:00:00,hello again,bob"),
+                index.search("test", Arrays.asList("hello"), null, null, DAY1, DAY3, 1, 1));
+    }
+
+    public void testBackfillAndCompaction() throws Exception {
+
+        // 索引の無い、古いログファイルを用意する
+        File day = new File(folder, "2020-01-01");
+        day.mkdirs();
+        Files.write(new File(day, "test.log").toPath(),
+                "2020-01-01 08:00:00,old message,alice\r\n".getBytes(StandardCharsets.UTF_8));
+
+        // 索引が無くても、直接読み込んで検索できること
+        LogSearchIndex index = writer.getSearchIndex();
+        assertEquals(1, search(index, "old").size());
+
+        // 追記した行と合わせて、複数のセグメントになること
+        for ( int i = 0; i < 5; i++ ) {
+            write("2020-01-01 09:00:0" + i, "new message " + i, "bob");
+            writer.flush();
+        }
+
+        index.compact(day);
+        File[] segments = new File(day, "index").listFiles();
+        assertEquals(1, segments.length);
+
+        // まとめた後も、全ての行が検索できること
+        assertEquals(6, search(index, "message").size());
+        assertEquals(Arrays.asList("2020-01-01 08:00:00,old message,alice"), search(index, "old"));
+        assertEquals(Arrays.asList("2020-01-01 09:00:03,new message 3,bob"), search(index, "message", "3"));
+    }
+
+    public void testSearchPending() throws Exception {
+
+        write("2020-01-01 10:00:00", "pending message", "alice");
+        write("2020-01-01 10:00:01", "another line", "bob");
+
+        // flushしなくても、ファイルに書き込まれた時点で、書き出し前の索引から検索できること
+        LogSearchIndex index = writer.getSearchIndex();
+        List<String> result = search(index, "pending");
+        for ( int i = 0; i < 50 && result.isEmpty(); i++ ) {
+            Thread.sleep(100);
+            result = search(index, "pending");
+        }
+        assertEquals(Arrays.asList("2020-01-01 10:00:00,pending message,alice"), result);
+
+        // 検索のために、セグメントは書き出されないこと
+        File[] segments = new File(new File(folder, "2020-01-01"), "index").listFiles();
+        assertTrue(segments == null || segments.length == 0);
+    }
+
+    private List<String> search(LogSearchIndex index, String... terms) {
+        return index.search("test", Arrays.asList(terms), null, null, DAY1, DAY3, 0, 100);
+    }
+
+    private void write(String time, String message, String player) throws Exception {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        writer.write("test", format.parse(time).getTime(), message, player);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if ( children != null ) {
+            for ( File child : children ) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
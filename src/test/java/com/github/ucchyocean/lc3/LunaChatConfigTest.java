@@ -0,0 +1,77 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author ucchy
+ */
+public class LunaChatConfigTest extends TestCase {
+
+    private static final String DATA_FOLDER = "target" + File.separator + "LunaChatConfigTest";
+
+    public void testReload() throws IOException {
+
+        File dataFolder = new File(DATA_FOLDER);
+        if ( !dataFolder.exists() ) {
+            dataFolder.mkdirs();
+        }
+        File configFile = new File(dataFolder, "config.yml");
+        write(configFile, "globalMarker: '!'\nforceJoinChannels:\n- Global\nngword:\n- 'bad'\n");
+
+        LunaChatStandalone lunachat = new LunaChatStandalone(dataFolder);
+        lunachat.onEnable();
+
+        LunaChatConfig config = LunaChat.getConfig();
+        LunaChatConfig.Snapshot first = config.getSnapshot();
+        assertTrue(first.isForceJoinChannel("Global"));
+        assertTrue(first.isGlobalMarkerMessage("!hello"));
+        assertFalse(first.isGlobalMarkerMessage("!"));
+        assertEquals("***", first.getNgwordFilter().mask("bad"));
+
+        // NGワードの正規表現が正しくない場合は、それまでの設定のままになること
+        write(configFile, "globalMarker: '@'\nngword:\n- '(bad'\n");
+        assertFalse(config.reloadConfig(dataFolder, null));
+        assertSame(first, config.getSnapshot());
+
+        // yamlとして正しくない場合も、それまでの設定のままになること
+        write(configFile, "ngword: [bad\n");
+        assertFalse(config.reloadConfig(dataFolder, null));
+        assertSame(first, config.getSnapshot());
+
+        // 正しい設定なら差し替えられ、差し替え前のSnapshotは変更されないこと
+        write(configFile, "globalMarker: '@'\n");
+        assertTrue(config.reloadConfig(dataFolder, null));
+        LunaChatConfig.Snapshot second = config.getSnapshot();
+        assertNotSame(first, second);
+        assertEquals("@", config.getGlobalMarker());
+        assertFalse(second.isForceJoinChannel("Global"));
+        assertEquals("!", first.getGlobalMarker());
+        assertTrue(first.isForceJoinChannel("Global"));
+
+        try {
+            first.getForceJoinChannels().add("other");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // 変更できないこと
+        }
+    }
+
+    private static void write(File file, String content) throws IOException {
+        try ( Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8) ) {
+            writer.write(content);
+        }
+    }
+}
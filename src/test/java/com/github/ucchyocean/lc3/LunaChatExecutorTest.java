@@ -0,0 +1,244 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.github.ucchyocean.lc3.LunaChatExecutor.FullAction;
+import com.github.ucchyocean.lc3.LunaChatExecutor.Lane;
+import com.github.ucchyocean.lc3.LunaChatExecutor.Settings;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author ucchy
+ */
+public class LunaChatExecutorTest extends TestCase {
+
+    public void testLanesAreIndependent() throws Exception {
+
+        LunaChatExecutor executor = create(Lane.JAPANIZE, FullAction.CALLER, false);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            // Japanizeのレーンを塞いでも、他のレーンは実行されること
+            executor.execute(Lane.JAPANIZE, new Runnable() {
+                @Override
+                public void run() {
+                    await(release);
+                }
+            });
+
+            final CountDownLatch done = new CountDownLatch(1);
+            executor.execute(Lane.EVENT, new Runnable() {
+                @Override
+                public void run() {
+                    done.countDown();
+                }
+            });
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdown(true);
+        }
+
+        LunaChatExecutor.Stats stats = executor.getStats(Lane.JAPANIZE);
+        assertEquals(1, stats.getSubmittedCount());
+        assertEquals(1, stats.getCompletedCount());
+        assertTrue(stats.getTotalExecuteNanos() > 0);
+    }
+
+    public void testCallerRunsWhenFull() throws Exception {
+
+        LunaChatExecutor executor = create(Lane.EVENT, FullAction.CALLER, false);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            block(executor, Lane.EVENT, release);
+
+            // スレッド1つと待ち行列2つが埋まっているので、呼び出したスレッドで実行されること
+            final AtomicReference<Thread> thread = new AtomicReference<Thread>();
+            executor.execute(Lane.EVENT, new Runnable() {
+                @Override
+                public void run() {
+                    thread.set(Thread.currentThread());
+                }
+            });
+            assertSame(Thread.currentThread(), thread.get());
+            assertEquals(2, executor.getQueueSize(Lane.EVENT));
+            assertEquals(1, executor.getStats(Lane.EVENT).getCallerRunsCount());
+        } finally {
+            release.countDown();
+            executor.shutdown(true);
+        }
+
+        LunaChatExecutor.Stats stats = executor.getStats(Lane.EVENT);
+        assertEquals(4, stats.getCompletedCount());
+        assertTrue(stats.getMaxWaitNanos() > 0);
+    }
+
+    public void testDropWhenFull() throws Exception {
+
+        LunaChatExecutor executor = create(Lane.JAPANIZE, FullAction.DROP, false);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger count = new AtomicInteger();
+        try {
+            block(executor, Lane.JAPANIZE, release);
+            for ( int i = 0; i < 3; i++ ) {
+                executor.execute(Lane.JAPANIZE, new Runnable() {
+                    @Override
+                    public void run() {
+                        count.incrementAndGet();
+                    }
+                });
+            }
+            assertEquals(3, executor.getStats(Lane.JAPANIZE).getDroppedCount());
+        } finally {
+            release.countDown();
+            executor.shutdown(true);
+        }
+        assertEquals(0, count.get());
+        assertEquals(3, executor.getStats(Lane.JAPANIZE).getCompletedCount());
+    }
+
+    public void testDropOldestWhenFull() throws Exception {
+
+        // 捨てた数だけ数えられ、新しい処理が残ること
+        LunaChatExecutor executor = create(Lane.JAPANIZE, FullAction.DROP_OLDEST, false);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger last = new AtomicInteger();
+        try {
+            block(executor, Lane.JAPANIZE, release);
+            for ( int i = 1; i <= 5; i++ ) {
+                final int number = i;
+                executor.execute(Lane.JAPANIZE, new Runnable() {
+                    @Override
+                    public void run() {
+                        last.set(number);
+                    }
+                });
+            }
+            assertEquals(5, executor.getStats(Lane.JAPANIZE).getDroppedCount());
+        } finally {
+            release.countDown();
+            executor.shutdown(true);
+        }
+        assertEquals(5, last.get());
+        assertEquals(5, executor.getStats(Lane.JAPANIZE).getDroppedCount());
+        assertEquals(3, executor.getStats(Lane.JAPANIZE).getCompletedCount());
+    }
+
+    public void testJapanizeNeverRunsOnCaller() throws Exception {
+
+        // callerが設定されていても、Japanizeは追加したスレッドで実行せず、最も古い処理を捨てること
+        LunaChatExecutor executor = create(Lane.JAPANIZE, FullAction.CALLER, false);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicReference<Thread> thread = new AtomicReference<Thread>();
+        final AtomicInteger droppedTasks = new AtomicInteger();
+        LunaChatExecutor.DroppableTask task = new LunaChatExecutor.DroppableTask() {
+            @Override
+            public void run() {
+                thread.set(Thread.currentThread());
+            }
+            @Override
+            public void onDropped() {
+                droppedTasks.incrementAndGet();
+            }
+        };
+        try {
+            block(executor, Lane.JAPANIZE, release);
+            executor.execute(Lane.JAPANIZE, task);
+            assertNull(thread.get());
+            assertEquals(0, executor.getStats(Lane.JAPANIZE).getCallerRunsCount());
+            assertEquals(1, executor.getStats(Lane.JAPANIZE).getDroppedCount());
+        } finally {
+            release.countDown();
+            executor.shutdown(true);
+        }
+        assertNotSame(Thread.currentThread(), thread.get());
+
+        // 停止した後に追加された処理も、追加したスレッドでは実行せずに捨てること
+        thread.set(null);
+        executor.execute(Lane.JAPANIZE, task);
+        assertNull(thread.get());
+        assertEquals(1, droppedTasks.get());
+    }
+
+    public void testVirtualThreads() throws Exception {
+
+        LunaChatExecutor executor = create(Lane.JAPANIZE, FullAction.CALLER, true);
+        final AtomicReference<String> name = new AtomicReference<String>();
+        final CountDownLatch done = new CountDownLatch(1);
+        try {
+            executor.execute(Lane.IO, new Runnable() {
+                @Override
+                public void run() {
+                    name.set(Thread.currentThread().getName());
+                    done.countDown();
+                }
+            });
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown(true);
+        }
+
+        // 仮想スレッドに対応していない実行環境では、通常のスレッドになること
+        boolean supported = false;
+        try {
+            Thread.class.getMethod("ofVirtual").invoke(null);
+            supported = true;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // 対応していない
+        }
+        assertEquals(supported, executor.isVirtualThreads());
+        assertTrue(name.get().startsWith("LunaChat-IO-"));
+    }
+
+    /**
+     * 指定したレーンを、スレッド1つと待ち行列2つで作成する
+     */
+    private static LunaChatExecutor create(Lane lane, FullAction action, boolean virtual) {
+        Map<Lane, Settings> settings = new EnumMap<Lane, Settings>(Lane.class);
+        settings.put(lane, new Settings(1, 2, action));
+        return new LunaChatExecutor(settings, virtual);
+    }
+
+    /**
+     * 指定したレーンのスレッドと待ち行列を、全て埋める
+     */
+    private static void block(LunaChatExecutor executor, Lane lane, final CountDownLatch release)
+            throws InterruptedException {
+
+        final CountDownLatch started = new CountDownLatch(1);
+        executor.execute(lane, new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                await(release);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for ( int i = 0; i < 2; i++ ) {
+            executor.execute(lane, new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author ucchy
+ */
+public class LunaChatLogWriterTest extends TestCase {
+
+    private static final int THREADS = 8;
+    private static final int RECORDS = 2000;
+
+    private File folder;
+
+    @Override
+    protected void setUp() throws Exception {
+        folder = Files.createTempDirectory("lunachat-logs").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        delete(folder);
+    }
+
+    public void testConcurrentWrite() throws Exception {
+
+        final LunaChatLogWriter writer = new LunaChatLogWriter(folder, 64, false);
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for ( int t=0; t<THREADS; t++ ) {
+            final String player = "player" + t;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for ( int i=0; i<RECORDS; i++ ) {
+                        writer.write("test", "message, " + i, player);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for ( Thread thread : threads ) {
+            thread.join();
+        }
+
+        writer.shutdown();
+
+        List<String> lines = readAllLines(folder);
+        assertEquals(THREADS * RECORDS, lines.size());
+
+        // 全ての行が、正しい日時と、カンマを置き換えたメッセージを持っていること
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        format.setLenient(false);
+        Set<String> unique = new HashSet<String>();
+        for ( String line : lines ) {
+            String[] items = line.split(",");
+            assertEquals(line, 3, items.length);
+            try {
+                format.parse(items[0]);
+            } catch (ParseException e) {
+                fail("Broken timestamp : " + line);
+            }
+            assertTrue(items[1].startsWith("message， "));
+            unique.add(items[1] + "," + items[2]);
+        }
+        assertEquals(THREADS * RECORDS, unique.size());
+
+        // 停止後の書き込みは捨てられること
+        assertFalse(writer.write("test", "after", "player"));
+    }
+
+    public void testRotation() throws Exception {
+
+        LunaChatLogWriter writer = new LunaChatLogWriter(folder, 16, false);
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        long day1 = format.parse("2020-01-01 23:59:59").getTime();
+        long day2 = format.parse("2020-01-02 00:00:01").getTime();
+
+        writer.write("test", day1, "first", "p");
+        writer.write("test", day2, "second", "p");
+        writer.flush();
+
+        assertEquals(1, readAllLines(new File(folder, "2020-01-01")).size());
+        assertEquals(1, readAllLines(new File(folder, "2020-01-02")).size());
+
+        writer.write("test", day2, "third", "p");
+        writer.shutdown();
+        assertEquals(2, readAllLines(new File(folder, "2020-01-02")).size());
+    }
+
+    private static List<String> readAllLines(File dir) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        File[] files = dir.listFiles();
+        if ( files == null ) return lines;
+        for ( File file : files ) {
+            if ( file.isDirectory() ) {
+                lines.addAll(readAllLines(file));
+            } else if ( file.getName().endsWith(".log") ) {
+                for ( String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8) ) {
+                    if ( line.length() > 0 ) lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if ( children != null ) {
+            for ( File child : children ) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.UUID;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author ucchy
+ */
+public class UUIDCacheDataTest extends TestCase {
+
+    private static final int PLAYERS = 180000;
+
+    private File folder;
+
+    @Override
+    protected void setUp() throws Exception {
+        folder = Files.createTempDirectory("lunachat-uuidcache").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        for ( File file : folder.listFiles() ) {
+            file.delete();
+        }
+        folder.delete();
+    }
+
+    public void testPutAndGet() {
+
+        String alice = UUID.randomUUID().toString();
+        String bob = UUID.randomUUID().toString();
+
+        UUIDCacheData cache = new UUIDCacheData(folder);
+        cache.put(alice, "Alice");
+        cache.put(bob, "Bob");
+
+        assertEquals("Alice", cache.get(alice));
+        assertEquals(alice, cache.getUUIDFromName("alice"));
+        assertEquals(bob, cache.getUUIDFromName("BOB"));
+        assertNull(cache.getUUIDFromName("carol"));
+        assertNull(cache.get(UUID.randomUUID().toString()));
+
+        // 名前を変更したら、以前の名前では検索できないこと
+        cache.put(alice, "Carol");
+        assertEquals("Carol", cache.get(alice));
+        assertNull(cache.getUUIDFromName("alice"));
+        assertEquals(alice, cache.getUUIDFromName("carol"));
+
+        // 以前の名前を、別のプレイヤーが使った場合
+        cache.put(bob, "Alice");
+        cache.put(alice, "Dave");
+        assertEquals(bob, cache.getUUIDFromName("alice"));
+        assertEquals(2, cache.size());
+    }
+
+    public void testReloadAndCompact() throws Exception {
+
+        String alice = UUID.randomUUID().toString();
+        String bob = UUID.randomUUID().toString();
+        File file = new File(folder, "uuidcache.dat");
+
+        UUIDCacheData cache = new UUIDCacheData(folder);
+        for ( int i = 0; i < 100; i++ ) {
+            cache.put(alice, "Alice" + i);
+        }
+        cache.put(bob, "Bob");
+        cache.save();
+        long appended = file.length();
+
+        // 追記したデータが読み込まれ、最新のものだけが残ること
+        cache = new UUIDCacheData(folder);
+        assertEquals("Alice99", cache.get(alice));
+        assertEquals(bob, cache.getUUIDFromName("bob"));
+        assertEquals(2, cache.size());
+        assertTrue(file.length() < appended / 10);
+
+        // 書き込み途中で終わったデータは、無視すること
+        String carol = UUID.randomUUID().toString();
+        cache.put(carol, "Carol");
+        cache.close();
+        try ( RandomAccessFile raf = new RandomAccessFile(file, "rw") ) {
+            raf.setLength(raf.length() - 3);
+        }
+        cache = new UUIDCacheData(folder);
+        assertNull(cache.get(carol));
+        assertEquals("Alice99", cache.get(alice));
+        cache.put(carol, "Carol");
+        cache.close();
+        assertEquals("Carol", new UUIDCacheData(folder).get(carol));
+    }
+
+    public void testBadHeader() throws Exception {
+
+        // ヘッダーが正しくないファイルは、上書きせずに退避すること
+        File file = new File(folder, "uuidcache.dat");
+        byte[] data = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 };
+        Files.write(file.toPath(), data);
+
+        UUIDCacheData cache = new UUIDCacheData(folder);
+        assertEquals(0, cache.size());
+        File bad = new File(folder, "uuidcache.dat.bad");
+        assertTrue(bad.exists());
+        assertTrue(Arrays.equals(data, Files.readAllBytes(bad.toPath())));
+
+        // 新しいファイルで、そのまま使えること
+        String alice = UUID.randomUUID().toString();
+        cache.put(alice, "Alice");
+        cache.close();
+        assertEquals("Alice", new UUIDCacheData(folder).get(alice));
+    }
+
+    public void testBenchmark() {
+
+        UUIDCacheData cache = new UUIDCacheData(folder);
+        String[] ids = new String[PLAYERS];
+        long start = System.nanoTime();
+        for ( int i = 0; i < PLAYERS; i++ ) {
+            ids[i] = UUID.randomUUID().toString();
+            cache.put(ids[i], "player" + i);
+        }
+        cache.save();
+        long put = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        cache = new UUIDCacheData(folder);
+        long reload = System.nanoTime() - start;
+        assertEquals(PLAYERS, cache.size());
+
+        start = System.nanoTime();
+        for ( int i = 0; i < PLAYERS; i++ ) {
+            assertEquals(ids[i], cache.getUUIDFromName("PLAYER" + i));
+        }
+        long lookup = System.nanoTime() - start;
+
+        System.out.println(String.format(
+                "UUIDCacheData : put %d ns/op, reload %d ms, getUUIDFromName %d ns/op, file %d bytes",
+                put / PLAYERS, reload / 1000000, lookup / PLAYERS,
+                new File(folder, "uuidcache.dat").length()));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.bukkit;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author ucchy
+ */
+public class PlayerLocationGridTest extends TestCase {
+
+    private static final double RANGE = 50;
+    private static final int QUERIES = 10000;
+
+    /** プレイヤー1人あたりのワールドの広さ（人口密度を一定にするため） */
+    private static final double AREA_PER_PLAYER = 64 * 64;
+
+    public void testQuery() {
+
+        PlayerLocationGrid grid = new PlayerLocationGrid();
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID c = UUID.randomUUID();
+        grid.update(a, "world", 0, 64, 0);
+        grid.update(b, "world", 30, 64, -40);
+        grid.update(c, "world_nether", 0, 64, 0);
+
+        List<UUID> result = grid.getPlayersInRange("world", 0, 64, 0, RANGE);
+        assertTrue(result.contains(a));
+        assertTrue(result.contains(b));
+        assertFalse(result.contains(c));
+
+        // セル移動
+        grid.update(b, "world", 300, 64, 300);
+        assertFalse(grid.getPlayersInRange("world", 0, 64, 0, RANGE).contains(b));
+        assertTrue(grid.getPlayersInRange("world", 290, 64, 290, RANGE).contains(b));
+
+        // ワールド移動と退出
+        grid.update(c, "world", -10, 64, -10);
+        assertTrue(grid.getPlayersInRange("world", 0, 64, 0, RANGE).contains(c));
+        grid.remove(c);
+        assertFalse(grid.getPlayersInRange("world", 0, 64, 0, RANGE).contains(c));
+        assertTrue(grid.size() == 2);
+
+        // 半径がとても大きい場合も、プレイヤーのいるセルだけを走査して取得できること
+        result = grid.getPlayersInRange("world", 0, 64, 0, 1.0E9);
+        assertTrue(result.contains(a));
+        assertTrue(result.contains(b));
+        assertTrue(result.size() == 2);
+        assertTrue(grid.getPlayersInRange("world", 0, 64, 0, 1.0E7).size() == 2);
+        assertTrue(grid.getPlayersInRange("world", 1.0E7, 64, 0, 1.0E6).isEmpty());
+    }
+
+    public void testCompareWithLinearScan() {
+
+        Random random = new Random(0);
+        PlayerLocationGrid grid = new PlayerLocationGrid();
+        List<double[]> positions = new ArrayList<double[]>();
+        List<UUID> ids = new ArrayList<UUID>();
+        for ( int i=0; i<2000; i++ ) {
+            double[] pos = new double[] {
+                    random.nextDouble() * 1000 - 500, random.nextDouble() * 256,
+                    random.nextDouble() * 1000 - 500 };
+            UUID id = UUID.randomUUID();
+            positions.add(pos);
+            ids.add(id);
+            grid.update(id, "world", pos[0], pos[1], pos[2]);
+        }
+
+        for ( int q=0; q<100; q++ ) {
+            double[] origin = positions.get(random.nextInt(positions.size()));
+            HashSet<UUID> expected = new HashSet<UUID>();
+            for ( int i=0; i<positions.size(); i++ ) {
+                if ( distance(origin, positions.get(i)) <= RANGE ) {
+                    expected.add(ids.get(i));
+                }
+            }
+            HashSet<UUID> actual = new HashSet<UUID>(grid.getPlayersInRange(
+                    "world", origin[0], origin[1], origin[2], RANGE));
+            assertTrue(expected.equals(actual));
+        }
+    }
+
+    public void testBenchmark() {
+
+        for ( int count : new int[] {100, 400, 1600, 6400} ) {
+
+            // 人数に比例してワールドを広げ、人口密度を一定にする
+            double size = Math.sqrt(AREA_PER_PLAYER * count);
+            Random random = new Random(count);
+            PlayerLocationGrid grid = new PlayerLocationGrid();
+            List<double[]> positions = new ArrayList<double[]>();
+            for ( int i=0; i<count; i++ ) {
+                double[] pos = new double[] {
+                        random.nextDouble() * size, 64, random.nextDouble() * size };
+                positions.add(pos);
+                grid.update(UUID.randomUUID(), "world", pos[0], pos[1], pos[2]);
+            }
+
+            long start = System.currentTimeMillis();
+            int found1 = 0;
+            for ( int q=0; q<QUERIES; q++ ) {
+                double[] origin = positions.get(q % count);
+                for ( double[] pos : positions ) {
+                    if ( distance(origin, pos) <= RANGE ) {
+                        found1++;
+                    }
+                }
+            }
+            long time1 = System.currentTimeMillis() - start;
+
+            start = System.currentTimeMillis();
+            int found2 = 0;
+            for ( int q=0; q<QUERIES; q++ ) {
+                double[] origin = positions.get(q % count);
+                found2 += grid.getPlayersInRange(
+                        "world", origin[0], origin[1], origin[2], RANGE).size();
+            }
+            long time2 = System.currentTimeMillis() - start;
+
+            System.out.println("players = " + count
+                    + ", linear scan time = " + time1 + ", grid time = " + time2);
+            assertTrue(found1 == found2);
+        }
+    }
+
+    private static double distance(double[] a, double[] b) {
+        double dx = a[0] - b[0];
+        double dy = a[1] - b[1];
+        double dz = a[2] - b[2];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.channel;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.ucchyocean.lc3.LunaChatStandalone;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author ucchy
+ */
+public class ChannelIndexTest extends TestCase {
+
+    private static final String DATA_FOLDER = "target" + File.separator + "ChannelIndexTest";
+
+    private static final String MEMBER_A = "$00000000-0000-0000-0000-00000000000a";
+    private static final String MEMBER_B = "$00000000-0000-0000-0000-00000000000b";
+
+    @Override
+    protected void setUp() throws Exception {
+        File dataFolder = new File(DATA_FOLDER);
+        if ( !dataFolder.exists() ) {
+            dataFolder.mkdirs();
+        }
+        new LunaChatStandalone(dataFolder).onEnable();
+    }
+
+    public void testAlias() {
+
+        ChannelIndex index = new ChannelIndex();
+        Channel channel = new StandaloneChannel("indextest");
+        channel.setAlias("Old");
+        index.add(channel);
+
+        // 別名は、大文字小文字を区別せずに引けること
+        assertSame(channel, index.getByAlias("old"));
+        assertSame(channel, index.getByAlias("OLD"));
+
+        // 別名を変更したら、変更前の別名では引けなくなること
+        String oldAlias = channel.getAlias();
+        channel.setAlias("New");
+        index.updateAlias(channel, oldAlias);
+        assertNull(index.getByAlias("old"));
+        assertSame(channel, index.getByAlias("new"));
+
+        // 別名を消したら、引けなくなること
+        oldAlias = channel.getAlias();
+        channel.setAlias("");
+        index.updateAlias(channel, oldAlias);
+        assertNull(index.getByAlias("new"));
+
+        // 変更前の別名が、既に別のチャンネルのものになっていたら、消さないこと
+        Channel other = new StandaloneChannel("indextest2");
+        other.setAlias("shared");
+        index.add(other);
+        channel.setAlias("shared");
+        index.updateAlias(channel, "");
+        other.setAlias("");
+        index.updateAlias(other, "shared");
+        assertSame(channel, index.getByAlias("shared"));
+    }
+
+    public void testMembers() {
+
+        ChannelIndex index = new ChannelIndex();
+        IndexTestChannel first = new IndexTestChannel("indextest");
+        IndexTestChannel second = new IndexTestChannel("indextest2");
+        second.memberIds.add(MEMBER_B);
+        index.add(first);
+        index.add(second);
+        assertTrue(index.getByMember(MEMBER_A).isEmpty());
+
+        // 追加時に参加していたメンバーが、索引に入ること
+        assertEquals(1, index.getByMember(MEMBER_B).size());
+        assertTrue(index.getByMember(MEMBER_B).contains(second));
+
+        // 参加したチャンネルが引けること
+        join(index, first, MEMBER_A);
+        join(index, second, MEMBER_A);
+        assertEquals(2, index.getByMember(MEMBER_A).size());
+        assertTrue(index.getByMember(MEMBER_A).contains(first));
+        assertTrue(index.getByMember(MEMBER_A).contains(second));
+        assertEquals(1, index.getByMember(MEMBER_B).size());
+
+        // 退出したチャンネルは引けなくなること
+        leave(index, first, MEMBER_A);
+        assertEquals(1, index.getByMember(MEMBER_A).size());
+        assertTrue(index.getByMember(MEMBER_A).contains(second));
+        leave(index, second, MEMBER_A);
+        assertTrue(index.getByMember(MEMBER_A).isEmpty());
+
+        // 参加していないチャンネルからの退出は、何も変えないこと
+        index.removeMember(first, MEMBER_B);
+        assertEquals(1, index.getByMember(MEMBER_B).size());
+
+        // 返された一覧を変更しても、索引は変わらないこと
+        index.getByMember(MEMBER_B).clear();
+        assertEquals(1, index.getByMember(MEMBER_B).size());
+    }
+
+    public void testBroadcast() {
+
+        ChannelIndex index = new ChannelIndex();
+        Channel channel = new StandaloneChannel("indextest");
+        index.add(channel);
+        assertFalse(index.getBroadcastChannels().contains(channel));
+
+        channel.setBroadcast(true);
+        index.updateBroadcast(channel);
+        assertTrue(index.getBroadcastChannels().contains(channel));
+
+        channel.setBroadcast(false);
+        index.updateBroadcast(channel);
+        assertFalse(index.getBroadcastChannels().contains(channel));
+    }
+
+    public void testRemove() {
+
+        ChannelIndex index = new ChannelIndex();
+        IndexTestChannel channel = new IndexTestChannel("indextest");
+        channel.setAlias("alias");
+        channel.setBroadcast(true);
+        index.add(channel);
+        join(index, channel, MEMBER_A);
+
+        // チャンネルを削除したら、別名、ブロードキャスト、メンバーのどれからも引けなくなること
+        index.remove(channel);
+        assertNull(index.getByAlias("alias"));
+        assertFalse(index.getBroadcastChannels().contains(channel));
+        assertTrue(index.getByMember(MEMBER_A).isEmpty());
+    }
+
+    /**
+     * ChannelManager#onMemberAdded と同じように、メンバーの参加を索引に反映する
+     */
+    private static void join(ChannelIndex index, IndexTestChannel channel, String id) {
+        channel.memberIds.add(id);
+        index.addMember(channel, id);
+    }
+
+    /**
+     * ChannelManager#onMemberRemoved と同じように、メンバーの退出を索引に反映する
+     */
+    private static void leave(ChannelIndex index, IndexTestChannel channel, String id) {
+        channel.memberIds.remove(id);
+        index.removeMember(channel, id);
+    }
+
+    /**
+     * イベントを送らずにメンバーを変更できる、テスト用のチャンネル
+     */
+    private static class IndexTestChannel extends StandaloneChannel {
+
+        private List<String> memberIds = new ArrayList<String>();
+
+        IndexTestChannel(String name) {
+            super(name);
+        }
+
+        @Override
+        protected List<String> getMemberIds() {
+            return new ArrayList<String>(memberIds);
+        }
+    }
+}
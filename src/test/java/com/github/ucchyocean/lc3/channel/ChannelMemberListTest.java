@@ -0,0 +1,121 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.channel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.ucchyocean.lc3.member.ChannelMember;
+import com.github.ucchyocean.lc3.member.ChannelMemberDummy;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author ucchy
+ */
+public class ChannelMemberListTest extends TestCase {
+
+    private static final int MEMBERS = 10000;
+    private static final int HIDED = 1000;
+    private static final int MESSAGES = 10;
+
+    public void testListCompatibility() {
+
+        ChannelMemberList list = new ChannelMemberList();
+        ChannelMember a = new ChannelMemberDummy("a");
+        ChannelMember b = new ChannelMemberDummy("b");
+        ChannelMember c = new ChannelMemberDummy("c");
+
+        assertTrue(list.add(a));
+        assertTrue(list.add(b));
+        assertFalse(list.add(new ChannelMemberDummy("a")));
+        list.add(c);
+        assertTrue(list.size() == 3);
+        assertTrue(list.get(1).equals(b));
+        assertTrue(list.contains(new ChannelMemberDummy("c")));
+
+        list.remove(new ChannelMemberDummy("b"));
+        assertTrue(list.size() == 2);
+        assertTrue(list.get(1).equals(c));
+        assertFalse(list.contains(b));
+
+        list.add(0, b);
+        assertTrue(list.get(0).equals(b));
+        assertTrue(list.indexOf(c) == 2);
+
+        // setは大きさを変えず、重複するメンバーは受け付けないこと
+        ChannelMember d = new ChannelMemberDummy("d");
+        assertTrue(list.set(1, d).equals(a));
+        assertTrue(list.size() == 3);
+        assertTrue(list.get(1).equals(d));
+        assertTrue(list.set(1, new ChannelMemberDummy("d")).equals(d));
+        try {
+            list.set(0, c);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // 重複するので、置き換えられないこと
+        }
+        assertTrue(list.size() == 3);
+        assertTrue(list.get(0).equals(b));
+    }
+
+    public void testBenchmark() {
+
+        List<ChannelMember> source = new ArrayList<ChannelMember>();
+        for ( int i=0; i<MEMBERS; i++ ) {
+            source.add(new ChannelMemberDummy("player" + i));
+        }
+        List<ChannelMember> hidedSource = source.subList(0, HIDED);
+
+        // 変更前（ArrayList）
+        List<ChannelMember> members1 = new ArrayList<ChannelMember>(source);
+        List<ChannelMember> hided1 = new ArrayList<ChannelMember>(hidedSource);
+        long start = System.currentTimeMillis();
+        int count1 = 0;
+        for ( int i=0; i<MESSAGES; i++ ) {
+            count1 += buildRecipients(members1, hided1, new ArrayList<ChannelMember>()).size();
+        }
+        long time1 = System.currentTimeMillis() - start;
+        System.out.println("members = " + MEMBERS + ", ArrayList time = " + time1);
+
+        // 変更後（ChannelMemberList）
+        List<ChannelMember> members2 = new ChannelMemberList(source);
+        List<ChannelMember> hided2 = new ChannelMemberList(hidedSource);
+        start = System.currentTimeMillis();
+        int count2 = 0;
+        for ( int i=0; i<MESSAGES; i++ ) {
+            count2 += buildRecipients(members2, hided2, new ChannelMemberList()).size();
+        }
+        long time2 = System.currentTimeMillis() - start;
+        System.out.println("members = " + MEMBERS + ", ChannelMemberList time = " + time2);
+
+        assertTrue(count1 == count2);
+        assertTrue(count1 == (MEMBERS - HIDED) * MESSAGES);
+    }
+
+    /**
+     * BukkitChannel.sendMessage と同じ手順で受信者を作成する
+     */
+    private static List<ChannelMember> buildRecipients(
+            List<ChannelMember> members, List<ChannelMember> hided, List<ChannelMember> recipients) {
+
+        for ( ChannelMember mem : members ) {
+            if ( !hided.contains(mem) ) {
+                recipients.add(mem);
+            }
+        }
+        for ( ChannelMember mem : members.subList(0, 10) ) {
+            if ( !recipients.contains(mem) ) {
+                recipients.add(mem);
+            }
+        }
+        for ( ChannelMember mem : hided.subList(0, 10) ) {
+            recipients.remove(mem);
+        }
+        return recipients;
+    }
+}
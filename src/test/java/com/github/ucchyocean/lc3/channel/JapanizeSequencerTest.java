@@ -0,0 +1,131 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.channel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author ucchy
+ */
+public class JapanizeSequencerTest extends TestCase {
+
+    public void testOrder() {
+
+        JapanizeSequencer sequencer = new JapanizeSequencer();
+        List<String> output = new ArrayList<String>();
+
+        JapanizeSequencer.Line first = sequencer.reserve();
+        JapanizeSequencer.Line second = sequencer.reserve();
+        JapanizeSequencer.Line third = sequencer.reserve();
+
+        // 後の発言が先に変換されても、前の発言を待つこと
+        second.originalDelivered();
+        second.complete(add(output, "second"));
+        third.originalDelivered();
+        third.complete(add(output, "third"));
+        assertTrue(output.isEmpty());
+
+        // 元の発言が表示されるまでは、表示しないこと
+        first.complete(add(output, "first"));
+        assertTrue(output.isEmpty());
+        first.originalDelivered();
+        assertEquals(3, output.size());
+        assertEquals("first", output.get(0));
+        assertEquals("second", output.get(1));
+        assertEquals("third", output.get(2));
+        assertEquals(0, sequencer.getPendingCount());
+
+        // 変換が終わっていれば、待たずに表示されること
+        JapanizeSequencer.Line fourth = sequencer.reserve();
+        fourth.originalDelivered();
+        fourth.complete(add(output, "fourth"));
+        assertEquals("fourth", output.get(3));
+    }
+
+    public void testCancel() {
+
+        JapanizeSequencer sequencer = new JapanizeSequencer();
+        List<String> output = new ArrayList<String>();
+
+        JapanizeSequencer.Line first = sequencer.reserve();
+        JapanizeSequencer.Line second = sequencer.reserve();
+        JapanizeSequencer.Line third = sequencer.reserve();
+
+        second.originalDelivered();
+        second.complete(add(output, "second"));
+        third.originalDelivered();
+        third.complete(add(output, "third"));
+
+        // キャンセルされた行は、元の発言を待たずに後の行に順番を譲ること
+        first.cancel();
+        assertEquals(2, output.size());
+        assertEquals("second", output.get(0));
+
+        // 変換が終わった後でも、表示前ならキャンセルできること
+        JapanizeSequencer.Line fourth = sequencer.reserve();
+        fourth.complete(add(output, "fourth"));
+        fourth.cancel();
+        fourth.originalDelivered();
+        assertEquals(2, output.size());
+        assertEquals(0, sequencer.getPendingCount());
+    }
+
+    public void testConcurrentSpeakers() throws Exception {
+
+        final JapanizeSequencer sequencer = new JapanizeSequencer();
+        final List<Integer> output = Collections.synchronizedList(new ArrayList<Integer>());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        final int count = 2000;
+        final CountDownLatch done = new CountDownLatch(count);
+
+        try {
+            for ( int i = 0; i < count; i++ ) {
+                final int number = i;
+                final JapanizeSequencer.Line line = sequencer.reserve();
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        line.complete(new Runnable() {
+                            @Override
+                            public void run() {
+                                output.add(number);
+                            }
+                        });
+                        done.countDown();
+                    }
+                });
+                line.originalDelivered();
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+
+        // どのスレッドで変換が終わっても、予約した順番で表示されること
+        assertEquals(count, output.size());
+        for ( int i = 0; i < count; i++ ) {
+            assertEquals(i, output.get(i).intValue());
+        }
+    }
+
+    private static Runnable add(final List<String> output, final String text) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                output.add(text);
+            }
+        };
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.japanize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.ucchyocean.lc3.util.CircuitBreaker;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.TestCase;
+
+/**
+ * ローカルのスタブHTTPサーバーを相手に、IMEClientをテストする
+ * @author ucchy
+ */
+public class IMEClientTest extends TestCase {
+
+    private HttpServer server;
+    private String baseUrl;
+
+    /** スタブの応答の種類 */
+    private volatile String mode;
+
+    /** スタブが受け付けたリクエストの数 */
+    private AtomicInteger requests;
+
+    @Override
+    protected void setUp() throws Exception {
+
+        mode = "ok";
+        requests = new AtomicInteger();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/transliterate", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                String query = exchange.getRequestURI().getRawQuery();
+                String text = URLDecoder.decode(query.substring(query.indexOf("text=") + 5), "UTF-8");
+
+                if ( mode.equals("slow") ) {
+                    try {
+                        Thread.sleep(1000);
+                    } catch (InterruptedException e) {
+                        // do nothing.
+                    }
+                }
+                if ( mode.equals("error") ) {
+                    exchange.sendResponseHeaders(500, -1);
+                    exchange.close();
+                    return;
+                }
+
+                byte[] body = ("[[\"" + text + "\",[\"[" + text + "]\"]]]").getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try ( OutputStream out = exchange.getResponseBody() ) {
+                    out.write(body);
+                }
+            }
+        });
+        server.start();
+
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort()
+                + "/transliterate?langpair=ja-Hira%7Cja&text=";
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop(0);
+    }
+
+    public void testConvertAndCache() throws Exception {
+
+        IMEClient client = new IMEClient(baseUrl, 500, 500, 2, 3, 60000);
+        try {
+            assertEquals("[かんじ]", client.convert("かんじ"));
+            assertEquals("[かんじ]", client.convert("かんじ"));
+            assertEquals(1, requests.get());
+
+            // キャッシュの大きさを超えたら、古いものから消えること
+            client.convert("いち");
+            client.convert("に");
+            client.convert("かんじ");
+            assertEquals(4, requests.get());
+
+            assertEquals("", client.convertAsync("").get());
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    public void testTimeoutFallsBackToKana() throws Exception {
+
+        mode = "slow";
+        IMEClient client = new IMEClient(baseUrl, 200, 200, 16, 3, 60000);
+        try {
+            long start = System.currentTimeMillis();
+            assertEquals("おそい", client.convert("おそい"));
+            assertTrue(System.currentTimeMillis() - start < 900);
+        } finally {
+            client.shutdown();
+        }
+    }
+
+    public void testCircuitBreaker() throws Exception {
+
+        mode = "error";
+        IMEClient client = new IMEClient(baseUrl, 500, 500, 16, 2, 300);
+        try {
+            assertEquals("いち", client.convert("いち"));
+            assertEquals("に", client.convert("に"));
+            assertEquals(CircuitBreaker.State.OPEN, client.getState());
+
+            // 止めている間は、呼び出さずにかな文字のまま返すこと
+            assertEquals("さん", client.convert("さん"));
+            assertEquals(2, requests.get());
+
+            // 時間が経ったら、試しに呼び出して、成功すれば元に戻ること
+            mode = "ok";
+            Thread.sleep(400);
+            assertEquals("[よん]", client.convert("よん"));
+            assertEquals(CircuitBreaker.State.CLOSED, client.getState());
+            assertEquals(3, requests.get());
+        } finally {
+            client.shutdown();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.japanize;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author ucchy
+ */
+public class KeywordLockerTest extends TestCase {
+
+    private static final int ITERATIONS = 2000;
+
+    public void testLockAndUnlock() {
+
+        KeywordLocker locker = new KeywordLocker();
+        locker.setPlayerNames(Arrays.asList("ucchy", "alice"));
+        Map<String, String> dictionary = new HashMap<String, String>();
+        dictionary.put("lc", "LunaChat");
+        dictionary.put("lunachat", "ルナチャット");
+        locker.setDictionary(dictionary);
+
+        KeywordLocker.Locked locked = locker.lock("ucchy, lunachat lc ucchy", true);
+        assertEquals("＜１＞, ＜２＞ ＜３＞ ＜１＞", locked.getText());
+        assertEquals("ucchy, ルナチャット LunaChat ucchy", locked.unlock(locked.getText()));
+
+        // プレイヤー名を置き換えない場合
+        locked = locker.lock("alice lc", false);
+        assertEquals("alice ＜１＞", locked.getText());
+        assertEquals("alice LunaChat", locked.unlock(locked.getText()));
+
+        // 変更したキーワードが、次の置き換えから反映されること
+        locker.removePlayerName("alice");
+        locker.addPlayerName("bob");
+        locker.putDictionary("lc", "LC");
+        locker.removeDictionary("lunachat");
+        locked = locker.lock("alice bob lc lunachat", true);
+        assertEquals("alice ＜１＞ ＜２＞ lunachat", locked.getText());
+        assertEquals("alice bob LC lunachat", locked.unlock(locked.getText()));
+
+        // 置き換えた文字列以外の「＜」「＞」は、そのまま残すこと
+        assertEquals("＜あ＞ bob", locked.unlock("＜あ＞ ＜１＞"));
+    }
+
+    public void testBenchmark() {
+
+        List<String> names = new ArrayList<String>();
+        for ( int i = 0; i < 500; i++ ) {
+            names.add(String.format("player%03d", i));
+        }
+        Map<String, String> dictionary = new HashMap<String, String>();
+        for ( int i = 0; i < 2000; i++ ) {
+            dictionary.put("word" + i + "x", "単語" + i);
+        }
+        KeywordLocker locker = new KeywordLocker();
+        locker.setPlayerNames(names);
+        locker.setDictionary(dictionary);
+
+        String text = "konnichiha player042 san, player499 san, word7x wo tsukatte minasai";
+        String expected = "konnichiha ＜１＞ san, ＜２＞ san, ＜３＞ wo tsukatte minasai";
+        assertEquals(expected, locker.lock(text, true).getText());
+        assertEquals(expected, lockByReplace(text, names, dictionary));
+
+        for ( int i = 0; i < ITERATIONS; i++ ) {
+            locker.lock(text, true);
+            lockByReplace(text, names, dictionary);
+        }
+
+        long start = System.nanoTime();
+        for ( int i = 0; i < ITERATIONS; i++ ) {
+            lockByReplace(text, names, dictionary);
+        }
+        long replace = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for ( int i = 0; i < ITERATIONS; i++ ) {
+            locker.lock(text, true);
+        }
+        long automaton = System.nanoTime() - start;
+
+        System.out.println(String.format(
+                "KeywordLocker : replace %d ns/op, automaton %d ns/op (x%.1f)",
+                replace / ITERATIONS, automaton / ITERATIONS,
+                (double)replace / Math.max(automaton, 1)));
+    }
+
+    /**
+     * 以前の、キーワードごとにcontainsとreplaceを繰り返す置き換え処理
+     */
+    private static String lockByReplace(String text, List<String> names, Map<String, String> dictionary) {
+        int index = 0;
+        String locked = text;
+        for ( String keyword : names ) {
+            if ( locked.contains(keyword) ) {
+                index++;
+                locked = locked.replace(keyword, "＜" + toMultibytes(index) + "＞");
+            }
+        }
+        for ( String keyword : dictionary.keySet() ) {
+            if ( locked.contains(keyword) ) {
+                index++;
+                locked = locked.replace(keyword, "＜" + toMultibytes(index) + "＞");
+            }
+        }
+        return locked;
+    }
+
+    private static String toMultibytes(int digit) {
+        StringBuilder result = new StringBuilder();
+        for ( char c : Integer.toString(digit).toCharArray() ) {
+            result.append((char)('０' + (c - '0')));
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.japanize;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author ucchy
+ */
+public class LocalIMETest extends TestCase {
+
+    private static final int ITERATIONS = 10000;
+
+    private File folder;
+
+    @Override
+    protected void setUp() throws Exception {
+        folder = Files.createTempDirectory("lunachat-localime").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        for ( File file : folder.listFiles() ) {
+            file.delete();
+        }
+        folder.delete();
+    }
+
+    public void testSkkDictionary() throws Exception {
+
+        File skk = new File(folder, "SKK-JISYO.test");
+        Files.write(skk.toPath(), Arrays.asList(
+                ";; -*- coding: euc-jp -*-",
+                ";; okuri-ari entries.",
+                "かk /書/欠/",
+                ";; okuri-nasi entries.",
+                "かんじ /漢字/感じ;feeling/幹事/",
+                "かん /缶/巻/(concat \"x\")/",
+                "きしゃ /記者/汽車/"), Charset.forName("EUC-JP"));
+
+        KanaKanjiDictionary dictionary = KanaKanjiDictionary.load(
+                Collections.singletonList(skk), new File(folder, "test.dat"));
+
+        assertEquals(Arrays.asList("漢字", "感じ", "幹事"), dictionary.getCandidates("かんじ"));
+        assertEquals(Arrays.asList("缶", "巻"), dictionary.getCandidates("かん"));
+        assertTrue(dictionary.getCandidates("か").isEmpty());
+        assertTrue(dictionary.getCandidates("かんじゃ").isEmpty());
+
+        int[] lengths = new int[8];
+        int[] entries = new int[8];
+        assertEquals(2, dictionary.commonPrefixSearch("かんじを", 0, lengths, entries));
+        assertEquals(2, lengths[0]);
+        assertEquals(3, lengths[1]);
+        assertEquals("漢字", dictionary.getBestCandidate(entries[1]));
+    }
+
+    public void testConvert() throws Exception {
+
+        LocalIME ime = new LocalIME(loadBundled());
+
+        assertEquals("今日はいい天気ですね", ime.convert("きょうはいいてんきですね"));
+        assertEquals("明日、一緒に建築しよう！", ime.convert("あした、いっしょにけんちくしよう！"));
+        assertEquals("ダイヤみつけた", ime.convert("だいやみつけた"));
+        assertEquals("abc 123", ime.convert("abc 123"));
+        assertEquals("", ime.convert(""));
+    }
+
+    public void testRecompile() throws Exception {
+
+        File source = new File(folder, "dic.txt");
+        File compiled = new File(folder, "dic.dat");
+        Files.write(source.toPath(), Arrays.asList("かんじ\t漢字\t10"), StandardCharsets.UTF_8);
+        assertEquals("漢字", new LocalIME(KanaKanjiDictionary.load(
+                Collections.singletonList(source), compiled)).convert("かんじ"));
+
+        // テキストの辞書が変更されたら、コンパイルし直すこと
+        Files.write(source.toPath(), Arrays.asList("かんじ\t幹事\t10", "かんじ\t漢字\t20"),
+                StandardCharsets.UTF_8);
+        source.setLastModified(source.lastModified() + 2000);
+        assertEquals("幹事", new LocalIME(KanaKanjiDictionary.load(
+                Collections.singletonList(source), compiled)).convert("かんじ"));
+    }
+
+    public void testBenchmark() throws Exception {
+
+        LocalIME ime = new LocalIME(loadBundled());
+        String text = "きょうはいいてんきですね、あしたいっしょにさぎょうしよう";
+
+        for ( int i = 0; i < ITERATIONS; i++ ) {
+            ime.convert(text);
+        }
+
+        long start = System.nanoTime();
+        for ( int i = 0; i < ITERATIONS; i++ ) {
+            ime.convert(text);
+        }
+        long average = (System.nanoTime() - start) / ITERATIONS;
+
+        System.out.println(String.format("LocalIME : %d ns/op", average));
+    }
+
+    private KanaKanjiDictionary loadBundled() throws Exception {
+        File source = new File(folder, LocalIME.DEFAULT_DICTIONARY);
+        try ( InputStream in = getClass().getResourceAsStream("/" + LocalIME.DEFAULT_DICTIONARY) ) {
+            assertNotNull(in);
+            Files.copy(in, source.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return KanaKanjiDictionary.load(
+                Collections.singletonList(source), new File(folder, "localime.dat"));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.japanize;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.lang3.StringUtils;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author ucchy
+ */
+public class YukiKanaConverterTest extends TestCase {
+
+    /** 以前の変換処理（StringUtils.replaceEach）での変換結果 */
+    private static final String GOLDEN = "/japanize/romaji_golden.txt";
+
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+
+    public void testGolden() throws IOException {
+
+        List<String[]> corpus = loadGolden();
+        assertFalse(corpus.isEmpty());
+
+        for ( String[] pair : corpus ) {
+            assertEquals(pair[0], pair[1], YukiKanaConverter.conv(pair[0]));
+        }
+    }
+
+    public void testSameAsReplaceEach() {
+
+        String[] romaji = getRomajiList();
+        String[] hiragana = getHiraganaList();
+
+        Random random = new Random(0);
+        String chars = "aiueokstnhmyrwgzdbpjfvcqlx'-,.?!()[]<>&\" AKN1";
+        for ( int i=0; i<5000; i++ ) {
+            StringBuilder text = new StringBuilder();
+            int length = 1 + random.nextInt(20);
+            for ( int j=0; j<length; j++ ) {
+                text.append(chars.charAt(random.nextInt(chars.length())));
+            }
+            String input = text.toString();
+            assertEquals(input, StringUtils.replaceEach(input, romaji, hiragana),
+                    YukiKanaConverter.conv(input));
+        }
+
+        assertNull(YukiKanaConverter.conv(null));
+        assertEquals("", YukiKanaConverter.conv(""));
+    }
+
+    public void testBenchmark() throws IOException {
+
+        List<String[]> corpus = loadGolden();
+        String[] romaji = getRomajiList();
+        String[] hiragana = getHiraganaList();
+
+        for ( int i=0; i<WARMUP; i++ ) {
+            for ( String[] pair : corpus ) {
+                StringUtils.replaceEach(pair[0], romaji, hiragana);
+                YukiKanaConverter.conv(pair[0]);
+            }
+        }
+
+        long start = System.nanoTime();
+        for ( int i=0; i<ITERATIONS; i++ ) {
+            for ( String[] pair : corpus ) {
+                StringUtils.replaceEach(pair[0], romaji, hiragana);
+            }
+        }
+        long replaceEach = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for ( int i=0; i<ITERATIONS; i++ ) {
+            for ( String[] pair : corpus ) {
+                YukiKanaConverter.conv(pair[0]);
+            }
+        }
+        long trie = System.nanoTime() - start;
+
+        long count = (long)ITERATIONS * corpus.size();
+        System.out.println(String.format(
+                "YukiKanaConverter : replaceEach %d ops/s, trie %d ops/s (x%.1f)",
+                count * 1000000000L / Math.max(replaceEach, 1),
+                count * 1000000000L / Math.max(trie, 1),
+                (double)replaceEach / Math.max(trie, 1)));
+    }
+
+    private static String[] getRomajiList() {
+        return YukiKanaConverter.getTable().keySet().toArray(new String[0]);
+    }
+
+    private static String[] getHiraganaList() {
+        return YukiKanaConverter.getTable().values().toArray(new String[0]);
+    }
+
+    private List<String[]> loadGolden() throws IOException {
+
+        List<String[]> corpus = new ArrayList<String[]>();
+        try ( InputStream in = getClass().getResourceAsStream(GOLDEN) ) {
+            assertNotNull(in);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ( (line = reader.readLine()) != null ) {
+                int tab = line.indexOf('\t');
+                if ( line.startsWith("#") || tab < 0 ) {
+                    continue;
+                }
+                corpus.add(new String[] { line.substring(0, tab), line.substring(tab + 1) });
+            }
+        }
+        return corpus;
+    }
+}
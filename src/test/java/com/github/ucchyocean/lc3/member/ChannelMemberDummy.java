@@ -13,6 +13,23 @@ import net.md_5.bungee.api.chat.BaseComponent;
  */
 public class ChannelMemberDummy extends ChannelMember {
 
+    private String name;
+
+    /**
+     * コンストラクタ
+     */
+    public ChannelMemberDummy() {
+        this("ucchy");
+    }
+
+    /**
+     * コンストラクタ
+     * @param name 名前
+     */
+    public ChannelMemberDummy(String name) {
+        this.name = name;
+    }
+
     /**
      * @return
      * @see com.github.ucchyocean.lc3.member.ChannelMember#isOnline()
@@ -28,7 +45,7 @@ public class ChannelMemberDummy extends ChannelMember {
      */
     @Override
     public String getName() {
-        return "ucchy";
+        return name;
     }
 
     /**
@@ -113,7 +130,7 @@ public class ChannelMemberDummy extends ChannelMember {
      */
     @Override
     public String toString() {
-        return "ChannelMemberDummy{name=ucchy}";
+        return "ChannelMemberDummy{name=" + name + "}";
     }
 
     /**
@@ -0,0 +1,105 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.member;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author ucchy
+ */
+public class ChannelMemberRegistryTest extends TestCase {
+
+    private static final int THREADS = 8;
+    private static final int IDS = 200;
+
+    public void testIdentityReuse() {
+
+        final AtomicInteger created = new AtomicInteger();
+        ChannelMemberRegistry<ChannelMemberDummy> registry = createRegistry(created);
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+
+        // 同じUUIDなら、同じインスタンスが返されること
+        ChannelMemberDummy first = registry.get(a);
+        assertSame(first, registry.get(a));
+        assertSame(first, registry.get(UUID.fromString(a.toString())));
+        assertEquals(1, created.get());
+
+        // 違うUUIDなら、別のインスタンスが作成されること
+        ChannelMemberDummy second = registry.get(b);
+        assertNotSame(first, second);
+        assertEquals(2, created.get());
+        assertEquals(2, registry.size());
+    }
+
+    public void testConcurrentLookup() throws Exception {
+
+        final AtomicInteger created = new AtomicInteger();
+        final ChannelMemberRegistry<ChannelMemberDummy> registry = createRegistry(created);
+        final List<UUID> ids = new ArrayList<UUID>();
+        for ( int i = 0; i < IDS; i++ ) {
+            ids.add(UUID.randomUUID());
+        }
+
+        // 複数のスレッドから同時に取得する
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<List<ChannelMemberDummy>>> futures = new ArrayList<Future<List<ChannelMemberDummy>>>();
+        for ( int t = 0; t < THREADS; t++ ) {
+            futures.add(executor.submit(new Callable<List<ChannelMemberDummy>>() {
+                @Override
+                public List<ChannelMemberDummy> call() throws Exception {
+                    start.await();
+                    List<ChannelMemberDummy> result = new ArrayList<ChannelMemberDummy>();
+                    for ( UUID id : ids ) {
+                        result.add(registry.get(id));
+                    }
+                    return result;
+                }
+            }));
+        }
+        start.countDown();
+
+        List<List<ChannelMemberDummy>> results = new ArrayList<List<ChannelMemberDummy>>();
+        for ( Future<List<ChannelMemberDummy>> future : futures ) {
+            results.add(future.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // どのスレッドにも、UUIDごとに同じインスタンスが返され、1回ずつしか作成されないこと
+        for ( int i = 0; i < IDS; i++ ) {
+            ChannelMemberDummy expected = results.get(0).get(i);
+            for ( List<ChannelMemberDummy> result : results ) {
+                assertSame(expected, result.get(i));
+            }
+        }
+        assertEquals(IDS, created.get());
+        assertEquals(IDS, registry.size());
+    }
+
+    private static ChannelMemberRegistry<ChannelMemberDummy> createRegistry(final AtomicInteger created) {
+        return new ChannelMemberRegistry<ChannelMemberDummy>(new Function<UUID, ChannelMemberDummy>() {
+            @Override
+            public ChannelMemberDummy apply(UUID id) {
+                created.incrementAndGet();
+                return new ChannelMemberDummy(id.toString());
+            }
+        });
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.messaging;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.github.ucchyocean.lc3.util.ByteReader;
+import com.github.ucchyocean.lc3.util.ByteWriter;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author ucchy
+ */
+public class MessageBusTest extends TestCase {
+
+    private static final Executor DIRECT = new Executor() {
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    public void testLoopback() throws Exception {
+
+        LoopbackReplicationTransport.Hub hub = new LoopbackReplicationTransport.Hub();
+        Collector collector1 = new Collector(0);
+        Collector collector2 = new Collector(0);
+        MessageBus bus1 = new MessageBus(new LoopbackReplicationTransport(hub), DIRECT, collector1);
+        MessageBus bus2 = new MessageBus(new LoopbackReplicationTransport(hub), DIRECT, collector2);
+        bus1.start();
+        bus2.start();
+
+        for ( int i = 0; i < 100; i++ ) {
+            bus1.publish(1, record("message " + i));
+        }
+
+        // 送信元には届かず、送信先には順番どおりに届くこと
+        assertTrue(collector1.values.isEmpty());
+        assertEquals(100, collector2.values.size());
+        for ( int i = 0; i < 100; i++ ) {
+            assertEquals("message " + i, collector2.values.get(i));
+        }
+        assertEquals(100, bus2.getReceivedCount());
+
+        bus1.stop();
+        bus2.stop();
+        bus1.publish(1, record("after stop"));
+        assertEquals(100, collector2.values.size());
+    }
+
+    public void testBatchingAndDuplicates() throws Exception {
+
+        final List<byte[]> frames = new ArrayList<byte[]>();
+        ReplicationTransport capture = new ReplicationTransport() {
+            public void start(Receiver receiver) {
+            }
+            public void send(byte[] frame) {
+                frames.add(frame);
+            }
+            public void stop() {
+            }
+        };
+
+        // 送信処理を止めておき、その間に発行したレコードが1つのフレームにまとまること
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        Executor deferred = new Executor() {
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        };
+        MessageBus sender = new MessageBus(capture, deferred, new Collector(0));
+        sender.start();
+        for ( int i = 0; i < 10; i++ ) {
+            sender.publish(1, record("batched " + i));
+        }
+        assertEquals(1, tasks.size());
+        tasks.get(0).run();
+        assertEquals(1, frames.size());
+        sender.publish(1, record("next"));
+        tasks.get(1).run();
+        assertEquals(2, frames.size());
+
+        // 同じフレームを再送しても、1回しか処理されないこと
+        Collector collector = new Collector(0);
+        MessageBus receiver = new MessageBus(capture, DIRECT, collector);
+        receiver.receive(frames.get(0));
+        receiver.receive(frames.get(0));
+        receiver.receive(frames.get(1));
+        receiver.receive(frames.get(1));
+        assertEquals(11, collector.values.size());
+        assertEquals("batched 9", collector.values.get(9));
+        assertEquals("next", collector.values.get(10));
+        assertEquals(11, receiver.getDuplicateCount());
+
+        // 連番が飛んだら数えること、壊れたフレームは捨てること
+        Collector skipped = new Collector(0);
+        MessageBus other = new MessageBus(capture, DIRECT, skipped);
+        other.receive(frames.get(1));
+        assertEquals(Collections.singletonList("next"), skipped.values);
+        assertEquals(10, other.getMissingCount());
+        other.receive(new byte[] { 1, 2, 3 });
+        assertEquals(1, other.getMalformedCount());
+    }
+
+    public void testTcp() throws Exception {
+
+        int count = 2000;
+        Collector collector = new Collector(count);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        TcpReplicationTransport server = new TcpReplicationTransport(
+                "127.0.0.1", 0, new ArrayList<InetSocketAddress>(), "secret");
+        MessageBus receiver = new MessageBus(server, executor, collector);
+        receiver.start();
+
+        // 合言葉が違う相手からは受信しないこと
+        TcpReplicationTransport wrong = new TcpReplicationTransport("127.0.0.1", 0,
+                Collections.singletonList(new InetSocketAddress("127.0.0.1", server.getLocalPort())), "wrong");
+        MessageBus intruder = new MessageBus(wrong, executor, new Collector(0));
+        intruder.start();
+        intruder.publish(1, record("intruder"));
+
+        TcpReplicationTransport client = new TcpReplicationTransport("127.0.0.1", 0,
+                Collections.singletonList(new InetSocketAddress("127.0.0.1", server.getLocalPort())), "secret");
+        MessageBus sender = new MessageBus(client, executor, new Collector(0));
+        sender.start();
+
+        long start = System.nanoTime();
+        for ( int i = 0; i < count; i++ ) {
+            sender.publish(1, record("tcp " + i));
+        }
+        assertTrue(collector.latch.await(10, TimeUnit.SECONDS));
+        long elapsed = System.nanoTime() - start;
+
+        for ( int i = 0; i < count; i++ ) {
+            assertEquals("tcp " + i, collector.values.get(i));
+        }
+        assertEquals(count, collector.values.size());
+
+        // 1件だけ送ったときの、受信までの時間
+        Collector single = new Collector(1);
+        collector.next = single;
+        long begin = System.nanoTime();
+        sender.publish(1, record("single"));
+        assertTrue(single.latch.await(5, TimeUnit.SECONDS));
+        long latency = System.nanoTime() - begin;
+
+        System.out.println(String.format(
+                "MessageBus(TCP) : %d records in %.1f ms, %d frames, single record latency %.2f ms",
+                count, elapsed / 1000000.0, sender.getSentFrameCount(), latency / 1000000.0));
+
+        // 合言葉をそのまま送ってきた相手は、切断すること
+        try ( Socket socket = new Socket("127.0.0.1", server.getLocalPort()) ) {
+            socket.setSoTimeout(5000);
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            in.readInt();
+            in.readFully(new byte[32]);
+            out.writeInt(0x4C435252);
+            byte[] plain = new byte[32];
+            byte[] secret = "secret".getBytes(StandardCharsets.UTF_8);
+            System.arraycopy(secret, 0, plain, 0, secret.length);
+            out.write(plain);
+            out.flush();
+            assertEquals(-1, in.read());
+        }
+
+        sender.stop();
+        intruder.stop();
+        receiver.stop();
+        executor.shutdown();
+    }
+
+    private static ByteWriter record(String value) {
+        ByteWriter out = new ByteWriter(32);
+        out.writeString(value);
+        return out;
+    }
+
+    private static class Collector implements MessageBus.Handler {
+
+        private final List<String> values = Collections.synchronizedList(new ArrayList<String>());
+        private final CountDownLatch latch;
+        private volatile Collector next;
+
+        private Collector(int count) {
+            latch = new CountDownLatch(count);
+        }
+
+        public void handle(int type, ByteReader data) {
+            if ( next != null ) {
+                next.handle(type, data);
+                return;
+            }
+            values.add(data.readString());
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.messaging;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import com.github.ucchyocean.lc3.member.ChannelMemberOther;
+import com.github.ucchyocean.lc3.util.BlockLocation;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author ucchy
+ */
+public class PluginMessageCodecTest extends TestCase {
+
+    public void testRoundTrip() {
+
+        String id = UUID.randomUUID().toString();
+        BukkitChatMessage full = new BukkitChatMessage(new ChannelMemberOther(
+                "ucchy", "&aうっちー", "[Admin]", "さふぃっくす",
+                new BlockLocation("world_nether", -1234, 64, 987654), id), "こんにちは world");
+        BukkitChatMessage minimum = new BukkitChatMessage(new ChannelMemberOther(
+                "alice", "alice", "", "", null, null), "");
+        BukkitChatMessage otherId = new BukkitChatMessage(new ChannelMemberOther(
+                "bob", "Bob", "", "", null, "not-a-uuid"), "hi");
+
+        for ( BukkitChatMessage message : Arrays.asList(full, minimum, otherId) ) {
+            List<BukkitChatMessage> decoded = PluginMessageCodec.decode(
+                    PluginMessageCodec.encode(message));
+            assertEquals(1, decoded.size());
+            assertSameMessage(message, decoded.get(0));
+        }
+
+        // 以前のbyte配列変換メソッドからも、同じ形式で変換できること
+        byte[] bytes = full.toByteArray();
+        assertEquals(PluginMessageCodec.MAGIC, bytes[0]);
+        assertEquals(PluginMessageCodec.VERSION, bytes[1]);
+        assertSameMessage(full, BukkitChatMessage.fromByteArray(bytes));
+    }
+
+    public void testMultipleMessages() {
+
+        List<BukkitChatMessage> messages = new ArrayList<BukkitChatMessage>();
+        for ( int i = 0; i < 3; i++ ) {
+            messages.add(new BukkitChatMessage(new ChannelMemberOther(
+                    "player" + i, "Player" + i, "", "", null, UUID.randomUUID().toString()),
+                    "message " + i));
+        }
+
+        List<BukkitChatMessage> decoded = PluginMessageCodec.decode(PluginMessageCodec.encode(messages));
+        assertEquals(3, decoded.size());
+        for ( int i = 0; i < 3; i++ ) {
+            assertSameMessage(messages.get(i), decoded.get(i));
+        }
+    }
+
+    public void testCompression() {
+
+        List<BukkitChatMessage> messages = new ArrayList<BukkitChatMessage>();
+        int raw = 0;
+        for ( int i = 0; i < 50; i++ ) {
+            BukkitChatMessage message = new BukkitChatMessage(new ChannelMemberOther(
+                    "ucchy", "ucchy", "[Admin]", "", new BlockLocation("world", i, 64, -i),
+                    "8a6d9b52-7c7e-4d8f-9c5a-0f7e6b3d2a11"), "repeated chat line number " + i);
+            messages.add(message);
+            raw += PluginMessageCodec.encode(message).length;
+        }
+
+        byte[] bytes = PluginMessageCodec.encode(messages);
+        assertTrue(bytes.length < raw / 3);
+
+        List<BukkitChatMessage> decoded = PluginMessageCodec.decode(bytes);
+        assertEquals(50, decoded.size());
+        for ( int i = 0; i < 50; i++ ) {
+            assertSameMessage(messages.get(i), decoded.get(i));
+        }
+
+        // 小さいメッセージは圧縮しないこと
+        byte[] small = PluginMessageCodec.encode(messages.get(0));
+        assertEquals(0, small[2]);
+    }
+
+    public void testLegacyCompatibility() {
+
+        BukkitChatMessage message = new BukkitChatMessage(new ChannelMemberOther(
+                "てすと", "表示名", "ぷれふぃっくす", "さふぃっくす",
+                new BlockLocation("world", 1, 2, 3), UUID.randomUUID().toString()), "chat message");
+
+        // 以前の形式のパケットを読み込めること
+        byte[] legacy = message.toLegacyByteArray();
+        assertEquals(0, legacy[0]);
+        List<BukkitChatMessage> decoded = PluginMessageCodec.decode(legacy);
+        assertEquals(1, decoded.size());
+        assertSameMessage(message, decoded.get(0));
+
+        // 新しい形式の方が小さいこと
+        byte[] bytes = PluginMessageCodec.encode(message);
+        System.out.println(String.format("PluginMessageCodec : legacy %d bytes, v%d %d bytes",
+                legacy.length, PluginMessageCodec.VERSION, bytes.length));
+        assertTrue(bytes.length < legacy.length);
+    }
+
+    public void testMalformed() {
+
+        byte[] bytes = PluginMessageCodec.encode(new BukkitChatMessage(
+                new ChannelMemberOther("ucchy"), "hello"));
+
+        // 途中で切れたパケットは、空として扱うこと
+        for ( int length = 1; length < bytes.length; length++ ) {
+            assertTrue(PluginMessageCodec.decode(Arrays.copyOf(bytes, length)).isEmpty());
+        }
+
+        // 知らないバージョンは、空として扱うこと
+        byte[] future = bytes.clone();
+        future[1] = (byte)(PluginMessageCodec.VERSION + 1);
+        assertTrue(PluginMessageCodec.decode(future).isEmpty());
+
+        // 圧縮後の長さが負の値になっているパケットは、空として扱うこと
+        byte[] negative = new byte[] { PluginMessageCodec.MAGIC, PluginMessageCodec.VERSION, 0x01,
+                (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, 0x0F, 0x00 };
+        assertTrue(PluginMessageCodec.decode(negative).isEmpty());
+
+        assertTrue(PluginMessageCodec.decode(new byte[0]).isEmpty());
+        assertTrue(PluginMessageCodec.decode(null).isEmpty());
+    }
+
+    private static void assertSameMessage(BukkitChatMessage expected, BukkitChatMessage actual) {
+        assertEquals(expected.getMember().toString(), actual.getMember().toString());
+        assertEquals(expected.getMessage(), actual.getMessage());
+    }
+}
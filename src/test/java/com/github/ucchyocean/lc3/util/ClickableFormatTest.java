@@ -25,6 +25,7 @@ public class ClickableFormatTest extends TestCase {
 
     private static final String DATA_FOLDER = "target" + File.separator + "LunaChatTest";
     private static final String MESSAGES_FOLDER = "target" + File.separator + "classes";
+    private static final int MAX = 100000;
 
     public void testChannelChatKeyword() {
 
@@ -78,6 +79,73 @@ public class ClickableFormatTest extends TestCase {
 //        assertTrue(f.toLegacyText().equals(makeLegacyText(comps)));
     }
 
+    public void testBenchmark() {
+
+        File dataFolder = new File(DATA_FOLDER);
+        if ( !dataFolder.exists() ) {
+            dataFolder.mkdirs();
+        }
+
+        LunaChatStandalone lunachat = new LunaChatStandalone(dataFolder);
+        lunachat.onEnable();
+
+        Messages.initialize(new File(MESSAGES_FOLDER), null, "ja");
+
+        String format = "&f[%color%ch&f]%prefix%displayname%suffix&7(%world)&a:&f %msg";
+        ChannelMember member = new ChannelMemberDummy();
+        Channel channel = new StandaloneChannel("r");
+
+        // 変更前（KeywordReplacerによる逐次置き換え）
+        long start = System.currentTimeMillis();
+        String result1 = null;
+        for ( int i=0; i<MAX; i++ ) {
+            result1 = makeFormatByKeywordReplacer(format, member, channel);
+        }
+        long time1 = System.currentTimeMillis() - start;
+        System.out.println("KeywordReplacer time = " + time1);
+
+        // 変更後（コンパイル済みフォーマット）
+        ChatFormatTemplate template = ChatFormatTemplate.compile(format, true);
+        start = System.currentTimeMillis();
+        String result2 = null;
+        for ( int i=0; i<MAX; i++ ) {
+            result2 = template.render(member, channel, true).toString();
+        }
+        long time2 = System.currentTimeMillis() - start;
+        System.out.println("ChatFormatTemplate time = " + time2);
+
+        assertTrue(result1.equals(result2));
+    }
+
+    /**
+     * 以前の実装と同じ手順で、フォーマットのキーワードを置き換える
+     */
+    private static String makeFormatByKeywordReplacer(String format, ChannelMember member, Channel channel) {
+
+        String placeholder = "＜type=%s text=\"%s\" hover=\"%s\" command=\"%s\"＞";
+
+        KeywordReplacer msg = new KeywordReplacer(format);
+        msg.replace("%ch", String.format(placeholder, "RUN_COMMAND",
+                channel.getName(), Messages.hoverChannelName(channel.getName()),
+                "/lunachat join " + channel.getName()));
+        msg.replace("%color", channel.getColorCode());
+        String playerPMPlaceHolder = String.format(placeholder, "SUGGEST_COMMAND",
+                member.getDisplayName(), Messages.hoverPlayerName(member.getName()),
+                "/tell " + member.getName());
+        msg.replace("%displayname", playerPMPlaceHolder);
+        msg.replace("%username", playerPMPlaceHolder);
+        msg.replace("%player", String.format(placeholder, "SUGGEST_COMMAND",
+                member.getName(), Messages.hoverPlayerName(member.getName()),
+                "/tell " + member.getName()));
+        if ( msg.contains("%prefix") || msg.contains("%suffix") ) {
+            msg.replace("%prefix", member.getPrefix());
+            msg.replace("%suffix", member.getSuffix());
+        }
+        msg.replace("%world", member.getWorldName());
+        msg.replace("%server", member.getServerName());
+        return msg.toString();
+    }
+
     private static String makeLegacyText(BaseComponent[] comps) {
         StringBuilder builder = new StringBuilder();
         for ( BaseComponent comp : comps ) {
@@ -0,0 +1,49 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.util;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author ucchy
+ */
+public class MessageTemplateTest extends TestCase {
+
+    public void testToText() {
+
+        MessageTemplate template = MessageTemplate.compile("&c[LC] ",
+                "&e%player% joined %channel%. (%player%, %playerName%)", "player", "playerName", "channel");
+        assertFalse(template.isEmpty());
+        assertEquals("§c[LC] §eucchy joined global. (ucchy, ucchy2)",
+                template.toText("ucchy", "ucchy2", "global"));
+
+        // 引数のカラーコードは置き換えられ、プレフィックスのキーワードは置き換えられないこと
+        assertEquals("%player%§a&z",
+                MessageTemplate.compile("%player%", "%player%", "player").toText("&a&z"));
+
+        // 名前の分からないキーワードは、そのまま残ること
+        assertEquals("100% %unknown%",
+                MessageTemplate.compile("", "%rate%% %unknown%", "rate").toText(100));
+    }
+
+    public void testEmpty() {
+
+        assertSame(MessageTemplate.EMPTY, MessageTemplate.compile("&c[LC] ", null, "player"));
+        assertSame(MessageTemplate.EMPTY, MessageTemplate.compileClickable(null, "channel"));
+        assertTrue(MessageTemplate.EMPTY.isEmpty());
+        assertEquals("", MessageTemplate.EMPTY.toText("ucchy"));
+        assertTrue(MessageTemplate.compile("", "").isEmpty());
+    }
+
+    public void testClickableToText() {
+
+        MessageTemplate template = MessageTemplate.compileClickable(
+                "&a%channel% ＜type=RUN_COMMAND text=\"&b[Join]\" hover=\"&ajoin\" command=\"/ch join\"＞",
+                "channel");
+        assertEquals("§aglobal §b[Join]", template.toText("global"));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author ucchy
+ */
+public class NGWordFilterTest extends TestCase {
+
+    private static final int WORDS = 900;
+    private static final int MESSAGES = 10000;
+
+    public void testMask() {
+
+        NGWordFilter filter = new NGWordFilter(Arrays.asList(
+                "hoge", "ogefu", "ba+r", "(\\w)\\1{3}", "てすと"));
+
+        NGWordFilter.Result result = filter.filter("hogefuga baaar xxxxy てすとです");
+        assertTrue(result.isMatched());
+        assertEquals("******ga ***** ****y ***です", result.getMessage());
+
+        result = filter.filter("nothing here");
+        assertFalse(result.isMatched());
+        assertEquals("nothing here", result.getMessage());
+
+        assertTrue(filter.containsNGWord("foo bar"));
+        assertFalse(filter.containsNGWord("foo ba"));
+
+        filter = new NGWordFilter(Arrays.asList("colou?r", "(?i)ngword"));
+        assertEquals("***** ****** ******", filter.mask("color colour NGWord"));
+    }
+
+    public void testCombinedPatterns() {
+
+        // 先頭に固定文字列が無い正規表現は連結されるが、結果はNGワードごとに検索した場合と同じになること
+        List<String> words = Arrays.asList(
+                "[0-9]+x", "x[a-z]+", "[a-z]y+", "(?<n>[A-Z])[a-z]", "^[!?]+", "\\d{2}(?=z)", "(.)\\1");
+        String[] messages = {
+                "123xyz abc", "Hello World", "!?start 12z 345z", "yyy xy x", "aab 77z", "", "nothing" };
+        NGWordFilter filter = new NGWordFilter(words);
+        for ( String message : messages ) {
+            assertEquals(message, maskEach(words, message), filter.mask(message));
+        }
+
+        // 同じ名前のグループが複数あって連結できない場合も、正しく検索できること
+        words = Arrays.asList("(?<n>[0-9])x", "(?<n>[a-z])9");
+        filter = new NGWordFilter(words);
+        assertEquals("** ** abc", filter.mask("1x a9 abc"));
+    }
+
+    /**
+     * NGワードごとに検索して、見つかった範囲をすべてマスクする
+     */
+    private static String maskEach(List<String> words, String message) {
+        char[] masked = message.toCharArray();
+        for ( String word : words ) {
+            Matcher matcher = Pattern.compile(word).matcher(message);
+            while ( matcher.find() ) {
+                for ( int i = matcher.start(); i < matcher.end(); i++ ) {
+                    masked[i] = '*';
+                }
+            }
+        }
+        return new String(masked);
+    }
+
+    public void testBenchmark() {
+
+        List<String> words = new ArrayList<String>();
+        for ( int i=0; i<WORDS; i++ ) {
+            words.add((i % 10 == 0) ? "ng" + i + "[a-z]+" : "ngword" + i + "_");
+        }
+        String message = "this is a normal chat message, includes ngword899_ and ng10abc.";
+
+        // 変更前（パターンごとに検索）
+        List<Pattern> compiled = new ArrayList<Pattern>();
+        for ( String word : words ) {
+            compiled.add(Pattern.compile(word));
+        }
+        long start = System.currentTimeMillis();
+        String result1 = null;
+        for ( int i=0; i<MESSAGES; i++ ) {
+            result1 = message;
+            for ( Pattern pattern : compiled ) {
+                Matcher matcher = pattern.matcher(result1);
+                if ( matcher.find() ) {
+                    result1 = matcher.replaceAll(
+                            Utility.getAstariskString(matcher.group(0).length()));
+                }
+            }
+        }
+        long time1 = System.currentTimeMillis() - start;
+        System.out.println("words = " + WORDS + ", Pattern loop time = " + time1);
+
+        // 変更後（NGWordFilter）
+        NGWordFilter filter = new NGWordFilter(words);
+        start = System.currentTimeMillis();
+        String result2 = null;
+        for ( int i=0; i<MESSAGES; i++ ) {
+            result2 = filter.mask(message);
+        }
+        long time2 = System.currentTimeMillis() - start;
+        System.out.println("words = " + WORDS + ", NGWordFilter time = " + time2);
+
+        assertEquals(result1, result2);
+    }
+}
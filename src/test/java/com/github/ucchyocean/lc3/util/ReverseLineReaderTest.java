@@ -0,0 +1,75 @@
+/*
+ * @author     ucchy
+ * @license    LGPLv3
+ * @copyright  Copyright ucchy 2020
+ */
+package com.github.ucchyocean.lc3.util;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author ucchy
+ */
+public class ReverseLineReaderTest extends TestCase {
+
+    private File file;
+
+    @Override
+    protected void setUp() throws Exception {
+        file = File.createTempFile("lunachat", ".log");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        file.delete();
+    }
+
+    public void testReadLine() throws Exception {
+
+        // ブロックの境界をまたぐ行や、マルチバイト文字を含む行を用意する
+        List<String> expected = new ArrayList<String>();
+        StringBuilder content = new StringBuilder();
+        for ( int i=0; i<3000; i++ ) {
+            String line = "2020-01-01 00:00:00,発言" + i + ",player" + (i % 7);
+            expected.add(line);
+            content.append(line).append("\r\n");
+        }
+        Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<String> actual = new ArrayList<String>();
+        try ( ReverseLineReader reader = new ReverseLineReader(file) ) {
+            String line;
+            while ( (line = reader.readLine()) != null ) {
+                actual.add(line);
+            }
+        }
+
+        Collections.reverse(expected);
+        assertEquals(expected, actual);
+    }
+
+    public void testLineOffset() throws Exception {
+
+        Files.write(file.toPath(), "a\nbb\n\nccc".getBytes(StandardCharsets.UTF_8));
+
+        try ( ReverseLineReader reader = new ReverseLineReader(file) ) {
+            assertEquals("ccc", reader.readLine());
+            assertEquals(6, reader.getLineOffset());
+            assertEquals("", reader.readLine());
+            assertEquals(5, reader.getLineOffset());
+            assertEquals("bb", reader.readLine());
+            assertEquals(2, reader.getLineOffset());
+            assertEquals("a", reader.readLine());
+            assertEquals(0, reader.getLineOffset());
+            assertNull(reader.readLine());
+        }
+    }
+}